@@ -40,6 +40,9 @@ public class CacheHealthMonitor {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
     @Autowired
     private CacheConsistencyManager consistencyManager;
 
@@ -209,18 +212,14 @@ public class CacheHealthMonitor {
      */
     private void checkPatternBasedCache(String pattern) {
         try {
-            // Convert pattern to Redis key pattern (e.g., inventory:* -> inventory:*)
-            Set<String> matchingKeys = redisTemplate.keys(pattern);
+            // Sample matching keys with SCAN, stopping after 5 keys per pattern
+            Set<String> matchingKeys = redisKeyScanner.sample(pattern, 5);
 
-            if (matchingKeys != null && !matchingKeys.isEmpty()) {
-                // Check a sample of matching keys
-                int checkedCount = 0;
+            if (!matchingKeys.isEmpty()) {
                 for (String key : matchingKeys) {
-                    if (checkedCount >= 5) break; // Limit to 5 keys per pattern
                     checkCacheHealth(key, true);
-                    checkedCount++;
                 }
-                log.debug("Pattern '{}' health check: {} keys found", pattern, matchingKeys.size());
+                log.debug("Pattern '{}' health check: {} keys sampled", pattern, matchingKeys.size());
             } else {
                 // No keys found for pattern - this is OK, just log debug
                 log.debug("Pattern '{}' health check: no keys found (normal for unused patterns)", pattern);
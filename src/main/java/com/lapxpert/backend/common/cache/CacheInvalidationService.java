@@ -4,7 +4,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -23,8 +22,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class CacheInvalidationService {
 
     private final CacheManager cacheManager;
-    private final RedisTemplate<String, Object> redisTemplate;
     private final CacheWarmingService cacheWarmingService;
+    private final CacheTagService cacheTagService;
+    private final RedisKeyScanner redisKeyScanner;
 
     private final AtomicInteger invalidationCount = new AtomicInteger(0);
     private Instant lastInvalidationTime = null;
@@ -142,17 +142,17 @@ public class CacheInvalidationService {
     // ==================== PATTERN-BASED INVALIDATION ====================
 
     /**
-     * Invalidate caches by pattern using Redis keys command
+     * Invalidate caches by pattern using cursor-based SCAN and batched UNLINK
+     * Prefer tag-based invalidation (invalidateTagged), which never enumerates the keyspace
      * @param pattern Redis key pattern (e.g., "product:*")
      */
     public void invalidateByPattern(String pattern) {
         try {
             log.debug("Invalidating caches by pattern: {}", pattern);
             
-            Set<String> keys = redisTemplate.keys(pattern);
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.debug("Invalidated {} cache entries matching pattern: {}", keys.size(), pattern);
+            long removed = redisKeyScanner.unlinkByPattern(pattern);
+            if (removed > 0) {
+                log.debug("Invalidated {} cache entries matching pattern: {}", removed, pattern);
                 updateInvalidationStats();
             } else {
                 log.debug("No cache entries found for pattern: {}", pattern);
@@ -164,6 +164,24 @@ public class CacheInvalidationService {
         }
     }
 
+    // ==================== TAG-BASED INVALIDATION ====================
+
+    /**
+     * Invalidate only the cache entries built from the given entities
+     * @param tags entity tags (see CacheTagService.variantTag/productTag/userTag)
+     */
+    public void invalidateTagged(Collection<String> tags) {
+        try {
+            int evicted = cacheTagService.evictTagged(tags);
+            if (evicted > 0) {
+                updateInvalidationStats();
+            }
+        } catch (Exception e) {
+            log.error("Error invalidating cache entries tagged {}", tags, e);
+            throw new RuntimeException("Tag-based invalidation failed", e);
+        }
+    }
+
     // ==================== SERVICE-SPECIFIC INVALIDATION ====================
 
     /**
@@ -178,9 +196,10 @@ public class CacheInvalidationService {
             invalidateCache("sanPhamList");
             invalidateCache("activeSanPhamList");
             
-            // Invalidate specific product rating if productId provided
+            // Invalidate specific product rating and entries built from this product if productId provided
             if (productId != null) {
                 invalidateCacheEntry("productRatings", productId);
+                invalidateTagged(Set.of(CacheTagService.productTag(productId)));
             }
             
             // Invalidate search results that might contain this product
@@ -227,9 +246,8 @@ public class CacheInvalidationService {
      */
     public CacheTtlInfo getCacheTtlInfo(String cacheName) {
         try {
-            // For Redis-based caches, we can check TTL using Redis commands
-            Set<String> keys = redisTemplate.keys(cacheName + ":*");
-            int totalKeys = keys != null ? keys.size() : 0;
+            // For Redis-based caches, count entries with SCAN (never KEYS)
+            int totalKeys = (int) redisKeyScanner.count(cacheName + ":*");
             
             return new CacheTtlInfo(cacheName, totalKeys, Instant.now());
             
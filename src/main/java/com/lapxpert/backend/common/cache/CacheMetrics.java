@@ -0,0 +1,131 @@
+package com.lapxpert.backend.common.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation for the application caches.
+ *
+ * Meters follow the Micrometer cache conventions and are tagged with the cache name:
+ * cache.gets (result=hit|miss), cache.puts, cache.evictions, cache.load (loader latency, with a histogram)
+ * and cache.value.size (serialized bytes written to Redis). Reads are also fed to HotKeyTracker.
+ */
+@Component
+public class CacheMetrics {
+
+    /**
+     * Caches below this hit ratio after MIN_GETS_FOR_RATIO reads are reported as ineffective
+     */
+    static final double LOW_HIT_RATIO = 0.2;
+    static final long MIN_GETS_FOR_RATIO = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final HotKeyTracker hotKeyTracker;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public CacheMetrics(MeterRegistry meterRegistry, HotKeyTracker hotKeyTracker) {
+        this.meterRegistry = meterRegistry;
+        this.hotKeyTracker = hotKeyTracker;
+    }
+
+    /**
+     * Per-cache counters since startup
+     */
+    public record CacheStats(long hits, long misses, long puts, long evictions, long loads,
+                             double meanLoadMillis, double maxLoadMillis, double meanValueBytes) {
+
+        @JsonProperty("hitRatio")
+        public double hitRatio() {
+            long gets = hits + misses;
+            return gets == 0 ? 0.0 : (double) hits / gets;
+        }
+
+        public boolean ineffective() {
+            return hits + misses >= MIN_GETS_FOR_RATIO && hitRatio() < LOW_HIT_RATIO;
+        }
+    }
+
+    private record Meters(Counter hits, Counter misses, Counter puts, Counter evictions,
+                          Timer load, DistributionSummary valueSize) {
+    }
+
+    public void recordGet(String cacheName, Object key, boolean hit) {
+        Meters cacheMeters = meters(cacheName);
+        (hit ? cacheMeters.hits() : cacheMeters.misses()).increment();
+        hotKeyTracker.record(cacheName, key);
+    }
+
+    public void recordPut(String cacheName) {
+        meters(cacheName).puts().increment();
+    }
+
+    public void recordEviction(String cacheName) {
+        meters(cacheName).evictions().increment();
+    }
+
+    public void recordValueSize(String cacheName, int bytes) {
+        meters(cacheName).valueSize().record(bytes);
+    }
+
+    /**
+     * Run a cache loader and record its latency
+     */
+    public <T> T recordLoad(String cacheName, Callable<T> loader) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return loader.call();
+        } finally {
+            recordLoadTime(cacheName, System.nanoTime() - start);
+        }
+    }
+
+    public void recordLoadTime(String cacheName, long nanos) {
+        meters(cacheName).load().record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Snapshot of every instrumented cache, by name
+     */
+    public Map<String, CacheStats> getStatistics() {
+        Map<String, CacheStats> statistics = new TreeMap<>();
+        meters.forEach((name, cacheMeters) -> statistics.put(name, new CacheStats(
+                (long) cacheMeters.hits().count(),
+                (long) cacheMeters.misses().count(),
+                (long) cacheMeters.puts().count(),
+                (long) cacheMeters.evictions().count(),
+                cacheMeters.load().count(),
+                cacheMeters.load().mean(TimeUnit.MILLISECONDS),
+                cacheMeters.load().max(TimeUnit.MILLISECONDS),
+                cacheMeters.valueSize().mean())));
+        return statistics;
+    }
+
+    private Meters meters(String cacheName) {
+        return meters.computeIfAbsent(cacheName, name -> new Meters(
+                Counter.builder("cache.gets").tag("cache", name).tag("result", "hit")
+                        .description("Cache reads that found a value").register(meterRegistry),
+                Counter.builder("cache.gets").tag("cache", name).tag("result", "miss")
+                        .description("Cache reads that found no value").register(meterRegistry),
+                Counter.builder("cache.puts").tag("cache", name)
+                        .description("Values written to the cache").register(meterRegistry),
+                Counter.builder("cache.evictions").tag("cache", name)
+                        .description("Keys evicted from the cache").register(meterRegistry),
+                Timer.builder("cache.load").tag("cache", name)
+                        .description("Time spent loading missing values")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                DistributionSummary.builder("cache.value.size").tag("cache", name).baseUnit("bytes")
+                        .description("Serialized size of values written to Redis")
+                        .register(meterRegistry)));
+    }
+}
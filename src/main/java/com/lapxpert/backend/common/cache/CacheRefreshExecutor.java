@@ -0,0 +1,95 @@
+package com.lapxpert.backend.common.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small background executor for early cache refreshes (see EarlyRefreshEntry).
+ *
+ * At most one refresh per key is queued at a time, refreshes run in a read-only transaction like the
+ * {@code @Transactional(readOnly = true)} loaders they replace, and a full queue drops the refresh:
+ * the entry is still served and simply expires normally.
+ */
+@Component
+@Slf4j
+public class CacheRefreshExecutor {
+
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 1000;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+
+    public CacheRefreshExecutor(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Refresh counters
+     */
+    public record Stats(long submitted, long failed, long rejected, int queued) {
+    }
+
+    /**
+     * Queue a refresh unless one for the same key is already pending
+     * @return true if the refresh was queued
+     */
+    public boolean submit(String key, Runnable refresh) {
+        if (!pendingKeys.add(key)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    readOnlyTransaction.executeWithoutResult(status -> refresh.run());
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    log.warn("Early refresh of {} failed: {}", key, e.getMessage());
+                } finally {
+                    pendingKeys.remove(key);
+                }
+            });
+            submitted.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            pendingKeys.remove(key);
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(submitted.get(), failed.get(), rejected.get(), executor.getQueue().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
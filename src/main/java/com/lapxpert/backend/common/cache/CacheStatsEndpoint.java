@@ -0,0 +1,63 @@
+package com.lapxpert.backend.common.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint with per-cache statistics and the hottest keys ({@code /actuator/cachestats}).
+ *
+ * Complements the cache.* Micrometer meters with a single view for tuning CacheTtlConstants: hit ratios and
+ * load times per cache, caches whose hit ratio is too low to be worth their memory, near cache hit rates,
+ * coalesced loads and early refreshes. {@code /actuator/cachestats/{cacheName}} lists the hot keys of one cache.
+ */
+@Component
+@Endpoint(id = "cachestats")
+@RequiredArgsConstructor
+public class CacheStatsEndpoint {
+
+    private final CacheMetrics cacheMetrics;
+    private final HotKeyTracker hotKeyTracker;
+    private final CacheManager cacheManager;
+    private final SingleFlight singleFlight;
+    private final CacheRefreshExecutor cacheRefreshExecutor;
+
+    /**
+     * Cache report
+     * @param ineffectiveCaches caches read often enough to judge but hit too rarely to pay off
+     */
+    public record CacheReport(Map<String, CacheMetrics.CacheStats> caches,
+                              List<String> ineffectiveCaches,
+                              Map<String, TwoLevelCache.Stats> nearCaches,
+                              SingleFlight.Stats singleFlight,
+                              CacheRefreshExecutor.Stats earlyRefresh,
+                              List<HotKeyTracker.HotKey> hotKeys) {
+    }
+
+    @ReadOperation
+    public CacheReport report() {
+        Map<String, CacheMetrics.CacheStats> caches = cacheMetrics.getStatistics();
+        List<String> ineffectiveCaches = caches.entrySet().stream()
+                .filter(entry -> entry.getValue().ineffective())
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<String, TwoLevelCache.Stats> nearCaches = cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager
+                ? twoLevelCacheManager.getStatistics() : Map.of();
+
+        return new CacheReport(caches, ineffectiveCaches, nearCaches, singleFlight.getStats(),
+                cacheRefreshExecutor.getStats(), hotKeyTracker.getHotKeys());
+    }
+
+    @ReadOperation
+    public List<HotKeyTracker.HotKey> hotKeys(@Selector String cacheName) {
+        return hotKeyTracker.getHotKeys().stream()
+                .filter(hotKey -> hotKey.cache().equals(cacheName))
+                .toList();
+    }
+}
@@ -0,0 +1,125 @@
+package com.lapxpert.backend.common.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dependency-tracked cache invalidation.
+ *
+ * A cache entry registers the entities it was built from as tags ("variant:12", "product:3", "user:7").
+ * Each tag is a Redis set of "cacheName::key" members, so a write to one variant, product or user
+ * evicts exactly the entries built from it instead of clearing the whole cache with allEntries = true.
+ *
+ * Tags are registered while the cached method runs, i.e. just before Spring stores its result;
+ * an eviction landing in that window leaves one stale entry until its TTL expires.
+ * Over-tagging is harmless (it only evicts more), a missing tag is not.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheTagService {
+
+    private static final String TAG_KEY_PREFIX = "cache:tag:";
+    private static final String MEMBER_SEPARATOR = "::";
+
+    private final CacheManager cacheManager;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    // ==================== TAGS ====================
+
+    public static String variantTag(Long sanPhamChiTietId) {
+        return "variant:" + sanPhamChiTietId;
+    }
+
+    public static String productTag(Long sanPhamId) {
+        return "product:" + sanPhamId;
+    }
+
+    public static String userTag(Long nguoiDungId) {
+        return "user:" + nguoiDungId;
+    }
+
+    // ==================== REGISTRATION ====================
+
+    /**
+     * Register the tags a cache entry depends on
+     * @param cacheName cache holding the entry
+     * @param key cache key of the entry (String keys only, as stored by the Redis cache)
+     * @param tags tags of the entities the entry was built from
+     */
+    public void tag(String cacheName, String key, Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        String member = cacheName + MEMBER_SEPARATOR + key;
+        try {
+            for (String tag : new LinkedHashSet<>(tags)) {
+                String tagKey = TAG_KEY_PREFIX + tag;
+                redisTemplate.opsForSet().add(tagKey, member);
+                redisTemplate.expire(tagKey, CacheTtlConstants.TAG_INDEX_TTL);
+            }
+        } catch (Exception e) {
+            // Cache data lives in the same Redis, so a failure here means the entry is not stored either
+            log.warn("Failed to register cache tags {} for {}: {}", tags, member, e.getMessage());
+        }
+    }
+
+    // ==================== EVICTION ====================
+
+    /**
+     * Evict every cache entry tagged with the given tag
+     * @return number of entries evicted
+     */
+    public int evictTagged(String tag) {
+        return evictTagged(List.of(tag));
+    }
+
+    /**
+     * Evict every cache entry tagged with any of the given tags
+     * @return number of entries evicted
+     */
+    public int evictTagged(Collection<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> members = new LinkedHashSet<>();
+        for (String tag : tags) {
+            String tagKey = TAG_KEY_PREFIX + tag;
+            try {
+                Set<String> tagged = redisTemplate.opsForSet().members(tagKey);
+                if (tagged != null) {
+                    members.addAll(tagged);
+                }
+                redisTemplate.delete(tagKey);
+            } catch (Exception e) {
+                log.warn("Failed to read cache tag {}: {}", tag, e.getMessage());
+            }
+        }
+
+        int evicted = 0;
+        for (String member : members) {
+            int separator = member.indexOf(MEMBER_SEPARATOR);
+            if (separator <= 0) {
+                continue;
+            }
+            Cache cache = cacheManager.getCache(member.substring(0, separator));
+            if (cache != null) {
+                cache.evict(member.substring(separator + MEMBER_SEPARATOR.length()));
+                evicted++;
+            }
+        }
+
+        log.debug("Evicted {} cache entries tagged {}", evicted, tags);
+        return evicted;
+    }
+}
@@ -1,6 +1,7 @@
 package com.lapxpert.backend.common.cache;
 
 import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Constants for cache TTL values used across the application
@@ -34,6 +35,16 @@ public final class CacheTtlConstants {
      */
     public static final Duration STATIC_DATA_TTL = Duration.ofHours(24);
 
+    /**
+     * Tag index sets - must outlive every tagged cache entry so a write can still find it
+     */
+    public static final Duration TAG_INDEX_TTL = Duration.ofHours(24);
+
+    /**
+     * Relative TTL jitter (+/-10%) so entries written together do not expire together
+     */
+    public static final double TTL_JITTER_RATIO = 0.1;
+
     // ==================== SPECIFIC DATA TYPE TTL ====================
 
     /**
@@ -71,8 +82,60 @@ public final class CacheTtlConstants {
         public static final Duration BRANDS = Duration.ofHours(12);
     }
 
+    /**
+     * Per-node near cache (L1) settings for caches served through TwoLevelCacheManager.
+     * L1 TTLs stay well below the Redis TTLs: they bound how long a node may serve a value
+     * after missing an invalidation message.
+     */
+    public static final class NearCache {
+        public static final Duration PRODUCT_RATINGS = Duration.ofMinutes(2);
+        public static final Duration PRODUCT_LIST = Duration.ofMinutes(1);
+        public static final Duration PRODUCT_CARD_PAGES = Duration.ofSeconds(30);
+        public static final Duration POPULAR = Duration.ofMinutes(5);
+        public static final Duration REFERENCE = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Near cache sizing for one cache name
+     * @param maximumSize maximum number of entries kept per node
+     * @param ttl time to live after write on each node
+     */
+    public record NearCacheSpec(long maximumSize, Duration ttl) {
+    }
+
     // ==================== HELPER METHODS ====================
 
+    /**
+     * Spread a TTL by +/- TTL_JITTER_RATIO
+     * @param ttl base TTL
+     * @return randomized TTL for one cache entry
+     */
+    public static Duration withJitter(Duration ttl) {
+        long millis = ttl.toMillis();
+        long spread = (long) (millis * TTL_JITTER_RATIO);
+        if (spread <= 0) {
+            return ttl;
+        }
+        return Duration.ofMillis(millis + ThreadLocalRandom.current().nextLong(-spread, spread + 1));
+    }
+
+    /**
+     * Get the near cache settings of a cache
+     * @param cacheName the cache name
+     * @return near cache settings, or null if the cache is served from Redis only
+     *         (per-user or write-heavy caches such as cartData)
+     */
+    public static NearCacheSpec getNearCacheSpec(String cacheName) {
+        return switch (cacheName) {
+            case "productRatings" -> new NearCacheSpec(10_000, NearCache.PRODUCT_RATINGS);
+            case "sanPhamList", "activeSanPhamList" -> new NearCacheSpec(100, NearCache.PRODUCT_LIST);
+            case "productCardPages" -> new NearCacheSpec(500, NearCache.PRODUCT_CARD_PAGES);
+            case "popularProducts" -> new NearCacheSpec(100, NearCache.POPULAR);
+            case "categories", "systemConfig" -> new NearCacheSpec(500, NearCache.REFERENCE);
+            default -> null;
+        };
+    }
+
     /**
      * Get TTL based on data volatility level
      * @param volatility the volatility level
@@ -11,7 +11,9 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -41,6 +43,12 @@ public class CacheVersioningService {
     @Autowired
     private CacheConsistencyManager consistencyManager;
 
+    @Autowired
+    private RedisTemplate<String, String> stringRedisTemplate;
+
+    private static final String DATA_VERSION_KEY = "lapxpert:data-version";
+    private static final String MODIFIED_SUFFIX = ":modified";
+
     /**
      * Conflict resolution strategies
      */
@@ -295,6 +303,73 @@ public class CacheVersioningService {
         }
     }
 
+    // ==================== DATA DOMAIN VERSIONS ====================
+
+    /**
+     * Data domains whose version is bumped after every committed change.
+     * HTTP responses derive their ETag from the versions of the domains they read.
+     */
+    public enum DataDomain {
+        CATALOG,    // Sản phẩm, biến thể, thuộc tính
+        PRICING,    // Giá bán, đợt giảm giá
+        INVENTORY,  // Tồn kho (serial number)
+        ORDERS,     // Hóa đơn
+        REVIEWS     // Đánh giá sản phẩm
+    }
+
+    /**
+     * Combined version of one or more data domains
+     * @param version opaque token that changes whenever any of the domains changes
+     * @param lastModified latest change time among the domains, null if none was recorded yet
+     */
+    public record DataVersion(String version, Instant lastModified) {
+    }
+
+    /**
+     * Bump a data domain version (shared across instances through Redis)
+     * Vietnamese Business Context: Tăng phiên bản dữ liệu sau khi giao dịch được commit
+     */
+    public void bumpDataVersion(DataDomain domain) {
+        try {
+            stringRedisTemplate.opsForHash().increment(DATA_VERSION_KEY, domain.name(), 1);
+            stringRedisTemplate.opsForHash().put(DATA_VERSION_KEY, domain.name() + MODIFIED_SUFFIX,
+                    String.valueOf(System.currentTimeMillis()));
+            log.debug("Bumped data version for domain {}", domain);
+        } catch (Exception e) {
+            log.warn("Failed to bump data version for domain {}: {}", domain, e.getMessage());
+        }
+    }
+
+    /**
+     * Read the combined version of the given domains with a single Redis round trip
+     * @return combined version, or null if Redis is unavailable
+     */
+    public DataVersion getDataVersion(DataDomain... domains) {
+        try {
+            List<Object> fields = new ArrayList<>(domains.length * 2);
+            for (DataDomain domain : domains) {
+                fields.add(domain.name());
+                fields.add(domain.name() + MODIFIED_SUFFIX);
+            }
+            List<Object> values = stringRedisTemplate.opsForHash().multiGet(DATA_VERSION_KEY, fields);
+
+            StringBuilder version = new StringBuilder();
+            long lastModified = 0;
+            for (int i = 0; i < domains.length; i++) {
+                Object counter = values.get(i * 2);
+                Object modified = values.get(i * 2 + 1);
+                version.append(domains[i].name()).append('=').append(counter != null ? counter : "0").append(';');
+                if (modified != null) {
+                    lastModified = Math.max(lastModified, Long.parseLong(modified.toString()));
+                }
+            }
+            return new DataVersion(version.toString(), lastModified > 0 ? Instant.ofEpochMilli(lastModified) : null);
+        } catch (Exception e) {
+            log.warn("Failed to read data version: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Get cache invalidation metadata for WebSocket coordination
      * Vietnamese Business Context: Lấy metadata vô hiệu hóa cache cho điều phối WebSocket
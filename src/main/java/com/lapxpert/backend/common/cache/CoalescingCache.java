@@ -0,0 +1,160 @@
+package com.lapxpert.backend.common.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache decorator that loads misses through SingleFlight and refreshes hot entries early.
+ *
+ * Backs {@code @Cacheable(sync = true)}: Spring calls {@link #get(Object, Callable)}, and concurrent misses on
+ * the same key (on this node, and across nodes via the Redis lease) run the loader once while the other
+ * callers receive its result. Replaces RedisCache's own synchronized loading, which locks the whole cache
+ * and only within one node.
+ *
+ * Values loaded here are stored as EarlyRefreshEntry with their compute time and a jittered expiry; reads
+ * apply the XFetch rule and hand the refresh to CacheRefreshExecutor while the current value is returned.
+ * Values stored through {@link #put} (e.g. cache warming) keep the plain format and just expire.
+ */
+public class CoalescingCache implements Cache {
+
+    private final Cache delegate;
+    private final SingleFlight singleFlight;
+    private final CacheRefreshExecutor refreshExecutor;
+    private final Duration ttl;
+
+    /**
+     * @param ttl base TTL of the cache, jittered per entry; null stores plain values without early refresh
+     */
+    public CoalescingCache(Cache delegate, SingleFlight singleFlight, CacheRefreshExecutor refreshExecutor,
+                           Duration ttl) {
+        this.delegate = delegate;
+        this.singleFlight = singleFlight;
+        this.refreshExecutor = refreshExecutor;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return unwrap(delegate.get(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            EarlyRefreshEntry entry = EarlyRefreshEntry.from(cached.get());
+            if (entry == null) {
+                return (T) cached.get();
+            }
+            if (refreshExecutor != null && entry.shouldRefreshEarly(System.currentTimeMillis())) {
+                refreshExecutor.submit(flightKey(key),
+                        () -> singleFlight.load(flightKey(key), () -> loadAndStore(key, valueLoader)));
+            }
+            return (T) entry.value();
+        }
+        return singleFlight.load(flightKey(key),
+                () -> recheckOrLoad(key, valueLoader),
+                () -> {
+                    ValueWrapper shared = get(key);
+                    return shared != null ? (T) shared.get() : null;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T recheckOrLoad(Object key, Callable<T> valueLoader) {
+        // A flight that just finished may already have stored the value
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        return loadAndStore(key, valueLoader);
+    }
+
+    private <T> T loadAndStore(Object key, Callable<T> valueLoader) {
+        long start = System.currentTimeMillis();
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value == null) {
+            return null;
+        }
+        if (ttl == null) {
+            delegate.put(key, value);
+        } else {
+            long now = System.currentTimeMillis();
+            long expiresAt = now + CacheTtlConstants.withJitter(ttl).toMillis();
+            delegate.put(key, new EarlyRefreshEntry(value, now - start, expiresAt));
+        }
+        return value;
+    }
+
+    private String flightKey(Object key) {
+        return getName() + "::" + key;
+    }
+
+    private static ValueWrapper unwrap(ValueWrapper wrapper) {
+        if (wrapper == null) {
+            return null;
+        }
+        EarlyRefreshEntry entry = EarlyRefreshEntry.from(wrapper.get());
+        return entry != null ? new SimpleValueWrapper(entry.value()) : wrapper;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return unwrap(delegate.putIfAbsent(key, value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
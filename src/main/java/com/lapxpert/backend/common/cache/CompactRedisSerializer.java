@@ -0,0 +1,154 @@
+package com.lapxpert.backend.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary serializer for Redis cache values.
+ *
+ * Values are written as Smile (binary JSON with back-referenced property names and repeated strings, so the
+ * type ids of list elements cost a couple of bytes each) and deflated when larger than the threshold.
+ * Every payload starts with a two-byte header: {@link #FORMAT_VERSION} and a compression flag. Payloads with
+ * another version, including entries written by the previous JSON serializer, read as a cache miss, so a
+ * format change never needs a manual flush. Unreadable payloads also read as a miss instead of failing
+ * the request.
+ */
+@Slf4j
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * Bump when the payload layout or the mapper configuration changes incompatibly
+     */
+    public static final byte FORMAT_VERSION = 1;
+
+    static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    private static final byte PLAIN = 0;
+    private static final byte DEFLATED = 1;
+
+    private final ObjectMapper smileMapper;
+    private final ObjectWriter smileWriter;
+    private final int compressionThreshold;
+
+    /**
+     * @param baseMapper application ObjectMapper whose modules and features are reused
+     * @param compressionThreshold payloads of at least this many bytes are deflated
+     */
+    public CompactRedisSerializer(ObjectMapper baseMapper, int compressionThreshold) {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        this.smileMapper = baseMapper.copyWith(smileFactory)
+                .disable(SerializationFeature.INDENT_OUTPUT);
+        // Keep concrete DTO types so cached values deserialize to their classes instead of maps
+        this.smileMapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                        .allowIfSubType("com.lapxpert.backend.")
+                        .allowIfSubType("java.util.")
+                        .allowIfSubType("java.time.")
+                        .allowIfSubType(Number.class)
+                        .build(),
+                ObjectMapper.DefaultTyping.NON_FINAL);
+        // Written as Object so the root type id is present even for final classes such as records
+        this.smileWriter = smileMapper.writerFor(Object.class);
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public CompactRedisSerializer(ObjectMapper baseMapper) {
+        this(baseMapper, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] smile = smileWriter.writeValueAsBytes(value);
+            byte[] payload = smile;
+            byte flag = PLAIN;
+            if (smile.length >= compressionThreshold) {
+                byte[] deflated = deflate(smile);
+                if (deflated.length < smile.length) {
+                    payload = deflated;
+                    flag = DEFLATED;
+                }
+            }
+            byte[] bytes = new byte[payload.length + 2];
+            bytes[0] = FORMAT_VERSION;
+            bytes[1] = flag;
+            System.arraycopy(payload, 0, bytes, 2, payload.length);
+            return bytes;
+        } catch (Exception e) {
+            throw new SerializationException("Could not write cache value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < 2 || bytes[0] != FORMAT_VERSION) {
+            log.debug("Ignoring cache value in another format (header {})", bytes[0]);
+            return null;
+        }
+        try {
+            byte[] payload = Arrays.copyOfRange(bytes, 2, bytes.length);
+            if (bytes[1] == DEFLATED) {
+                payload = inflate(payload);
+            }
+            return smileMapper.readValue(payload, Object.class);
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable cache value: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 16);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated cache value");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.lapxpert.backend.common.cache;
+
+import com.lapxpert.backend.common.cache.CacheVersioningService.DataDomain;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose response only depends on the request URL and the given data domains.
+ *
+ * ConditionalGetInterceptor derives a strong ETag from the domain versions and the URL; when the client's
+ * If-None-Match matches, it answers 304 Not Modified without invoking the controller.
+ * With {@link #cacheResponseSeconds()} other clients of the same version also skip the controller.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConditionalGet {
+
+    /**
+     * Data domains the response is built from
+     */
+    DataDomain[] value();
+
+    /**
+     * Rotate the ETag at least this often (seconds) for data changed without a domain event,
+     * e.g. "today" windows in statistics; 0 disables rotation
+     */
+    long maxStalenessSeconds() default 0;
+
+    /**
+     * Opt-in: keep the serialized response body this many seconds (ResponseBodyCacheService) and write it
+     * straight to the output stream on later requests with the same URL and data version; 0 disables
+     */
+    long cacheResponseSeconds() default 0;
+}
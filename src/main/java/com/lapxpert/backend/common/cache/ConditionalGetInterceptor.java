@@ -0,0 +1,115 @@
+package com.lapxpert.backend.common.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Conditional GET support for endpoints annotated with {@link ConditionalGet}.
+ *
+ * The ETag is a hash of the request URL, the versions of the data domains the endpoint reads and,
+ * if configured, a time bucket. Because the versions are bumped after every committed change,
+ * an unchanged ETag means an identical body, so a matching If-None-Match is answered with 304
+ * before the controller (and its service calls and JSON serialization) runs.
+ * Responses are marked "private, no-cache": clients keep them but revalidate on every poll.
+ *
+ * Endpoints with cacheResponseSeconds also reuse the serialized body across clients: a hit is written from
+ * ResponseBodyCacheService, a miss is marked so ResponseBodyCacheFilter stores the bytes MVC writes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    static final String CACHE_CONTROL_VALUE = "private, no-cache";
+
+    private final CacheVersioningService cacheVersioningService;
+    private final ResponseBodyCacheService responseBodyCacheService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!"GET".equals(request.getMethod()) || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        ConditionalGet conditionalGet = handlerMethod.getMethodAnnotation(ConditionalGet.class);
+        if (conditionalGet == null) {
+            return true;
+        }
+
+        CacheVersioningService.DataVersion dataVersion = cacheVersioningService.getDataVersion(conditionalGet.value());
+        if (dataVersion == null) {
+            // Versions unavailable: serve the full response without validators
+            return true;
+        }
+
+        String etag = buildEtag(request, dataVersion.version(), conditionalGet.maxStalenessSeconds());
+        long lastModified = dataVersion.lastModified() != null ? dataVersion.lastModified().toEpochMilli() : -1;
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL_VALUE);
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            log.trace("304 Not Modified for {} (ETag {})", request.getRequestURI(), etag);
+            return false;
+        }
+
+        if (conditionalGet.cacheResponseSeconds() > 0) {
+            // The ETag already identifies URL + data version, so it doubles as the body cache signature
+            String signature = etag.substring(1, etag.length() - 1);
+            ResponseBodyCacheService.CachedBody cached = responseBodyCacheService.get(signature);
+            if (cached != null) {
+                writeCachedBody(request, response, cached);
+                return false;
+            }
+            request.setAttribute(ResponseBodyCacheFilter.SIGNATURE_ATTRIBUTE, signature);
+            request.setAttribute(ResponseBodyCacheFilter.TTL_ATTRIBUTE,
+                    Duration.ofSeconds(conditionalGet.cacheResponseSeconds()));
+        }
+        return true;
+    }
+
+    /**
+     * Write a pre-serialized body, keeping the gzip coding when the client accepts it
+     */
+    private static void writeCachedBody(HttpServletRequest request, HttpServletResponse response,
+                                        ResponseBodyCacheService.CachedBody cached) throws IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean sendGzip = cached.gzipped() && acceptEncoding != null && acceptEncoding.contains("gzip");
+        byte[] body = sendGzip ? cached.body() : cached.plainBody();
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (cached.gzipped()) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (sendGzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        log.trace("Served pre-serialized body for {} ({} bytes)", request.getRequestURI(), body.length);
+    }
+
+    private static String buildEtag(HttpServletRequest request, String version, long maxStalenessSeconds) {
+        StringBuilder seed = new StringBuilder(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            seed.append('?').append(request.getQueryString());
+        }
+        seed.append('|').append(version);
+        if (maxStalenessSeconds > 0) {
+            seed.append('|').append(System.currentTimeMillis() / 1000 / maxStalenessSeconds);
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(seed.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,58 @@
+package com.lapxpert.backend.common.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cached value with the metadata needed for probabilistic early refresh (XFetch).
+ *
+ * A read refreshes early when {@code now - delta * beta * ln(rand) >= expiry}: the closer the entry is to its
+ * expiry and the longer it took to compute, the more likely a read triggers the recomputation, so one reader
+ * refreshes it in the background before it expires instead of every reader missing at once afterwards.
+ *
+ * @param value cached value
+ * @param deltaMillis time the loader took to compute the value
+ * @param expiresAt logical expiry (epoch millis); the Redis TTL of the entry ends at the same instant
+ */
+public record EarlyRefreshEntry(@JsonProperty(VALUE) Object value,
+                                @JsonProperty(DELTA) long deltaMillis,
+                                @JsonProperty(EXPIRES_AT) long expiresAt) {
+
+    /**
+     * XFetch beta; values above 1 favour earlier refreshes
+     */
+    public static final double BETA = 1.0;
+
+    static final String VALUE = "xfetchValue";
+    static final String DELTA = "xfetchDeltaMillis";
+    static final String EXPIRES_AT = "xfetchExpiresAt";
+
+    /**
+     * XFetch rule with a random draw in (0, 1]
+     */
+    public boolean shouldRefreshEarly(long now) {
+        return shouldRefreshEarly(now, BETA, 1.0 - ThreadLocalRandom.current().nextDouble());
+    }
+
+    boolean shouldRefreshEarly(long now, double beta, double random) {
+        return now - deltaMillis * beta * Math.log(random) >= expiresAt;
+    }
+
+    /**
+     * Recognize an entry read back from a cache; the JSON Redis serializer returns it as a map
+     * @return the entry, or null if the stored value was cached without XFetch metadata
+     */
+    static EarlyRefreshEntry from(Object stored) {
+        if (stored instanceof EarlyRefreshEntry entry) {
+            return entry;
+        }
+        if (stored instanceof Map<?, ?> map && map.size() == 3
+                && map.get(DELTA) instanceof Number delta && map.get(EXPIRES_AT) instanceof Number expiresAt
+                && map.containsKey(VALUE)) {
+            return new EarlyRefreshEntry(map.get(VALUE), delta.longValue(), expiresAt.longValue());
+        }
+        return null;
+    }
+}
@@ -41,6 +41,9 @@ public class EventualConsistencyCache {
     @Autowired
     private CacheConsistencyManager consistencyManager;
 
+    @Autowired
+    private SingleFlight singleFlight;
+
     // TTL configurations for different data types
     private static final long SHORT_TTL_MINUTES = 15;   // Frequently changing data
     private static final long MEDIUM_TTL_MINUTES = 60;  // Moderately changing data
@@ -60,17 +63,21 @@ public class EventualConsistencyCache {
                 return cachedEntry.getData();
             }
             
-            // Step 2: Cache miss - load from database
+            // Step 2: Cache miss - load from database once, also across nodes via the single-flight lease
             log.debug("Cache miss for key '{}', loading from database", cacheKey);
-            T data = databaseReader.get();
-            
-            if (data != null) {
-                // Step 3: Store in cache with appropriate TTL
-                storeWithIntelligentTTL(cacheKey, data);
-                log.debug("Data loaded and cached for key '{}'", cacheKey);
-            }
-            
-            return data;
+            return singleFlight.load(cacheKey, () -> {
+                T data = databaseReader.get();
+                if (data != null) {
+                    // Step 3: Store in cache with appropriate TTL
+                    storeWithIntelligentTTL(cacheKey, data);
+                    log.debug("Data loaded and cached for key '{}'", cacheKey);
+                }
+                return data;
+            }, () -> {
+                CacheVersioningService.VersionedCacheEntry<T> shared =
+                    versioningService.getVersionedData(cacheKey, dataType);
+                return shared != null ? shared.getData() : null;
+            });
             
         } catch (Exception e) {
             log.error("Cache-aside operation failed for key '{}': {}", cacheKey, e.getMessage(), e);
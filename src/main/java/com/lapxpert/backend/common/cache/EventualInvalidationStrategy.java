@@ -33,6 +33,9 @@ public class EventualInvalidationStrategy implements CacheInvalidationStrategy {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
     @Autowired
     private CacheConsistencyManager consistencyManager;
 
@@ -89,9 +92,9 @@ public class EventualInvalidationStrategy implements CacheInvalidationStrategy {
         try {
             log.debug("Starting eventual pattern-based invalidation for pattern '{}'", pattern);
 
-            // Get keys matching the pattern
-            Set<String> matchingKeys = redisTemplate.keys(pattern);
-            if (matchingKeys == null || matchingKeys.isEmpty()) {
+            // Get keys matching the pattern (SCAN, never KEYS)
+            Set<String> matchingKeys = redisKeyScanner.collect(pattern);
+            if (matchingKeys.isEmpty()) {
                 log.debug("No keys found matching pattern '{}'", pattern);
                 return 0;
             }
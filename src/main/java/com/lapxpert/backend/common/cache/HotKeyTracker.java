@@ -0,0 +1,151 @@
+package com.lapxpert.backend.common.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled hot-key tracker for cache reads.
+ *
+ * A sample of reads is counted in a Count-Min Sketch (fixed memory, estimates never undercount) and the keys
+ * with the highest estimates are kept in a bounded top-K set. Counters are halved every minute so the report
+ * follows current traffic rather than totals since startup.
+ *
+ * Keys are tracked redacted: the user part of per-user cache keys and anything that looks like an email is
+ * replaced by a salted hash, so the report still tells hot users apart without exposing their ids or emails.
+ */
+@Component
+public class HotKeyTracker {
+
+    static final int TOP_K = 50;
+
+    /**
+     * Caches keyed by user (id or email); the last key segment is redacted
+     */
+    static final Set<String> PER_USER_CACHES = Set.of("cartData", "userSessions", "userProfiles", "nguoiDungCache");
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final double sampleRate;
+    private final long[][] sketch = new long[DEPTH][WIDTH];
+    private final Map<String, Long> topKeys = new HashMap<>();
+    private final byte[] salt = new byte[16];
+
+    /**
+     * Estimated reads of one key; the count is scaled back up from the sample
+     */
+    public record HotKey(String cache, String key, long estimatedReads) {
+    }
+
+    public HotKeyTracker(@Value("${cache.hot-keys.sample-rate:0.1}") double sampleRate) {
+        this.sampleRate = sampleRate;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * Count a cache read if it falls in the sample
+     */
+    public void record(String cacheName, Object key) {
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        String trackedKey = cacheName + "::" + redact(cacheName, String.valueOf(key));
+        synchronized (this) {
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                estimate = Math.min(estimate, ++sketch[row][bucket(trackedKey, row)]);
+            }
+            updateTopKeys(trackedKey, estimate);
+        }
+    }
+
+    /**
+     * Hottest keys, highest first
+     */
+    public synchronized List<HotKey> getHotKeys() {
+        List<HotKey> hotKeys = new ArrayList<>(topKeys.size());
+        topKeys.forEach((trackedKey, count) -> {
+            int separator = trackedKey.indexOf("::");
+            hotKeys.add(new HotKey(trackedKey.substring(0, separator), trackedKey.substring(separator + 2),
+                    Math.round(count / sampleRate)));
+        });
+        hotKeys.sort(Comparator.comparingLong(HotKey::estimatedReads).reversed());
+        return hotKeys;
+    }
+
+    /**
+     * Age all counters so keys that stopped being read drop out of the report
+     */
+    @Scheduled(fixedRate = 60000)
+    public synchronized void decay() {
+        for (long[] row : sketch) {
+            for (int i = 0; i < WIDTH; i++) {
+                row[i] >>= 1;
+            }
+        }
+        topKeys.replaceAll((key, count) -> count >> 1);
+        topKeys.values().removeIf(count -> count == 0);
+    }
+
+    /**
+     * Replace the user part of a key with a salted hash (new salt per process, so it cannot be looked up)
+     */
+    String redact(String cacheName, String key) {
+        if (key.indexOf('@') >= 0) {
+            return "~" + hash(key);
+        }
+        if (!PER_USER_CACHES.contains(cacheName)) {
+            return key;
+        }
+        int separator = key.lastIndexOf(':');
+        return key.substring(0, separator + 1) + "~" + hash(key.substring(separator + 1));
+    }
+
+    private String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)), 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void updateTopKeys(String trackedKey, long estimate) {
+        if (topKeys.containsKey(trackedKey) || topKeys.size() < TOP_K) {
+            topKeys.put(trackedKey, estimate);
+            return;
+        }
+        Map.Entry<String, Long> coldest = null;
+        for (Map.Entry<String, Long> entry : topKeys.entrySet()) {
+            if (coldest == null || entry.getValue() < coldest.getValue()) {
+                coldest = entry;
+            }
+        }
+        if (coldest != null && estimate > coldest.getValue()) {
+            topKeys.remove(coldest.getKey());
+            topKeys.put(trackedKey, estimate);
+        }
+    }
+
+    private static int bucket(String key, int row) {
+        int hash = key.hashCode() * SEEDS[row];
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, WIDTH);
+    }
+}
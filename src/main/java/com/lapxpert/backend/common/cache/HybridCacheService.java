@@ -2,8 +2,28 @@ package com.lapxpert.backend.common.cache;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -22,6 +42,7 @@ import java.util.function.Supplier;
  * - Critical data (inventory, pricing): Uses StrongConsistencyCache
  * - Non-critical data (descriptions, categories): Uses EventualConsistencyCache
  * - Automatic strategy selection based on cache key patterns
+ * - Bulk reads of Spring caches: {@link #getAll} (one MGET and one batched load per page instead of per item)
  */
 @Service
 @Slf4j
@@ -42,6 +63,15 @@ public class HybridCacheService {
     @Autowired
     private EventualInvalidationStrategy eventualInvalidationStrategy;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RedisTemplate<String, byte[]> byteArrayRedisTemplate;
+
+    @Autowired
+    private CacheMetrics cacheMetrics;
+
     /**
      * Get data from cache with automatic consistency level selection
      */
@@ -185,6 +215,174 @@ public class HybridCacheService {
         }
     }
 
+    // ==================== BULK OPERATIONS ====================
+
+    /**
+     * Bulk read-through for a Spring cache, sharing entries with {@code @Cacheable} methods on the same cache.
+     *
+     * Looks the keys up in the near cache, reads the rest with one MGET, loads all misses with one call to
+     * bulkLoader and writes them back in one pipeline with the cache's serializer and jittered TTLs.
+     * If the cache cannot be read, every key is loaded from the database.
+     *
+     * @param cacheName Spring cache name (e.g. "productRatings")
+     * @param keys cache keys; their string form is the key suffix, as for {@code @Cacheable}
+     * @param bulkLoader loads the missing keys in one query; keys it leaves out are not cached
+     * @return values for the keys found in cache or loaded, in key order
+     */
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Function<Collection<K>, Map<K, V>> bulkLoader) {
+        Map<K, V> result = new LinkedHashMap<>();
+        if (keys == null || keys.isEmpty()) {
+            return result;
+        }
+        Set<K> distinctKeys = new LinkedHashSet<>(keys);
+
+        Map<K, V> cached = new HashMap<>();
+        try {
+            cached.putAll(readAll(cacheName, distinctKeys));
+        } catch (Exception e) {
+            log.error("Bulk cache read failed for cache '{}': {}", cacheName, e.getMessage(), e);
+        }
+
+        distinctKeys.forEach(key -> cacheMetrics.recordGet(cacheName, key, cached.containsKey(key)));
+
+        List<K> missing = distinctKeys.stream().filter(key -> !cached.containsKey(key)).toList();
+        Map<K, V> loaded = Map.of();
+        if (!missing.isEmpty()) {
+            long loadStart = System.nanoTime();
+            loaded = bulkLoader.apply(missing);
+            cacheMetrics.recordLoadTime(cacheName, System.nanoTime() - loadStart);
+        }
+        if (loaded != null && !loaded.isEmpty()) {
+            writeAll(cacheName, loaded);
+        }
+        log.debug("Bulk cache read '{}': {} keys, {} cached, {} loaded",
+                cacheName, distinctKeys.size(), cached.size(), missing.size());
+
+        for (K key : distinctKeys) {
+            V value = cached.containsKey(key) ? cached.get(key) : loaded != null ? loaded.get(key) : null;
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> Map<K, V> readAll(String cacheName, Collection<K> keys) {
+        Map<K, V> found = new HashMap<>();
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return found;
+        }
+        RedisCache redisCache = redisCacheOf(cacheName);
+        if (redisCache == null) {
+            // Not backed by Redis (fallback cache manager): plain per-key lookups
+            for (K key : keys) {
+                Cache.ValueWrapper wrapper = cache.get(key);
+                if (wrapper != null && wrapper.get() != null) {
+                    found.put(key, (V) wrapper.get());
+                }
+            }
+            return found;
+        }
+
+        TwoLevelCache twoLevelCache = nearCacheOf(cacheName);
+        if (twoLevelCache != null) {
+            found.putAll((Map<K, V>) twoLevelCache.getAllLocal(keys));
+        }
+        List<K> remoteKeys = keys.stream().filter(key -> !found.containsKey(key)).toList();
+        if (remoteKeys.isEmpty()) {
+            return found;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        List<byte[]> values = byteArrayRedisTemplate.opsForValue()
+                .multiGet(remoteKeys.stream().map(key -> redisKey(config, cacheName, key)).toList());
+        Map<K, V> remote = new HashMap<>();
+        for (int i = 0; values != null && i < remoteKeys.size(); i++) {
+            byte[] bytes = values.get(i);
+            if (bytes == null || bytes.length == 0) {
+                continue;
+            }
+            Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(bytes));
+            EarlyRefreshEntry entry = EarlyRefreshEntry.from(value);
+            if (entry != null) {
+                value = entry.value();
+            }
+            if (value != null) {
+                remote.put(remoteKeys.get(i), (V) value);
+            }
+        }
+        if (twoLevelCache != null) {
+            twoLevelCache.recordRemote(remote, remoteKeys.size());
+        }
+        found.putAll(remote);
+        return found;
+    }
+
+    /**
+     * Write loaded values in one pipeline of SET PX commands (MSET cannot carry per-key TTLs)
+     */
+    private <K, V> void writeAll(String cacheName, Map<K, V> entries) {
+        try {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null) {
+                return;
+            }
+            RedisCache redisCache = redisCacheOf(cacheName);
+            if (redisCache == null) {
+                entries.forEach(cache::put);
+                return;
+            }
+
+            RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+            byteArrayRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, value) -> {
+                    if (value == null) {
+                        return;
+                    }
+                    Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                    Expiration expiration = ttl != null && !ttl.isZero() && !ttl.isNegative()
+                            ? Expiration.from(ttl) : Expiration.persistent();
+                    connection.stringCommands().set(
+                            redisKey(config, cacheName, key).getBytes(StandardCharsets.UTF_8),
+                            ByteUtils.getBytes(config.getValueSerializationPair().write(value)),
+                            expiration, RedisStringCommands.SetOption.upsert());
+                });
+                return null;
+            });
+
+            TwoLevelCache twoLevelCache = nearCacheOf(cacheName);
+            entries.forEach((key, value) -> {
+                if (value != null) {
+                    cacheMetrics.recordPut(cacheName);
+                    if (twoLevelCache != null) {
+                        twoLevelCache.putLocal(key, value);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Bulk cache write failed for cache '{}' ({} entries): {}", cacheName, entries.size(), e.getMessage());
+        }
+    }
+
+    private RedisCache redisCacheOf(String cacheName) {
+        return cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager
+                ? twoLevelCacheManager.getRedisCache(cacheName) : null;
+    }
+
+    private TwoLevelCache nearCacheOf(String cacheName) {
+        return cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager
+                ? twoLevelCacheManager.getNearCache(cacheName) : null;
+    }
+
+    /**
+     * Same key RedisCache builds for {@code @Cacheable}: prefix ("cacheName::") plus the key's string form
+     */
+    private static String redisKey(RedisCacheConfiguration config, String cacheName, Object key) {
+        return config.getKeyPrefixFor(cacheName) + key;
+    }
+
     // ==================== BUSINESS-SPECIFIC HELPER METHODS ====================
 
     /**
@@ -31,6 +31,9 @@ public class ImmediateInvalidationStrategy implements CacheInvalidationStrategy
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
     @Autowired
     private RedissonClient redissonClient;
 
@@ -129,9 +132,9 @@ public class ImmediateInvalidationStrategy implements CacheInvalidationStrategy
         try {
             log.debug("Starting immediate pattern-based invalidation for pattern '{}'", pattern);
 
-            // Get keys matching the pattern
-            Set<String> matchingKeys = redisTemplate.keys(pattern);
-            if (matchingKeys == null || matchingKeys.isEmpty()) {
+            // Get keys matching the pattern (SCAN, never KEYS)
+            Set<String> matchingKeys = redisKeyScanner.collect(pattern);
+            if (matchingKeys.isEmpty()) {
                 log.debug("No keys found matching pattern '{}'", pattern);
                 return 0;
             }
@@ -0,0 +1,103 @@
+package com.lapxpert.backend.common.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Outermost cache decorator that records reads, writes, evictions and loader latency in CacheMetrics.
+ *
+ * For {@link #get(Object, Callable)} a read counts as a miss only when this caller ran the loader; callers
+ * served by another caller's flight or by the current value during an early refresh count as hits.
+ */
+public class InstrumentedCache implements Cache {
+
+    private final Cache delegate;
+    private final CacheMetrics metrics;
+
+    public InstrumentedCache(Cache delegate, CacheMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        metrics.recordGet(getName(), key, wrapper != null);
+        return wrapper;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        T value = delegate.get(key, type);
+        metrics.recordGet(getName(), key, value != null);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Thread caller = Thread.currentThread();
+        boolean[] loadedByCaller = {false};
+        T value = delegate.get(key, () -> {
+            if (Thread.currentThread() == caller) {
+                loadedByCaller[0] = true;
+            }
+            return metrics.recordLoad(getName(), valueLoader);
+        });
+        metrics.recordGet(getName(), key, !loadedByCaller[0]);
+        if (loadedByCaller[0] && value != null) {
+            metrics.recordPut(getName());
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        metrics.recordPut(getName());
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            metrics.recordPut(getName());
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        metrics.recordEviction(getName());
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        if (evicted) {
+            metrics.recordEviction(getName());
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
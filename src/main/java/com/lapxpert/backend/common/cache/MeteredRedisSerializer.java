@@ -0,0 +1,34 @@
+package com.lapxpert.backend.common.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Value serializer of one Redis cache that records the serialized size of every written value
+ */
+public class MeteredRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final String cacheName;
+    private final CacheMetrics metrics;
+
+    public MeteredRedisSerializer(RedisSerializer<Object> delegate, String cacheName, CacheMetrics metrics) {
+        this.delegate = delegate;
+        this.cacheName = cacheName;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if (bytes != null) {
+            metrics.recordValueSize(cacheName, bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        return delegate.deserialize(bytes);
+    }
+}
@@ -0,0 +1,95 @@
+package com.lapxpert.backend.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Broadcasts near cache (L1) invalidations between application nodes over Redis Pub/Sub.
+ *
+ * TwoLevelCache publishes every eviction, put and clear on NEAR_CACHE_CHANNEL; each node drops the matching
+ * entry from its own L1 (messages from the publishing node itself are ignored). A lost message is bounded by
+ * the short L1 TTL from CacheTtlConstants.NearCache.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NearCacheInvalidationBus {
+
+    public static final String NEAR_CACHE_CHANNEL = "lapxpert:cache:near-invalidation";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Invalidation message; a null key clears the whole cache
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InvalidationMessage {
+        private String nodeId;
+        private String cacheName;
+        private String key;
+    }
+
+    /**
+     * Register a local two-level cache so remote invalidations reach it
+     */
+    void register(TwoLevelCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    void publishEvict(String cacheName, String key) {
+        publish(new InvalidationMessage(nodeId, cacheName, key));
+    }
+
+    void publishClear(String cacheName) {
+        publish(new InvalidationMessage(nodeId, cacheName, null));
+    }
+
+    private void publish(InvalidationMessage message) {
+        try {
+            redisTemplate.convertAndSend(NEAR_CACHE_CHANNEL, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("Failed to broadcast near cache invalidation for {}: {}", message.getCacheName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Handle invalidation messages from other nodes (registered in RedisPubSubConfig)
+     */
+    public void handleInvalidationMessage(String messageJson, String channel) {
+        try {
+            InvalidationMessage message = objectMapper.readValue(messageJson, InvalidationMessage.class);
+            if (nodeId.equals(message.getNodeId())) {
+                return;
+            }
+            TwoLevelCache cache = caches.get(message.getCacheName());
+            if (cache == null) {
+                return;
+            }
+            if (message.getKey() == null) {
+                cache.clearLocal();
+            } else {
+                cache.evictLocal(message.getKey());
+            }
+            log.trace("Dropped near cache entry {}::{} from node {}",
+                    message.getCacheName(), message.getKey(), message.getNodeId());
+        } catch (Exception e) {
+            log.error("Error processing near cache invalidation from channel {}: {}", channel, e.getMessage(), e);
+        }
+    }
+}
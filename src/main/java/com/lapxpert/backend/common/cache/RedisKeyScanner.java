@@ -0,0 +1,102 @@
+package com.lapxpert.backend.common.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking key enumeration for cache maintenance.
+ *
+ * KEYS walks the whole keyspace in a single command and stalls every client of the single-threaded
+ * Redis server; this helper uses cursor-based SCAN instead, so Redis interleaves other commands between
+ * pages, and deletes with multi-key UNLINK in batches (memory is reclaimed in a background thread).
+ * Never use RedisTemplate.keys in application code.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RedisKeyScanner {
+
+    static final int SCAN_COUNT = 1000;
+    static final int BATCH_SIZE = 500;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * Walk keys matching a pattern, handing them over in batches of at most BATCH_SIZE
+     * @param pattern Redis glob pattern (e.g. "product:rating:*")
+     * @param batchConsumer receives each batch of matching keys
+     */
+    public void scan(String pattern, Consumer<List<String>> batchConsumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_COUNT).build();
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= BATCH_SIZE) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+        }
+    }
+
+    /**
+     * Unlink all keys matching a pattern
+     * @return number of keys removed
+     */
+    public long unlinkByPattern(String pattern) {
+        long[] removed = {0};
+        scan(pattern, batch -> {
+            Long count = redisTemplate.unlink(batch);
+            removed[0] += count != null ? count : 0;
+        });
+        log.debug("Unlinked {} keys matching pattern {}", removed[0], pattern);
+        return removed[0];
+    }
+
+    /**
+     * Count keys matching a pattern
+     */
+    public long count(String pattern) {
+        long[] count = {0};
+        scan(pattern, batch -> count[0] += batch.size());
+        return count[0];
+    }
+
+    /**
+     * Collect keys matching a pattern; stops scanning once the limit is reached
+     * @param limit maximum number of keys to return
+     */
+    public Set<String> sample(String pattern, int limit) {
+        Set<String> keys = new LinkedHashSet<>();
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(SCAN_COUNT).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (keys.size() < limit && cursor.hasNext()) {
+                keys.add(cursor.next());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Collect all keys matching a pattern (for callers that must filter keys one by one)
+     */
+    public Set<String> collect(String pattern) {
+        Set<String> keys = new LinkedHashSet<>();
+        scan(pattern, keys::addAll);
+        return keys;
+    }
+}
@@ -0,0 +1,144 @@
+package com.lapxpert.backend.common.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Captures the response bytes of requests that ConditionalGetInterceptor marked as cacheable (a miss in
+ * ResponseBodyCacheService) and stores them once the response completed with 200 and a JSON body.
+ *
+ * Bytes are teed while Spring MVC writes them, so the client is not delayed and requests that are not
+ * marked are passed through without any copy.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseBodyCacheFilter extends OncePerRequestFilter {
+
+    static final String SIGNATURE_ATTRIBUTE = ResponseBodyCacheFilter.class.getName() + ".signature";
+    static final String TTL_ATTRIBUTE = ResponseBodyCacheFilter.class.getName() + ".ttl";
+
+    private static final int MAX_CAPTURE_BYTES = 8 * 1024 * 1024;
+
+    private final ResponseBodyCacheService responseBodyCacheService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CapturingResponseWrapper wrapper = new CapturingResponseWrapper(response, request);
+        filterChain.doFilter(request, wrapper);
+
+        String signature = (String) request.getAttribute(SIGNATURE_ATTRIBUTE);
+        byte[] body = wrapper.capturedBody();
+        if (signature == null || body == null || body.length == 0
+                || wrapper.getStatus() != HttpStatus.OK.value()
+                || wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) != null
+                || wrapper.getContentType() == null || !wrapper.getContentType().contains("json")) {
+            return;
+        }
+        responseBodyCacheService.put(signature, body, (Duration) request.getAttribute(TTL_ATTRIBUTE));
+    }
+
+    /**
+     * Response wrapper that tees the output stream into a buffer for marked requests
+     */
+    private static class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private TeeOutputStream teeOutputStream;
+
+        CapturingResponseWrapper(HttpServletResponse response, HttpServletRequest request) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            ServletOutputStream outputStream = super.getOutputStream();
+            if (request.getAttribute(SIGNATURE_ATTRIBUTE) == null) {
+                return outputStream;
+            }
+            if (teeOutputStream == null) {
+                teeOutputStream = new TeeOutputStream(outputStream);
+            }
+            return teeOutputStream;
+        }
+
+        byte[] capturedBody() {
+            return teeOutputStream != null && !teeOutputStream.overflow ? teeOutputStream.copy.toByteArray() : null;
+        }
+    }
+
+    private static class TeeOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream(8192);
+        private boolean overflow;
+
+        TeeOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (overflow) {
+                return;
+            }
+            if (copy.size() + len > MAX_CAPTURE_BYTES) {
+                overflow = true;
+                copy.reset();
+                return;
+            }
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
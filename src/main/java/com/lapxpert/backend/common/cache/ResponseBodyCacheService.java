@@ -0,0 +1,103 @@
+package com.lapxpert.backend.common.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized response body cache.
+ *
+ * Stores the final UTF-8 JSON bytes of a response, gzipped above {@link #GZIP_MIN_BYTES}, under a key derived
+ * from the request signature and data version. A hit is written straight to the servlet output stream,
+ * skipping both the Redis JSON deserialization of the cached DTOs and the MVC serialization back to JSON.
+ * Keys never need explicit eviction: a data change bumps the version and therefore the key.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResponseBodyCacheService {
+
+    static final String KEY_PREFIX = "lapxpert:response:";
+    static final int GZIP_MIN_BYTES = 1024;
+
+    private static final byte PLAIN = 0;
+    private static final byte GZIP = 1;
+
+    private final RedisTemplate<String, byte[]> byteArrayRedisTemplate;
+
+    /**
+     * Cached response body
+     * @param body stored bytes (gzipped if {@code gzipped})
+     * @param gzipped whether {@code body} is gzip-compressed
+     */
+    public record CachedBody(byte[] body, boolean gzipped) {
+
+        /**
+         * Body bytes without content coding
+         */
+        public byte[] plainBody() {
+            if (!gzipped) {
+                return body;
+            }
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * @return cached body, or null on miss or Redis failure
+     */
+    public CachedBody get(String signature) {
+        try {
+            byte[] stored = byteArrayRedisTemplate.opsForValue().get(KEY_PREFIX + signature);
+            if (stored == null || stored.length == 0) {
+                return null;
+            }
+            return new CachedBody(Arrays.copyOfRange(stored, 1, stored.length), stored[0] == GZIP);
+        } catch (Exception e) {
+            log.warn("Failed to read cached response {}: {}", signature, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store a response body
+     * @param signature request signature including the data version
+     * @param body UTF-8 response bytes as written by Spring MVC
+     * @param ttl how long to keep the body
+     */
+    public void put(String signature, byte[] body, Duration ttl) {
+        try {
+            boolean gzip = body.length >= GZIP_MIN_BYTES;
+            byte[] payload = gzip ? gzip(body) : body;
+            byte[] stored = new byte[payload.length + 1];
+            stored[0] = gzip ? GZIP : PLAIN;
+            System.arraycopy(payload, 0, stored, 1, payload.length);
+            byteArrayRedisTemplate.opsForValue().set(KEY_PREFIX + signature, stored, ttl);
+            log.debug("Cached response {} ({} bytes, stored {})", signature, body.length, stored.length);
+        } catch (Exception e) {
+            log.warn("Failed to cache response {}: {}", signature, e.getMessage());
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,251 @@
+package com.lapxpert.backend.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-key single-flight for cache miss loaders.
+ *
+ * Within a node, the first caller for a key runs the loader and concurrent callers for the same key wait on
+ * its CompletableFuture instead of hitting the database again. Across nodes, callers that pass a shared-result
+ * reader also take a short Redis lease: a node that finds the lease held polls the shared cache for the
+ * leader's result and only loads itself if the lease expires without one.
+ *
+ * A follower waits at most followerTimeout for the leader and then loads itself, so a hung loader cannot
+ * block every caller of its key. Callers that must not see data read before they arrived use loadFresh,
+ * which only joins flights started after the call.
+ */
+@Component
+@Slf4j
+public class SingleFlight {
+
+    static final String LEASE_KEY_PREFIX = "lapxpert:singleflight:";
+    static final Duration LEASE_TTL = Duration.ofSeconds(3);
+    static final long LEASE_POLL_MILLIS = 50;
+    static final Duration FOLLOWER_TIMEOUT = Duration.ofSeconds(5);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long followerTimeoutMillis;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong(0);
+    private final AtomicLong coalescedCalls = new AtomicLong(0);
+    private final AtomicLong leaseWaits = new AtomicLong(0);
+    private final AtomicLong remoteResults = new AtomicLong(0);
+    private final AtomicLong followerTimeouts = new AtomicLong(0);
+
+    /**
+     * Single-flight counters
+     * @param loads loader executions
+     * @param coalescedCalls callers that waited for another caller on this node
+     * @param leaseWaits leaders that found the Redis lease held by another node
+     * @param remoteResults lease waits answered by the other node's result
+     * @param followerTimeouts followers that gave up waiting and loaded themselves
+     */
+    public record Stats(long loads, long coalescedCalls, long leaseWaits, long remoteResults, long followerTimeouts) {
+    }
+
+    /**
+     * A running load and when it started (System.nanoTime)
+     */
+    private record Flight(CompletableFuture<Object> result, long startedAt) {
+    }
+
+    @Autowired
+    public SingleFlight(RedisTemplate<String, String> redisTemplate) {
+        this(redisTemplate, FOLLOWER_TIMEOUT);
+    }
+
+    SingleFlight(RedisTemplate<String, String> redisTemplate, Duration followerTimeout) {
+        this.redisTemplate = redisTemplate;
+        this.followerTimeoutMillis = followerTimeout.toMillis();
+    }
+
+    /**
+     * Load a value once per key on this node
+     */
+    public <T> T load(String key, Supplier<T> loader) {
+        return load(key, loader, null);
+    }
+
+    /**
+     * Load a value once per key on this node and, with a shared-result reader, once per key across nodes
+     * @param key flight key (cache name and key)
+     * @param loader expensive loader, expected to store its result where sharedResult can read it
+     * @param sharedResult reads the value another node stored, or null to skip the Redis lease
+     */
+    public <T> T load(String key, Supplier<T> loader, Supplier<T> sharedResult) {
+        Flight flight = new Flight(new CompletableFuture<>(), System.nanoTime());
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return follow(existing, loader);
+        }
+        return lead(key, flight, loader, sharedResult);
+    }
+
+    /**
+     * Load a value, sharing only loads that started after this call. A flight already running may have read
+     * data older than a write the caller has seen, so the caller waits for it to finish and then leads or joins
+     * the next flight instead of taking its result. Used by strongly consistent reads.
+     */
+    public <T> T loadFresh(String key, Supplier<T> loader) {
+        long arrivedAt = System.nanoTime();
+        long deadline = arrivedAt + TimeUnit.MILLISECONDS.toNanos(followerTimeoutMillis);
+        while (true) {
+            Flight flight = new Flight(new CompletableFuture<>(), System.nanoTime());
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                return lead(key, flight, loader, null);
+            }
+            if (existing.startedAt() - arrivedAt >= 0) {
+                return follow(existing, loader);
+            }
+            // Started before this call: wait for it to end without using its result
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !awaitCompletion(existing, remaining)) {
+                followerTimeouts.incrementAndGet();
+                return runLoader(loader);
+            }
+        }
+    }
+
+    private <T> T lead(String key, Flight flight, Supplier<T> loader, Supplier<T> sharedResult) {
+        try {
+            T value = sharedResult != null ? loadWithLease(key, loader, sharedResult) : runLoader(loader);
+            flight.result().complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Wait for the leader's result; past followerTimeout load independently rather than hang with it
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T follow(Flight flight, Supplier<T> loader) {
+        coalescedCalls.incrementAndGet();
+        try {
+            return (T) flight.result().get(followerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            followerTimeouts.incrementAndGet();
+            log.warn("Single-flight leader did not finish within {}ms, loading independently", followerTimeoutMillis);
+            return runLoader(loader);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return runLoader(loader);
+        }
+    }
+
+    /**
+     * @return false if the flight is still running after the given time
+     */
+    private static boolean awaitCompletion(Flight flight, long timeoutNanos) {
+        try {
+            flight.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private <T> T loadWithLease(String key, Supplier<T> loader, Supplier<T> sharedResult) {
+        String leaseKey = LEASE_KEY_PREFIX + key;
+        if (tryAcquireLease(leaseKey)) {
+            try {
+                return runLoader(loader);
+            } finally {
+                releaseLease(leaseKey);
+            }
+        }
+
+        leaseWaits.incrementAndGet();
+        long deadline = System.currentTimeMillis() + LEASE_TTL.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            T shared = sharedResult.get();
+            if (shared != null) {
+                remoteResults.incrementAndGet();
+                return shared;
+            }
+            if (!leaseHeld(leaseKey)) {
+                break;
+            }
+        }
+        // The other node failed or is too slow: load locally rather than fail the request
+        return runLoader(loader);
+    }
+
+    private <T> T runLoader(Supplier<T> loader) {
+        loads.incrementAndGet();
+        return loader.get();
+    }
+
+    private boolean tryAcquireLease(String leaseKey) {
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(leaseKey, nodeId, LEASE_TTL);
+            return !Boolean.FALSE.equals(acquired);
+        } catch (Exception e) {
+            log.debug("Single-flight lease unavailable for {}: {}", leaseKey, e.getMessage());
+            return true;
+        }
+    }
+
+    private boolean leaseHeld(String leaseKey) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(leaseKey));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void releaseLease(String leaseKey) {
+        try {
+            redisTemplate.delete(leaseKey);
+        } catch (Exception e) {
+            log.debug("Failed to release single-flight lease {}: {}", leaseKey, e.getMessage());
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(loads.get(), coalescedCalls.get(), leaseWaits.get(), remoteResults.get(),
+                followerTimeouts.get());
+    }
+}
@@ -47,6 +47,9 @@ public class StrongConsistencyCache {
     @Autowired
     private CacheConsistencyManager consistencyManager;
 
+    @Autowired
+    private SingleFlight singleFlight;
+
     // Lock timeout for critical operations
     private static final long LOCK_TIMEOUT_SECONDS = 10;
     private static final long LOCK_WAIT_SECONDS = 5;
@@ -119,15 +122,17 @@ public class StrongConsistencyCache {
                 }
             }
             
-            // Step 3: Cache miss or stale data - read from database
-            T data = databaseReader.get();
-            if (data != null) {
-                // Step 4: Update cache with fresh data
-                versioningService.storeVersionedData(cacheKey, data, "READ_THROUGH");
-                log.debug("Cache refreshed for key '{}' from database", cacheKey);
-            }
-            
-            return data;
+            // Step 3: Cache miss or stale data - read from database, sharing only reads started after this call
+            // so a caller never gets data read before a write it has already seen
+            return singleFlight.loadFresh(cacheKey, () -> {
+                T data = databaseReader.get();
+                if (data != null) {
+                    // Step 4: Update cache with fresh data
+                    versioningService.storeVersionedData(cacheKey, data, "READ_THROUGH");
+                    log.debug("Cache refreshed for key '{}' from database", cacheKey);
+                }
+                return data;
+            });
             
         } catch (Exception e) {
             log.error("Read-through operation failed for key '{}': {}", cacheKey, e.getMessage(), e);
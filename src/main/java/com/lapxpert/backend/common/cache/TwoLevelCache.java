@@ -0,0 +1,215 @@
+package com.lapxpert.backend.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache with a bounded per-node Caffeine near cache (L1) in front of a Redis cache (L2).
+ *
+ * Reads try L1 first and fill it from L2. Every write or eviction goes to L2, updates the local L1 and is
+ * broadcast through NearCacheInvalidationBus so other nodes drop their L1 copy. L1 keys use the key's
+ * string form, the same conversion RedisCache applies, so all nodes address an entry the same way.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache redisCache;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> nearCache;
+    private final NearCacheInvalidationBus invalidationBus;
+
+    private final AtomicLong l1Hits = new AtomicLong(0);
+    private final AtomicLong l2Hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     * Hit counters per level
+     */
+    public record Stats(long l1Hits, long l2Hits, long misses, long l1Size) {
+
+        public double l1HitRate() {
+            long total = l1Hits + l2Hits + misses;
+            return total == 0 ? 0.0 : (double) l1Hits / total;
+        }
+
+        public double hitRate() {
+            long total = l1Hits + l2Hits + misses;
+            return total == 0 ? 0.0 : (double) (l1Hits + l2Hits) / total;
+        }
+    }
+
+    public TwoLevelCache(Cache redisCache, CacheTtlConstants.NearCacheSpec spec,
+                         NearCacheInvalidationBus invalidationBus) {
+        this.redisCache = redisCache;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(spec.maximumSize())
+                .expireAfterWrite(spec.ttl())
+                .build();
+        this.invalidationBus = invalidationBus;
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String nearKey = nearKey(key);
+        ValueWrapper local = nearCache.getIfPresent(nearKey);
+        if (local != null) {
+            l1Hits.incrementAndGet();
+            return local;
+        }
+
+        ValueWrapper remote = redisCache.get(key);
+        if (remote == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        l2Hits.incrementAndGet();
+        nearCache.put(nearKey, new SimpleValueWrapper(remote.get()));
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper local = nearCache.getIfPresent(nearKey(key));
+        if (local != null) {
+            l1Hits.incrementAndGet();
+            return (T) local.get();
+        }
+
+        T value = redisCache.get(key, valueLoader);
+        if (value != null) {
+            nearCache.put(nearKey(key), new SimpleValueWrapper(value));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        if (value != null) {
+            nearCache.put(nearKey(key), new SimpleValueWrapper(value));
+        }
+        invalidationBus.publishEvict(getName(), nearKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = redisCache.putIfAbsent(key, value);
+        nearCache.invalidate(nearKey(key));
+        if (existing == null) {
+            invalidationBus.publishEvict(getName(), nearKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        nearCache.invalidate(nearKey(key));
+        invalidationBus.publishEvict(getName(), nearKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = redisCache.evictIfPresent(key);
+        nearCache.invalidate(nearKey(key));
+        invalidationBus.publishEvict(getName(), nearKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        nearCache.invalidateAll();
+        invalidationBus.publishClear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = redisCache.invalidate();
+        nearCache.invalidateAll();
+        invalidationBus.publishClear(getName());
+        return invalidated;
+    }
+
+    /**
+     * Near cache hits for a batch of keys; counts the hits, misses are counted by {@link #recordRemote}
+     */
+    Map<Object, Object> getAllLocal(Collection<?> keys) {
+        Map<Object, Object> hits = new HashMap<>();
+        for (Object key : keys) {
+            ValueWrapper local = nearCache.getIfPresent(nearKey(key));
+            if (local != null) {
+                hits.put(key, local.get());
+            }
+        }
+        l1Hits.addAndGet(hits.size());
+        return hits;
+    }
+
+    /**
+     * Fill the near cache with values read from Redis in bulk
+     * @param requested number of keys looked up in Redis
+     */
+    void recordRemote(Map<?, ?> found, int requested) {
+        found.forEach((key, value) -> nearCache.put(nearKey(key), new SimpleValueWrapper(value)));
+        l2Hits.addAndGet(found.size());
+        misses.addAndGet(requested - found.size());
+    }
+
+    /**
+     * Near cache side of {@link #put} for values already written to Redis in bulk
+     */
+    void putLocal(Object key, Object value) {
+        nearCache.put(nearKey(key), new SimpleValueWrapper(value));
+        invalidationBus.publishEvict(getName(), nearKey(key));
+    }
+
+    /**
+     * Drop a near cache entry on this node only (invalidation received from another node)
+     */
+    void evictLocal(String nearKey) {
+        nearCache.invalidate(nearKey);
+    }
+
+    /**
+     * Drop all near cache entries on this node only (invalidation received from another node)
+     */
+    void clearLocal() {
+        nearCache.invalidateAll();
+    }
+
+    public Stats getStats() {
+        return new Stats(l1Hits.get(), l2Hits.get(), misses.get(), nearCache.estimatedSize());
+    }
+
+    static String nearKey(Object key) {
+        return key.toString();
+    }
+}
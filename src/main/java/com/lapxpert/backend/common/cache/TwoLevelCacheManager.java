@@ -0,0 +1,105 @@
+package com.lapxpert.backend.common.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Composite cache manager: caches with a near cache spec in CacheTtlConstants are wrapped in a TwoLevelCache
+ * (Caffeine L1 per node, Redis L2), all other caches are served by the Redis cache manager directly.
+ * Every Redis cache is decorated with CoalescingCache so {@code @Cacheable(sync = true)} misses load once
+ * and hot entries are refreshed early (XFetch) instead of expiring under load, and the outermost layer
+ * is an InstrumentedCache feeding CacheMetrics.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager redisCacheManager;
+    private final NearCacheInvalidationBus invalidationBus;
+    private final SingleFlight singleFlight;
+    private final CacheRefreshExecutor refreshExecutor;
+    private final CacheMetrics metrics;
+    private final Function<String, Duration> ttlResolver;
+    private final boolean nearCacheEnabled;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final Map<String, TwoLevelCache> nearCaches = new ConcurrentHashMap<>();
+
+    /**
+     * @param metrics cache instrumentation; null leaves the caches uninstrumented
+     * @param ttlResolver base Redis TTL per cache name, used for the logical expiry of early refresh entries
+     */
+    public TwoLevelCacheManager(CacheManager redisCacheManager, NearCacheInvalidationBus invalidationBus,
+                                SingleFlight singleFlight, CacheRefreshExecutor refreshExecutor, CacheMetrics metrics,
+                                Function<String, Duration> ttlResolver, boolean nearCacheEnabled) {
+        this.redisCacheManager = redisCacheManager;
+        this.invalidationBus = invalidationBus;
+        this.singleFlight = singleFlight;
+        this.refreshExecutor = refreshExecutor;
+        this.metrics = metrics;
+        this.ttlResolver = ttlResolver;
+        this.nearCacheEnabled = nearCacheEnabled;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> decorate(redisCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    /**
+     * Undecorated Redis cache, for bulk reads and writes that bypass the per-key decorators
+     * @return the Redis cache, or null if the cache does not exist or is not Redis-backed
+     */
+    public RedisCache getRedisCache(String name) {
+        return redisCacheManager.getCache(name) instanceof RedisCache redisCache ? redisCache : null;
+    }
+
+    /**
+     * Two-level layer of a cache, for bulk reads that consult the near cache directly
+     * @return the two-level cache, or null if the cache has no near cache
+     */
+    TwoLevelCache getNearCache(String name) {
+        return getCache(name) != null ? nearCaches.get(name) : null;
+    }
+
+    /**
+     * Per-level hit statistics of the two-level caches
+     */
+    public Map<String, TwoLevelCache.Stats> getStatistics() {
+        Map<String, TwoLevelCache.Stats> statistics = new LinkedHashMap<>();
+        nearCaches.forEach((name, cache) -> statistics.put(name, cache.getStats()));
+        return statistics;
+    }
+
+    private Cache decorate(Cache redisCache) {
+        Cache coalescingCache = new CoalescingCache(redisCache, singleFlight, refreshExecutor,
+                ttlResolver.apply(redisCache.getName()));
+        CacheTtlConstants.NearCacheSpec spec = CacheTtlConstants.getNearCacheSpec(redisCache.getName());
+        Cache cache = coalescingCache;
+        if (nearCacheEnabled && spec != null) {
+            TwoLevelCache twoLevelCache = new TwoLevelCache(coalescingCache, spec, invalidationBus);
+            invalidationBus.register(twoLevelCache);
+            nearCaches.put(redisCache.getName(), twoLevelCache);
+            cache = twoLevelCache;
+        }
+        return metrics != null ? new InstrumentedCache(cache, metrics) : cache;
+    }
+}
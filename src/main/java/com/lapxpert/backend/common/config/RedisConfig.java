@@ -1,6 +1,15 @@
 package com.lapxpert.backend.common.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lapxpert.backend.common.cache.CacheMetrics;
+import com.lapxpert.backend.common.cache.CacheRefreshExecutor;
+import com.lapxpert.backend.common.cache.CacheTtlConstants;
+import com.lapxpert.backend.common.cache.CompactRedisSerializer;
+import com.lapxpert.backend.common.cache.EarlyRefreshEntry;
+import com.lapxpert.backend.common.cache.MeteredRedisSerializer;
+import com.lapxpert.backend.common.cache.NearCacheInvalidationBus;
+import com.lapxpert.backend.common.cache.SingleFlight;
+import com.lapxpert.backend.common.cache.TwoLevelCacheManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,14 +19,18 @@ import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import io.lettuce.core.resource.ClientResources;
 import io.lettuce.core.resource.DefaultClientResources;
@@ -29,6 +42,9 @@ import org.redisson.config.Config;
 import org.redisson.config.SingleServerConfig;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 import jakarta.annotation.PostConstruct;
 
@@ -86,6 +102,13 @@ public class RedisConfig {
     @Value("${cache.ttl.long:1440}")
     private int longTermTtlMinutes;
 
+    @Value("${cache.near.enabled:true}")
+    private boolean nearCacheEnabled;
+
+    // Caches kept on the JSON value format (readable in redis-cli); all others use CompactRedisSerializer
+    @Value("${cache.serializer.json-caches:}")
+    private Set<String> jsonSerializedCaches;
+
     // ==================== CONNECTION FACTORY ====================
 
     /**
@@ -240,59 +263,119 @@ public class RedisConfig {
         }
     }
 
+    /**
+     * RedisTemplate for raw byte values
+     * Used by ResponseBodyCacheService to store pre-serialized HTTP response bodies without JSON mapping
+     */
+    @Bean
+    public RedisTemplate<String, byte[]> byteArrayRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        return template;
+    }
+
     // ==================== CACHE MANAGER ====================
 
     /**
      * Simplified Redis cache manager with basic TTL categories
      * Uses reasonable defaults instead of complex per-cache configuration
+     * Hot read caches get a per-node Caffeine near cache in front of Redis (see CacheTtlConstants.NearCache)
+     * and all caches coalesce concurrent misses through SingleFlight
+     * TTLs are jittered per entry so entries written together (warming, bulk eviction) do not expire together
+     * Values are stored with CompactRedisSerializer unless the cache is listed in cache.serializer.json-caches
+     * Every cache is instrumented through CacheMetrics (gets, puts, evictions, load time, value size)
      */
     @Bean
     @Primary
     @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
-    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                          NearCacheInvalidationBus nearCacheInvalidationBus,
+                                          SingleFlight singleFlight,
+                                          CacheRefreshExecutor cacheRefreshExecutor,
+                                          CacheMetrics cacheMetrics) {
         log.info("Configuring simplified Redis CacheManager");
 
         try {
+            Duration defaultTtl = Duration.ofMinutes(mediumTermTtlMinutes); // Default to medium-term TTL
+            RedisSerializer<Object> compactSerializer = new CompactRedisSerializer(centralObjectMapper);
+            RedisSerializer<Object> jsonSerializer = createJsonSerializer();
             RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
-                    .entryTtl(Duration.ofMinutes(mediumTermTtlMinutes)) // Default to medium-term TTL
-                    .serializeKeysWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
+                    .entryTtl(jitteredTtl(defaultTtl))
+                    .serializeKeysWith(RedisSerializationContext.SerializationPair
                             .fromSerializer(new StringRedisSerializer()))
-                    .serializeValuesWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
-                            .fromSerializer(createJsonSerializer()))
+                    .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(compactSerializer))
                     .disableCachingNullValues();
 
-            return RedisCacheManager.builder(connectionFactory)
-                    .cacheDefaults(defaultConfig)
-                    // Short-term caches (15 minutes) - frequently changing data
-                    .withCacheConfiguration("activeSanPhamList",
-                        defaultConfig.entryTtl(Duration.ofMinutes(shortTermTtlMinutes)))
-                    .withCacheConfiguration("searchResults",
-                        defaultConfig.entryTtl(Duration.ofMinutes(shortTermTtlMinutes)))
-                    .withCacheConfiguration("cartData",
-                        defaultConfig.entryTtl(Duration.ofMinutes(shortTermTtlMinutes)))
-                    // Medium-term caches (60 minutes) - moderately changing data
-                    .withCacheConfiguration("productRatings",
-                        defaultConfig.entryTtl(Duration.ofMinutes(mediumTermTtlMinutes)))
-                    .withCacheConfiguration("sanPhamList",
-                        defaultConfig.entryTtl(Duration.ofMinutes(mediumTermTtlMinutes)))
-                    .withCacheConfiguration("userSessions",
-                        defaultConfig.entryTtl(Duration.ofMinutes(mediumTermTtlMinutes)))
-                    .withCacheConfiguration("shippingFees",
-                        defaultConfig.entryTtl(Duration.ofMinutes(mediumTermTtlMinutes)))
-                    // Long-term caches (24 hours) - rarely changing data
-                    .withCacheConfiguration("categories",
-                        defaultConfig.entryTtl(Duration.ofMinutes(longTermTtlMinutes)))
-                    .withCacheConfiguration("systemConfig",
-                        defaultConfig.entryTtl(Duration.ofMinutes(longTermTtlMinutes)))
-                    .withCacheConfiguration("popularProducts",
-                        defaultConfig.entryTtl(Duration.ofMinutes(longTermTtlMinutes)))
-                    .build();
+            Map<String, Duration> cacheTtls = cacheTtls();
+            Map<String, RedisCacheConfiguration> cacheConfigurations = new LinkedHashMap<>();
+            cacheTtls.forEach((cacheName, ttl) ->
+                    cacheConfigurations.put(cacheName, defaultConfig.entryTtl(jitteredTtl(ttl))));
+            if (!jsonSerializedCaches.isEmpty()) {
+                log.info("Caches kept on JSON values: {}", jsonSerializedCaches);
+            }
+            // Value serializers are chosen and metered per cache name, so caches created on demand with the
+            // default configuration are measured too
+            RedisCacheManager redisCacheManager = new RedisCacheManager(
+                    RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory), defaultConfig, cacheConfigurations) {
+                @Override
+                protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfiguration) {
+                    RedisCacheConfiguration config = cacheConfiguration != null ? cacheConfiguration : defaultConfig;
+                    return super.createRedisCache(name, config.serializeValuesWith(
+                            RedisSerializationContext.SerializationPair.fromSerializer(new MeteredRedisSerializer(
+                                    jsonSerializedCaches.contains(name) ? jsonSerializer : compactSerializer,
+                                    name, cacheMetrics))));
+                }
+            };
+
+            // Not a bean itself, so initialize the configured caches here
+            redisCacheManager.initializeCaches();
+            log.info("Near cache (Caffeine L1) in front of Redis: {}", nearCacheEnabled ? "enabled" : "disabled");
+            return new TwoLevelCacheManager(redisCacheManager, nearCacheInvalidationBus, singleFlight,
+                    cacheRefreshExecutor, cacheMetrics, cacheName -> cacheTtls.getOrDefault(cacheName, defaultTtl),
+                    nearCacheEnabled);
         } catch (Exception e) {
             log.warn("Failed to configure Redis cache manager, falling back to simple cache: {}", e.getMessage());
             return fallbackCacheManager();
         }
     }
 
+    /**
+     * Base TTL per cache name
+     */
+    private Map<String, Duration> cacheTtls() {
+        Map<String, Duration> ttls = new LinkedHashMap<>();
+        // Short-term caches (15 minutes) - frequently changing data
+        ttls.put("activeSanPhamList", Duration.ofMinutes(shortTermTtlMinutes));
+        ttls.put("searchResults", Duration.ofMinutes(shortTermTtlMinutes));
+        ttls.put("cartData", Duration.ofMinutes(shortTermTtlMinutes));
+        ttls.put("productCardPages", Duration.ofMinutes(shortTermTtlMinutes));
+        // Medium-term caches (60 minutes) - moderately changing data
+        ttls.put("productRatings", Duration.ofMinutes(mediumTermTtlMinutes));
+        ttls.put("sanPhamList", Duration.ofMinutes(mediumTermTtlMinutes));
+        ttls.put("userSessions", Duration.ofMinutes(mediumTermTtlMinutes));
+        ttls.put("shippingFees", Duration.ofMinutes(mediumTermTtlMinutes));
+        // Long-term caches (24 hours) - rarely changing data
+        ttls.put("categories", Duration.ofMinutes(longTermTtlMinutes));
+        ttls.put("systemConfig", Duration.ofMinutes(longTermTtlMinutes));
+        ttls.put("popularProducts", Duration.ofMinutes(longTermTtlMinutes));
+        return ttls;
+    }
+
+    /**
+     * Jittered TTL per entry; early refresh entries expire exactly at their logical expiry
+     */
+    private static RedisCacheWriter.TtlFunction jitteredTtl(Duration ttl) {
+        return (key, value) -> {
+            if (value instanceof EarlyRefreshEntry entry) {
+                return Duration.ofMillis(Math.max(1, entry.expiresAt() - System.currentTimeMillis()));
+            }
+            return CacheTtlConstants.withJitter(ttl);
+        };
+    }
+
     /**
      * Fallback cache manager when Redis is not available
      */
@@ -303,7 +386,9 @@ public class RedisConfig {
         return new ConcurrentMapCacheManager(
             "productRatings", "sanPhamList", "activeSanPhamList",
             "searchResults", "popularProducts", "userSessions",
-            "cartData", "categories", "systemConfig"
+            "cartData", "categories", "systemConfig", "productCardPages",
+            // Entity caches of BusinessEntityService subclasses (getCacheName())
+            "sanPhamCache", "hoaDonCache", "nguoiDungCache", "phieuGiamGiaCache", "dotGiamGiaCache"
         );
     }
 
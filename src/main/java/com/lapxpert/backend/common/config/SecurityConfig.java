@@ -40,6 +40,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/shipping/config").permitAll() // Allow shipping config for order creation
                         .requestMatchers("/ws/**").permitAll() // Allow WebSocket endpoints
                         .requestMatchers("/error").permitAll() // Cho phép tất cả truy cập /error
+                        .requestMatchers("/actuator/cachestats/**").hasRole("ADMIN") // Hot keys name cached entries
                         .requestMatchers("/api/v1/user/**").hasAnyRole("ADMIN", "STAFF")
                         .requestMatchers("/api/v1/hoa-don/**").hasAnyRole("ADMIN", "STAFF")
                         .requestMatchers("/api/v1/products/**").hasAnyRole("ADMIN", "STAFF")
@@ -1,9 +1,17 @@
 package com.lapxpert.backend.common.event;
 
 import com.lapxpert.backend.common.cache.CacheInvalidationService;
+import com.lapxpert.backend.common.cache.CacheTagService;
+import com.lapxpert.backend.common.service.ConflatingPublisher;
+import com.lapxpert.backend.dotgiamgia.repository.DotGiamGiaRepository;
+import com.lapxpert.backend.sanpham.event.CampaignPricingChangeEvent;
+import com.lapxpert.backend.sanpham.event.CatalogChangeEvent;
 import com.lapxpert.backend.sanpham.event.PriceChangeEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionalEventListener;
@@ -12,14 +20,18 @@ import org.springframework.transaction.event.TransactionPhase;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Event listener for automatic cache invalidation and WebSocket broadcasting with transactional coordination.
  * Handles all business entity change events to maintain real-time consistency.
  * Uses @TransactionalEventListener with AFTER_COMMIT phase to ensure cache invalidation
  * occurs after database transaction commits and before WebSocket notifications.
+ * Post-commit handlers run first (EVICTION_ORDER) so DataVersionEventListener only bumps a
+ * data version once the entries of the old version are gone.
  * Maintains Vietnamese business terminology for LapXpert system.
  */
 @Component
@@ -27,8 +39,12 @@ import java.util.Map;
 @Slf4j
 public class CacheInvalidationEventListener {
 
+    public static final int EVICTION_ORDER = Ordered.HIGHEST_PRECEDENCE;
+
     private final CacheInvalidationService cacheInvalidationService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final DotGiamGiaRepository dotGiamGiaRepository;
+    private final ConflatingPublisher conflatingPublisher;
 
     // Event processing metrics
     private static final String METRIC_PREFIX = "cache_invalidation_event";
@@ -37,6 +53,7 @@ public class CacheInvalidationEventListener {
      * Handle coordinated cache invalidation events that require specific ordering.
      * This method ensures cache invalidation happens before WebSocket notifications.
      */
+    @Order(EVICTION_ORDER)
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleCoordinatedCacheInvalidationEvent(CoordinatedCacheInvalidationEvent event) {
         long startTime = System.currentTimeMillis();
@@ -108,7 +125,7 @@ public class CacheInvalidationEventListener {
             case "INVENTORY_UPDATE":
                 invalidatedCaches.add("productData");
                 invalidatedCaches.add("inventory");
-                cacheInvalidationService.invalidateProductData(null);
+                invalidateVariantEntries(event.getEntityId());
                 metadata.put("scope", "INVENTORY_DATA");
                 break;
 
@@ -121,11 +138,7 @@ public class CacheInvalidationEventListener {
                     invalidatedCaches.add("dotGiamGia");
                     cacheInvalidationService.invalidateByPattern("dotGiamGia:*");
                 }
-                Boolean hasStatusChanged = (Boolean) event.getEventData().get("hasStatusChanged");
-                if (Boolean.TRUE.equals(hasStatusChanged)) {
-                    invalidatedCaches.add("cartData");
-                    cacheInvalidationService.invalidateCache("cartData");
-                }
+                // Carts affected by a campaign status change are evicted by tag from CampaignPricingChangeEvent
                 metadata.put("scope", "VOUCHER_DATA");
                 metadata.put("voucherType", voucherType);
                 break;
@@ -267,6 +280,7 @@ public class CacheInvalidationEventListener {
      * Cache invalidation occurs AFTER database transaction commits to ensure data consistency.
      * This listener focuses on additional cache invalidation beyond what's already done in PriceChangeNotificationService.
      */
+    @Order(EVICTION_ORDER)
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handlePriceChangeEvent(PriceChangeEvent event) {
         long startTime = System.currentTimeMillis();
@@ -298,6 +312,7 @@ public class CacheInvalidationEventListener {
      * Handle inventory update events with transactional coordination.
      * Cache invalidation and WebSocket notifications occur AFTER database transaction commits.
      */
+    @Order(EVICTION_ORDER)
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleInventoryUpdateEvent(InventoryUpdateEvent event) {
         long startTime = System.currentTimeMillis();
@@ -305,12 +320,12 @@ public class CacheInvalidationEventListener {
             log.info("Processing post-commit inventory update event for variant {}: {} -> {}",
                 event.getVariantId(), event.getSoLuongTonKhoCu(), event.getSoLuongTonKhoMoi());
 
-            // Step 1: Invalidate product-related caches FIRST
-            cacheInvalidationService.invalidateProductData(null); // Invalidate all product caches
+            // Step 1: Invalidate cache entries built from this variant FIRST (stock does not appear in product lists)
+            invalidateVariantEntries(event.getVariantId());
             log.debug("Cache invalidation completed for inventory update: variant {}", event.getVariantId());
 
-            // Step 2: Send WebSocket notification AFTER cache invalidation
-            sendInventoryUpdateNotification(event);
+            // Step 2: Send WebSocket notification AFTER cache invalidation, coalesced per variant
+            conflatingPublisher.submit("ton-kho", event.getVariantId(), event, this::sendInventoryUpdateNotification);
 
             long executionTime = System.currentTimeMillis() - startTime;
             logEventProcessingMetrics("INVENTORY_UPDATE", executionTime, true);
@@ -325,12 +340,97 @@ public class CacheInvalidationEventListener {
         }
     }
 
+    /**
+     * Evict cache entries built from a variant (carts holding it); falls back to product data when unknown
+     */
+    private void invalidateVariantEntries(Long variantId) {
+        if (variantId == null) {
+            cacheInvalidationService.invalidateProductData(null);
+            return;
+        }
+        cacheInvalidationService.invalidateTagged(Set.of(CacheTagService.variantTag(variantId)));
+        log.debug("Tag-based cache invalidation completed for variant {}", variantId);
+    }
+
+    // ==================== CATALOG AND CAMPAIGN PRICING EVENTS ====================
+
+    /**
+     * Evict cache entries built from the changed products (carts holding any of their variants).
+     * A change without product IDs affects the whole catalog, so carts are cleared entirely.
+     */
+    @Order(EVICTION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCatalogChangeEvent(CatalogChangeEvent event) {
+        try {
+            if (event.requiresFullRebuild()) {
+                cacheInvalidationService.invalidateCache("cartData");
+                return;
+            }
+            Set<String> tags = new HashSet<>();
+            for (Long sanPhamId : event.getSanPhamIds()) {
+                tags.add(CacheTagService.productTag(sanPhamId));
+            }
+            cacheInvalidationService.invalidateTagged(tags);
+            log.debug("Tag-based cache invalidation completed for catalog change: {}", event.getLyDo());
+        } catch (Exception e) {
+            log.error("Failed to invalidate caches for catalog change {}: {}", event.getLyDo(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Evict cache entries built from variants whose campaign pricing changed.
+     * A campaign-wide change is narrowed to the variants currently assigned to those campaigns.
+     */
+    @Order(EVICTION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCampaignPricingChangeEvent(CampaignPricingChangeEvent event) {
+        try {
+            Set<Long> variantIds = new HashSet<>();
+            if (!event.requiresFullRebuild()) {
+                variantIds.addAll(event.getVariantIds());
+            } else if (event.getCampaignIds() != null && !event.getCampaignIds().isEmpty()) {
+                for (Long campaignId : event.getCampaignIds()) {
+                    variantIds.addAll(dotGiamGiaRepository.findSanPhamChiTietIdsByDotGiamGiaId(campaignId));
+                }
+            } else {
+                cacheInvalidationService.invalidateCache("cartData");
+                return;
+            }
+
+            Set<String> tags = new HashSet<>();
+            for (Long variantId : variantIds) {
+                tags.add(CacheTagService.variantTag(variantId));
+            }
+            cacheInvalidationService.invalidateTagged(tags);
+            log.debug("Tag-based cache invalidation completed for {} variants: {}", variantIds.size(), event.getLyDo());
+        } catch (Exception e) {
+            log.error("Failed to invalidate caches for campaign pricing change {}: {}", event.getLyDo(), e.getMessage(), e);
+        }
+    }
+
+    // ==================== REVIEW CHANGE EVENTS ====================
+
+    /**
+     * Evict the rating of the reviewed product and the popularity lists after a review change commits.
+     */
+    @Order(EVICTION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleReviewChangeEvent(ReviewChangeEvent event) {
+        try {
+            cacheInvalidationService.invalidateReviewData(event.getSanPhamId());
+        } catch (Exception e) {
+            log.error("Failed to invalidate caches for review {} of product {}: {}",
+                    event.getDanhGiaId(), event.getSanPhamId(), e.getMessage(), e);
+        }
+    }
+
     // ==================== VOUCHER CHANGE EVENTS ====================
 
     /**
      * Handle voucher change events with transactional coordination.
      * Cache invalidation and WebSocket notifications occur AFTER database transaction commits.
      */
+    @Order(EVICTION_ORDER)
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleVoucherChangeEvent(VoucherChangeEvent event) {
         long startTime = System.currentTimeMillis();
@@ -347,11 +447,8 @@ public class CacheInvalidationEventListener {
                 log.debug("Invalidated dotGiamGia cache patterns for voucher {}", event.getVoucherId());
             }
 
-            // Invalidate cart data if voucher status changed (affects pricing)
-            if (event.hasStatusChanged()) {
-                cacheInvalidationService.invalidateCache("cartData");
-                log.debug("Invalidated cartData cache due to voucher status change: {}", event.getVoucherId());
-            }
+            // Carts only carry campaign prices; a campaign status change evicts the carts holding its variants
+            // through handleCampaignPricingChangeEvent instead of clearing every cart here
 
             // Step 2: Send WebSocket notification AFTER cache invalidation
             sendVoucherChangeNotification(event);
@@ -372,6 +469,7 @@ public class CacheInvalidationEventListener {
      * Handle order change events with transactional coordination.
      * Cache invalidation and WebSocket notifications occur AFTER database transaction commits.
      */
+    @Order(EVICTION_ORDER)
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleOrderChangeEvent(OrderChangeEvent event) {
         long startTime = System.currentTimeMillis();
@@ -407,8 +505,13 @@ public class CacheInvalidationEventListener {
     /**
      * Send WebSocket notification for inventory updates with cache invalidation signals.
      * Includes cache invalidation metadata to help frontend coordinate data refresh.
+     * Receives every update of a variant within one conflation window: the latest stock is sent once,
+     * with the change since the window started and the number of updates merged.
      */
-    private void sendInventoryUpdateNotification(InventoryUpdateEvent event) {
+    private void sendInventoryUpdateNotification(ConflatingPublisher.Conflated<InventoryUpdateEvent> update) {
+        InventoryUpdateEvent event = new InventoryUpdateEvent();
+        BeanUtils.copyProperties(update.latest(), event);
+        event.setSoLuongTonKhoCu(update.first().getSoLuongTonKhoCu());
         try {
             Map<String, Object> notification = new HashMap<>();
             notification.put("type", "INVENTORY_UPDATE");
@@ -416,6 +519,8 @@ public class CacheInvalidationEventListener {
             notification.put("sku", event.getSku());
             notification.put("tenSanPham", event.getTenSanPham());
             notification.put("soLuongTonKhoMoi", event.getSoLuongTonKhoMoi());
+            notification.put("soLuongThayDoi", event.getInventoryChange());
+            notification.put("soCapNhat", update.count());
             notification.put("loaiThayDoi", event.getLoaiThayDoi());
             notification.put("isOutOfStock", event.isOutOfStock());
             notification.put("isBackInStock", event.isBackInStock());
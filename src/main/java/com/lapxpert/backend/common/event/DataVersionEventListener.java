@@ -0,0 +1,67 @@
+package com.lapxpert.backend.common.event;
+
+import com.lapxpert.backend.common.cache.CacheVersioningService;
+import com.lapxpert.backend.common.cache.CacheVersioningService.DataDomain;
+import com.lapxpert.backend.sanpham.event.CampaignPricingChangeEvent;
+import com.lapxpert.backend.sanpham.event.CatalogChangeEvent;
+import com.lapxpert.backend.sanpham.event.PriceChangeEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bumps data domain versions after committed changes, which invalidates the ETags
+ * of every @ConditionalGet endpoint reading that domain.
+ * Handlers run last (VERSION_ORDER), after the evictions of CacheInvalidationEventListener, so a
+ * client that sees the new version cannot be served an entry cached under the old one.
+ * Vietnamese Business Context: Cập nhật phiên bản dữ liệu để client polling nhận dữ liệu mới
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DataVersionEventListener {
+
+    public static final int VERSION_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    private final CacheVersioningService cacheVersioningService;
+
+    @Order(VERSION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCatalogChange(CatalogChangeEvent event) {
+        cacheVersioningService.bumpDataVersion(DataDomain.CATALOG);
+    }
+
+    @Order(VERSION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCampaignPricingChange(CampaignPricingChangeEvent event) {
+        cacheVersioningService.bumpDataVersion(DataDomain.PRICING);
+    }
+
+    @Order(VERSION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handlePriceChange(PriceChangeEvent event) {
+        cacheVersioningService.bumpDataVersion(DataDomain.PRICING);
+    }
+
+    @Order(VERSION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleInventoryUpdate(InventoryUpdateEvent event) {
+        cacheVersioningService.bumpDataVersion(DataDomain.INVENTORY);
+    }
+
+    @Order(VERSION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleOrderChange(OrderChangeEvent event) {
+        cacheVersioningService.bumpDataVersion(DataDomain.ORDERS);
+    }
+
+    @Order(VERSION_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleReviewChange(ReviewChangeEvent event) {
+        cacheVersioningService.bumpDataVersion(DataDomain.REVIEWS);
+    }
+}
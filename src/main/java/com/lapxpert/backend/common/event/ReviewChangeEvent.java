@@ -0,0 +1,48 @@
+package com.lapxpert.backend.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Event published when a review is created, edited or moderated.
+ * Consumed after commit to evict rating caches and bump the REVIEWS data version.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewChangeEvent {
+
+    /**
+     * Review ID
+     */
+    private Long danhGiaId;
+
+    /**
+     * Product the review belongs to
+     */
+    private Long sanPhamId;
+
+    /**
+     * Reason for the change (for logging)
+     */
+    private String lyDo;
+
+    /**
+     * Timestamp when change occurred
+     */
+    private Instant timestamp;
+
+    public static ReviewChangeEvent of(Long danhGiaId, Long sanPhamId, String lyDo) {
+        return ReviewChangeEvent.builder()
+                .danhGiaId(danhGiaId)
+                .sanPhamId(sanPhamId)
+                .lyDo(lyDo)
+                .timestamp(Instant.now())
+                .build();
+    }
+}
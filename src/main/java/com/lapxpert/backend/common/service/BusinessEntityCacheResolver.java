@@ -0,0 +1,38 @@
+package com.lapxpert.backend.common.service;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.AbstractCacheResolver;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resolves the cache of a BusinessEntityService from its getCacheName().
+ *
+ * Cache annotations do not evaluate SpEL in cacheNames, so the shared CRUD methods of BusinessEntityService cannot
+ * name their cache statically; this resolver gives every entity service its own cache (phieuGiamGiaCache,
+ * dotGiamGiaCache, ...), so the same ID of two entities never shares an entry and evicting by ID only touches the
+ * entity it belongs to. Operations that name their caches explicitly keep those names.
+ */
+@Component(BusinessEntityCacheResolver.BEAN_NAME)
+public class BusinessEntityCacheResolver extends AbstractCacheResolver {
+
+    public static final String BEAN_NAME = "businessEntityCacheResolver";
+
+    public BusinessEntityCacheResolver(CacheManager cacheManager) {
+        super(cacheManager);
+    }
+
+    @Override
+    protected Collection<String> getCacheNames(CacheOperationInvocationContext<?> context) {
+        if (!context.getOperation().getCacheNames().isEmpty()) {
+            return context.getOperation().getCacheNames();
+        }
+        if (context.getTarget() instanceof BusinessEntityService<?, ?, ?, ?> service) {
+            return List.of(service.getCacheName());
+        }
+        throw new IllegalStateException("No cache name for " + context.getTarget().getClass().getName());
+    }
+}
@@ -5,6 +5,7 @@ import com.lapxpert.backend.common.util.ExceptionHandlingUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.context.ApplicationEventPublisher;
 
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +24,9 @@ import java.util.Optional;
  * 
  * This template is intended for business entities like:
  * SanPham, HoaDon, NguoiDung, PhieuGiamGia, DotGiamGia
+ *
+ * Cached results live in the cache named by getCacheName(), resolved per service by BusinessEntityCacheResolver:
+ * findById entries are keyed by ID and the findAll list by SimpleKey.EMPTY.
  * 
  * @param <T> Entity type (e.g., SanPham, HoaDon)
  * @param <ID> Primary key type (typically Long)
@@ -42,11 +46,13 @@ public abstract class BusinessEntityService<T, ID, DTO, AUDIT> extends BaseServi
     protected abstract void validateBusinessRulesForUpdate(T entity, T existingEntity);
 
     /**
-     * Create entity with cache eviction and event publishing
+     * Create entity with cache eviction and event publishing.
+     * A new entity has no findById entry yet, so only the cached findAll list is evicted.
      */
     @Override
     @Transactional
-    @CacheEvict(value = "#{target.cacheName}", allEntries = true)
+    @CacheEvict(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME,
+            key = "T(org.springframework.cache.interceptor.SimpleKey).EMPTY")
     public DTO create(DTO dto, String nguoiThucHien, String lyDo) {
         try {
             T entity = toEntity(dto);
@@ -86,11 +92,16 @@ public abstract class BusinessEntityService<T, ID, DTO, AUDIT> extends BaseServi
     }
 
     /**
-     * Update entity with cache eviction and event publishing
+     * Update entity with cache eviction and event publishing.
+     * Evicts this entity's findById entry and the cached findAll list, not every entry of the cache.
      */
     @Override
     @Transactional
-    @CacheEvict(value = "#{target.cacheName}", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME, key = "#id"),
+            @CacheEvict(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME,
+            key = "T(org.springframework.cache.interceptor.SimpleKey).EMPTY")
+    })
     public DTO update(ID id, DTO dto, String nguoiThucHien, String lyDo) {
         try {
             ValidationUtils.validateId(id, getEntityName());
@@ -146,7 +157,11 @@ public abstract class BusinessEntityService<T, ID, DTO, AUDIT> extends BaseServi
      */
     @Override
     @Transactional
-    @CacheEvict(value = "#{target.cacheName}", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME, key = "#id"),
+            @CacheEvict(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME,
+            key = "T(org.springframework.cache.interceptor.SimpleKey).EMPTY")
+    })
     public void softDelete(ID id, String nguoiThucHien, String lyDo) {
         try {
             ValidationUtils.validateId(id, getEntityName());
@@ -191,7 +206,7 @@ public abstract class BusinessEntityService<T, ID, DTO, AUDIT> extends BaseServi
      */
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "#{target.cacheName}")
+    @Cacheable(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME)
     public List<DTO> findAll() {
         try {
             List<T> entities = getRepository().findAll();
@@ -210,7 +225,7 @@ public abstract class BusinessEntityService<T, ID, DTO, AUDIT> extends BaseServi
      */
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "#{target.cacheName}", key = "#id")
+    @Cacheable(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME, key = "#id")
     public Optional<DTO> findById(ID id) {
         try {
             ValidationUtils.validateId(id, getEntityName());
@@ -229,7 +244,8 @@ public abstract class BusinessEntityService<T, ID, DTO, AUDIT> extends BaseServi
      */
     @Override
     @Transactional
-    @CacheEvict(value = "#{target.cacheName}", allEntries = true)
+    @CacheEvict(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME,
+            key = "T(org.springframework.cache.interceptor.SimpleKey).EMPTY")
     public List<DTO> createBatch(List<DTO> dtos, String nguoiThucHien, String lyDo) {
         try {
             List<T> entities = dtos.stream()
@@ -282,7 +298,7 @@ public abstract class BusinessEntityService<T, ID, DTO, AUDIT> extends BaseServi
      * Cache eviction implementation
      */
     @Override
-    @CacheEvict(value = "#{target.cacheName}", allEntries = true)
+    @CacheEvict(cacheResolver = BusinessEntityCacheResolver.BEAN_NAME, allEntries = true)
     public void evictCache() {
         log.debug("Đã xóa cache cho {}", getEntityName());
     }
@@ -0,0 +1,106 @@
+package com.lapxpert.backend.common.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces real-time updates per (topic, key) before they are broadcast.
+ *
+ * Updates submitted for the same key within one window are merged into a single pending entry holding the first
+ * and the latest update and how many were merged; every window a single flusher thread sends each pending entry
+ * once. A key therefore produces at most one message per window however fast it changes, the message always
+ * carries the latest state, and updates of one key are sent in order. Memory is one entry per key changed
+ * during the window. A window of 0 disables conflation and sends on the caller's thread.
+ */
+@Component
+@Slf4j
+public class ConflatingPublisher {
+
+    /**
+     * Updates of one key merged within a window
+     * @param first oldest update of the window (holds the state before the window)
+     * @param latest newest update of the window
+     * @param count number of updates merged
+     */
+    public record Conflated<T>(Object key, T first, T latest, int count) {
+    }
+
+    private record PendingKey(String topic, Object key) {
+    }
+
+    private record Pending<T>(T first, T latest, int count, Consumer<Conflated<T>> sender) {
+    }
+
+    private final Map<PendingKey, Pending<?>> pending = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor flusher;
+    private final long windowMillis;
+
+    public ConflatingPublisher(@Value("${websocket.conflation.window-ms:200}") long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "websocket-conflation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (windowMillis > 0) {
+            flusher.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queue an update; it replaces any pending update of the same key and is sent at the end of the window
+     * @param sender sends the merged updates of the key, called on the flusher thread
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void submit(String topic, Object key, T update, Consumer<Conflated<T>> sender) {
+        if (windowMillis <= 0) {
+            send(key, new Pending<>(update, update, 1, sender));
+            return;
+        }
+        pending.compute(new PendingKey(topic, key), (pendingKey, current) -> current == null
+                ? new Pending<>(update, update, 1, sender)
+                : new Pending<>(((Pending<T>) current).first(), update, current.count() + 1, sender));
+    }
+
+    /**
+     * Send every pending entry; an update submitted meanwhile either joins its entry before removal or opens the
+     * next window
+     */
+    void flush() {
+        int sent = 0;
+        int merged = 0;
+        for (PendingKey pendingKey : pending.keySet()) {
+            Pending<?> entry = pending.remove(pendingKey);
+            if (entry != null) {
+                send(pendingKey.key(), entry);
+                sent++;
+                merged += entry.count();
+            }
+        }
+        if (sent > 0) {
+            log.debug("Conflated {} real-time updates into {} messages", merged, sent);
+        }
+    }
+
+    private <T> void send(Object key, Pending<T> entry) {
+        try {
+            entry.sender().accept(new Conflated<>(key, entry.first(), entry.latest(), entry.count()));
+        } catch (Exception e) {
+            log.error("Failed to send conflated update for key {}: {}", key, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+}
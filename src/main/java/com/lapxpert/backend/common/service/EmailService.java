@@ -2,11 +2,14 @@ package com.lapxpert.backend.common.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class EmailService {
@@ -44,6 +47,42 @@ public class EmailService {
         emailSender.send(message);
     }
 
+    /**
+     * Send the same email to each recipient separately over one SMTP connection.
+     * Unlike sendBulkEmail, recipients don't see each other's addresses and one bad address
+     * doesn't fail the rest.
+     *
+     * @return failed recipients with their error; empty when all were accepted
+     */
+    public Map<String, Exception> sendEach(List<String> recipients, String subject, String text) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[recipients.size()];
+        Map<Object, String> recipientByMessage = new LinkedHashMap<>();
+        for (int i = 0; i < messages.length; i++) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(configuredSenderEmail);
+            message.setTo(recipients.get(i));
+            message.setSubject(subject);
+            message.setText(text);
+            messages[i] = message;
+            recipientByMessage.put(message, recipients.get(i));
+        }
+
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        try {
+            emailSender.send(messages);
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                recipients.forEach(recipient -> failures.put(recipient, e));
+            } else {
+                e.getFailedMessages().forEach((message, error) ->
+                        failures.put(recipientByMessage.getOrDefault(message, String.valueOf(message)), error));
+            }
+        } catch (RuntimeException e) {
+            recipients.forEach(recipient -> failures.put(recipient, e));
+        }
+        return failures;
+    }
+
     public void sendPasswordEmail(String to, String rawPassword) {
         String subject = "Mật khẩu mới của bạn";
         String text = String.format(
@@ -0,0 +1,310 @@
+package com.lapxpert.backend.common.service;
+
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import com.lapxpert.backend.common.event.VoucherChangeEvent;
+import com.lapxpert.backend.dotgiamgia.repository.DotGiamGiaRepository;
+import com.lapxpert.backend.dotgiamgia.service.DotGiamGiaService;
+import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaRepository;
+import com.lapxpert.backend.phieugiamgia.service.PhieuGiamGiaService;
+import com.lapxpert.backend.sanpham.event.CampaignPricingChangeEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precise lifecycle transitions for discount campaigns (DotGiamGia) and vouchers (PhieuGiamGia).
+ *
+ * Every start and end instant of a campaign/voucher that can still change status is registered
+ * in an in-process DelayQueue, rebuilt at startup and kept current from change events. When a timer
+ * fires the status is flipped with a conditional UPDATE; the instance whose UPDATE touches the row
+ * owns the transition and publishes the follow-up events, so every instance can hold the same timers
+ * without a distributed lock.
+ *
+ * Vietnamese Business Context:
+ * - Kích hoạt đúng giờ: Campaigns and vouchers start and end at the exact configured instant
+ * - Cập nhật giá có mục tiêu: Only variants of the affected campaign are repriced
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionLifecycleScheduler {
+
+    private static final List<TrangThaiCampaign> OPEN_STATUSES =
+            List.of(TrangThaiCampaign.CHUA_DIEN_RA, TrangThaiCampaign.DA_DIEN_RA);
+
+    // The caches BusinessEntityCacheResolver resolves for the findById/findAll entries of each service
+    private static final String CAMPAIGN_CACHE = DotGiamGiaService.CACHE_NAME;
+    private static final String VOUCHER_CACHE = PhieuGiamGiaService.CACHE_NAME;
+
+    private final DotGiamGiaRepository dotGiamGiaRepository;
+    private final PhieuGiamGiaRepository phieuGiamGiaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final CacheManager cacheManager;
+
+    private final DelayQueue<LifecycleTimer> timers = new DelayQueue<>();
+    private final Set<LifecycleTimer> pendingTimers = ConcurrentHashMap.newKeySet();
+
+    private volatile Thread dispatcherThread;
+
+    /**
+     * Kind of entity a timer belongs to
+     */
+    public enum TargetType {
+        DOT_GIAM_GIA,
+        PHIEU_GIAM_GIA
+    }
+
+    /**
+     * Lifecycle boundary reached by a timer
+     */
+    public enum Transition {
+        ACTIVATE,
+        EXPIRE
+    }
+
+    /**
+     * Build all timers from the database and start the dispatcher thread
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        resync();
+
+        Thread thread = new Thread(this::dispatchLoop, "promotion-lifecycle-timer");
+        thread.setDaemon(true);
+        thread.start();
+        dispatcherThread = thread;
+
+        log.info("Promotion lifecycle scheduler started with {} pending timers", pendingTimers.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = dispatcherThread;
+        dispatcherThread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Safety net for changes that bypass the services (manual SQL, restored backups).
+     * Reads only id/date/status columns, registering timers that are not already pending.
+     */
+    @Scheduled(fixedDelay = 900000, initialDelay = 900000) // Every 15 minutes
+    public void resync() {
+        try {
+            registerRows(TargetType.DOT_GIAM_GIA, dotGiamGiaRepository.findLifecycleBoundaries(OPEN_STATUSES));
+            registerRows(TargetType.PHIEU_GIAM_GIA, phieuGiamGiaRepository.findLifecycleBoundaries(OPEN_STATUSES));
+        } catch (Exception e) {
+            log.error("Failed to resync promotion lifecycle timers: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Re-register timers for campaigns whose dates, status or assignments changed
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCampaignPricingChange(CampaignPricingChangeEvent event) {
+        if (event.getCampaignIds() == null || event.getCampaignIds().isEmpty()) {
+            return;
+        }
+        try {
+            registerRows(TargetType.DOT_GIAM_GIA,
+                    dotGiamGiaRepository.findLifecycleBoundariesByIds(event.getCampaignIds(), OPEN_STATUSES));
+        } catch (Exception e) {
+            log.warn("Failed to register campaign timers for {}: {}", event.getCampaignIds(), e.getMessage());
+        }
+    }
+
+    /**
+     * Re-register timers for vouchers that were created or updated
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleVoucherChange(VoucherChangeEvent event) {
+        if (!"PHIEU_GIAM_GIA".equals(event.getLoaiVoucher()) || event.getVoucherId() == null) {
+            return;
+        }
+        try {
+            registerRows(TargetType.PHIEU_GIAM_GIA,
+                    phieuGiamGiaRepository.findLifecycleBoundariesByIds(Set.of(event.getVoucherId()), OPEN_STATUSES));
+        } catch (Exception e) {
+            log.warn("Failed to register voucher timers for {}: {}", event.getVoucherId(), e.getMessage());
+        }
+    }
+
+    public int getPendingTimerCount() {
+        return pendingTimers.size();
+    }
+
+    /**
+     * Register timers from rows of [id, ngayBatDau, ngayKetThuc, trangThai].
+     * Boundaries already in the past fire immediately; stale timers left behind by
+     * date edits are harmless because the conditional UPDATE re-checks the dates.
+     */
+    private void registerRows(TargetType type, Collection<Object[]> rows) {
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            Instant ngayBatDau = (Instant) row[1];
+            Instant ngayKetThuc = (Instant) row[2];
+            TrangThaiCampaign trangThai = (TrangThaiCampaign) row[3];
+
+            if (trangThai == TrangThaiCampaign.CHUA_DIEN_RA && ngayBatDau != null) {
+                register(new LifecycleTimer(type, id, Transition.ACTIVATE, ngayBatDau));
+            }
+            if (ngayKetThuc != null) {
+                register(new LifecycleTimer(type, id, Transition.EXPIRE, ngayKetThuc));
+            }
+        }
+    }
+
+    private void register(LifecycleTimer timer) {
+        if (pendingTimers.add(timer)) {
+            timers.put(timer);
+            log.debug("Registered {} timer for {} {} at {}", timer.transition(), timer.type(), timer.id(), timer.fireAt());
+        }
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                LifecycleTimer timer = timers.take();
+                pendingTimers.remove(timer);
+                fire(timer);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Promotion lifecycle timer failed: {}", e.getMessage(), e);
+            }
+        }
+        log.info("Promotion lifecycle scheduler stopped");
+    }
+
+    /**
+     * Flip the status in its own transaction; events published inside it are delivered after commit
+     */
+    void fire(LifecycleTimer timer) {
+        Instant now = Instant.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Boolean owned = transactionTemplate.execute(status -> timer.type() == TargetType.DOT_GIAM_GIA
+                ? transitionCampaign(timer, now)
+                : transitionVoucher(timer, now));
+
+        if (Boolean.TRUE.equals(owned)) {
+            evictEntry(timer.type() == TargetType.DOT_GIAM_GIA ? CAMPAIGN_CACHE : VOUCHER_CACHE, timer.id());
+            log.info("{} {} transitioned by {} timer scheduled at {} (fired {} ms late)",
+                    timer.type(), timer.id(), timer.transition(), timer.fireAt(),
+                    Math.max(0, now.toEpochMilli() - timer.fireAt().toEpochMilli()));
+        }
+    }
+
+    private boolean transitionCampaign(LifecycleTimer timer, Instant now) {
+        TrangThaiCampaign newStatus;
+        int updated;
+        if (timer.transition() == Transition.ACTIVATE) {
+            newStatus = TrangThaiCampaign.DA_DIEN_RA;
+            updated = dotGiamGiaRepository.activateIfDue(timer.id(), now, TrangThaiCampaign.CHUA_DIEN_RA, newStatus);
+        } else {
+            newStatus = TrangThaiCampaign.KET_THUC;
+            updated = dotGiamGiaRepository.expireIfDue(timer.id(), now, OPEN_STATUSES, newStatus);
+        }
+        if (updated == 0) {
+            return false;
+        }
+
+        // Reprice only the variants attached to this campaign
+        List<Long> variantIds = dotGiamGiaRepository.findSanPhamChiTietIdsByDotGiamGiaId(timer.id());
+        if (!variantIds.isEmpty()) {
+            eventPublisher.publishEvent(CampaignPricingChangeEvent.forVariants(
+                    Set.of(timer.id()), Set.copyOf(variantIds),
+                    "Đợt giảm giá chuyển sang trạng thái " + newStatus.name()));
+        }
+        return true;
+    }
+
+    private boolean transitionVoucher(LifecycleTimer timer, Instant now) {
+        TrangThaiCampaign oldStatus;
+        TrangThaiCampaign newStatus;
+        int updated;
+        if (timer.transition() == Transition.ACTIVATE) {
+            oldStatus = TrangThaiCampaign.CHUA_DIEN_RA;
+            newStatus = TrangThaiCampaign.DA_DIEN_RA;
+            updated = phieuGiamGiaRepository.activateIfDue(timer.id(), now, oldStatus, newStatus);
+        } else {
+            oldStatus = TrangThaiCampaign.DA_DIEN_RA;
+            newStatus = TrangThaiCampaign.KET_THUC;
+            updated = phieuGiamGiaRepository.expireIfDue(timer.id(), now, OPEN_STATUSES, newStatus);
+        }
+        if (updated == 0) {
+            return false;
+        }
+
+        eventPublisher.publishEvent(VoucherChangeEvent.builder()
+                .voucherId(timer.id())
+                .loaiVoucher("PHIEU_GIAM_GIA")
+                .trangThaiCu(oldStatus.name())
+                .trangThaiMoi(newStatus.name())
+                .loaiThayDoi("STATUS_CHANGE")
+                .nguoiThucHien("SYSTEM")
+                .lyDoThayDoi("Cập nhật trạng thái tự động theo thời gian hiệu lực")
+                .timestamp(now)
+                .build());
+        return true;
+    }
+
+    /**
+     * Evict the entity entry and the cached findAll list, leaving other entries intact
+     */
+    private void evictEntry(String cacheName, Long id) {
+        try {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.evict(id);
+                cache.evict(SimpleKey.EMPTY);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to evict {} entry {}: {}", cacheName, id, e.getMessage());
+        }
+    }
+
+    /**
+     * Delayed element keyed by (type, id, transition, fireAt) so duplicate registrations collapse
+     */
+    record LifecycleTimer(TargetType type, Long id, Transition transition, Instant fireAt) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(fireAt.toEpochMilli() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof LifecycleTimer timer) {
+                return fireAt.compareTo(timer.fireAt);
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
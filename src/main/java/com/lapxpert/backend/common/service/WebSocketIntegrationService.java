@@ -2,6 +2,7 @@ package com.lapxpert.backend.common.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lapxpert.backend.websocket.dto.WebSocketMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -113,6 +114,34 @@ public class WebSocketIntegrationService {
         }
     }
 
+    /**
+     * Send a price change to one customer whose cart holds the variant
+     * Vietnamese topic: /topic/gio-hang/{nguoiDungId}
+     */
+    public void sendCartPriceUpdate(String nguoiDungId, String variantId, Double newPrice, String message) {
+        if (!integrationEnabled) {
+            log.debug("WebSocket integration disabled - skipping cart price update");
+            return;
+        }
+
+        try {
+            Map<String, Object> update = new HashMap<>();
+            update.put("nguoiDungId", nguoiDungId);
+            update.put("variantId", variantId);
+            update.put("newPrice", newPrice);
+            update.put("message", message != null ? message : "Giá sản phẩm trong giỏ hàng đã được cập nhật");
+            update.put("timestamp", Instant.now());
+
+            publishMessage(GLOBAL_CHANNEL, "/topic/gio-hang/" + nguoiDungId, update, "CART_PRICE_UPDATE");
+
+            log.debug("Sent cart price update to user {} for variant {}", nguoiDungId, variantId);
+
+        } catch (Exception e) {
+            sendErrors.incrementAndGet();
+            log.error("Failed to send cart price update to user {}: {}", nguoiDungId, e.getMessage(), e);
+        }
+    }
+
     /**
      * Send voucher notification
      * Vietnamese topics: /topic/phieu-giam-gia/{voucherId} or /topic/dot-giam-gia/{campaignId}
@@ -534,12 +563,13 @@ public class WebSocketIntegrationService {
      */
     private void sendMessageImmediately(String channel, String destination, Object payload, String messageType) {
         try {
-            Map<String, Object> message = new HashMap<>();
-            message.put("destination", destination);
-            message.put("payload", payload);
-            message.put("messageType", messageType);
-            message.put("sourceService", "MAIN_APPLICATION");
-            message.put("timestamp", Instant.now());
+            // Built when published so the id and per-node sequence let subscribers drop duplicates and replays
+            WebSocketMessage message = WebSocketMessage.builder()
+                    .destination(destination)
+                    .payload(payload)
+                    .messageType(messageType)
+                    .sourceService("MAIN_APPLICATION")
+                    .build();
 
             String messageJson = objectMapper.writeValueAsString(message);
             redisTemplate.convertAndSend(channel, messageJson);
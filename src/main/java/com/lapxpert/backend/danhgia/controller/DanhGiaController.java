@@ -1,5 +1,7 @@
 package com.lapxpert.backend.danhgia.controller;
 
+import com.lapxpert.backend.common.cache.CacheVersioningService.DataDomain;
+import com.lapxpert.backend.common.cache.ConditionalGet;
 import com.lapxpert.backend.danhgia.dto.CreateReviewDto;
 import com.lapxpert.backend.danhgia.dto.DanhGiaDto;
 import com.lapxpert.backend.danhgia.dto.ProductRatingDto;
@@ -153,6 +155,7 @@ public class DanhGiaController {
      * @return product rating summary
      */
     @GetMapping("/san-pham/{sanPhamId}/thong-ke")
+    @ConditionalGet(value = DataDomain.REVIEWS, cacheResponseSeconds = 600)
     public ResponseEntity<ProductRatingDto> layThongKeDanhGia(@PathVariable Long sanPhamId) {
         log.debug("Getting rating statistics for product: {}", sanPhamId);
 
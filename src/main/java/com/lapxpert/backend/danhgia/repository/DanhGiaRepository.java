@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -105,6 +106,18 @@ public interface DanhGiaRepository extends JpaRepository<DanhGia, Long> {
     List<Object[]> calculateBatchRatings(@Param("productIds") List<Long> productIds,
                                         @Param("trangThai") TrangThaiDanhGia trangThai);
 
+    /**
+     * Batch rating distribution for multiple products; average and count follow from the distribution
+     * @param productIds product IDs
+     * @param trangThai review status
+     * @return list of [productId, rating, count] tuples
+     */
+    @Query("SELECT d.sanPham.id, d.diemDanhGia, COUNT(d) " +
+           "FROM DanhGia d WHERE d.sanPham.id IN :productIds AND d.trangThai = :trangThai " +
+           "GROUP BY d.sanPham.id, d.diemDanhGia")
+    List<Object[]> getBatchRatingDistribution(@Param("productIds") Collection<Long> productIds,
+                                              @Param("trangThai") TrangThaiDanhGia trangThai);
+
     // ==================== ADVANCED FILTERING QUERIES ====================
 
     /**
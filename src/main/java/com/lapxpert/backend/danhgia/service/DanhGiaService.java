@@ -1,6 +1,6 @@
 package com.lapxpert.backend.danhgia.service;
 
-import com.lapxpert.backend.common.cache.CacheInvalidationService;
+import com.lapxpert.backend.common.event.ReviewChangeEvent;
 import com.lapxpert.backend.common.enums.TrangThaiDanhGia;
 import com.lapxpert.backend.danhgia.dto.CreateReviewDto;
 import com.lapxpert.backend.danhgia.dto.DanhGiaDto;
@@ -21,6 +21,7 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -51,7 +52,7 @@ public class DanhGiaService {
     private final ReviewEligibilityService eligibilityService;
     private final ReviewBusinessRules businessRules;
     private final ProductRatingCacheService ratingCacheService;
-    private final CacheInvalidationService cacheInvalidationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ==================== CORE CRUD OPERATIONS ====================
 
@@ -91,8 +92,8 @@ public class DanhGiaService {
         // 6. Save review
         DanhGia savedReview = danhGiaRepository.save(danhGia);
 
-        // 7. Invalidate review-related caches
-        cacheInvalidationService.invalidateReviewData(createDto.getSanPhamId());
+        // 7. Review caches and the REVIEWS version are refreshed after commit
+        eventPublisher.publishEvent(ReviewChangeEvent.of(savedReview.getId(), createDto.getSanPhamId(), "Tạo đánh giá"));
 
         log.info("Created review {} with status {} for product {} by user {}",
                 savedReview.getId(), moderationStatus, createDto.getSanPhamId(), createDto.getNguoiDungId());
@@ -132,8 +133,8 @@ public class DanhGiaService {
 
         DanhGia savedReview = danhGiaRepository.save(existingReview);
 
-        // Invalidate review-related caches
-        cacheInvalidationService.invalidateReviewData(existingReview.getSanPham().getId());
+        // Review caches and the REVIEWS version are refreshed after commit
+        eventPublisher.publishEvent(ReviewChangeEvent.of(reviewId, existingReview.getSanPham().getId(), "Cập nhật đánh giá"));
 
         log.info("Updated review {} with new status {}", reviewId, moderationStatus);
 
@@ -167,8 +168,8 @@ public class DanhGiaService {
         review.setTrangThai(TrangThaiDanhGia.DA_AN);
         danhGiaRepository.save(review);
 
-        // Invalidate review-related caches
-        cacheInvalidationService.invalidateReviewData(review.getSanPham().getId());
+        // Review caches and the REVIEWS version are refreshed after commit
+        eventPublisher.publishEvent(ReviewChangeEvent.of(reviewId, review.getSanPham().getId(), "Đổi trạng thái đánh giá"));
 
         log.info("Soft deleted review {} with reason: {}", reviewId, reason);
     }
@@ -234,7 +235,7 @@ public class DanhGiaService {
      * @return product rating summary
      */
     @Transactional(readOnly = true)
-    @Cacheable(value = "productRatings", key = "#sanPhamId")
+    @Cacheable(value = "productRatings", key = "#sanPhamId", sync = true)
     public ProductRatingDto tinhToanDanhGiaSanPham(Long sanPhamId) {
         log.debug("Calculating rating for product {}", sanPhamId);
 
@@ -397,8 +398,8 @@ public class DanhGiaService {
         review.setTrangThai(TrangThaiDanhGia.DA_DUYET);
         DanhGia savedReview = danhGiaRepository.save(review);
 
-        // Invalidate review-related caches
-        cacheInvalidationService.invalidateReviewData(review.getSanPham().getId());
+        // Review caches and the REVIEWS version are refreshed after commit
+        eventPublisher.publishEvent(ReviewChangeEvent.of(reviewId, review.getSanPham().getId(), "Đổi trạng thái đánh giá"));
 
         log.info("Approved review {}", reviewId);
         return danhGiaMapper.toDto(savedReview);
@@ -428,8 +429,8 @@ public class DanhGiaService {
         review.setTrangThai(TrangThaiDanhGia.BI_TU_CHOI);
         DanhGia savedReview = danhGiaRepository.save(review);
 
-        // Invalidate review-related caches
-        cacheInvalidationService.invalidateReviewData(review.getSanPham().getId());
+        // Review caches and the REVIEWS version are refreshed after commit
+        eventPublisher.publishEvent(ReviewChangeEvent.of(reviewId, review.getSanPham().getId(), "Đổi trạng thái đánh giá"));
 
         log.info("Rejected review {} with reason: {}", reviewId, reason);
         return danhGiaMapper.toDto(savedReview);
@@ -451,8 +452,8 @@ public class DanhGiaService {
         review.setTrangThai(TrangThaiDanhGia.DA_AN);
         DanhGia savedReview = danhGiaRepository.save(review);
 
-        // Invalidate review-related caches
-        cacheInvalidationService.invalidateReviewData(review.getSanPham().getId());
+        // Review caches and the REVIEWS version are refreshed after commit
+        eventPublisher.publishEvent(ReviewChangeEvent.of(reviewId, review.getSanPham().getId(), "Đổi trạng thái đánh giá"));
 
         log.info("Hidden review {}", reviewId);
         return danhGiaMapper.toDto(savedReview);
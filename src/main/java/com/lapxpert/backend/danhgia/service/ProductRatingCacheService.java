@@ -1,6 +1,8 @@
 package com.lapxpert.backend.danhgia.service;
 
 import com.lapxpert.backend.common.cache.CacheKeyBuilder;
+import com.lapxpert.backend.common.cache.HybridCacheService;
+import com.lapxpert.backend.common.cache.RedisKeyScanner;
 import com.lapxpert.backend.common.enums.TrangThaiDanhGia;
 import com.lapxpert.backend.danhgia.dto.ProductRatingDto;
 import com.lapxpert.backend.danhgia.dto.RatingDistributionDto;
@@ -10,16 +12,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 /**
  * Service for managing product rating cache with Redis
@@ -31,7 +34,8 @@ import java.util.Set;
 @Slf4j
 public class ProductRatingCacheService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisKeyScanner redisKeyScanner;
+    private final HybridCacheService hybridCacheService;
     private final DanhGiaRepository danhGiaRepository;
     private final SanPhamRepository sanPhamRepository;
 
@@ -51,7 +55,7 @@ public class ProductRatingCacheService {
      * @param productId product ID
      * @return product rating DTO
      */
-    @Cacheable(value = "productRatings", key = "#productId")
+    @Cacheable(value = "productRatings", key = "#productId", sync = true)
     public ProductRatingDto getProductRating(Long productId) {
         log.debug("Getting product rating for product {}", productId);
         long startTime = System.currentTimeMillis();
@@ -73,6 +77,16 @@ public class ProductRatingCacheService {
         }
     }
 
+    /**
+     * Get product ratings for a page of products in one cache round trip
+     * Misses are calculated together with one grouped query and cached like {@link #getProductRating}
+     * @param productIds product IDs
+     * @return ratings by product ID
+     */
+    public Map<Long, ProductRatingDto> getProductRatings(Collection<Long> productIds) {
+        return hybridCacheService.getAll("productRatings", productIds, this::calculateProductRatings);
+    }
+
     /**
      * Invalidate product rating cache
      * @param productId product ID to invalidate
@@ -123,8 +137,7 @@ public class ProductRatingCacheService {
     @Scheduled(fixedRate = 3600000) // Every hour
     public void logCacheStatus() {
         try {
-            Set<String> ratingKeys = redisTemplate.keys(CacheKeyBuilder.Product.ratingPattern());
-            int cacheSize = ratingKeys != null ? ratingKeys.size() : 0;
+            long cacheSize = redisKeyScanner.count(CacheKeyBuilder.Product.ratingPattern());
             log.debug("Current cache size: {} product ratings", cacheSize);
         } catch (Exception e) {
             log.debug("Error checking cache status", e);
@@ -179,6 +192,55 @@ public class ProductRatingCacheService {
             .build();
     }
 
+    /**
+     * Calculate rating statistics for several products with one grouped query
+     * Products without approved reviews get an empty rating, as in {@link #calculateProductRating}
+     */
+    private Map<Long, ProductRatingDto> calculateProductRatings(Collection<Long> sanPhamIds) {
+        Map<Long, RatingDistributionDto> distributions = new HashMap<>();
+        for (Object[] row : danhGiaRepository.getBatchRatingDistribution(sanPhamIds, TrangThaiDanhGia.DA_DUYET)) {
+            Long sanPhamId = (Long) row[0];
+            Integer rating = (Integer) row[1];
+            int count = ((Long) row[2]).intValue();
+
+            RatingDistributionDto distribution = distributions.computeIfAbsent(sanPhamId, id -> new RatingDistributionDto());
+            switch (rating) {
+                case 1 -> distribution.setOneStar(count);
+                case 2 -> distribution.setTwoStar(count);
+                case 3 -> distribution.setThreeStar(count);
+                case 4 -> distribution.setFourStar(count);
+                case 5 -> distribution.setFiveStar(count);
+            }
+        }
+
+        Instant now = Instant.now();
+        Map<Long, ProductRatingDto> ratings = new HashMap<>();
+        for (Long sanPhamId : sanPhamIds) {
+            RatingDistributionDto distribution = distributions.getOrDefault(sanPhamId, new RatingDistributionDto());
+            distribution.calculatePercentages();
+            int totalReviews = distribution.calculateTotalCount();
+
+            ratings.put(sanPhamId, ProductRatingDto.builder()
+                .sanPhamId(sanPhamId)
+                .averageRating(totalReviews == 0 ? 0.0 : weightedSum(distribution) / totalReviews)
+                .totalApprovedReviews(totalReviews)
+                .distribution(distribution)
+                .recentReviews(List.of())
+                .lastUpdated(now)
+                .verifiedPurchaseCount(totalReviews)
+                .build());
+        }
+        return ratings;
+    }
+
+    private static double weightedSum(RatingDistributionDto distribution) {
+        double sum = 0;
+        for (int stars = 1; stars <= 5; stars++) {
+            sum += stars * distribution.getCountForStars(stars);
+        }
+        return sum;
+    }
+
     /**
      * Calculate rating distribution for a product
      */
@@ -215,8 +277,7 @@ public class ProductRatingCacheService {
      */
     public CacheStatistics getCacheStatistics() {
         try {
-            Set<String> ratingKeys = redisTemplate.keys(CacheKeyBuilder.Product.ratingPattern());
-            int ratingCacheSize = ratingKeys != null ? ratingKeys.size() : 0;
+            int ratingCacheSize = (int) redisKeyScanner.count(CacheKeyBuilder.Product.ratingPattern());
 
             return new CacheStatistics(ratingCacheSize, 0, Instant.now());
 
@@ -41,6 +41,12 @@ public class DanhSachYeuThichDto {
     private BigDecimal giaKhiThem;  // Price when added to wishlist (for tracking)
     private BigDecimal giaHienTai;  // Current minimum price
 
+    /**
+     * Rating summary from the productRatings cache
+     */
+    private Double diemDanhGia;
+    private Integer soLuongDanhGia;
+
     /**
      * Standard audit fields for online modules
      */
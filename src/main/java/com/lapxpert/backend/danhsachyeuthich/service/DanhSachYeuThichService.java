@@ -1,5 +1,7 @@
 package com.lapxpert.backend.danhsachyeuthich.service;
 
+import com.lapxpert.backend.danhgia.dto.ProductRatingDto;
+import com.lapxpert.backend.danhgia.service.ProductRatingCacheService;
 import com.lapxpert.backend.danhsachyeuthich.dto.DanhSachYeuThichDto;
 import com.lapxpert.backend.danhsachyeuthich.dto.ThemVaoYeuThichRequest;
 import com.lapxpert.backend.danhsachyeuthich.dto.ChuyenVaoGioHangRequest;
@@ -27,6 +29,8 @@ import jakarta.persistence.EntityNotFoundException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Core service for DanhSachYeuThich (Wishlist) module
@@ -44,6 +48,7 @@ public class DanhSachYeuThichService {
     private final NguoiDungRepository nguoiDungRepository;
     private final SanPhamRepository sanPhamRepository;
     private final GioHangService gioHangService;
+    private final ProductRatingCacheService productRatingCacheService;
 
     /**
      * Get all wishlist items for a user
@@ -55,7 +60,7 @@ public class DanhSachYeuThichService {
         log.debug("Getting wishlist for user: {}", nguoiDungId);
 
         List<DanhSachYeuThich> wishlistItems = danhSachYeuThichRepository.findByNguoiDungId(nguoiDungId);
-        return danhSachYeuThichMapper.toDtoList(wishlistItems);
+        return withRatings(danhSachYeuThichMapper.toDtoList(wishlistItems));
     }
 
     /**
@@ -76,7 +81,9 @@ public class DanhSachYeuThichService {
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
 
         Page<DanhSachYeuThich> wishlistPage = danhSachYeuThichRepository.findByNguoiDungId(nguoiDungId, pageable);
-        return wishlistPage.map(danhSachYeuThichMapper::toDto);
+        Page<DanhSachYeuThichDto> dtoPage = wishlistPage.map(danhSachYeuThichMapper::toDto);
+        withRatings(dtoPage.getContent());
+        return dtoPage;
     }
 
     /**
@@ -195,7 +202,7 @@ public class DanhSachYeuThichService {
         log.debug("Getting available products in wishlist for user: {}", nguoiDungId);
 
         List<DanhSachYeuThich> availableItems = danhSachYeuThichRepository.findByNguoiDungIdAndAvailableProducts(nguoiDungId);
-        return danhSachYeuThichMapper.toDtoList(availableItems);
+        return withRatings(danhSachYeuThichMapper.toDtoList(availableItems));
     }
 
     /**
@@ -208,7 +215,7 @@ public class DanhSachYeuThichService {
         log.debug("Getting price drop items in wishlist for user: {}", nguoiDungId);
 
         List<DanhSachYeuThich> priceDropItems = danhSachYeuThichRepository.findItemsWithPriceDrops(nguoiDungId);
-        return danhSachYeuThichMapper.toDtoList(priceDropItems);
+        return withRatings(danhSachYeuThichMapper.toDtoList(priceDropItems));
     }
 
     /**
@@ -223,7 +230,7 @@ public class DanhSachYeuThichService {
 
         Pageable pageable = PageRequest.of(0, limit);
         Page<DanhSachYeuThich> recentItems = danhSachYeuThichRepository.findRecentByNguoiDungId(nguoiDungId, pageable);
-        return danhSachYeuThichMapper.toDtoList(recentItems.getContent());
+        return withRatings(danhSachYeuThichMapper.toDtoList(recentItems.getContent()));
     }
 
     /**
@@ -311,7 +318,7 @@ public class DanhSachYeuThichService {
         log.debug("Getting wishlist items by category {} for user: {}", categoryId, nguoiDungId);
 
         List<DanhSachYeuThich> categoryItems = danhSachYeuThichRepository.findByNguoiDungIdAndCategory(nguoiDungId, categoryId);
-        return danhSachYeuThichMapper.toDtoList(categoryItems);
+        return withRatings(danhSachYeuThichMapper.toDtoList(categoryItems));
     }
 
     /**
@@ -329,6 +336,29 @@ public class DanhSachYeuThichService {
 
         List<DanhSachYeuThich> dateRangeItems = danhSachYeuThichRepository.findByNguoiDungIdAndDateRange(
                 nguoiDungId, startDate, endDate);
-        return danhSachYeuThichMapper.toDtoList(dateRangeItems);
+        return withRatings(danhSachYeuThichMapper.toDtoList(dateRangeItems));
+    }
+
+    /**
+     * Attach product ratings to wishlist items with one bulk cache read for the whole list
+     * @param items mapped wishlist items
+     * @return the same items
+     */
+    private List<DanhSachYeuThichDto> withRatings(List<DanhSachYeuThichDto> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        Map<Long, ProductRatingDto> ratings = productRatingCacheService.getProductRatings(items.stream()
+                .map(DanhSachYeuThichDto::getSanPhamId)
+                .filter(Objects::nonNull)
+                .toList());
+        for (DanhSachYeuThichDto item : items) {
+            ProductRatingDto rating = ratings.get(item.getSanPhamId());
+            if (rating != null) {
+                item.setDiemDanhGia(rating.getAverageRating());
+                item.setSoLuongDanhGia(rating.getTotalApprovedReviews());
+            }
+        }
+        return items;
     }
 }
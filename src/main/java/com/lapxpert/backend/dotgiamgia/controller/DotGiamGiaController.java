@@ -1,7 +1,9 @@
 package com.lapxpert.backend.dotgiamgia.controller;
 
+import com.lapxpert.backend.dotgiamgia.dto.CampaignConflictDto;
 import com.lapxpert.backend.dotgiamgia.dto.DotGiamGiaDto;
 import com.lapxpert.backend.dotgiamgia.dto.DotGiamGiaAuditHistoryDto;
+import com.lapxpert.backend.dotgiamgia.dto.VariantSelectorDto;
 import com.lapxpert.backend.dotgiamgia.service.DotGiamGiaService;
 import com.lapxpert.backend.sanpham.dto.SanPhamChiTietDto;
 import jakarta.validation.Valid;
@@ -77,6 +79,20 @@ public class DotGiamGiaController {
         return ResponseEntity.ok(service.removeSanPhamChiTiets(id, sanPhamChiTietIds));
     }
 
+    @PutMapping("{id}/spct/selector")
+    public ResponseEntity<DotGiamGiaDto> addSanPhamChiTietsBySelector(
+            @PathVariable @NotNull Long id,
+            @RequestBody @NotNull VariantSelectorDto selector) {
+        return ResponseEntity.ok(service.addSanPhamChiTietsBySelector(id, selector));
+    }
+
+    @DeleteMapping("{id}/spct/selector")
+    public ResponseEntity<DotGiamGiaDto> removeSanPhamChiTietsBySelector(
+            @PathVariable @NotNull Long id,
+            @RequestBody @NotNull VariantSelectorDto selector) {
+        return ResponseEntity.ok(service.removeSanPhamChiTietsBySelector(id, selector));
+    }
+
     @PostMapping("{id}/activate")
     public ResponseEntity<DotGiamGiaDto> activateCampaign(@PathVariable @NotNull Long id) {
         try {
@@ -115,6 +131,13 @@ public class DotGiamGiaController {
         return ResponseEntity.ok(conflicts);
     }
 
+    @PostMapping("{id}/conflicts/spct")
+    public ResponseEntity<List<CampaignConflictDto>> findAssignmentConflicts(
+            @PathVariable @NotNull Long id,
+            @RequestBody @NotEmpty List<Long> sanPhamChiTietIds) {
+        return ResponseEntity.ok(service.findAssignmentConflicts(id, sanPhamChiTietIds));
+    }
+
     @GetMapping("statistics")
     public ResponseEntity<DotGiamGiaService.CampaignStatistics> getCampaignStatistics() {
         DotGiamGiaService.CampaignStatistics stats = service.getCampaignStatistics();
@@ -0,0 +1,29 @@
+package com.lapxpert.backend.dotgiamgia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * DTO for a single campaign conflict.
+ * A product variant that belongs to another open campaign whose validity period overlaps the checked campaign.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignConflictDto implements Serializable {
+
+    /**
+     * Conflicting product variant ID
+     */
+    private Long sanPhamChiTietId;
+
+    /**
+     * Other campaign that already discounts the variant in an overlapping period
+     */
+    private Long dotGiamGiaId;
+}
@@ -0,0 +1,45 @@
+package com.lapxpert.backend.dotgiamgia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Selector for bulk campaign assignment.
+ * Each non-empty list narrows the match (AND between criteria, OR within a list);
+ * e.g. thuongHieuIds=[1] + ramIds=[3,4] selects every variant of brand 1 with RAM 3 or 4.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VariantSelectorDto implements Serializable {
+
+    private List<Long> sanPhamIds;
+    private List<Long> thuongHieuIds;
+    private List<Long> danhMucIds;
+
+    private List<Long> cpuIds;
+    private List<Long> ramIds;
+    private List<Long> gpuIds;
+    private List<Long> mauSacIds;
+    private List<Long> boNhoIds;
+    private List<Long> manHinhIds;
+
+    /**
+     * A selector without criteria would match the whole catalog and is rejected
+     */
+    public boolean hasCriteria() {
+        return notEmpty(sanPhamIds) || notEmpty(thuongHieuIds) || notEmpty(danhMucIds)
+                || notEmpty(cpuIds) || notEmpty(ramIds) || notEmpty(gpuIds)
+                || notEmpty(mauSacIds) || notEmpty(boNhoIds) || notEmpty(manHinhIds);
+    }
+
+    private static boolean notEmpty(List<Long> ids) {
+        return ids != null && !ids.isEmpty();
+    }
+}
@@ -3,11 +3,13 @@ package com.lapxpert.backend.dotgiamgia.repository;
 import com.lapxpert.backend.common.enums.TrangThaiCampaign;
 import com.lapxpert.backend.dotgiamgia.entity.DotGiamGia;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -61,6 +63,101 @@ public interface DotGiamGiaRepository extends JpaRepository<DotGiamGia, Long> {
                                                      @Param("waitingStatus") TrangThaiCampaign waitingStatus,
                                                      @Param("activeStatus") TrangThaiCampaign activeStatus);
 
+    /**
+     * Lifecycle boundaries of campaigns that can still change status.
+     * Each row: [id, ngayBatDau, ngayKetThuc, trangThai]
+     */
+    @Query("SELECT d.id, d.ngayBatDau, d.ngayKetThuc, d.trangThai FROM DotGiamGia d WHERE d.trangThai IN :statuses")
+    List<Object[]> findLifecycleBoundaries(@Param("statuses") Collection<TrangThaiCampaign> statuses);
+
+    /**
+     * Lifecycle boundaries for the given campaigns only (same row layout as findLifecycleBoundaries)
+     */
+    @Query("SELECT d.id, d.ngayBatDau, d.ngayKetThuc, d.trangThai FROM DotGiamGia d " +
+           "WHERE d.id IN :ids AND d.trangThai IN :statuses")
+    List<Object[]> findLifecycleBoundariesByIds(@Param("ids") Collection<Long> ids,
+                                               @Param("statuses") Collection<TrangThaiCampaign> statuses);
+
+    /**
+     * Conditionally activate a campaign whose start time has been reached.
+     * Returns 0 when another instance already flipped it or the dates no longer match.
+     */
+    @Modifying
+    @Query("UPDATE DotGiamGia d SET d.trangThai = :activeStatus WHERE d.id = :id " +
+           "AND d.trangThai = :waitingStatus AND d.ngayBatDau <= :currentTime AND d.ngayKetThuc > :currentTime")
+    int activateIfDue(@Param("id") Long id,
+                      @Param("currentTime") Instant currentTime,
+                      @Param("waitingStatus") TrangThaiCampaign waitingStatus,
+                      @Param("activeStatus") TrangThaiCampaign activeStatus);
+
+    /**
+     * Conditionally expire a campaign whose end time has been reached
+     */
+    @Modifying
+    @Query("UPDATE DotGiamGia d SET d.trangThai = :expiredStatus WHERE d.id = :id " +
+           "AND d.trangThai IN :openStatuses AND d.ngayKetThuc <= :currentTime")
+    int expireIfDue(@Param("id") Long id,
+                    @Param("currentTime") Instant currentTime,
+                    @Param("openStatuses") Collection<TrangThaiCampaign> openStatuses,
+                    @Param("expiredStatus") TrangThaiCampaign expiredStatus);
+
+    /**
+     * IDs of product variants assigned to a campaign
+     */
+    @Query("SELECT s.id FROM DotGiamGia d JOIN d.sanPhamChiTiets s WHERE d.id = :campaignId")
+    List<Long> findSanPhamChiTietIdsByDotGiamGiaId(@Param("campaignId") Long campaignId);
+
+    /**
+     * Every (variant, campaign) pair where a variant already assigned to the given campaign is also
+     * assigned to another open campaign whose validity range overlaps it.
+     * Uses the GiST index on khoang_hieu_luc. Each row: [sanPhamChiTietId, dotGiamGiaId]
+     */
+    @Query(value = "SELECT DISTINCT other_link.san_pham_chi_tiet_id, other.id " +
+            "FROM dot_giam_gia target " +
+            "JOIN san_pham_chi_tiet_dot_giam_gia target_link ON target_link.dot_giam_gia_id = target.id " +
+            "JOIN san_pham_chi_tiet_dot_giam_gia other_link ON other_link.san_pham_chi_tiet_id = target_link.san_pham_chi_tiet_id " +
+            "AND other_link.dot_giam_gia_id <> target.id " +
+            "JOIN dot_giam_gia other ON other.id = other_link.dot_giam_gia_id " +
+            "AND other.trang_thai IN ('CHUA_DIEN_RA', 'DA_DIEN_RA') " +
+            "AND other.khoang_hieu_luc && target.khoang_hieu_luc " +
+            "WHERE target.id = :campaignId", nativeQuery = true)
+    List<Object[]> findOverlappingAssignments(@Param("campaignId") Long campaignId);
+
+    /**
+     * Same as findOverlappingAssignments but for variants about to be assigned to the campaign
+     */
+    @Query(value = "SELECT DISTINCT other_link.san_pham_chi_tiet_id, other.id " +
+            "FROM dot_giam_gia target " +
+            "JOIN dot_giam_gia other ON other.id <> target.id " +
+            "AND other.trang_thai IN ('CHUA_DIEN_RA', 'DA_DIEN_RA') " +
+            "AND other.khoang_hieu_luc && target.khoang_hieu_luc " +
+            "JOIN san_pham_chi_tiet_dot_giam_gia other_link ON other_link.dot_giam_gia_id = other.id " +
+            "WHERE target.id = :campaignId AND other_link.san_pham_chi_tiet_id IN (:variantIds)", nativeQuery = true)
+    List<Object[]> findOverlappingAssignmentsForVariants(@Param("campaignId") Long campaignId,
+                                                         @Param("variantIds") Collection<Long> variantIds);
+
+    /**
+     * Attach variants to a campaign directly on the join table.
+     * Existing assignments are skipped, variant rows (and their @Version) are not touched.
+     *
+     * @return number of newly inserted assignments
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO san_pham_chi_tiet_dot_giam_gia (dot_giam_gia_id, san_pham_chi_tiet_id) " +
+            "SELECT :campaignId, spct.id FROM san_pham_chi_tiet spct WHERE spct.id IN (:variantIds) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int attachSanPhamChiTiets(@Param("campaignId") Long campaignId, @Param("variantIds") Collection<Long> variantIds);
+
+    /**
+     * Detach variants from a campaign directly on the join table
+     *
+     * @return number of removed assignments
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM san_pham_chi_tiet_dot_giam_gia " +
+            "WHERE dot_giam_gia_id = :campaignId AND san_pham_chi_tiet_id IN (:variantIds)", nativeQuery = true)
+    int detachSanPhamChiTiets(@Param("campaignId") Long campaignId, @Param("variantIds") Collection<Long> variantIds);
+
     /**
      * Count campaigns by status for reporting
      */
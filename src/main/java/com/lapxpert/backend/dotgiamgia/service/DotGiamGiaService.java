@@ -1,8 +1,10 @@
 package com.lapxpert.backend.dotgiamgia.service;
 
+import com.lapxpert.backend.dotgiamgia.dto.CampaignConflictDto;
 import com.lapxpert.backend.dotgiamgia.dto.DotGiamGiaDto;
 import com.lapxpert.backend.dotgiamgia.dto.DotGiamGiaAuditHistoryDto;
 import com.lapxpert.backend.dotgiamgia.dto.DotGiamGiaMapper;
+import com.lapxpert.backend.dotgiamgia.dto.VariantSelectorDto;
 import com.lapxpert.backend.common.enums.TrangThaiCampaign;
 import com.lapxpert.backend.common.service.BusinessEntityService;
 import com.lapxpert.backend.common.service.VietnamTimeZoneService;
@@ -20,7 +22,10 @@ import com.lapxpert.backend.sanpham.dto.SanPhamChiTietDto;
 import com.lapxpert.backend.sanpham.mapper.SanPhamChiTietMapper;
 import com.lapxpert.backend.sanpham.entity.sanpham.SanPhamChiTiet;
 import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import com.lapxpert.backend.sanpham.event.CampaignPricingChangeEvent;
 import com.lapxpert.backend.common.event.VoucherChangeEvent;
+import com.lapxpert.backend.thongbao.service.EmailNotificationService;
+import com.lapxpert.backend.thongbao.service.EmailNotificationService.EmailThongBao;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -28,12 +33,15 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -41,6 +49,9 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, DotGiamGiaDto, DotGiamGiaAuditHistory> {
+    public static final String CACHE_NAME = "dotGiamGiaCache";
+    private static final int BULK_ASSIGNMENT_CHUNK_SIZE = 1000;
+
     private final DotGiamGiaRepository dotGiamGiaRepository;
     private final DotGiamGiaAuditHistoryRepository auditHistoryRepository;
     private final DotGiamGiaMapper dotGiamGiaMapper;
@@ -49,6 +60,7 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
     private final VietnamTimeZoneService vietnamTimeZoneService;
     private final ApplicationEventPublisher eventPublisher;
     private final WebSocketIntegrationService webSocketIntegrationService;
+    private final EmailNotificationService emailNotificationService;
 
     public DotGiamGiaService(DotGiamGiaRepository dotGiamGiaRepository,
                            DotGiamGiaAuditHistoryRepository auditHistoryRepository,
@@ -57,7 +69,8 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
                            SanPhamChiTietMapper sanPhamChiTietMapper,
                            VietnamTimeZoneService vietnamTimeZoneService,
                            ApplicationEventPublisher eventPublisher,
-                           WebSocketIntegrationService webSocketIntegrationService) {
+                           WebSocketIntegrationService webSocketIntegrationService,
+                           EmailNotificationService emailNotificationService) {
         this.dotGiamGiaRepository = dotGiamGiaRepository;
         this.auditHistoryRepository = auditHistoryRepository;
         this.dotGiamGiaMapper = dotGiamGiaMapper;
@@ -66,6 +79,7 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
         this.vietnamTimeZoneService = vietnamTimeZoneService;
         this.eventPublisher = eventPublisher;
         this.webSocketIntegrationService = webSocketIntegrationService;
+        this.emailNotificationService = emailNotificationService;
     }
 
     public List<DotGiamGiaDto> findAll() {
@@ -130,6 +144,8 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
         );
         auditHistoryRepository.save(auditEntry);
 
+        publishPricingChange(CampaignPricingChangeEvent.fullRebuild(Set.of(id), "Khôi phục chiến dịch"));
+
         return dotGiamGiaMapper.toDto(savedCampaign);
     }
 
@@ -159,6 +175,8 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
             auditHistoryRepository.save(auditEntry);
         }
 
+        publishPricingChange(CampaignPricingChangeEvent.fullRebuild(Set.copyOf(ids), "Khôi phục hàng loạt chiến dịch"));
+
         return dotGiamGiaMapper.toDtos(campaigns);
     }
 
@@ -246,14 +264,21 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
 
             // Tạo một bản copy của Set để tránh ConcurrentModificationException khi duyệt và sửa đổi
             Set<SanPhamChiTiet> associatedProducts = Set.copyOf(entity.getSanPhamChiTiets());
+            Set<Long> affectedVariantIds = new HashSet<>();
             for (SanPhamChiTiet spct : associatedProducts) {
                 spct.getDotGiamGias().remove(entity);
+                affectedVariantIds.add(spct.getId());
             }
             entity.getSanPhamChiTiets().clear();
             // Set status to BI_HUY for soft delete, allowing deletion regardless of current status
             entity.setTrangThai(TrangThaiCampaign.BI_HUY);
             DotGiamGia savedEntity = dotGiamGiaRepository.save(entity);
 
+            if (!affectedVariantIds.isEmpty()) {
+                publishPricingChange(CampaignPricingChangeEvent.forVariants(
+                    Set.of(id), affectedVariantIds, "Đóng đợt giảm giá"));
+            }
+
             // Create audit entry for deletion/closure
             DotGiamGiaAuditHistory auditEntry = DotGiamGiaAuditHistory.deleteEntry(
                 savedEntity.getId(),
@@ -273,17 +298,24 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
     public ResponseEntity<List<DotGiamGiaDto>> toggleMultiple(List<Long> ids) {
         List<DotGiamGia> entities = dotGiamGiaRepository.findAllById(ids);
         if (!entities.isEmpty()) {
+            Set<Long> affectedVariantIds = new HashSet<>();
             for (DotGiamGia entity : entities) {
                 // Tạo một bản copy của Set để tránh ConcurrentModificationException
                 Set<SanPhamChiTiet> associatedProducts = Set.copyOf(entity.getSanPhamChiTiets());
                 for (SanPhamChiTiet spct : associatedProducts) {
                     spct.getDotGiamGias().remove(entity);
+                    affectedVariantIds.add(spct.getId());
                 }
                 entity.getSanPhamChiTiets().clear();
                 // Set status to BI_HUY for soft delete, allowing deletion regardless of current status
                 entity.setTrangThai(TrangThaiCampaign.BI_HUY);
             }
             List<DotGiamGia> savedEntities = dotGiamGiaRepository.saveAll(entities);
+
+            if (!affectedVariantIds.isEmpty()) {
+                publishPricingChange(CampaignPricingChangeEvent.forVariants(
+                    Set.copyOf(ids), affectedVariantIds, "Đóng hàng loạt đợt giảm giá"));
+            }
             return ResponseEntity.ok(dotGiamGiaMapper.toDtos(savedEntities));
         } else {
             return ResponseEntity.notFound().build();
@@ -300,30 +332,124 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
 
     @Transactional
     public DotGiamGiaDto addSanPhamChiTiets(Long dotGiamGiaId, List<Long> sanPhamChiTietIds) {
-        DotGiamGia dotGiamGia = dotGiamGiaRepository.findById(dotGiamGiaId)
-                .orElseThrow(() -> new CampaignNotFoundException(dotGiamGiaId));
-
-        for (Long sanPhamChiTietId : sanPhamChiTietIds) {
-            SanPhamChiTiet sanPhamChiTiet = sanPhamChiTietRepository.findById(sanPhamChiTietId)
-                    .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm chi tiết với ID: " + sanPhamChiTietId));
-            dotGiamGia.getSanPhamChiTiets().add(sanPhamChiTiet);
-            sanPhamChiTiet.getDotGiamGias().add(dotGiamGia);
-        }
-        return dotGiamGiaMapper.toDto(dotGiamGiaRepository.save(dotGiamGia));
+        ensureCampaignExists(dotGiamGiaId);
+        Set<Long> variantIds = requireExistingVariants(sanPhamChiTietIds);
+        return attachVariants(dotGiamGiaId, variantIds, "Thêm sản phẩm vào đợt giảm giá");
     }
 
     @Transactional
     public DotGiamGiaDto removeSanPhamChiTiets(Long dotGiamGiaId, List<Long> sanPhamChiTietIds) {
-        DotGiamGia dotGiamGia = dotGiamGiaRepository.findById(dotGiamGiaId)
-                .orElseThrow(() -> new CampaignNotFoundException(dotGiamGiaId));
+        ensureCampaignExists(dotGiamGiaId);
+        Set<Long> variantIds = requireExistingVariants(sanPhamChiTietIds);
+        return detachVariants(dotGiamGiaId, variantIds, "Xóa sản phẩm khỏi đợt giảm giá");
+    }
+
+    /**
+     * Attach every variant matching the selector (brand, category, product or attribute) to a campaign
+     */
+    @Transactional
+    public DotGiamGiaDto addSanPhamChiTietsBySelector(Long dotGiamGiaId, VariantSelectorDto selector) {
+        ensureCampaignExists(dotGiamGiaId);
+        return attachVariants(dotGiamGiaId, resolveSelector(selector), "Thêm sản phẩm theo bộ lọc vào đợt giảm giá");
+    }
 
-        for (Long sanPhamChiTietId : sanPhamChiTietIds) {
-            SanPhamChiTiet sanPhamChiTiet = sanPhamChiTietRepository.findById(sanPhamChiTietId)
-                    .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm chi tiết với ID: " + sanPhamChiTietId));
-            dotGiamGia.getSanPhamChiTiets().remove(sanPhamChiTiet);
-            sanPhamChiTiet.getDotGiamGias().remove(dotGiamGia);
+    /**
+     * Detach every variant matching the selector from a campaign
+     */
+    @Transactional
+    public DotGiamGiaDto removeSanPhamChiTietsBySelector(Long dotGiamGiaId, VariantSelectorDto selector) {
+        ensureCampaignExists(dotGiamGiaId);
+        return detachVariants(dotGiamGiaId, resolveSelector(selector), "Xóa sản phẩm theo bộ lọc khỏi đợt giảm giá");
+    }
+
+    /**
+     * Set-based attach on the join table: INSERT ... ON CONFLICT DO NOTHING in chunks.
+     * Variant entities are never loaded, so their @Version is untouched and concurrent edits do not conflict.
+     */
+    private DotGiamGiaDto attachVariants(Long dotGiamGiaId, Set<Long> variantIds, String lyDo) {
+        int inserted = 0;
+        for (List<Long> chunk : partition(variantIds)) {
+            inserted += dotGiamGiaRepository.attachSanPhamChiTiets(dotGiamGiaId, chunk);
         }
-        return dotGiamGiaMapper.toDto(dotGiamGiaRepository.save(dotGiamGia));
+
+        // Overlaps are allowed (the highest discount wins at pricing time) but are reported for review
+        List<CampaignConflictDto> conflicts = findAssignmentConflicts(dotGiamGiaId, List.copyOf(variantIds));
+        if (!conflicts.isEmpty()) {
+            log.warn("Campaign {} assigned {} variants with {} overlapping campaign assignments",
+                    dotGiamGiaId, variantIds.size(), conflicts.size());
+        }
+
+        log.info("Attached {} of {} requested variants to campaign {}", inserted, variantIds.size(), dotGiamGiaId);
+        if (inserted > 0) {
+            publishPricingChange(CampaignPricingChangeEvent.forVariants(Set.of(dotGiamGiaId), variantIds, lyDo));
+        }
+        return loadCampaignDto(dotGiamGiaId);
+    }
+
+    /**
+     * Set-based detach on the join table: DELETE ... WHERE san_pham_chi_tiet_id IN (...) in chunks
+     */
+    private DotGiamGiaDto detachVariants(Long dotGiamGiaId, Set<Long> variantIds, String lyDo) {
+        int deleted = 0;
+        for (List<Long> chunk : partition(variantIds)) {
+            deleted += dotGiamGiaRepository.detachSanPhamChiTiets(dotGiamGiaId, chunk);
+        }
+
+        log.info("Detached {} of {} requested variants from campaign {}", deleted, variantIds.size(), dotGiamGiaId);
+        if (deleted > 0) {
+            publishPricingChange(CampaignPricingChangeEvent.forVariants(Set.of(dotGiamGiaId), variantIds, lyDo));
+        }
+        return loadCampaignDto(dotGiamGiaId);
+    }
+
+    private void ensureCampaignExists(Long dotGiamGiaId) {
+        if (!dotGiamGiaRepository.existsById(dotGiamGiaId)) {
+            throw new CampaignNotFoundException(dotGiamGiaId);
+        }
+    }
+
+    private DotGiamGiaDto loadCampaignDto(Long dotGiamGiaId) {
+        return dotGiamGiaMapper.toDto(dotGiamGiaRepository.findById(dotGiamGiaId)
+                .orElseThrow(() -> new CampaignNotFoundException(dotGiamGiaId)));
+    }
+
+    /**
+     * Verify all requested variants exist with ID-only queries
+     */
+    private Set<Long> requireExistingVariants(List<Long> sanPhamChiTietIds) {
+        Set<Long> requestedIds = new LinkedHashSet<>(sanPhamChiTietIds);
+        Set<Long> existingIds = new HashSet<>();
+        for (List<Long> chunk : partition(requestedIds)) {
+            existingIds.addAll(sanPhamChiTietRepository.findExistingIds(chunk));
+        }
+        for (Long sanPhamChiTietId : requestedIds) {
+            if (!existingIds.contains(sanPhamChiTietId)) {
+                throw new RuntimeException("Không tìm thấy sản phẩm chi tiết với ID: " + sanPhamChiTietId);
+            }
+        }
+        return requestedIds;
+    }
+
+    private Set<Long> resolveSelector(VariantSelectorDto selector) {
+        if (selector == null || !selector.hasCriteria()) {
+            throw new CampaignValidationException("Bộ lọc sản phẩm phải có ít nhất một tiêu chí");
+        }
+        return new LinkedHashSet<>(sanPhamChiTietRepository.findIdsBySelector(
+                selector.getSanPhamIds(), selector.getThuongHieuIds(), selector.getDanhMucIds(),
+                selector.getCpuIds(), selector.getRamIds(), selector.getGpuIds(),
+                selector.getMauSacIds(), selector.getBoNhoIds(), selector.getManHinhIds()));
+    }
+
+    /**
+     * Split IDs into chunks that stay well below the JDBC bind parameter limit
+     */
+    private static List<List<Long>> partition(Collection<Long> ids) {
+        List<Long> source = List.copyOf(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < source.size(); i += BULK_ASSIGNMENT_CHUNK_SIZE) {
+            chunks.add(source.subList(i, Math.min(i + BULK_ASSIGNMENT_CHUNK_SIZE, source.size())));
+        }
+        return chunks;
     }
 
     /**
@@ -335,7 +461,9 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
                 .orElseThrow(() -> new CampaignNotFoundException(campaignId));
 
         campaign.activate();
-        return dotGiamGiaMapper.toDto(dotGiamGiaRepository.save(campaign));
+        DotGiamGia savedCampaign = dotGiamGiaRepository.save(campaign);
+        publishPricingChange(CampaignPricingChangeEvent.fullRebuild(Set.of(campaignId), "Kích hoạt đợt giảm giá"));
+        return dotGiamGiaMapper.toDto(savedCampaign);
     }
 
     /**
@@ -347,7 +475,9 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
                 .orElseThrow(() -> new CampaignNotFoundException(campaignId));
 
         campaign.deactivate();
-        return dotGiamGiaMapper.toDto(dotGiamGiaRepository.save(campaign));
+        DotGiamGia savedCampaign = dotGiamGiaRepository.save(campaign);
+        publishPricingChange(CampaignPricingChangeEvent.fullRebuild(Set.of(campaignId), "Vô hiệu hóa đợt giảm giá"));
+        return dotGiamGiaMapper.toDto(savedCampaign);
     }
 
     /**
@@ -375,30 +505,49 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
     }
 
     /**
-     * Find conflicting campaigns (campaigns that target the same products)
+     * Find conflicting campaigns (open campaigns that target the same products in an overlapping period)
      */
     @Transactional(readOnly = true)
     public List<DotGiamGiaDto> findConflictingCampaigns(Long campaignId) {
-        DotGiamGia campaign = dotGiamGiaRepository.findById(campaignId)
-                .orElseThrow(() -> new CampaignNotFoundException(campaignId));
+        if (!dotGiamGiaRepository.existsById(campaignId)) {
+            throw new CampaignNotFoundException(campaignId);
+        }
+
+        Set<Long> conflictingCampaignIds = dotGiamGiaRepository.findOverlappingAssignments(campaignId).stream()
+                .map(row -> ((Number) row[1]).longValue())
+                .collect(Collectors.toSet());
+        if (conflictingCampaignIds.isEmpty()) {
+            return List.of();
+        }
+
+        return dotGiamGiaMapper.toDtos(dotGiamGiaRepository.findAllById(conflictingCampaignIds));
+    }
 
-        // Find other active campaigns that share products with this campaign
-        Set<SanPhamChiTiet> targetProducts = campaign.getSanPhamChiTiets();
-        List<DotGiamGia> conflictingCampaigns = dotGiamGiaRepository.findCurrentlyActiveCampaigns()
-                .stream()
-                .filter(c -> !c.getId().equals(campaignId))
-                .filter(c -> c.getSanPhamChiTiets().stream().anyMatch(targetProducts::contains))
-                .toList();
+    /**
+     * Find every (variant, campaign) pair that would overlap if the given variants were assigned to the campaign.
+     * Resolved with one range-overlap query per chunk of variants instead of pairwise date checks per variant.
+     */
+    @Transactional(readOnly = true)
+    public List<CampaignConflictDto> findAssignmentConflicts(Long campaignId, List<Long> sanPhamChiTietIds) {
+        if (sanPhamChiTietIds == null || sanPhamChiTietIds.isEmpty()) {
+            return List.of();
+        }
 
-        return dotGiamGiaMapper.toDtos(conflictingCampaigns);
+        List<CampaignConflictDto> conflicts = new ArrayList<>();
+        for (List<Long> chunk : partition(sanPhamChiTietIds)) {
+            for (Object[] row : dotGiamGiaRepository.findOverlappingAssignmentsForVariants(campaignId, chunk)) {
+                conflicts.add(new CampaignConflictDto(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+            }
+        }
+        return conflicts;
     }
 
     /**
-     * Enhanced scheduler with Vietnam timezone support
-     * Runs every hour to check for status updates with precise timing
+     * Full status sweep with Vietnam timezone support
+     * Automatic transitions are driven by PromotionLifecycleScheduler at the exact start/end instant;
+     * this method remains as a manual fallback
      * Following PhieuGiamGia pattern exactly
      */
-    @Scheduled(cron = "0 0 * * * *") // Every hour
     @Transactional
     public void capNhatTrangThaiDotGiamGia() {
         try {
@@ -412,6 +561,7 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
                 TrangThaiCampaign.DA_DIEN_RA
             );
 
+            Set<Long> changedCampaignIds = new HashSet<>();
             for (DotGiamGia campaign : campaignsToUpdate) {
                 TrangThaiCampaign oldStatus = campaign.getTrangThai();
                 TrangThaiCampaign newStatus = campaign.calculateStatusInVietnamTime();
@@ -419,11 +569,17 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
                 if (oldStatus != newStatus) {
                     campaign.setTrangThai(newStatus);
                     dotGiamGiaRepository.save(campaign);
+                    changedCampaignIds.add(campaign.getId());
 
                     // Send timezone-aware notifications if needed
                     sendStatusChangeNotification(campaign, oldStatus, newStatus);
                 }
             }
+
+            if (!changedCampaignIds.isEmpty()) {
+                publishPricingChange(CampaignPricingChangeEvent.fullRebuild(
+                    changedCampaignIds, "Cập nhật trạng thái đợt giảm giá tự động"));
+            }
         } catch (Exception e) {
             // Log error but don't throw to prevent scheduler from stopping
             System.err.println("Error in discount campaign status update scheduler: " + e.getMessage());
@@ -454,8 +610,22 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
         // Log notification using proper logging framework
         log.info("[CAMPAIGN NOTIFICATION] {}: {}", subject, text);
 
-        // TODO: Implement actual notification sending (email, SMS, etc.)
-        // emailService.sendNotification(subject, text);
+        // Only announce campaign activation to customers, not expiration
+        if (newStatus == TrangThaiCampaign.DA_DIEN_RA) {
+            emailNotificationService.enqueueForActiveCustomers(
+                    new EmailThongBao("DOT_GIAM_GIA_TRANG_THAI", campaign.getMaDotGiamGia(), subject, text));
+        }
+    }
+
+    /**
+     * Publish pricing change so EffectivePriceIndex refreshes after the transaction commits
+     */
+    private void publishPricingChange(CampaignPricingChangeEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            log.warn("Failed to publish campaign pricing change event: {}", e.getMessage());
+        }
     }
 
     /**
@@ -513,6 +683,11 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
             }
         }
 
+        if (successCount > 0) {
+            publishPricingChange(CampaignPricingChangeEvent.fullRebuild(
+                Set.copyOf(campaignIds), "Cập nhật trạng thái hàng loạt"));
+        }
+
         String message = String.format("Đã cập nhật %d chiến dịch thành công", successCount);
         if (failureCount > 0) {
             message += String.format(", %d chiến dịch thất bại", failureCount);
@@ -560,6 +735,11 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
             }
         }
 
+        if (successCount > 0) {
+            publishPricingChange(CampaignPricingChangeEvent.fullRebuild(
+                Set.copyOf(campaignIds), "Hủy chiến dịch hàng loạt"));
+        }
+
         String message = String.format("Đã hủy %d chiến dịch thành công", successCount);
         if (failureCount > 0) {
             message += String.format(", %d chiến dịch thất bại", failureCount);
@@ -726,7 +906,7 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
 
     @Override
     protected String getCacheName() {
-        return "dotGiamGiaCache";
+        return CACHE_NAME;
     }
 
     @Override
@@ -750,6 +930,7 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
                     .build();
 
             eventPublisher.publishEvent(event);
+            publishPricingChange(CampaignPricingChangeEvent.fullRebuild(Set.of(entity.getId()), "Tạo đợt giảm giá mới"));
 
             // Send WebSocket notification for discount campaign creation
             webSocketIntegrationService.sendDiscountCampaignUpdate(
@@ -786,6 +967,7 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
                     .build();
 
             eventPublisher.publishEvent(event);
+            publishPricingChange(CampaignPricingChangeEvent.fullRebuild(Set.of(entity.getId()), "Cập nhật đợt giảm giá"));
 
             // Send WebSocket notification for discount campaign update
             // Check if status changed to send appropriate notification
@@ -828,6 +1010,7 @@ public class DotGiamGiaService extends BusinessEntityService<DotGiamGia, Long, D
                     .build();
 
             eventPublisher.publishEvent(event);
+            publishPricingChange(CampaignPricingChangeEvent.fullRebuild(Set.of(entityId), "Xóa đợt giảm giá"));
 
             // Send WebSocket notification for discount campaign deletion
             webSocketIntegrationService.sendDiscountCampaignUpdate(
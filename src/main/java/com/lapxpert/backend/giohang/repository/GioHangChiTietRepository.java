@@ -4,6 +4,7 @@ import com.lapxpert.backend.giohang.entity.GioHangChiTiet;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -51,6 +52,29 @@ public interface GioHangChiTietRepository extends JpaRepository<GioHangChiTiet,
      */
     List<GioHangChiTiet> findBySanPhamChiTiet_Id(Long sanPhamChiTietId);
 
+    /**
+     * Users whose persisted cart holds the variant at another price snapshot.
+     * Served by idx_gio_hang_chi_tiet_san_pham, so only the carts containing the variant are read
+     * @param sanPhamChiTietId product variant ID
+     * @param gia new price snapshot
+     * @return user IDs
+     */
+    @Query("SELECT c.gioHang.nguoiDung.id FROM GioHangChiTiet c " +
+           "WHERE c.sanPhamChiTiet.id = :sanPhamChiTietId AND c.giaTaiThoiDiemThem <> :gia")
+    List<Long> findNguoiDungIdsWithOtherPrice(@Param("sanPhamChiTietId") Long sanPhamChiTietId,
+                                              @Param("gia") BigDecimal gia);
+
+    /**
+     * Overwrite the price snapshot of a variant in every persisted cart holding it
+     * @param sanPhamChiTietId product variant ID
+     * @param gia new price snapshot
+     * @return number of cart items updated
+     */
+    @Modifying
+    @Query("UPDATE GioHangChiTiet c SET c.giaTaiThoiDiemThem = :gia " +
+           "WHERE c.sanPhamChiTiet.id = :sanPhamChiTietId AND c.giaTaiThoiDiemThem <> :gia")
+    int updatePriceSnapshot(@Param("sanPhamChiTietId") Long sanPhamChiTietId, @Param("gia") BigDecimal gia);
+
     /**
      * Find cart items with price changes (current price differs from cart price)
      * @return list of cart items with price changes
@@ -0,0 +1,97 @@
+package com.lapxpert.backend.giohang.service;
+
+import com.lapxpert.backend.common.cache.CacheTagService;
+import com.lapxpert.backend.common.service.WebSocketIntegrationService;
+import com.lapxpert.backend.giohang.repository.GioHangChiTietRepository;
+import com.lapxpert.backend.sanpham.event.PriceChangeEvent;
+import com.lapxpert.backend.sanpham.service.EffectivePriceIndex;
+import com.lapxpert.backend.sanpham.service.PricingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Propagates a variant's new effective price into the carts that hold it, and only those.
+ *
+ * Live carts are found through the variant index of GioHangSessionStore and repriced in their Redis session;
+ * carts that only exist in Postgres are found and updated through idx_gio_hang_chi_tiet_san_pham. The work,
+ * cache evictions and notifications are proportional to the number of carts containing the variant.
+ * The cart price is the effective price of PricingService (new base price less any running campaign), the same
+ * price addProductToCart snapshots; the listener runs after EffectivePriceIndex has applied the change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GioHangPriceSyncService {
+
+    private final GioHangSessionStore gioHangSessionStore;
+    private final GioHangChiTietRepository gioHangChiTietRepository;
+    private final CacheTagService cacheTagService;
+    private final WebSocketIntegrationService webSocketIntegrationService;
+    private final PricingService pricingService;
+
+    @Order(EffectivePriceIndex.INDEX_ORDER + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void handlePriceChange(PriceChangeEvent event) {
+        Long sanPhamChiTietId = event.getVariantId();
+        if (sanPhamChiTietId == null || event.getNewPrice() == null) {
+            return;
+        }
+        try {
+            BigDecimal gia = pricingService.resolveEffectivePrices(Map.of(sanPhamChiTietId, event.getNewPrice()))
+                    .get(sanPhamChiTietId);
+
+            Set<Long> affected = new HashSet<>();
+
+            // Live sessions: Redis is the source of truth, the write-behind persists the new snapshot
+            Set<Long> sessionUsers = gioHangSessionStore.findCartUsers(sanPhamChiTietId);
+            List<Long> expired = new ArrayList<>();
+            for (Long nguoiDungId : sessionUsers) {
+                Long changed = gioHangSessionStore.setPrices(nguoiDungId, Map.of(sanPhamChiTietId, gia));
+                if (changed == null) {
+                    expired.add(nguoiDungId);
+                } else if (changed > 0) {
+                    affected.add(nguoiDungId);
+                }
+            }
+            gioHangSessionStore.unindex(sanPhamChiTietId, expired);
+
+            // Carts without a live session; users with one were decided by their session above
+            for (Long nguoiDungId : gioHangChiTietRepository.findNguoiDungIdsWithOtherPrice(sanPhamChiTietId, gia)) {
+                if (!sessionUsers.contains(nguoiDungId) || expired.contains(nguoiDungId)) {
+                    affected.add(nguoiDungId);
+                }
+            }
+            gioHangChiTietRepository.updatePriceSnapshot(sanPhamChiTietId, gia);
+
+            // Cached carts are tagged with their variants, so this evicts only the carts holding it
+            cacheTagService.evictTagged(CacheTagService.variantTag(sanPhamChiTietId));
+
+            String message = String.format("Giá sản phẩm %s trong giỏ hàng đã thay đổi thành %,.0f₫",
+                    event.getProductName() != null ? event.getProductName() : "variant " + sanPhamChiTietId,
+                    gia.doubleValue());
+            for (Long nguoiDungId : affected) {
+                webSocketIntegrationService.sendCartPriceUpdate(String.valueOf(nguoiDungId),
+                        String.valueOf(sanPhamChiTietId), gia.doubleValue(), message);
+            }
+            log.debug("Repriced variant {} in {} cart(s) ({} indexed sessions)",
+                    sanPhamChiTietId, affected.size(), sessionUsers.size());
+        } catch (Exception e) {
+            log.error("Failed to propagate price change of variant {} to carts: {}",
+                    sanPhamChiTietId, e.getMessage(), e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.lapxpert.backend.giohang.service;
 
+import com.lapxpert.backend.common.cache.CacheTagService;
 import com.lapxpert.backend.giohang.dto.GioHangDto;
 import com.lapxpert.backend.giohang.dto.GioHangChiTietDto;
 import com.lapxpert.backend.giohang.dto.GioHangConversionDto;
@@ -11,7 +12,6 @@ import com.lapxpert.backend.giohang.mapper.GioHangChiTietMapper;
 import com.lapxpert.backend.giohang.entity.GioHang;
 import com.lapxpert.backend.giohang.entity.GioHangChiTiet;
 import com.lapxpert.backend.giohang.repository.GioHangRepository;
-import com.lapxpert.backend.giohang.repository.GioHangChiTietRepository;
 import com.lapxpert.backend.nguoidung.entity.NguoiDung;
 import com.lapxpert.backend.nguoidung.repository.NguoiDungRepository;
 import com.lapxpert.backend.sanpham.entity.sanpham.SanPhamChiTiet;
@@ -26,21 +26,34 @@ import com.lapxpert.backend.nguoidung.repository.DiaChiRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Service class for GioHang (Shopping Cart) operations
  * Implements comprehensive cart management with business logic validation
  * Follows established service patterns with Vietnamese naming conventions
+ *
+ * While the user shops, the cart lives in a Redis hash (GioHangSessionStore): adds, quantity changes and
+ * removals are single Redis scripts and GioHangWriteBehindService persists them to gio_hang in batches.
+ * Checkout persists the session synchronously before the order is built from the database rows.
  */
 @Service
 @Transactional
@@ -49,7 +62,6 @@ import java.util.Optional;
 public class GioHangService {
 
     private final GioHangRepository gioHangRepository;
-    private final GioHangChiTietRepository gioHangChiTietRepository;
     private final NguoiDungRepository nguoiDungRepository;
     private final SanPhamChiTietRepository sanPhamChiTietRepository;
     private final GioHangMapper gioHangMapper;
@@ -57,29 +69,21 @@ public class GioHangService {
     private final PricingService pricingService;
     private final HoaDonService hoaDonService;
     private final DiaChiRepository diaChiRepository;
+    private final CacheTagService cacheTagService;
+    private final GioHangSessionStore gioHangSessionStore;
+    private final GioHangWriteBehindService gioHangWriteBehindService;
 
     /**
-     * Get cart for a specific user, create if doesn't exist
+     * Get cart for a specific user, loading it into the Redis session on first access
      * Cached with short TTL due to frequently changing cart data
      * @param nguoiDungId user ID
      * @return user's cart DTO
      */
-    @Cacheable(value = "cartData", key = "'user:' + #nguoiDungId")
+    @Cacheable(value = "cartData", key = "'user:' + #nguoiDungId", sync = true)
     @Transactional(readOnly = true)
     public GioHangDto getCartByUserId(Long nguoiDungId) {
         log.debug("Getting cart for user ID: {}", nguoiDungId);
-
-        Optional<GioHang> gioHangOpt = gioHangRepository.findByNguoiDung_Id(nguoiDungId);
-
-        if (gioHangOpt.isPresent()) {
-            GioHang gioHang = gioHangOpt.get();
-            // Update prices and availability before returning
-            updateCartItemPrices(gioHang);
-            return gioHangMapper.toDto(gioHang);
-        } else {
-            // Create new empty cart for user
-            return createEmptyCartForUser(nguoiDungId);
-        }
+        return toCartDto("user:" + nguoiDungId, nguoiDungId, session(nguoiDungId));
     }
 
     /**
@@ -88,41 +92,33 @@ public class GioHangService {
      * @param email user email
      * @return user's cart DTO
      */
-    @Cacheable(value = "cartData", key = "'email:' + #email")
+    @Cacheable(value = "cartData", key = "'email:' + #email", sync = true)
     @Transactional(readOnly = true)
     public GioHangDto getCartByUserEmail(String email) {
         log.debug("Getting cart for user email: {}", email);
 
-        Optional<GioHang> gioHangOpt = gioHangRepository.findByNguoiDung_Email(email);
-
-        if (gioHangOpt.isPresent()) {
-            GioHang gioHang = gioHangOpt.get();
-            updateCartItemPrices(gioHang);
-            return gioHangMapper.toDto(gioHang);
-        } else {
-            // Find user by email and create cart
-            NguoiDung nguoiDung = nguoiDungRepository.findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with email: " + email));
-            return createEmptyCartForUser(nguoiDung.getId());
-        }
+        NguoiDung nguoiDung = nguoiDungRepository.findByEmail(email)
+            .orElseThrow(() -> new EntityNotFoundException("User not found with email: " + email));
+        return toCartDto("email:" + email, nguoiDung.getId(), session(nguoiDung.getId()));
     }
 
     /**
      * Add product to cart
-     * Evicts cache to ensure fresh data after cart modification
+     * The quantity is added to the Redis session with HINCRBY and persisted by the write-behind;
+     * the returned cart replaces the cached entry instead of evicting it
      * @param request add to cart request
      * @return updated cart DTO
      */
-    @CacheEvict(value = "cartData", key = "'user:' + #request.nguoiDungId")
+    @Caching(put = @CachePut(value = "cartData", key = "'user:' + #request.nguoiDungId"), evict = {
+        @CacheEvict(value = "cartData", key = "#root.target.emailCacheKey(#request.nguoiDungId)"),
+        @CacheEvict(value = "cartData", key = "'priceChanges:' + #request.nguoiDungId")
+    })
     public GioHangDto addProductToCart(ThemSanPhamVaoGioRequest request) {
         log.info("Adding product {} to cart for user {}", request.getSanPhamChiTietId(), request.getNguoiDungId());
 
         // Validate request
         validateAddToCartRequest(request);
 
-        // Get or create cart
-        GioHang gioHang = getOrCreateCart(request.getNguoiDungId());
-
         // Get product variant
         SanPhamChiTiet sanPhamChiTiet = sanPhamChiTietRepository.findById(request.getSanPhamChiTietId())
             .orElseThrow(() -> new EntityNotFoundException("Product variant not found: " + request.getSanPhamChiTietId()));
@@ -133,127 +129,98 @@ public class GioHangService {
         // Get current price (with discounts if applicable)
         BigDecimal currentPrice = pricingService.calculateEffectivePrice(sanPhamChiTiet);
 
-        // Check if item already exists in cart
-        Optional<GioHangChiTiet> existingItemOpt = gioHangChiTietRepository
-            .findByGioHang_IdAndSanPhamChiTiet_Id(gioHang.getId(), request.getSanPhamChiTietId());
+        Long nguoiDungId = request.getNguoiDungId();
+        GioHangSessionStore.AddResult added = mutateSession(nguoiDungId, () -> gioHangSessionStore.add(
+            nguoiDungId, sanPhamChiTiet.getId(), request.getSoLuong(), currentPrice));
 
-        if (existingItemOpt.isPresent()) {
-            // Update existing item
-            GioHangChiTiet existingItem = existingItemOpt.get();
-            int newQuantity = existingItem.getSoLuong() + request.getSoLuong();
-
-            // Validate total quantity
-            validateProductAvailability(sanPhamChiTiet, newQuantity);
+        // Validate the total now in the cart; take the increment back if it is not allowed
+        try {
+            validateProductAvailability(sanPhamChiTiet, added.soLuong());
+        } catch (RuntimeException e) {
+            gioHangSessionStore.subtract(nguoiDungId, sanPhamChiTiet.getId(), request.getSoLuong());
+            throw e;
+        }
 
-            existingItem.setSoLuong(newQuantity);
+        if (added.soLuong() > request.getSoLuong()) {
             // Update price if it has changed significantly
-            if (shouldUpdatePrice(existingItem.getGiaTaiThoiDiemThem(), currentPrice)) {
-                existingItem.setGiaTaiThoiDiemThem(currentPrice);
+            if (shouldUpdatePrice(added.gia(), currentPrice)) {
+                gioHangSessionStore.setPrices(nguoiDungId, Map.of(sanPhamChiTiet.getId(), currentPrice));
             }
-
-            gioHangChiTietRepository.save(existingItem);
-            log.info("Updated existing cart item quantity to {}", newQuantity);
+            log.info("Updated existing cart item quantity to {}", added.soLuong());
         } else {
-            // Add new item
-            GioHangChiTiet newItem = GioHangChiTiet.builder()
-                .gioHang(gioHang)
-                .sanPhamChiTiet(sanPhamChiTiet)
-                .soLuong(request.getSoLuong())
-                .giaTaiThoiDiemThem(currentPrice)
-                .build();
-
-            gioHangChiTietRepository.save(newItem);
-            gioHang.getChiTiets().add(newItem);
             log.info("Added new item to cart with quantity {}", request.getSoLuong());
         }
 
-        gioHangRepository.save(gioHang);
-        return gioHangMapper.toDto(gioHang);
+        return toCartDto("user:" + nguoiDungId, nguoiDungId, session(nguoiDungId));
     }
 
     /**
      * Update item quantity in cart
-     * Evicts cache to ensure fresh data after cart modification
+     * Replaces the cached cart entry with the updated cart
      * @param request update quantity request
      * @return updated cart DTO
      */
-    @CacheEvict(value = "cartData", key = "'user:' + #request.nguoiDungId")
+    @Caching(put = @CachePut(value = "cartData", key = "'user:' + #request.nguoiDungId"), evict = {
+        @CacheEvict(value = "cartData", key = "#root.target.emailCacheKey(#request.nguoiDungId)"),
+        @CacheEvict(value = "cartData", key = "'priceChanges:' + #request.nguoiDungId")
+    })
     public GioHangDto updateItemQuantity(CapNhatSoLuongRequest request) {
         log.info("Updating cart item quantity for user {} product {} to {}",
                 request.getNguoiDungId(), request.getSanPhamChiTietId(), request.getSoLuongMoi());
 
-        // Get cart
-        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(request.getNguoiDungId())
-            .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + request.getNguoiDungId()));
-
-        // Get cart item
-        GioHangChiTiet cartItem = gioHangChiTietRepository
-            .findByGioHang_IdAndSanPhamChiTiet_Id(gioHang.getId(), request.getSanPhamChiTietId())
-            .orElseThrow(() -> new EntityNotFoundException("Cart item not found"));
-
-        if (request.getSoLuongMoi() <= 0) {
-            // Remove item if quantity is 0 or negative
-            gioHangChiTietRepository.delete(cartItem);
-            gioHang.getChiTiets().remove(cartItem);
-            log.info("Removed item from cart");
-        } else {
+        Long nguoiDungId = request.getNguoiDungId();
+        if (request.getSoLuongMoi() > 0) {
             // Validate new quantity
-            validateProductAvailability(cartItem.getSanPhamChiTiet(), request.getSoLuongMoi());
-
-            cartItem.setSoLuong(request.getSoLuongMoi());
-            gioHangChiTietRepository.save(cartItem);
-            log.info("Updated cart item quantity to {}", request.getSoLuongMoi());
+            SanPhamChiTiet sanPhamChiTiet = sanPhamChiTietRepository.findById(request.getSanPhamChiTietId())
+                .orElseThrow(() -> new EntityNotFoundException("Product variant not found: " + request.getSanPhamChiTietId()));
+            validateProductAvailability(sanPhamChiTiet, request.getSoLuongMoi());
         }
 
-        gioHangRepository.save(gioHang);
-        return gioHangMapper.toDto(gioHang);
+        // Quantity 0 or negative removes the item
+        setSessionQuantity(nguoiDungId, request.getSanPhamChiTietId(), request.getSoLuongMoi());
+        log.info(request.getSoLuongMoi() > 0 ? "Updated cart item quantity to {}" : "Removed item from cart",
+                request.getSoLuongMoi());
+
+        return toCartDto("user:" + nguoiDungId, nguoiDungId, session(nguoiDungId));
     }
 
     /**
      * Remove item from cart
-     * Evicts cache to ensure fresh data after cart modification
+     * Replaces the cached cart entry with the updated cart
      * @param nguoiDungId user ID
      * @param sanPhamChiTietId product variant ID
      * @return updated cart DTO
      */
-    @CacheEvict(value = "cartData", key = "'user:' + #nguoiDungId")
+    @Caching(put = @CachePut(value = "cartData", key = "'user:' + #nguoiDungId"), evict = {
+        @CacheEvict(value = "cartData", key = "#root.target.emailCacheKey(#nguoiDungId)"),
+        @CacheEvict(value = "cartData", key = "'priceChanges:' + #nguoiDungId")
+    })
     public GioHangDto removeItemFromCart(Long nguoiDungId, Long sanPhamChiTietId) {
         log.info("Removing item {} from cart for user {}", sanPhamChiTietId, nguoiDungId);
 
-        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(nguoiDungId)
-            .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + nguoiDungId));
-
-        GioHangChiTiet cartItem = gioHangChiTietRepository
-            .findByGioHang_IdAndSanPhamChiTiet_Id(gioHang.getId(), sanPhamChiTietId)
-            .orElseThrow(() -> new EntityNotFoundException("Cart item not found"));
-
-        gioHangChiTietRepository.delete(cartItem);
-        gioHang.getChiTiets().remove(cartItem);
-        gioHangRepository.save(gioHang);
+        setSessionQuantity(nguoiDungId, sanPhamChiTietId, 0);
 
         log.info("Successfully removed item from cart");
-        return gioHangMapper.toDto(gioHang);
+        return toCartDto("user:" + nguoiDungId, nguoiDungId, session(nguoiDungId));
     }
 
     /**
      * Clear all items from cart
-     * Evicts cache to ensure fresh data after cart modification
+     * Replaces the cached cart entry with the empty cart
      * @param nguoiDungId user ID
      * @return empty cart DTO
      */
-    @CacheEvict(value = "cartData", key = "'user:' + #nguoiDungId")
+    @Caching(put = @CachePut(value = "cartData", key = "'user:' + #nguoiDungId"), evict = {
+        @CacheEvict(value = "cartData", key = "#root.target.emailCacheKey(#nguoiDungId)"),
+        @CacheEvict(value = "cartData", key = "'priceChanges:' + #nguoiDungId")
+    })
     public GioHangDto clearCart(Long nguoiDungId) {
         log.info("Clearing cart for user {}", nguoiDungId);
 
-        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(nguoiDungId)
-            .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + nguoiDungId));
-
-        gioHangChiTietRepository.deleteAll(gioHang.getChiTiets());
-        gioHang.getChiTiets().clear();
-        gioHangRepository.save(gioHang);
+        mutateSession(nguoiDungId, () -> gioHangSessionStore.clear(nguoiDungId) ? Boolean.TRUE : null);
 
         log.info("Successfully cleared cart");
-        return gioHangMapper.toDto(gioHang);
+        return toCartDto("user:" + nguoiDungId, nguoiDungId, session(nguoiDungId));
     }
 
     /**
@@ -262,19 +229,49 @@ public class GioHangService {
      * @param nguoiDungId user ID
      * @return list of cart items with price changes
      */
-    @Cacheable(value = "cartData", key = "'priceChanges:' + #nguoiDungId")
+    @Cacheable(value = "cartData", key = "'priceChanges:' + #nguoiDungId", sync = true)
     @Transactional(readOnly = true)
     public List<GioHangChiTietDto> getItemsWithPriceChanges(Long nguoiDungId) {
-        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(nguoiDungId)
-            .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + nguoiDungId));
+        GioHang gioHang = toCart(nguoiDungId, session(nguoiDungId));
 
         List<GioHangChiTiet> itemsWithPriceChanges = gioHang.getChiTiets().stream()
             .filter(GioHangChiTiet::hasPriceChanged)
             .toList();
+        tagCartEntry("priceChanges:" + nguoiDungId, nguoiDungId, gioHang.getChiTiets());
 
         return gioHangChiTietMapper.toDtoList(itemsWithPriceChanges);
     }
 
+    /**
+     * Cache key of the getCartByUserEmail entry of a user
+     * Cart mutations evict it next to the 'priceChanges:' entry, since they only replace the 'user:' entry
+     * @param nguoiDungId user ID
+     * @return 'email:' cache key of the user's cart
+     */
+    public String emailCacheKey(Long nguoiDungId) {
+        return "email:" + nguoiDungRepository.findEmailById(nguoiDungId).orElse(null);
+    }
+
+    /**
+     * Register the user, variants and products a cached cart entry was built from,
+     * so a price, stock or catalog change evicts only the carts that contain the item
+     */
+    private void tagCartEntry(String cacheKey, Long nguoiDungId, Collection<GioHangChiTiet> chiTiets) {
+        Set<String> tags = new HashSet<>();
+        tags.add(CacheTagService.userTag(nguoiDungId));
+        for (GioHangChiTiet chiTiet : chiTiets) {
+            SanPhamChiTiet sanPhamChiTiet = chiTiet.getSanPhamChiTiet();
+            if (sanPhamChiTiet == null) {
+                continue;
+            }
+            tags.add(CacheTagService.variantTag(sanPhamChiTiet.getId()));
+            if (sanPhamChiTiet.getSanPham() != null) {
+                tags.add(CacheTagService.productTag(sanPhamChiTiet.getSanPham().getId()));
+            }
+        }
+        cacheTagService.tag("cartData", cacheKey, tags);
+    }
+
     /**
      * Validate cart for order conversion (preview mode)
      * @param request cart to order validation request
@@ -285,8 +282,7 @@ public class GioHangService {
         log.debug("Validating cart for order conversion preview for user {}", request.getNguoiDungId());
 
         // Get user's cart
-        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(request.getNguoiDungId())
-            .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + request.getNguoiDungId()));
+        GioHang gioHang = toCart(request.getNguoiDungId(), session(request.getNguoiDungId()));
 
         // Validate cart is not empty
         if (gioHang.getChiTiets().isEmpty()) {
@@ -309,8 +305,7 @@ public class GioHangService {
         log.debug("Getting cart conversion preview for user {}", request.getNguoiDungId());
 
         // Get user's cart
-        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(request.getNguoiDungId())
-            .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + request.getNguoiDungId()));
+        GioHang gioHang = toCart(request.getNguoiDungId(), session(request.getNguoiDungId()));
 
         GioHangDto cartDto = gioHangMapper.toDto(gioHang);
 
@@ -336,25 +331,36 @@ public class GioHangService {
 
     /**
      * Sync cart prices with current product prices
-     * Evicts cache to ensure fresh data after price synchronization
+     * Overwrites the price snapshots in the Redis session with the current effective prices
      * @param nguoiDungId user ID
      * @return updated cart DTO
      */
-    @CacheEvict(value = "cartData", key = "'user:' + #nguoiDungId")
+    @Caching(put = @CachePut(value = "cartData", key = "'user:' + #nguoiDungId"), evict = {
+        @CacheEvict(value = "cartData", key = "#root.target.emailCacheKey(#nguoiDungId)"),
+        @CacheEvict(value = "cartData", key = "'priceChanges:' + #nguoiDungId")
+    })
     public GioHangDto syncCartPrices(Long nguoiDungId) {
         log.info("Syncing cart prices for user {}", nguoiDungId);
 
-        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(nguoiDungId)
-            .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + nguoiDungId));
-
-        updateCartItemPrices(gioHang);
-        gioHangRepository.save(gioHang);
+        GioHang gioHang = toCart(nguoiDungId, session(nguoiDungId));
+        Map<Long, BigDecimal> basePrices = new HashMap<>();
+        for (GioHangChiTiet chiTiet : gioHang.getChiTiets()) {
+            if (chiTiet.getSanPhamChiTiet().getGiaBan() != null) {
+                basePrices.put(chiTiet.getSanPhamChiTiet().getId(), chiTiet.getSanPhamChiTiet().getGiaBan());
+            }
+        }
+        if (!basePrices.isEmpty()) {
+            Long changed = mutateSession(nguoiDungId, () ->
+                gioHangSessionStore.setPrices(nguoiDungId, pricingService.resolveEffectivePrices(basePrices)));
+            log.info("Updated {} cart prices for user {}", changed, nguoiDungId);
+        }
 
-        return gioHangMapper.toDto(gioHang);
+        return toCartDto("user:" + nguoiDungId, nguoiDungId, session(nguoiDungId));
     }
 
     /**
      * Convert cart to order
+     * The Redis session is persisted first so the order is built from the cart the user sees
      * @param request cart to order conversion request
      * @return created order DTO
      */
@@ -364,7 +370,9 @@ public class GioHangService {
         // Step 1: Validate request
         validateCartToOrderRequest(request);
 
-        // Step 2: Get user's cart
+        // Step 2: Get user's cart, persisting pending session changes
+        session(request.getNguoiDungId());
+        gioHangWriteBehindService.flush(request.getNguoiDungId());
         GioHang gioHang = gioHangRepository.findByNguoiDung_Id(request.getNguoiDungId())
             .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + request.getNguoiDungId()));
 
@@ -397,17 +405,35 @@ public class GioHangService {
             throw new RuntimeException("Failed to create order from cart: " + e.getMessage(), e);
         }
 
-        // Step 8: Clear cart after successful order creation
+        // Step 8: Clear cart once the order is committed; a rolled back order leaves the cart untouched
+        Long nguoiDungId = request.getNguoiDungId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clearCartAfterOrder(nguoiDungId);
+                }
+            });
+        } else {
+            clearCartAfterOrder(nguoiDungId);
+        }
+
+        return createdOrder;
+    }
+
+    /**
+     * Empty the Redis cart after checkout; the write-behind persists it on its next run
+     */
+    private void clearCartAfterOrder(Long nguoiDungId) {
         try {
-            clearCart(request.getNguoiDungId());
-            log.info("Successfully cleared cart after order creation for user {}", request.getNguoiDungId());
+            mutateSession(nguoiDungId, () -> gioHangSessionStore.clear(nguoiDungId) ? Boolean.TRUE : null);
+            cacheTagService.evictTagged(CacheTagService.userTag(nguoiDungId));
+            log.info("Successfully cleared cart after order creation for user {}", nguoiDungId);
         } catch (Exception e) {
             log.warn("Order created successfully but failed to clear cart for user {}: {}",
-                    request.getNguoiDungId(), e.getMessage());
+                    nguoiDungId, e.getMessage());
             // Don't fail the entire operation if cart clearing fails
         }
-
-        return createdOrder;
     }
 
     // Private helper methods for cart-to-order conversion
@@ -574,40 +600,78 @@ public class GioHangService {
     // Existing private helper methods
 
     /**
-     * Create empty cart for user
+     * Read the user's cart from the Redis session, loading it from Postgres on a miss
      */
-    private GioHangDto createEmptyCartForUser(Long nguoiDungId) {
-        NguoiDung nguoiDung = nguoiDungRepository.findById(nguoiDungId)
-            .orElseThrow(() -> new EntityNotFoundException("User not found: " + nguoiDungId));
-
-        GioHang gioHang = GioHang.builder()
-            .nguoiDung(nguoiDung)
-            .build();
-
-        gioHang = gioHangRepository.save(gioHang);
-        log.info("Created new empty cart for user {}", nguoiDungId);
+    private GioHangSessionStore.CartSnapshot session(Long nguoiDungId) {
+        GioHangSessionStore.CartSnapshot snapshot = gioHangSessionStore.read(nguoiDungId);
+        if (snapshot == null) {
+            gioHangSessionStore.load(nguoiDungId, gioHangWriteBehindService.loadForSession(nguoiDungId));
+            snapshot = gioHangSessionStore.read(nguoiDungId);
+        }
+        return snapshot != null ? snapshot : GioHangSessionStore.CartSnapshot.empty(null);
+    }
 
-        return gioHangMapper.toDto(gioHang);
+    /**
+     * Run a session mutation; a null result means the session was missing, so load it and retry once
+     */
+    private <T> T mutateSession(Long nguoiDungId, Supplier<T> mutation) {
+        T result = mutation.get();
+        if (result == null) {
+            gioHangSessionStore.load(nguoiDungId, gioHangWriteBehindService.loadForSession(nguoiDungId));
+            result = mutation.get();
+        }
+        if (result == null) {
+            throw new IllegalStateException("Không thể tải giỏ hàng của người dùng " + nguoiDungId);
+        }
+        return result;
     }
 
     /**
-     * Get or create cart for user
+     * Set the quantity of an item already in the cart; 0 removes it
      */
-    private GioHang getOrCreateCart(Long nguoiDungId) {
-        Optional<GioHang> gioHangOpt = gioHangRepository.findByNguoiDung_Id(nguoiDungId);
+    private void setSessionQuantity(Long nguoiDungId, Long sanPhamChiTietId, int soLuong) {
+        Long result = mutateSession(nguoiDungId, () -> gioHangSessionStore.setQuantity(nguoiDungId, sanPhamChiTietId, soLuong));
+        if (result < 0) {
+            throw new EntityNotFoundException("Cart item not found");
+        }
+    }
 
-        if (gioHangOpt.isPresent()) {
-            return gioHangOpt.get();
-        } else {
-            NguoiDung nguoiDung = nguoiDungRepository.findById(nguoiDungId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found: " + nguoiDungId));
+    /**
+     * Build a detached cart view from a session snapshot, loading the variants in one query.
+     * The view is only mapped to DTOs and validated, never saved; GioHangWriteBehindService owns the rows.
+     */
+    private GioHang toCart(Long nguoiDungId, GioHangSessionStore.CartSnapshot snapshot) {
+        GioHang gioHang = GioHang.builder()
+            .id(snapshot.gioHangId())
+            .nguoiDung(nguoiDungRepository.getReferenceById(nguoiDungId))
+            .build();
 
-            GioHang gioHang = GioHang.builder()
-                .nguoiDung(nguoiDung)
+        Map<Long, SanPhamChiTiet> variants = new HashMap<>();
+        for (SanPhamChiTiet sanPhamChiTiet : sanPhamChiTietRepository.findAllById(snapshot.items().keySet())) {
+            variants.put(sanPhamChiTiet.getId(), sanPhamChiTiet);
+        }
+        for (GioHangSessionStore.CartItem item : snapshot.items().values()) {
+            SanPhamChiTiet sanPhamChiTiet = variants.get(item.sanPhamChiTietId());
+            if (sanPhamChiTiet == null) {
+                log.warn("Cart of user {} references missing variant {}", nguoiDungId, item.sanPhamChiTietId());
+                continue;
+            }
+            GioHangChiTiet chiTiet = GioHangChiTiet.builder()
+                .gioHang(gioHang)
+                .sanPhamChiTiet(sanPhamChiTiet)
+                .soLuong(item.soLuong())
+                .giaTaiThoiDiemThem(item.gia())
                 .build();
-
-            return gioHangRepository.save(gioHang);
+            chiTiet.setNgayTao(item.ngayThem());
+            gioHang.getChiTiets().add(chiTiet);
         }
+        return gioHang;
+    }
+
+    private GioHangDto toCartDto(String cacheKey, Long nguoiDungId, GioHangSessionStore.CartSnapshot snapshot) {
+        GioHang gioHang = toCart(nguoiDungId, snapshot);
+        tagCartEntry(cacheKey, nguoiDungId, gioHang.getChiTiets());
+        return gioHangMapper.toDto(gioHang);
     }
 
     /**
@@ -656,17 +720,6 @@ public class GioHangService {
         return difference.compareTo(threshold) > 0;
     }
 
-    /**
-     * Update cart item prices with current product prices
-     * This method ensures current prices are available for comparison in DTOs
-     */
-    private void updateCartItemPrices(GioHang gioHang) {
-        // This method is called to trigger price recalculation in the DTO mapper
-        // The actual price comparison is done in the mapper methods
-        // We don't automatically update cart prices to preserve user's original pricing
-        log.debug("Refreshing price information for cart with {} items", gioHang.getChiTiets().size());
-    }
-
     /**
      * Evict all cache entries for a specific user
      * Helper method to ensure cache consistency when user data changes
@@ -0,0 +1,427 @@
+package com.lapxpert.backend.giohang.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis-backed session copy of every active cart, the source of truth while the user is shopping.
+ *
+ * One hash per user (lapxpert:cart:{nguoiDungId}) holds, per variant, the quantity (q:{id}, changed with HINCRBY),
+ * the unit price snapshot (p:{id}) and the time it was added (t:{id}), plus the gio_hang id (_cart, 0 until the
+ * cart row exists). Every mutation is one Lua script that also adds the user to the dirty set drained by
+ * GioHangWriteBehindService. Scripts return nil when the hash is missing (never loaded or expired): the caller
+ * loads the cart from Postgres with load(), which only writes if the hash is still missing, and retries.
+ *
+ * The same scripts maintain a reverse index, one set per variant (lapxpert:cart-variant:{sanPhamChiTietId}) of the
+ * users whose session holds it, so a price change reaches only the carts containing the variant. Members are added
+ * when a variant enters a cart and removed when it leaves; a member left behind by an expired session or a
+ * concurrent clear is harmless (setPrices finds nothing to change) and is pruned by the price sync.
+ */
+@Component
+@Slf4j
+public class GioHangSessionStore {
+
+    static final String KEY_PREFIX = "lapxpert:cart:";
+    static final String DIRTY_KEY = "lapxpert:cart-dirty";
+    static final String VARIANT_INDEX_PREFIX = "lapxpert:cart-variant:";
+    static final String CART_ID_FIELD = "_cart";
+
+    /**
+     * Seed a missing hash from Postgres and index its variants (KEYS[2..]); a hash created meanwhile by another
+     * request wins
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            for i = 2, #KEYS do
+                redis.call('SADD', KEYS[i], ARGV[2])
+                redis.call('EXPIRE', KEYS[i], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Record the gio_hang id in a live hash. An expired hash is left missing: a hash holding only _cart would hide
+     * the persisted lines from load() and the next write-behind diff would delete them
+     */
+    private static final RedisScript<Long> SET_CART_ID_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return nil
+            end
+            redis.call('HSET', KEYS[1], '_cart', ARGV[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * Add a quantity; price and added-at are kept from the first add. Returns {quantity, stored price}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADD_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return nil
+            end
+            local quantity = redis.call('HINCRBY', KEYS[1], 'q:' .. ARGV[1], ARGV[2])
+            redis.call('HSETNX', KEYS[1], 'p:' .. ARGV[1], ARGV[3])
+            redis.call('HSETNX', KEYS[1], 't:' .. ARGV[1], ARGV[4])
+            redis.call('EXPIRE', KEYS[1], ARGV[5])
+            redis.call('ZADD', KEYS[2], 'NX', ARGV[4], ARGV[6])
+            redis.call('SADD', KEYS[3], ARGV[6])
+            redis.call('EXPIRE', KEYS[3], ARGV[5])
+            return {quantity, redis.call('HGET', KEYS[1], 'p:' .. ARGV[1])}
+            """, List.class);
+
+    /**
+     * Set a quantity, removing the item when it is 0 or less. Returns the quantity, -1 if the item is not in the cart
+     */
+    private static final RedisScript<Long> SET_QUANTITY_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return nil
+            end
+            if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[1]) == 0 then
+                return -1
+            end
+            local quantity = tonumber(ARGV[2])
+            if quantity <= 0 then
+                redis.call('HDEL', KEYS[1], 'q:' .. ARGV[1], 'p:' .. ARGV[1], 't:' .. ARGV[1])
+                redis.call('SREM', KEYS[3], ARGV[5])
+                quantity = 0
+            else
+                redis.call('HSET', KEYS[1], 'q:' .. ARGV[1], quantity)
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('ZADD', KEYS[2], 'NX', ARGV[4], ARGV[5])
+            return quantity
+            """, Long.class);
+
+    /**
+     * Take back a quantity added by ADD, removing the item when nothing is left. Returns the quantity
+     */
+    private static final RedisScript<Long> SUBTRACT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return nil
+            end
+            local quantity = redis.call('HINCRBY', KEYS[1], 'q:' .. ARGV[1], -tonumber(ARGV[2]))
+            if quantity <= 0 then
+                redis.call('HDEL', KEYS[1], 'q:' .. ARGV[1], 'p:' .. ARGV[1], 't:' .. ARGV[1])
+                redis.call('SREM', KEYS[3], ARGV[5])
+                quantity = 0
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('ZADD', KEYS[2], 'NX', ARGV[4], ARGV[5])
+            return quantity
+            """, Long.class);
+
+    /**
+     * Overwrite price snapshots given as (variant id, price) pairs, skipping variants no longer in the cart.
+     * Returns the number of prices changed
+     */
+    private static final RedisScript<Long> SET_PRICES_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return nil
+            end
+            local changed = 0
+            for i = 4, #ARGV, 2 do
+                if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[i]) == 1
+                        and redis.call('HGET', KEYS[1], 'p:' .. ARGV[i]) ~= ARGV[i + 1] then
+                    redis.call('HSET', KEYS[1], 'p:' .. ARGV[i], ARGV[i + 1])
+                    changed = changed + 1
+                end
+            end
+            if changed > 0 then
+                redis.call('ZADD', KEYS[2], 'NX', ARGV[2], ARGV[3])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return changed
+            """, Long.class);
+
+    /**
+     * Remove every item, keeping the cart id, and unindex the variants read before the call (KEYS[3..])
+     */
+    private static final RedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return nil
+            end
+            local cartId = redis.call('HGET', KEYS[1], '_cart') or '0'
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], '_cart', cartId)
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('ZADD', KEYS[2], 'NX', ARGV[2], ARGV[3])
+            for i = 3, #KEYS do
+                redis.call('SREM', KEYS[i], ARGV[3])
+            end
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Duration sessionTtl;
+
+    public GioHangSessionStore(RedisTemplate<String, String> redisTemplate,
+                               @Value("${cart.session.ttl-hours:168}") long sessionTtlHours) {
+        this.redisTemplate = redisTemplate;
+        this.sessionTtl = Duration.ofHours(sessionTtlHours);
+    }
+
+    /**
+     * One cart line as stored in the session hash
+     */
+    public record CartItem(Long sanPhamChiTietId, int soLuong, BigDecimal gia, Instant ngayThem) {
+    }
+
+    /**
+     * Cart contents read in one HGETALL
+     * @param gioHangId gio_hang id, null if the cart row does not exist yet
+     * @param items items in insertion order of their variant ids
+     */
+    public record CartSnapshot(Long gioHangId, Map<Long, CartItem> items) {
+
+        public static CartSnapshot empty(Long gioHangId) {
+            return new CartSnapshot(gioHangId, Map.of());
+        }
+    }
+
+    /**
+     * Outcome of an add
+     * @param soLuong quantity now in the cart
+     * @param gia price snapshot kept for the item
+     */
+    public record AddResult(int soLuong, BigDecimal gia) {
+    }
+
+    /**
+     * Read a cart
+     * @return the snapshot, or null if the hash is missing and must be loaded from Postgres
+     */
+    public CartSnapshot read(Long nguoiDungId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(key(nguoiDungId));
+        if (entries == null || entries.isEmpty()) {
+            return null;
+        }
+        return parse(entries);
+    }
+
+    /**
+     * Seed the hash from a Postgres snapshot unless another request already did
+     */
+    public void load(Long nguoiDungId, CartSnapshot snapshot) {
+        List<String> keys = new ArrayList<>();
+        keys.add(key(nguoiDungId));
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(sessionTtl.getSeconds()));
+        args.add(String.valueOf(nguoiDungId));
+        args.add(CART_ID_FIELD);
+        args.add(String.valueOf(snapshot.gioHangId() != null ? snapshot.gioHangId() : 0L));
+        for (CartItem item : snapshot.items().values()) {
+            String id = String.valueOf(item.sanPhamChiTietId());
+            keys.add(variantIndexKey(item.sanPhamChiTietId()));
+            args.add("q:" + id);
+            args.add(String.valueOf(item.soLuong()));
+            args.add("p:" + id);
+            args.add(item.gia().toPlainString());
+            args.add("t:" + id);
+            args.add(String.valueOf(item.ngayThem() != null ? item.ngayThem().toEpochMilli() : System.currentTimeMillis()));
+        }
+        redisTemplate.execute(LOAD_SCRIPT, keys, args.toArray());
+    }
+
+    /**
+     * Record the gio_hang id once the write-behind created the row
+     * @return false if the session expired meanwhile; the id is read from Postgres on the next load
+     */
+    public boolean setCartId(Long nguoiDungId, Long gioHangId) {
+        Long result = redisTemplate.execute(SET_CART_ID_SCRIPT, List.of(key(nguoiDungId)),
+                String.valueOf(gioHangId), String.valueOf(sessionTtl.getSeconds()));
+        return result != null;
+    }
+
+    /**
+     * Add a quantity of a variant
+     * @param gia price snapshot used if the variant is new to the cart
+     * @return the new quantity and kept price, or null if the cart must be loaded first
+     */
+    public AddResult add(Long nguoiDungId, Long sanPhamChiTietId, int soLuong, BigDecimal gia) {
+        long now = System.currentTimeMillis();
+        List<?> result = redisTemplate.execute(ADD_SCRIPT, keys(nguoiDungId, sanPhamChiTietId),
+                String.valueOf(sanPhamChiTietId), String.valueOf(soLuong), gia.toPlainString(),
+                String.valueOf(now), String.valueOf(sessionTtl.getSeconds()), String.valueOf(nguoiDungId));
+        if (result == null || result.size() < 2) {
+            return null;
+        }
+        return new AddResult(((Number) result.get(0)).intValue(), new BigDecimal(String.valueOf(result.get(1))));
+    }
+
+    /**
+     * Undo an add that failed validation; concurrent adds of the same variant are kept
+     * @return the quantity left, or null if the cart expired meanwhile
+     */
+    public Long subtract(Long nguoiDungId, Long sanPhamChiTietId, int soLuong) {
+        return redisTemplate.execute(SUBTRACT_SCRIPT, keys(nguoiDungId, sanPhamChiTietId),
+                String.valueOf(sanPhamChiTietId), String.valueOf(soLuong), String.valueOf(sessionTtl.getSeconds()),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(nguoiDungId));
+    }
+
+    /**
+     * Set the quantity of a variant already in the cart; 0 removes it
+     * @return the quantity, -1 if the variant is not in the cart, or null if the cart must be loaded first
+     */
+    public Long setQuantity(Long nguoiDungId, Long sanPhamChiTietId, int soLuong) {
+        return redisTemplate.execute(SET_QUANTITY_SCRIPT, keys(nguoiDungId, sanPhamChiTietId),
+                String.valueOf(sanPhamChiTietId), String.valueOf(soLuong), String.valueOf(sessionTtl.getSeconds()),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(nguoiDungId));
+    }
+
+    /**
+     * Overwrite price snapshots of variants in the cart
+     * @return number of prices changed, or null if the cart must be loaded first
+     */
+    public Long setPrices(Long nguoiDungId, Map<Long, BigDecimal> prices) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(sessionTtl.getSeconds()));
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(nguoiDungId));
+        prices.forEach((sanPhamChiTietId, gia) -> {
+            args.add(String.valueOf(sanPhamChiTietId));
+            args.add(gia.toPlainString());
+        });
+        return redisTemplate.execute(SET_PRICES_SCRIPT, keys(nguoiDungId), args.toArray());
+    }
+
+    /**
+     * Remove every item
+     * @return false if the cart must be loaded first
+     */
+    public boolean clear(Long nguoiDungId) {
+        // Variants added between this read and the clear stay indexed, which only costs a no-op on a price change
+        List<String> keys = new ArrayList<>(keys(nguoiDungId));
+        CartSnapshot snapshot = read(nguoiDungId);
+        if (snapshot != null) {
+            snapshot.items().keySet().forEach(sanPhamChiTietId -> keys.add(variantIndexKey(sanPhamChiTietId)));
+        }
+        Long result = redisTemplate.execute(CLEAR_SCRIPT, keys,
+                String.valueOf(sessionTtl.getSeconds()), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(nguoiDungId));
+        return result != null;
+    }
+
+    /**
+     * Users whose session holds the variant; may include a few users who no longer have it
+     */
+    public Set<Long> findCartUsers(Long sanPhamChiTietId) {
+        Set<String> members = redisTemplate.opsForSet().members(variantIndexKey(sanPhamChiTietId));
+        if (members == null || members.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> nguoiDungIds = new HashSet<>();
+        members.forEach(member -> nguoiDungIds.add(Long.valueOf(member)));
+        return nguoiDungIds;
+    }
+
+    /**
+     * Drop index members found stale (session expired)
+     */
+    public void unindex(Long sanPhamChiTietId, Collection<Long> nguoiDungIds) {
+        if (nguoiDungIds.isEmpty()) {
+            return;
+        }
+        redisTemplate.opsForSet().remove(variantIndexKey(sanPhamChiTietId),
+                nguoiDungIds.stream().map(String::valueOf).toArray());
+    }
+
+    /**
+     * Users whose carts changed since they were last persisted, oldest change first
+     */
+    public Set<String> findDirty(int limit) {
+        Set<String> dirty = redisTemplate.opsForZSet().range(DIRTY_KEY, 0, limit - 1L);
+        return dirty != null ? dirty : Set.of();
+    }
+
+    /**
+     * Take a user out of the dirty set before persisting; changes made afterwards mark it dirty again
+     * @return false if another node already took it
+     */
+    public boolean claimDirty(String nguoiDungId) {
+        Long removed = redisTemplate.opsForZSet().remove(DIRTY_KEY, nguoiDungId);
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * Put a user back into the dirty set after a failed persist
+     */
+    public void markDirty(Long nguoiDungId) {
+        redisTemplate.opsForZSet().addIfAbsent(DIRTY_KEY, String.valueOf(nguoiDungId), System.currentTimeMillis());
+    }
+
+    public Long dirtyCount() {
+        return redisTemplate.opsForZSet().zCard(DIRTY_KEY);
+    }
+
+    private CartSnapshot parse(Map<Object, Object> entries) {
+        Long gioHangId = null;
+        Map<Long, String> quantities = new LinkedHashMap<>();
+        Map<Long, String> prices = new LinkedHashMap<>();
+        Map<Long, String> addedAt = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = String.valueOf(entry.getKey());
+            String value = String.valueOf(entry.getValue());
+            if (CART_ID_FIELD.equals(field)) {
+                long id = Long.parseLong(value);
+                gioHangId = id > 0 ? id : null;
+            } else if (field.length() > 2 && field.charAt(1) == ':') {
+                Long sanPhamChiTietId = Long.valueOf(field.substring(2));
+                switch (field.charAt(0)) {
+                    case 'q' -> quantities.put(sanPhamChiTietId, value);
+                    case 'p' -> prices.put(sanPhamChiTietId, value);
+                    case 't' -> addedAt.put(sanPhamChiTietId, value);
+                    default -> log.debug("Ignoring unknown cart field {}", field);
+                }
+            }
+        }
+
+        Map<Long, CartItem> items = new LinkedHashMap<>();
+        quantities.keySet().stream().sorted().forEach(sanPhamChiTietId -> {
+            int soLuong = Integer.parseInt(quantities.get(sanPhamChiTietId));
+            String gia = prices.get(sanPhamChiTietId);
+            if (soLuong <= 0 || gia == null) {
+                return;
+            }
+            String ngayThem = addedAt.get(sanPhamChiTietId);
+            items.put(sanPhamChiTietId, new CartItem(sanPhamChiTietId, soLuong, new BigDecimal(gia),
+                    ngayThem != null ? Instant.ofEpochMilli(Long.parseLong(ngayThem)) : null));
+        });
+        return new CartSnapshot(gioHangId, items);
+    }
+
+    private List<String> keys(Long nguoiDungId) {
+        return List.of(key(nguoiDungId), DIRTY_KEY);
+    }
+
+    private List<String> keys(Long nguoiDungId, Long sanPhamChiTietId) {
+        return List.of(key(nguoiDungId), DIRTY_KEY, variantIndexKey(sanPhamChiTietId));
+    }
+
+    static String key(Long nguoiDungId) {
+        return KEY_PREFIX + nguoiDungId;
+    }
+
+    static String variantIndexKey(Long sanPhamChiTietId) {
+        return VARIANT_INDEX_PREFIX + sanPhamChiTietId;
+    }
+}
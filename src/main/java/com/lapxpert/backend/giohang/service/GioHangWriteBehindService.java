@@ -0,0 +1,167 @@
+package com.lapxpert.backend.giohang.service;
+
+import com.lapxpert.backend.giohang.entity.GioHang;
+import com.lapxpert.backend.giohang.entity.GioHangChiTiet;
+import com.lapxpert.backend.giohang.repository.GioHangRepository;
+import com.lapxpert.backend.giohang.service.GioHangSessionStore.CartItem;
+import com.lapxpert.backend.giohang.service.GioHangSessionStore.CartSnapshot;
+import com.lapxpert.backend.nguoidung.repository.NguoiDungRepository;
+import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Write-behind between the Redis cart sessions (GioHangSessionStore) and gio_hang / gio_hang_chi_tiet.
+ *
+ * Cart mutations only touch Redis and mark the user dirty. Every interval this service claims up to batch-size
+ * dirty users (ZREM, so each is flushed by one node) and writes each cart as a diff against its rows in its own
+ * transaction, so any number of changes between two runs cost one write. A failed write marks the user dirty
+ * again. Checkout calls flush() to persist synchronously, and a Redis miss reloads the cart from Postgres.
+ */
+@Service
+@Slf4j
+public class GioHangWriteBehindService {
+
+    private final GioHangSessionStore gioHangSessionStore;
+    private final GioHangRepository gioHangRepository;
+    private final NguoiDungRepository nguoiDungRepository;
+    private final SanPhamChiTietRepository sanPhamChiTietRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public GioHangWriteBehindService(GioHangSessionStore gioHangSessionStore,
+                                     GioHangRepository gioHangRepository,
+                                     NguoiDungRepository nguoiDungRepository,
+                                     SanPhamChiTietRepository sanPhamChiTietRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${cart.write-behind.enabled:true}") boolean enabled,
+                                     @Value("${cart.write-behind.batch-size:200}") int batchSize) {
+        this.gioHangSessionStore = gioHangSessionStore;
+        this.gioHangRepository = gioHangRepository;
+        this.nguoiDungRepository = nguoiDungRepository;
+        this.sanPhamChiTietRepository = sanPhamChiTietRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Read a cart from Postgres to seed its Redis session, creating the gio_hang row on the user's first visit.
+     * Runs in its own transaction so it can be called from read-only callers.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public CartSnapshot loadForSession(Long nguoiDungId) {
+        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(nguoiDungId)
+                .orElseGet(() -> gioHangRepository.save(GioHang.builder()
+                        .nguoiDung(nguoiDungRepository.getReferenceById(nguoiDungId))
+                        .build()));
+
+        Map<Long, CartItem> items = new LinkedHashMap<>();
+        for (GioHangChiTiet chiTiet : gioHang.getChiTiets()) {
+            Long sanPhamChiTietId = chiTiet.getSanPhamChiTiet().getId();
+            items.put(sanPhamChiTietId, new CartItem(sanPhamChiTietId, chiTiet.getSoLuong(),
+                    chiTiet.getGiaTaiThoiDiemThem(), chiTiet.getNgayTao()));
+        }
+        log.debug("Loaded cart {} of user {} into Redis with {} items", gioHang.getId(), nguoiDungId, items.size());
+        return new CartSnapshot(gioHang.getId(), items);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.interval-ms:2000}")
+    public void flushDirty() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Set<String> dirty = gioHangSessionStore.findDirty(batchSize);
+            int flushed = 0;
+            for (String member : dirty) {
+                if (gioHangSessionStore.claimDirty(member) && persist(Long.valueOf(member))) {
+                    flushed++;
+                }
+            }
+            if (flushed > 0) {
+                log.debug("Persisted {} carts from Redis", flushed);
+            }
+        } catch (Exception e) {
+            log.error("Cart write-behind run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Persist one cart now, joining the caller's transaction (checkout)
+     * @throws IllegalStateException if the cart could not be written
+     */
+    public void flush(Long nguoiDungId) {
+        gioHangSessionStore.claimDirty(String.valueOf(nguoiDungId));
+        if (!persist(nguoiDungId)) {
+            throw new IllegalStateException("Không thể lưu giỏ hàng của người dùng " + nguoiDungId);
+        }
+    }
+
+    private boolean persist(Long nguoiDungId) {
+        try {
+            CartSnapshot snapshot = gioHangSessionStore.read(nguoiDungId);
+            if (snapshot == null) {
+                // Session expired: Postgres already holds the latest persisted state
+                return true;
+            }
+            Long gioHangId = transactionTemplate.execute(status -> write(nguoiDungId, snapshot));
+            if (snapshot.gioHangId() == null && gioHangId != null) {
+                gioHangSessionStore.setCartId(nguoiDungId, gioHangId);
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to persist cart of user {}, will retry: {}", nguoiDungId, e.getMessage());
+            gioHangSessionStore.markDirty(nguoiDungId);
+            return false;
+        }
+    }
+
+    /**
+     * Apply the session snapshot to the cart rows: update changed lines, insert new ones, delete removed ones
+     */
+    private Long write(Long nguoiDungId, CartSnapshot snapshot) {
+        GioHang gioHang = gioHangRepository.findByNguoiDung_Id(nguoiDungId)
+                .orElseGet(() -> GioHang.builder()
+                        .nguoiDung(nguoiDungRepository.getReferenceById(nguoiDungId))
+                        .build());
+
+        Map<Long, GioHangChiTiet> existing = new HashMap<>();
+        for (GioHangChiTiet chiTiet : gioHang.getChiTiets()) {
+            existing.put(chiTiet.getSanPhamChiTiet().getId(), chiTiet);
+        }
+        gioHang.getChiTiets().removeIf(chiTiet -> !snapshot.items().containsKey(chiTiet.getSanPhamChiTiet().getId()));
+
+        for (CartItem item : snapshot.items().values()) {
+            GioHangChiTiet chiTiet = existing.get(item.sanPhamChiTietId());
+            if (chiTiet == null) {
+                gioHang.getChiTiets().add(GioHangChiTiet.builder()
+                        .gioHang(gioHang)
+                        .sanPhamChiTiet(sanPhamChiTietRepository.getReferenceById(item.sanPhamChiTietId()))
+                        .soLuong(item.soLuong())
+                        .giaTaiThoiDiemThem(item.gia())
+                        .build());
+                continue;
+            }
+            if (!chiTiet.getSoLuong().equals(item.soLuong())) {
+                chiTiet.setSoLuong(item.soLuong());
+            }
+            if (chiTiet.getGiaTaiThoiDiemThem().compareTo(item.gia()) != 0) {
+                chiTiet.setGiaTaiThoiDiemThem(item.gia());
+            }
+        }
+        return gioHangRepository.save(gioHang).getId();
+    }
+}
@@ -203,8 +203,8 @@ public class HoaDonService extends BusinessEntityService<HoaDon, Long, HoaDonDto
                 log.info("Order {} created with inventory reserved. Payment pending.", savedHoaDon.getId());
             }
 
-            // Step 10: Apply vouchers to the saved order in a separate transaction
-            applyVouchersToOrderSeparateTransaction(savedHoaDon.getId(), hoaDonDto, tongTienHang);
+            // Step 10: Redeem the vouchers of the saved order; an exhausted voucher fails the order
+            applyVouchersToOrder(savedHoaDon.getId(), hoaDonDto, tongTienHang);
 
             // Step 11: Log performance metrics
             long executionTime = System.currentTimeMillis() - startTime;
@@ -414,11 +414,11 @@ public class HoaDonService extends BusinessEntityService<HoaDon, Long, HoaDonDto
     }
 
     /**
-     * Apply vouchers to order in a separate transaction to avoid transient entity issues.
-     * Uses ID-based approach to completely avoid entity reference issues.
+     * Redeem the vouchers priced into the order, in the order's own transaction.
+     * A voucher exhausted or invalidated since pricing fails the whole order as a validation error,
+     * so the order is never committed with a discount whose usage was not redeemed.
      */
-    @Transactional(propagation = org.springframework.transaction.annotation.Propagation.REQUIRES_NEW)
-    public void applyVouchersToOrderSeparateTransaction(Long orderId, HoaDonDto hoaDonDto, BigDecimal orderTotal) {
+    private void applyVouchersToOrder(Long orderId, HoaDonDto hoaDonDto, BigDecimal orderTotal) {
         if (hoaDonDto.getVoucherCodes() == null || hoaDonDto.getVoucherCodes().isEmpty()) {
             return;
         }
@@ -426,38 +426,35 @@ public class HoaDonService extends BusinessEntityService<HoaDon, Long, HoaDonDto
         // Get customer ID directly without fetching full entities
         Long customerId = hoaDonRepository.findCustomerIdByOrderId(orderId);
         if (customerId == null) {
-            log.warn("No customer found for order {}, skipping voucher application", orderId);
+            // processVouchers priced no discount for an order without customer
             return;
         }
 
         // Fetch customer separately to avoid transient entity issues
         NguoiDung customer = nguoiDungRepository.findById(customerId)
-            .orElse(null);
-        if (customer == null) {
-            log.warn("Customer {} not found, skipping voucher application", customerId);
-            return;
-        }
+            .orElseThrow(() -> new IllegalArgumentException("Không tìm thấy khách hàng với ID: " + customerId));
 
         for (String voucherCode : hoaDonDto.getVoucherCodes()) {
-            try {
-                // Re-validate voucher using customer entity
-                PhieuGiamGiaService.VoucherValidationResult validationResult =
-                    phieuGiamGiaService.validateVoucher(voucherCode, customer, orderTotal);
+            // Re-validate voucher using customer entity
+            PhieuGiamGiaService.VoucherValidationResult validationResult =
+                phieuGiamGiaService.validateVoucher(voucherCode, customer, orderTotal);
+            if (!validationResult.isValid()) {
+                throw new IllegalArgumentException("Voucher validation failed for " + voucherCode + ": " + validationResult.getErrorMessage());
+            }
 
-                if (validationResult.isValid()) {
-                    // Apply voucher using ID-based approach to avoid entity references
-                    phieuGiamGiaService.applyVoucherToOrderById(
-                        validationResult.getVoucher().getId(),
-                        orderId,
-                        validationResult.getDiscountAmount()
-                    );
-                    log.info("Applied voucher {} to order {} with discount {}",
-                            voucherCode, orderId, validationResult.getDiscountAmount());
-                }
-            } catch (Exception e) {
-                log.error("Failed to apply voucher {} to order {}: {}", voucherCode, orderId, e.getMessage());
-                // Note: At this point the order is already saved, so we log the error but don't fail the order
+            try {
+                // Apply voucher using ID-based approach to avoid entity references
+                phieuGiamGiaService.applyVoucherToOrderById(
+                    validationResult.getVoucher().getId(),
+                    orderId,
+                    validationResult.getDiscountAmount()
+                );
+            } catch (IllegalStateException e) {
+                // Used up by a concurrent checkout since validation
+                throw new IllegalArgumentException("Voucher validation failed for " + voucherCode + ": " + e.getMessage(), e);
             }
+            log.info("Applied voucher {} to order {} with discount {}",
+                    voucherCode, orderId, validationResult.getDiscountAmount());
         }
     }
 
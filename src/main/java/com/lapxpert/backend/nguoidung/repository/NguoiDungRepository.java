@@ -29,6 +29,10 @@ public interface NguoiDungRepository extends JpaRepository<NguoiDung, Long> {
     Optional<NguoiDung> findByEmail(String email);
     // Optional<NguoiDung> findByEmailAndMatKhau(String email,String matKhau); // Removed as unused and potentially insecure
 
+    // Email only, without loading the user
+    @Query("SELECT n.email FROM NguoiDung n WHERE n.id = :id")
+    Optional<String> findEmailById(@Param("id") Long id);
+
     Optional<NguoiDung> findBySoDienThoai(String phone);
 
     Optional<NguoiDung> findByCccd(String cccd);
@@ -6,6 +6,8 @@ import com.lapxpert.backend.phieugiamgia.dto.PhieuGiamGiaDto;
 import com.lapxpert.backend.phieugiamgia.dto.IntelligentRecommendationResult;
 import com.lapxpert.backend.phieugiamgia.dto.OrderItemInfo;
 import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGiaAuditHistory;
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGiaCanhBao;
+import com.lapxpert.backend.phieugiamgia.service.PhieuGiamGiaCanhBaoService;
 import com.lapxpert.backend.phieugiamgia.service.PhieuGiamGiaService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,6 +34,7 @@ import java.util.Optional;
 public class PhieuGiamGiaController {
 
     private final PhieuGiamGiaService phieuGiamGiaService;
+    private final PhieuGiamGiaCanhBaoService phieuGiamGiaCanhBaoService;
     private final NguoiDungService nguoiDungService;
     private final CacheInvalidationService cacheInvalidationService;
 
@@ -94,6 +97,15 @@ public class PhieuGiamGiaController {
         }
     }
 
+    @GetMapping("/{id}/canh-bao")
+    public ResponseEntity<List<PhieuGiamGiaCanhBao>> getAlerts(@PathVariable("id") Long id) {
+        try {
+            return ResponseEntity.ok(phieuGiamGiaCanhBaoService.getAlerts(id));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
     @PutMapping("delete/{id}")
     public ResponseEntity<PhieuGiamGiaDto> closeVoucher(@PathVariable Long id,
                                                         @RequestParam(value = "reason", required = false) String reason,
@@ -0,0 +1,21 @@
+package com.lapxpert.backend.phieugiamgia.entity;
+
+/**
+ * Threshold a voucher has crossed, recorded once per voucher in phieu_giam_gia_canh_bao
+ */
+public enum LoaiCanhBaoPhieuGiamGia {
+    SAP_HET_LUOT("Sắp hết lượt sử dụng"),
+    HET_LUOT("Đã hết lượt sử dụng"),
+    SAP_HET_HAN("Sắp hết hạn"),
+    HET_HAN("Đã hết hạn");
+
+    private final String description;
+
+    LoaiCanhBaoPhieuGiamGia(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
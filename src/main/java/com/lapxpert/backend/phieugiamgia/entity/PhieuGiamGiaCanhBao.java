@@ -0,0 +1,45 @@
+package com.lapxpert.backend.phieugiamgia.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcType;
+import org.hibernate.dialect.PostgreSQLEnumJdbcType;
+
+import java.time.Instant;
+
+/**
+ * Voucher alert: a usage or expiry threshold crossed by a voucher, with the figures at that moment.
+ * Rows are inserted by PhieuGiamGiaCanhBaoRepository at write time, at most one per voucher and type,
+ * and removed again when a later change moves the voucher back under the threshold.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "phieu_giam_gia_canh_bao")
+public class PhieuGiamGiaCanhBao {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "phieu_giam_gia_id", nullable = false)
+    private Long phieuGiamGiaId;
+
+    @Column(name = "loai_canh_bao", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    private LoaiCanhBaoPhieuGiamGia loaiCanhBao;
+
+    @Column(name = "so_luong_da_dung", nullable = false)
+    private Integer soLuongDaDung;
+
+    @Column(name = "so_luong_ban_dau", nullable = false)
+    private Integer soLuongBanDau;
+
+    @Column(name = "ngay_ket_thuc", nullable = false)
+    private Instant ngayKetThuc;
+
+    @Column(name = "ngay_tao", nullable = false)
+    private Instant ngayTao;
+}
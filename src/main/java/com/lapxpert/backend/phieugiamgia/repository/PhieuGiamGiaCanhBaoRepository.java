@@ -0,0 +1,120 @@
+package com.lapxpert.backend.phieugiamgia.repository;
+
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGiaCanhBao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Voucher alerts are written with INSERT ... SELECT ... ON CONFLICT DO NOTHING against the voucher row itself,
+ * so the threshold check and the insert are one statement and each alert is recorded once no matter how many
+ * writers or nodes cross the threshold together.
+ */
+@Repository
+public interface PhieuGiamGiaCanhBaoRepository extends JpaRepository<PhieuGiamGiaCanhBao, Long> {
+
+    /**
+     * Alerts of a voucher, newest first
+     */
+    List<PhieuGiamGiaCanhBao> findByPhieuGiamGiaIdOrderByNgayTaoDesc(Long phieuGiamGiaId);
+
+    /**
+     * Alerts raised since the given time, newest first
+     */
+    List<PhieuGiamGiaCanhBao> findByNgayTaoAfterOrderByNgayTaoDesc(Instant since);
+
+    /**
+     * Record SAP_HET_LUOT / HET_LUOT if the voucher's usage has reached the given percentage / all of its quantity
+     * @return number of alerts recorded
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO phieu_giam_gia_canh_bao (id, phieu_giam_gia_id, loai_canh_bao, so_luong_da_dung, so_luong_ban_dau, ngay_ket_thuc, ngay_tao)
+        SELECT nextval('phieu_giam_gia_canh_bao_id_seq'), p.id, t.loai, p.so_luong_da_dung, p.so_luong_ban_dau, p.ngay_ket_thuc, :now
+        FROM phieu_giam_gia p
+        CROSS JOIN (VALUES ('SAP_HET_LUOT', :nguongPhanTram), ('HET_LUOT', 100)) AS t(loai, nguong)
+        WHERE p.id = :phieuGiamGiaId AND p.so_luong_ban_dau > 0
+        AND p.so_luong_da_dung * 100 >= p.so_luong_ban_dau * t.nguong
+        ON CONFLICT (phieu_giam_gia_id, loai_canh_bao) DO NOTHING
+        """, nativeQuery = true)
+    int recordUsageThresholds(@Param("phieuGiamGiaId") Long phieuGiamGiaId,
+                              @Param("nguongPhanTram") int nguongPhanTram,
+                              @Param("now") Instant now);
+
+    /**
+     * Record SAP_HET_HAN if the running voucher, with usage left, ends before the given time
+     * @return number of alerts recorded
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO phieu_giam_gia_canh_bao (id, phieu_giam_gia_id, loai_canh_bao, so_luong_da_dung, so_luong_ban_dau, ngay_ket_thuc, ngay_tao)
+        SELECT nextval('phieu_giam_gia_canh_bao_id_seq'), p.id, 'SAP_HET_HAN', p.so_luong_da_dung, p.so_luong_ban_dau, p.ngay_ket_thuc, :now
+        FROM phieu_giam_gia p
+        WHERE p.id = :phieuGiamGiaId AND p.trang_thai = 'DA_DIEN_RA' AND p.so_luong_da_dung < p.so_luong_ban_dau
+        AND p.ngay_ket_thuc > :now AND p.ngay_ket_thuc <= :until
+        ON CONFLICT (phieu_giam_gia_id, loai_canh_bao) DO NOTHING
+        """, nativeQuery = true)
+    int recordExpiringSoon(@Param("phieuGiamGiaId") Long phieuGiamGiaId,
+                           @Param("now") Instant now,
+                           @Param("until") Instant until);
+
+    /**
+     * Record SAP_HET_HAN for every running voucher, with usage left, ending in (now, until].
+     * Served by the partial index idx_phieu_giam_gia_dang_dien_ra, so only vouchers in the window are read.
+     * @return number of alerts recorded
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO phieu_giam_gia_canh_bao (id, phieu_giam_gia_id, loai_canh_bao, so_luong_da_dung, so_luong_ban_dau, ngay_ket_thuc, ngay_tao)
+        SELECT nextval('phieu_giam_gia_canh_bao_id_seq'), p.id, 'SAP_HET_HAN', p.so_luong_da_dung, p.so_luong_ban_dau, p.ngay_ket_thuc, :now
+        FROM phieu_giam_gia p
+        WHERE p.trang_thai = 'DA_DIEN_RA' AND p.so_luong_da_dung < p.so_luong_ban_dau
+        AND p.ngay_ket_thuc > :now AND p.ngay_ket_thuc <= :until
+        ON CONFLICT (phieu_giam_gia_id, loai_canh_bao) DO NOTHING
+        """, nativeQuery = true)
+    int recordExpiringBetween(@Param("now") Instant now, @Param("until") Instant until);
+
+    /**
+     * Record HET_HAN if the voucher has ended
+     * @return number of alerts recorded
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO phieu_giam_gia_canh_bao (id, phieu_giam_gia_id, loai_canh_bao, so_luong_da_dung, so_luong_ban_dau, ngay_ket_thuc, ngay_tao)
+        SELECT nextval('phieu_giam_gia_canh_bao_id_seq'), p.id, 'HET_HAN', p.so_luong_da_dung, p.so_luong_ban_dau, p.ngay_ket_thuc, :now
+        FROM phieu_giam_gia p
+        WHERE p.id = :phieuGiamGiaId AND p.trang_thai = 'KET_THUC'
+        ON CONFLICT (phieu_giam_gia_id, loai_canh_bao) DO NOTHING
+        """, nativeQuery = true)
+    int recordExpired(@Param("phieuGiamGiaId") Long phieuGiamGiaId, @Param("now") Instant now);
+
+    /**
+     * Delete alerts whose condition no longer holds (quantity raised, usage refunded, end date extended, reopened),
+     * so the threshold is reported again when it is crossed the next time
+     * @return number of alerts deleted
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        DELETE FROM phieu_giam_gia_canh_bao c
+        USING phieu_giam_gia p
+        WHERE c.phieu_giam_gia_id = p.id AND p.id = :phieuGiamGiaId
+        AND ((c.loai_canh_bao = 'SAP_HET_LUOT' AND p.so_luong_da_dung * 100 < p.so_luong_ban_dau * :nguongPhanTram)
+            OR (c.loai_canh_bao = 'HET_LUOT' AND p.so_luong_da_dung < p.so_luong_ban_dau)
+            OR (c.loai_canh_bao = 'SAP_HET_HAN' AND p.ngay_ket_thuc > :until)
+            OR (c.loai_canh_bao = 'HET_HAN' AND p.trang_thai <> 'KET_THUC'))
+        """, nativeQuery = true)
+    int deleteResolved(@Param("phieuGiamGiaId") Long phieuGiamGiaId,
+                       @Param("nguongPhanTram") int nguongPhanTram,
+                       @Param("until") Instant until);
+}
@@ -25,6 +25,7 @@ public interface PhieuGiamGiaNguoiDungRepository extends JpaRepository<PhieuGiam
 
     boolean existsById(PhieuGiamGiaNguoiDungId id);
     long countByPhieuGiamGiaId(Long phieuGiamGiaId);
+    boolean existsByPhieuGiamGiaId(Long phieuGiamGiaId);
 
     List<PhieuGiamGiaNguoiDung> findByPhieuGiamGiaId(Long phieuGiamGiaId);
 }
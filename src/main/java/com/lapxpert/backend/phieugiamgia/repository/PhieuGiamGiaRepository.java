@@ -1,15 +1,19 @@
 package com.lapxpert.backend.phieugiamgia.repository;
 
+import com.lapxpert.backend.common.enums.LoaiGiamGia;
 import com.lapxpert.backend.common.enums.TrangThaiCampaign;
 import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGia;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -67,6 +71,33 @@ public interface PhieuGiamGiaRepository extends JpaRepository<PhieuGiamGia, Long
     List<PhieuGiamGia> findActiveVouchersForCustomer(@Param("customerId") Long customerId,
                                                     @Param("status") TrangThaiCampaign status);
 
+    /**
+     * Vouchers a customer can apply to an order right now, best discount first.
+     * Public vouchers (no assignments) or private ones assigned to the customer; a null customerId matches public only.
+     * Discount ranking mirrors PhieuGiamGiaService.calculateDiscountAmount: percentage of the order total,
+     * or the fixed amount capped at the order total. Served by idx_phieu_giam_gia_dang_dien_ra and the
+     * (nguoi_dung_id, phieu_giam_gia_id) assignment index.
+     */
+    @Query("""
+        SELECT p FROM PhieuGiamGia p
+        WHERE p.trangThai = :status
+        AND p.soLuongDaDung < p.soLuongBanDau
+        AND p.ngayBatDau <= :now AND p.ngayKetThuc > :now
+        AND (p.giaTriDonHangToiThieu IS NULL OR p.giaTriDonHangToiThieu <= :orderTotal)
+        AND (NOT EXISTS (SELECT 1 FROM PhieuGiamGiaNguoiDung a WHERE a.id.phieuGiamGiaId = p.id)
+             OR EXISTS (SELECT 1 FROM PhieuGiamGiaNguoiDung a
+                        WHERE a.id.phieuGiamGiaId = p.id AND a.id.nguoiDungId = :customerId))
+        ORDER BY CASE WHEN p.loaiGiamGia = :percentage THEN :orderTotal * p.giaTriGiam / 100
+                      ELSE least(p.giaTriGiam, :orderTotal) END DESC,
+                 p.ngayKetThuc ASC, p.id ASC
+        """)
+    List<PhieuGiamGia> findEligibleVouchersRankedByDiscount(@Param("customerId") Long customerId,
+                                                            @Param("orderTotal") BigDecimal orderTotal,
+                                                            @Param("now") Instant now,
+                                                            @Param("status") TrangThaiCampaign status,
+                                                            @Param("percentage") LoaiGiamGia percentage,
+                                                            Pageable pageable);
+
     /**
      * Find vouchers needing status update with batch processing
      * Used by scheduler for efficient status updates
@@ -98,6 +129,51 @@ public interface PhieuGiamGiaRepository extends JpaRepository<PhieuGiamGia, Long
                                                    @Param("startTime") Instant startTime,
                                                    @Param("endTime") Instant endTime);
 
+    /**
+     * Lifecycle boundaries of vouchers that can still change status.
+     * Each row: [id, ngayBatDau, ngayKetThuc, trangThai]
+     */
+    @Query("SELECT p.id, p.ngayBatDau, p.ngayKetThuc, p.trangThai FROM PhieuGiamGia p WHERE p.trangThai IN :statuses")
+    List<Object[]> findLifecycleBoundaries(@Param("statuses") Collection<TrangThaiCampaign> statuses);
+
+    /**
+     * Lifecycle boundaries for the given vouchers only (same row layout as findLifecycleBoundaries)
+     */
+    @Query("""
+        SELECT p.id, p.ngayBatDau, p.ngayKetThuc, p.trangThai FROM PhieuGiamGia p
+        WHERE p.id IN :ids AND p.trangThai IN :statuses
+        """)
+    List<Object[]> findLifecycleBoundariesByIds(@Param("ids") Collection<Long> ids,
+                                               @Param("statuses") Collection<TrangThaiCampaign> statuses);
+
+    /**
+     * Conditionally activate a voucher whose start time has been reached.
+     * Returns 0 when another instance already flipped it or the dates no longer match.
+     */
+    @Modifying
+    @Query("""
+        UPDATE PhieuGiamGia p SET p.trangThai = :active
+        WHERE p.id = :id AND p.trangThai = :notStarted
+        AND p.ngayBatDau <= :currentTime AND p.ngayKetThuc > :currentTime
+        """)
+    int activateIfDue(@Param("id") Long id,
+                      @Param("currentTime") Instant currentTime,
+                      @Param("notStarted") TrangThaiCampaign notStarted,
+                      @Param("active") TrangThaiCampaign active);
+
+    /**
+     * Conditionally expire a voucher whose end time has been reached
+     */
+    @Modifying
+    @Query("""
+        UPDATE PhieuGiamGia p SET p.trangThai = :expired
+        WHERE p.id = :id AND p.trangThai IN :openStatuses AND p.ngayKetThuc <= :currentTime
+        """)
+    int expireIfDue(@Param("id") Long id,
+                    @Param("currentTime") Instant currentTime,
+                    @Param("openStatuses") Collection<TrangThaiCampaign> openStatuses,
+                    @Param("expired") TrangThaiCampaign expired);
+
     /**
      * Find vouchers that are currently running
      */
@@ -125,9 +201,26 @@ public interface PhieuGiamGiaRepository extends JpaRepository<PhieuGiamGia, Long
     List<PhieuGiamGia> findByMaPhieuGiamGiaContainingIgnoreCaseOrMoTaContainingIgnoreCase(String code, String description);
 
     /**
-     * Increment voucher usage count using direct update to avoid entity loading
+     * Redeem one usage with a single conditional update.
+     * Returns 0 when the voucher is already exhausted, so concurrent checkouts can never over-redeem.
      */
-    @Modifying
-    @Query("UPDATE PhieuGiamGia p SET p.soLuongDaDung = p.soLuongDaDung + 1 WHERE p.id = :voucherId")
-    void incrementUsageCount(@Param("voucherId") Long voucherId);
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE PhieuGiamGia p SET p.soLuongDaDung = p.soLuongDaDung + 1
+        WHERE p.id = :voucherId AND p.soLuongDaDung < p.soLuongBanDau
+        """)
+    int incrementUsageIfAvailable(@Param("voucherId") Long voucherId);
+
+    /**
+     * Compensating decrement for a cancelled or refunded redemption; never goes below zero
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE PhieuGiamGia p SET p.soLuongDaDung = p.soLuongDaDung - 1 WHERE p.id = :voucherId AND p.soLuongDaDung > 0")
+    int decrementUsageCount(@Param("voucherId") Long voucherId);
+
+    /**
+     * Remaining usages, read without loading the entity
+     */
+    @Query("SELECT p.soLuongBanDau - p.soLuongDaDung FROM PhieuGiamGia p WHERE p.id = :voucherId")
+    Integer findRemainingUsage(@Param("voucherId") Long voucherId);
 }
\ No newline at end of file
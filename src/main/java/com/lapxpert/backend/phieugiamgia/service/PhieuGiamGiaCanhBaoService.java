@@ -0,0 +1,120 @@
+package com.lapxpert.backend.phieugiamgia.service;
+
+import com.lapxpert.backend.common.event.VoucherChangeEvent;
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGiaCanhBao;
+import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaCanhBaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Voucher threshold alerts (phieu_giam_gia_canh_bao), detected where the voucher changes instead of by
+ * diffing full snapshots:
+ * - usage: checked right after each redemption or refund, in the same transaction
+ * - voucher writes and lifecycle status flips: checked from VoucherChangeEvent after the change commits, in a
+ *   transaction of their own so an alerting failure never rolls the voucher change back
+ * - time passing: one indexed range query per tick for running vouchers whose end falls inside the alert window
+ * Every check is a single statement on the voucher row; the unique (voucher, type) key keeps alerts idempotent
+ * across nodes and restarts.
+ */
+@Service
+@Slf4j
+public class PhieuGiamGiaCanhBaoService {
+
+    private final PhieuGiamGiaCanhBaoRepository canhBaoRepository;
+    private final int usageThresholdPercent;
+    private final Duration expiringWithin;
+    private final Duration tick;
+
+    public PhieuGiamGiaCanhBaoService(PhieuGiamGiaCanhBaoRepository canhBaoRepository,
+                                      @Value("${voucher.alert.usage-threshold-percent:90}") int usageThresholdPercent,
+                                      @Value("${voucher.alert.expiring-within-hours:24}") long expiringWithinHours,
+                                      @Value("${voucher.alert.tick-ms:600000}") long tickMillis) {
+        this.canhBaoRepository = canhBaoRepository;
+        this.usageThresholdPercent = usageThresholdPercent;
+        this.expiringWithin = Duration.ofHours(expiringWithinHours);
+        this.tick = Duration.ofMillis(tickMillis);
+    }
+
+    /**
+     * Check usage thresholds after a redemption; joins the redeeming transaction
+     */
+    public void onUsageRedeemed(Long phieuGiamGiaId) {
+        int recorded = canhBaoRepository.recordUsageThresholds(phieuGiamGiaId, usageThresholdPercent, Instant.now());
+        if (recorded > 0) {
+            log.warn("Voucher {} crossed a usage threshold ({} alert(s) recorded)", phieuGiamGiaId, recorded);
+        }
+    }
+
+    /**
+     * Clear usage alerts that a refund has made stale; joins the refunding transaction
+     */
+    public void onUsageReleased(Long phieuGiamGiaId) {
+        canhBaoRepository.deleteResolved(phieuGiamGiaId, usageThresholdPercent, Instant.now().plus(expiringWithin));
+    }
+
+    /**
+     * Re-evaluate every threshold of a voucher that was created, edited or changed status.
+     * Runs after commit in a new transaction; a missed alert is picked up by the next voucher change or tick.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void handleVoucherChange(VoucherChangeEvent event) {
+        if (!"PHIEU_GIAM_GIA".equals(event.getLoaiVoucher()) || event.getVoucherId() == null
+                || "DELETED".equals(event.getLoaiThayDoi())) {
+            return;
+        }
+        try {
+            Long phieuGiamGiaId = event.getVoucherId();
+            Instant now = Instant.now();
+            Instant until = now.plus(expiringWithin);
+
+            canhBaoRepository.deleteResolved(phieuGiamGiaId, usageThresholdPercent, until);
+            int recorded = canhBaoRepository.recordUsageThresholds(phieuGiamGiaId, usageThresholdPercent, now)
+                    + canhBaoRepository.recordExpiringSoon(phieuGiamGiaId, now, until)
+                    + canhBaoRepository.recordExpired(phieuGiamGiaId, now);
+            if (recorded > 0) {
+                log.warn("Voucher {} crossed {} threshold(s) on {}", phieuGiamGiaId, recorded, event.getLoaiThayDoi());
+            }
+        } catch (Exception e) {
+            log.error("Failed to evaluate alerts for voucher {}: {}", event.getVoucherId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Record expiry alerts for running vouchers whose end moves into the alert window during the next tick.
+     * The upper bound reaches one tick past the window so nothing slips between two runs; vouchers already
+     * alerted are skipped by the unique key.
+     */
+    @Scheduled(fixedDelayString = "${voucher.alert.tick-ms:600000}", initialDelay = 60000)
+    public void recordExpiringVouchers() {
+        try {
+            Instant now = Instant.now();
+            int recorded = canhBaoRepository.recordExpiringBetween(now, now.plus(expiringWithin).plus(tick));
+            if (recorded > 0) {
+                log.warn("{} voucher(s) will expire within {} hours", recorded, expiringWithin.toHours());
+            }
+        } catch (Exception e) {
+            log.error("Failed to record expiring voucher alerts: {}", e.getMessage(), e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<PhieuGiamGiaCanhBao> getAlerts(Long phieuGiamGiaId) {
+        return canhBaoRepository.findByPhieuGiamGiaIdOrderByNgayTaoDesc(phieuGiamGiaId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PhieuGiamGiaCanhBao> getRecentAlerts(Duration within) {
+        return canhBaoRepository.findByNgayTaoAfterOrderByNgayTaoDesc(Instant.now().minus(within));
+    }
+}
@@ -3,7 +3,6 @@ package com.lapxpert.backend.phieugiamgia.service;
 import com.lapxpert.backend.common.enums.TrangThaiCampaign;
 import com.lapxpert.backend.common.enums.LoaiGiamGia;
 import com.lapxpert.backend.common.service.BusinessEntityService;
-import com.lapxpert.backend.common.service.EmailService;
 import com.lapxpert.backend.common.service.VietnamTimeZoneService;
 import com.lapxpert.backend.common.service.WebSocketIntegrationService;
 import com.lapxpert.backend.common.util.ValidationUtils;
@@ -26,12 +25,15 @@ import com.lapxpert.backend.hoadon.repository.HoaDonPhieuGiamGiaRepository;
 import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaNguoiDungRepository;
 import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaRepository;
 import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaAuditHistoryRepository;
+import com.lapxpert.backend.thongbao.service.EmailNotificationService;
+import com.lapxpert.backend.thongbao.service.EmailNotificationService.EmailThongBao;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -47,17 +49,24 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Long, PhieuGiamGiaDto, PhieuGiamGiaAuditHistory> {
 
+    public static final String CACHE_NAME = "phieuGiamGiaCache";
+
+    // Ranked vouchers scanned for the first one that still discounts the order
+    static final int BEST_VOUCHER_SCAN_SIZE = 10;
+
     private final PhieuGiamGiaRepository phieuGiamGiaRepository;
     private final PhieuGiamGiaNguoiDungRepository phieuGiamGiaNguoiDungRepository;
     private final PhieuGiamGiaAuditHistoryRepository auditHistoryRepository;
     private final NguoiDungRepository nguoiDungRepository;
-    private final EmailService emailService;
     private final HoaDonPhieuGiamGiaRepository hoaDonPhieuGiamGiaRepository;
     private final PhieuGiamGiaMapper phieuGiamGiaMapper;
     private final VietnamTimeZoneService vietnamTimeZoneService;
     private final PhieuGiamGiaDtoMapper phieuGiamGiaDtoMapper;
     private final ApplicationEventPublisher eventPublisher;
     private final WebSocketIntegrationService webSocketIntegrationService;
+    private final VoucherUsageCounter voucherUsageCounter;
+    private final PhieuGiamGiaCanhBaoService phieuGiamGiaCanhBaoService;
+    private final EmailNotificationService emailNotificationService;
 
     public List<PhieuGiamGiaDto> getAllPhieuGiamGia() {
         // Use inherited findAll method with caching from BusinessEntityService
@@ -108,13 +117,6 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
             }
 
             // Gửi email cho những khách hàng đã chọn
-            List<String> selectedCustomerEmails = req.getDanhSachNguoiDung().stream()
-                    .map(nguoiDungId -> nguoiDungRepository.findById(nguoiDungId)
-                            .map(NguoiDung::getEmail)
-                            .orElse(null))
-                    .filter(email -> email != null)
-                    .collect(Collectors.toList());
-
             String subject = "Ưu đãi đặc biệt dành riêng cho bạn!";
             String text = "Chào bạn,\n\n"
                     + "LapXpert trân trọng gửi đến bạn phiếu giảm giá có mã là **" + savedPhieu.getMaPhieuGiamGia() + "** "
@@ -123,20 +125,12 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
                     +"Phiếu sẽ được áp dụng với hóa đơn từ"+savedPhieu.getGiaTriDonHangToiThieu()+".\n\n"
                     + "Hãy nhanh tay sử dụng để không bỏ lỡ nhé!\n\n"
                     + "Trân trọng,\nLapXpert Team";
-            // Log notification for selected customers
-            log.info("[VOUCHER NOTIFICATION] Sending to {} selected customers: {}",
-                selectedCustomerEmails.size(), subject);
             log.debug("[VOUCHER NOTIFICATION] Email content: {}", text);
-
-            // TODO: Implement actual email sending
-            // emailService.sendBulkEmail(selectedCustomerEmails, subject, text);
+            emailNotificationService.enqueueForUsers(req.getDanhSachNguoiDung(),
+                    new EmailThongBao("PHIEU_GIAM_GIA_MOI", savedPhieu.getMaPhieuGiamGia(), subject, text));
 
         } else {
             // Nếu phiếu giảm giá công khai
-            List<String> allCustomerEmails = nguoiDungRepository.findAll().stream()
-                    .map(NguoiDung::getEmail)
-                    .collect(Collectors.toList());
-
             String subject = "Ưu đãi mới cho tất cả khách hàng LapXpert!";
             String text = "Chào bạn,\n\n"
                     + "Chúng tôi vừa phát hành Phiếu giảm giá có mã là **" + savedPhieu.getMaPhieuGiamGia() + "** áp dụng cho tất cả khách hàng, "
@@ -144,13 +138,9 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
                     + "Nhanh tay sử dụng để nhận ưu đãi hấp dẫn!\n\n"
                     + "Trân trọng,\nLapXpert Team";
 
-            // Log notification for all customers
-            log.info("[VOUCHER NOTIFICATION] Sending to {} all customers: {}",
-                allCustomerEmails.size(), subject);
             log.debug("[VOUCHER NOTIFICATION] Email content: {}", text);
-
-            // TODO: Implement actual email sending
-            // emailService.sendBulkEmail(allCustomerEmails, subject, text);
+            emailNotificationService.enqueueForActiveCustomers(
+                    new EmailThongBao("PHIEU_GIAM_GIA_MOI", savedPhieu.getMaPhieuGiamGia(), subject, text));
         }
 
         // Return the created voucher DTO (already created by inherited method)
@@ -183,28 +173,18 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
 
         // Use inherited update method with audit trail and cache management
         PhieuGiamGiaDto updatedDto = update(phieuId, req, "SYSTEM", reason != null ? reason : "Cập nhật thông tin phiếu giảm giá");
+        voucherUsageCounter.invalidateAfterCommit(phieuId);
 
         // Convert to entity for additional processing
         PhieuGiamGia phieu = toEntity(updatedDto);
 
         // Kiểm tra và gửi email nếu trạng thái phiếu giảm giá thay đổi
         if (trangThaiCu != phieu.getTrangThai()) {
-            List<String> emails;
             String subject;
             String text;
 
             if (phieu.getTrangThai() == TrangThaiCampaign.DA_DIEN_RA) {
                 // Nếu trạng thái chuyển thành "Đã diễn ra"
-                if (phieu.isPrivateVoucher()) {
-                    emails = phieu.getDanhSachNguoiDung().stream()
-                            .map(nguoiDung -> nguoiDung.getNguoiDung().getEmail())
-                            .collect(Collectors.toList());
-                } else {
-                    emails = nguoiDungRepository.findAll().stream()
-                            .map(NguoiDung::getEmail)
-                            .collect(Collectors.toList());
-                }
-
                 subject = "Phiếu giảm giá đã bắt đầu!";
                 text = "Chào bạn,\n\n"
                         + "Phiếu giảm giá có mã là: **" + phieu.getMaPhieuGiamGia() + "** chính thức có hiệu lực từ hôm nay. "
@@ -212,16 +192,6 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
                         + "Trân trọng,\nLapXpert Team";
             } else if (phieu.getTrangThai() == TrangThaiCampaign.KET_THUC) {
                 // Nếu trạng thái chuyển thành "Đã kết thúc"
-                if (phieu.isPrivateVoucher()) {
-                    emails = phieu.getDanhSachNguoiDung().stream()
-                            .map(nguoiDung -> nguoiDung.getNguoiDung().getEmail())
-                            .collect(Collectors.toList());
-                } else {
-                    emails = nguoiDungRepository.findAll().stream()
-                            .map(NguoiDung::getEmail)
-                            .collect(Collectors.toList());
-                }
-
                 subject = "Phiếu giảm giá đã kết thúc!";
                 text = "Chào bạn,\n\n"
                         + "Phiếu giảm giá có mã là **" + phieu.getMaPhieuGiamGia() + "** đã hết hạn. "
@@ -232,12 +202,13 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
                 return;
             }
 
-            // Log status change notification
-            log.info("[VOUCHER STATUS CHANGE] Sending to {} users: {}", emails.size(), subject);
             log.debug("[VOUCHER STATUS CHANGE] Email content: {}", text);
-
-            // TODO: Implement actual email sending
-            // emailService.sendBulkEmail(emails, subject, text);
+            EmailThongBao thongBao = new EmailThongBao("PHIEU_GIAM_GIA_TRANG_THAI", phieu.getMaPhieuGiamGia(), subject, text);
+            if (phieuGiamGiaNguoiDungRepository.existsByPhieuGiamGiaId(phieuId)) {
+                emailNotificationService.enqueueForVoucherAssignees(phieuId, thongBao);
+            } else {
+                emailNotificationService.enqueueForActiveCustomers(thongBao);
+            }
         }
 
         // Validate private voucher requirements
@@ -276,14 +247,7 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
                 }
             }
 
-            List<String> selectedCustomerEmails = req.getDanhSachNguoiDung().stream()
-                    .map(nguoiDungId -> nguoiDungRepository.findById(nguoiDungId)
-                            .map(NguoiDung::getEmail)
-                            .orElse(null))
-                    .filter(email -> email != null)
-                    .collect(Collectors.toList());
-
-            if (!selectedCustomerEmails.isEmpty()) {
+            if (!danhSachKhachHangMoi.isEmpty()) {
                 String subject = "Ưu đãi đặc biệt dành riêng cho bạn! Cập nhật thông tin phiếu giảm giá.";
                 String text = "Chào bạn,\n\n"
                         + "LapXpert trân trọng thông báo, bạn đã được thêm vào danh sách nhận ưu đãi của phiếu giảm giá có mã là **" + phieu.getMaPhieuGiamGia() + "**. "
@@ -291,13 +255,9 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
                         + "Hãy nhanh tay sử dụng để không bỏ lỡ nhé!\n\n"
                         + "Trân trọng,\nLapXpert Team";
 
-                // Log update notification for selected customers
-                log.info("[VOUCHER UPDATE] Sending to {} selected customers: {}",
-                    selectedCustomerEmails.size(), subject);
                 log.debug("[VOUCHER UPDATE] Email content: {}", text);
-
-                // TODO: Implement actual email sending
-                // emailService.sendBulkEmail(selectedCustomerEmails, subject, text);
+                emailNotificationService.enqueueForUsers(danhSachKhachHangMoi,
+                        new EmailThongBao("PHIEU_GIAM_GIA_CAP_NHAT", phieu.getMaPhieuGiamGia(), subject, text));
             }
         } else {
             // Nếu phiếu giảm giá không phải là phiếu riêng tư, xóa tất cả khách hàng đã gán
@@ -425,12 +385,6 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
      */
     private void sendVoucherClosureNotifications(PhieuGiamGia phieuGiamGia, String reason) {
         try {
-            // Skip email notifications if email service is not available or configured
-            if (emailService == null) {
-                System.out.println("Email service not available, skipping notifications for voucher closure: " + phieuGiamGia.getMaPhieuGiamGia());
-                return;
-            }
-
             String subject = "Thông báo: Phiếu giảm giá đã được đóng";
             String baseText = String.format(
                 "Chào bạn,\n\n" +
@@ -443,37 +397,13 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
                 reason != null ? reason : "Đóng phiếu giảm giá"
             );
 
+            EmailThongBao thongBao = new EmailThongBao("PHIEU_GIAM_GIA_DONG", phieuGiamGia.getMaPhieuGiamGia(), subject, baseText);
             if (phieuGiamGia.isPrivateVoucher()) {
                 // Send to assigned users only
-                List<String> assignedUserEmails = phieuGiamGia.getDanhSachNguoiDung().stream()
-                        .map(assignment -> assignment.getNguoiDung().getEmail())
-                        .filter(email -> email != null && !email.trim().isEmpty())
-                        .collect(Collectors.toList());
-
-                if (!assignedUserEmails.isEmpty()) {
-                    try {
-                        emailService.sendBulkEmail(assignedUserEmails, subject, baseText);
-                        System.out.println("Sent closure notification to " + assignedUserEmails.size() + " assigned users for voucher: " + phieuGiamGia.getMaPhieuGiamGia());
-                    } catch (Exception emailError) {
-                        System.err.println("Failed to send email to assigned users: " + emailError.getMessage());
-                    }
-                }
+                emailNotificationService.enqueueForVoucherAssignees(phieuGiamGia.getId(), thongBao);
             } else {
                 // For public vouchers, send to all active customers
-                List<String> allCustomerEmails = nguoiDungRepository.findAll().stream()
-                        .filter(user -> user.getTrangThai() != null) // Only active users
-                        .map(NguoiDung::getEmail)
-                        .filter(email -> email != null && !email.trim().isEmpty())
-                        .collect(Collectors.toList());
-
-                if (!allCustomerEmails.isEmpty()) {
-                    try {
-                        emailService.sendBulkEmail(allCustomerEmails, subject, baseText);
-                        System.out.println("Sent closure notification to " + allCustomerEmails.size() + " customers for voucher: " + phieuGiamGia.getMaPhieuGiamGia());
-                    } catch (Exception emailError) {
-                        System.err.println("Failed to send email to all customers: " + emailError.getMessage());
-                    }
-                }
+                emailNotificationService.enqueueForActiveCustomers(thongBao);
             }
         } catch (Exception e) {
             // Log the error but don't let email failures prevent voucher closure
@@ -513,10 +443,10 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
     }
 
     /**
-     * Enhanced scheduler with Vietnam timezone support
-     * Runs every hour to check for status updates with precise timing
+     * Full status sweep with Vietnam timezone support
+     * Automatic transitions are driven by PromotionLifecycleScheduler at the exact start/end instant;
+     * this method remains as a manual fallback
      */
-    @Scheduled(cron = "0 0 * * * *") // Every hour
     public void nhacHoatDongPhieu() {
         try {
             // Use Vietnam timezone for business logic
@@ -571,27 +501,13 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
         log.info("[VOUCHER STATUS CHANGE] {} -> {}: {}", oldStatus, newStatus, subject);
         log.debug("[VOUCHER STATUS CHANGE] Email content: {}", text);
 
+        EmailThongBao thongBao = new EmailThongBao("PHIEU_GIAM_GIA_TRANG_THAI", phieu.getMaPhieuGiamGia(), subject, text);
         if (phieu.isPrivateVoucher()) {
-            // Send email to assigned users only (filter active users)
-            List<String> activeUserEmails = phieu.getDanhSachNguoiDung().stream()
-                    .map(assignment -> assignment.getNguoiDung())
-                    .filter(user -> user.getTrangThai() != null)
-                    .map(NguoiDung::getEmail)
-                    .collect(Collectors.toList());
-
-            if (!activeUserEmails.isEmpty()) {
-//                emailService.sendBulkEmail(activeUserEmails, subject, text);
-            }
+            // Send email to assigned active users only
+            emailNotificationService.enqueueForVoucherAssignees(phieu.getId(), thongBao);
         } else if (newStatus == TrangThaiCampaign.DA_DIEN_RA) {
             // Only send public notifications for activation, not expiration
-            List<String> activeCustomerEmails = nguoiDungRepository.findAll().stream()
-                    .filter(user -> user.getTrangThai() != null)
-                    .map(NguoiDung::getEmail)
-                    .collect(Collectors.toList());
-
-            if (!activeCustomerEmails.isEmpty()) {
-//                emailService.sendBulkEmail(activeCustomerEmails, subject, text);
-            }
+            emailNotificationService.enqueueForActiveCustomers(thongBao);
         }
     }
 
@@ -959,10 +875,14 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
      * @param voucher The validated voucher to apply
      * @param hoaDon The order to apply the voucher to
      * @param discountAmount The calculated discount amount
+     * @throws IllegalStateException if the voucher has no remaining usage
      */
     @Transactional
     public void applyVoucherToOrder(PhieuGiamGia voucher, HoaDon hoaDon, BigDecimal discountAmount) {
-        // Step 1: Create HoaDonPhieuGiamGia relationship using native SQL to avoid transient entity issues
+        // Step 1: Redeem one usage atomically before linking the voucher to the order
+        redeemUsage(voucher.getId());
+
+        // Step 2: Create HoaDonPhieuGiamGia relationship using native SQL to avoid transient entity issues
         try {
             // Use native SQL to insert the relationship directly without entity references
             hoaDonPhieuGiamGiaRepository.insertVoucherOrderRelationship(
@@ -971,10 +891,6 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
                 discountAmount
             );
 
-            // Step 2: Increment voucher usage count
-            voucher.setSoLuongDaDung(voucher.getSoLuongDaDung() + 1);
-            phieuGiamGiaRepository.save(voucher);
-
         } catch (Exception e) {
             // Fallback to entity-based approach if native SQL fails
             log.warn("Native SQL insert failed, falling back to entity approach: {}", e.getMessage());
@@ -989,10 +905,6 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
             hoaDonPhieuGiamGia.setGiaTriDaGiam(discountAmount);
 
             hoaDonPhieuGiamGiaRepository.save(hoaDonPhieuGiamGia);
-
-            // Step 2: Increment voucher usage count
-            voucher.setSoLuongDaDung(voucher.getSoLuongDaDung() + 1);
-            phieuGiamGiaRepository.save(voucher);
         }
     }
 
@@ -1002,28 +914,43 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
      * @param voucherId The voucher ID
      * @param orderId The order ID
      * @param discountAmount The calculated discount amount
+     * @throws IllegalStateException if the voucher has no remaining usage
      */
     @Transactional
     public void applyVoucherToOrderById(Long voucherId, Long orderId, BigDecimal discountAmount) {
-        try {
-            // Use native SQL to insert the relationship directly without entity references
-            hoaDonPhieuGiamGiaRepository.insertVoucherOrderRelationship(
-                orderId,
-                voucherId,
-                discountAmount
-            );
+        // Redeem one usage atomically; fails when the voucher ran out since validation
+        redeemUsage(voucherId);
+
+        // Use native SQL to insert the relationship directly without entity references
+        hoaDonPhieuGiamGiaRepository.insertVoucherOrderRelationship(
+            orderId,
+            voucherId,
+            discountAmount
+        );
 
-            // Increment voucher usage count using direct update
-            phieuGiamGiaRepository.incrementUsageCount(voucherId);
+        log.info("Applied voucher {} to order {} with discount {} using ID-based approach",
+                voucherId, orderId, discountAmount);
+    }
 
-            log.info("Applied voucher {} to order {} with discount {} using ID-based approach",
-                    voucherId, orderId, discountAmount);
+    /**
+     * Redeem one usage of a voucher.
+     * The optional Redis pre-counter rejects most callers of an exhausted hot voucher early;
+     * the conditional UPDATE is the authoritative check and cannot over-redeem.
+     * Usage alerts (90% used, exhausted) are recorded in the same transaction.
+     *
+     * @param voucherId The voucher ID
+     * @throws IllegalStateException if the voucher has no remaining usage
+     */
+    private void redeemUsage(Long voucherId) {
+        if (!voucherUsageCounter.tryAcquire(voucherId, () -> phieuGiamGiaRepository.findRemainingUsage(voucherId))) {
+            throw new IllegalStateException("Phiếu giảm giá đã hết lượt sử dụng");
+        }
+        voucherUsageCounter.releaseOnRollback(voucherId);
 
-        } catch (Exception e) {
-            log.error("Failed to apply voucher {} to order {} using ID-based approach: {}",
-                     voucherId, orderId, e.getMessage());
-            throw new RuntimeException("Failed to apply voucher: " + e.getMessage(), e);
+        if (phieuGiamGiaRepository.incrementUsageIfAvailable(voucherId) == 0) {
+            throw new IllegalStateException("Phiếu giảm giá đã hết lượt sử dụng");
         }
+        phieuGiamGiaCanhBaoService.onUsageRedeemed(voucherId);
     }
 
     /**
@@ -1037,12 +964,12 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
         List<HoaDonPhieuGiamGia> appliedVouchers = hoaDonPhieuGiamGiaRepository.findByHoaDonId(hoaDonId);
 
         for (HoaDonPhieuGiamGia appliedVoucher : appliedVouchers) {
-            PhieuGiamGia voucher = appliedVoucher.getPhieuGiamGia();
+            Long voucherId = appliedVoucher.getId().getPhieuGiamGiaId();
 
-            // Decrement usage count
-            if (voucher.getSoLuongDaDung() > 0) {
-                voucher.setSoLuongDaDung(voucher.getSoLuongDaDung() - 1);
-                phieuGiamGiaRepository.save(voucher);
+            // Compensating decrement, applied atomically in the database
+            if (phieuGiamGiaRepository.decrementUsageCount(voucherId) > 0) {
+                voucherUsageCounter.releaseAfterCommit(voucherId);
+                phieuGiamGiaCanhBaoService.onUsageReleased(voucherId);
             }
 
             // Remove the relationship
@@ -1138,30 +1065,7 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
      */
     @Transactional(readOnly = true)
     public List<PhieuGiamGiaDto> getAvailableVouchers(Long customerId, BigDecimal orderTotal) {
-        // Get all currently active vouchers
-        List<PhieuGiamGia> activeVouchers = phieuGiamGiaRepository.findByTrangThai(TrangThaiCampaign.DA_DIEN_RA);
-
-        return activeVouchers.stream()
-                .filter(voucher -> {
-                    // Check if voucher has remaining usage
-                    if (voucher.getSoLuongDaDung() >= voucher.getSoLuongBanDau()) {
-                        return false;
-                    }
-
-                    // Check minimum order value
-                    if (voucher.getGiaTriDonHangToiThieu() != null &&
-                        orderTotal.compareTo(voucher.getGiaTriDonHangToiThieu()) < 0) {
-                        return false;
-                    }
-
-                    // Check customer eligibility
-                    if (customerId != null) {
-                        return voucher.isCustomerEligible(customerId);
-                    } else {
-                        // If no customer provided, only return public vouchers
-                        return voucher.getDanhSachNguoiDung().isEmpty();
-                    }
-                })
+        return findEligibleVouchers(customerId, orderTotal, Pageable.unpaged()).stream()
                 .map(phieuGiamGiaMapper::toDto)
                 .collect(Collectors.toList());
     }
@@ -1176,53 +1080,18 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
      */
     @Transactional(readOnly = true)
     public BestVoucherResult findBestVoucher(Long customerId, BigDecimal orderTotal) {
-        // Get all currently active vouchers
-        List<PhieuGiamGia> activeVouchers = phieuGiamGiaRepository.findByTrangThai(TrangThaiCampaign.DA_DIEN_RA);
-
-        PhieuGiamGia bestVoucher = null;
-        BigDecimal maxDiscount = BigDecimal.ZERO;
-
-        for (PhieuGiamGia voucher : activeVouchers) {
-            // Check if voucher has remaining usage
-            if (voucher.getSoLuongDaDung() >= voucher.getSoLuongBanDau()) {
-                continue;
-            }
-
-            // Check minimum order value
-            if (voucher.getGiaTriDonHangToiThieu() != null &&
-                orderTotal.compareTo(voucher.getGiaTriDonHangToiThieu()) < 0) {
-                continue;
-            }
+        // A zero discount on top must not hide a later voucher that still discounts the order
+        List<PhieuGiamGia> ranked = findEligibleVouchers(customerId, orderTotal,
+                PageRequest.of(0, BEST_VOUCHER_SCAN_SIZE));
 
-            // Check customer eligibility
-            boolean isEligible;
-            if (customerId != null) {
-                isEligible = voucher.isCustomerEligible(customerId);
-            } else {
-                // If no customer provided, only consider public vouchers
-                isEligible = voucher.getDanhSachNguoiDung().isEmpty();
-            }
-
-            if (!isEligible) {
-                continue;
-            }
-
-            // Calculate discount amount for this voucher
+        for (PhieuGiamGia voucher : ranked) {
             BigDecimal discountAmount = calculateDiscountAmount(voucher, orderTotal);
-
-            // Check if this voucher provides better discount
-            if (discountAmount.compareTo(maxDiscount) > 0) {
-                maxDiscount = discountAmount;
-                bestVoucher = voucher;
+            if (discountAmount.compareTo(BigDecimal.ZERO) > 0) {
+                PhieuGiamGiaDto voucherDto = phieuGiamGiaMapper.toDto(voucher);
+                return BestVoucherResult.found(voucherDto, discountAmount);
             }
         }
-
-        if (bestVoucher != null) {
-            PhieuGiamGiaDto voucherDto = phieuGiamGiaMapper.toDto(bestVoucher);
-            return BestVoucherResult.found(voucherDto, maxDiscount);
-        } else {
-            return BestVoucherResult.notFound("No applicable vouchers found for this order");
-        }
+        return BestVoucherResult.notFound("No applicable vouchers found for this order");
     }
 
     /**
@@ -1236,49 +1105,25 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
      */
     @Transactional(readOnly = true)
     public List<BestVoucherResult> findTopVouchers(Long customerId, BigDecimal orderTotal, int limit) {
-        // Get all currently active vouchers
-        List<PhieuGiamGia> activeVouchers = phieuGiamGiaRepository.findByTrangThai(TrangThaiCampaign.DA_DIEN_RA);
-
-        List<BestVoucherResult> voucherResults = new ArrayList<>();
-
-        for (PhieuGiamGia voucher : activeVouchers) {
-            // Check if voucher has remaining usage
-            if (voucher.getSoLuongDaDung() >= voucher.getSoLuongBanDau()) {
-                continue;
-            }
-
-            // Check minimum order value
-            if (voucher.getGiaTriDonHangToiThieu() != null &&
-                orderTotal.compareTo(voucher.getGiaTriDonHangToiThieu()) < 0) {
-                continue;
-            }
-
-            // Check customer eligibility
-            boolean isEligible;
-            if (customerId != null) {
-                isEligible = voucher.isCustomerEligible(customerId);
-            } else {
-                // If no customer provided, only consider public vouchers
-                isEligible = voucher.getDanhSachNguoiDung().isEmpty();
-            }
-
-            if (!isEligible) {
-                continue;
-            }
-
-            // Calculate discount amount for this voucher
-            BigDecimal discountAmount = calculateDiscountAmount(voucher, orderTotal);
-            PhieuGiamGiaDto voucherDto = phieuGiamGiaMapper.toDto(voucher);
-            voucherResults.add(BestVoucherResult.found(voucherDto, discountAmount));
+        if (limit <= 0) {
+            return List.of();
         }
 
-        // Sort by discount amount (highest first) and limit results
-        return voucherResults.stream()
-                .sorted((a, b) -> b.getDiscountAmount().compareTo(a.getDiscountAmount()))
-                .limit(limit)
+        return findEligibleVouchers(customerId, orderTotal, PageRequest.of(0, limit)).stream()
+                .map(voucher -> BestVoucherResult.found(phieuGiamGiaMapper.toDto(voucher),
+                        calculateDiscountAmount(voucher, orderTotal)))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Eligible vouchers ranked by discount, resolved in one indexed query instead of
+     * loading every active voucher and walking its assignments.
+     */
+    private List<PhieuGiamGia> findEligibleVouchers(Long customerId, BigDecimal orderTotal, Pageable pageable) {
+        return phieuGiamGiaRepository.findEligibleVouchersRankedByDiscount(
+                customerId, orderTotal, Instant.now(), TrangThaiCampaign.DA_DIEN_RA, LoaiGiamGia.PHAN_TRAM, pageable);
+    }
+
 
 
     /**
@@ -1493,7 +1338,7 @@ public class PhieuGiamGiaService extends BusinessEntityService<PhieuGiamGia, Lon
 
     @Override
     protected String getCacheName() {
-        return "phieuGiamGiaCache";
+        return CACHE_NAME;
     }
 
     @Override
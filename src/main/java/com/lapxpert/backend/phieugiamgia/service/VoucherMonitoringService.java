@@ -1,6 +1,7 @@
 package com.lapxpert.backend.phieugiamgia.service;
 
 import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import com.lapxpert.backend.common.event.VoucherChangeEvent;
 import com.lapxpert.backend.common.service.VietnamTimeZoneService;
 import com.lapxpert.backend.nguoidung.entity.NguoiDung;
 import com.lapxpert.backend.nguoidung.service.NguoiDungService;
@@ -13,26 +14,29 @@ import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 // import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Advanced voucher monitoring service with real-time validation and notifications.
  * Extends existing PhieuGiamGiaService patterns with WebSocket integration.
  * 
  * Features:
- * - Real-time voucher expiration monitoring (every 10 minutes)
+ * - Voucher expiration/activation notifications, driven by VoucherChangeEvent
+ *   (lifecycle timers and admin edits) instead of periodic snapshots
  * - WebSocket notifications for expired/new vouchers
  * - Alternative voucher recommendations
  * - Integration with existing intelligent recommendation system
+ *
+ * Usage and expiry threshold alerts are persisted by PhieuGiamGiaCanhBaoService.
  */
 @Service
 @RequiredArgsConstructor
@@ -46,89 +50,35 @@ public class VoucherMonitoringService {
     private final NguoiDungService nguoiDungService;
     private final VoucherSuggestionEngine voucherSuggestionEngine;
     
-    // Track last monitoring state to detect changes
-    private final Map<Long, TrangThaiCampaign> lastKnownVoucherStates = new ConcurrentHashMap<>();
-    
     /**
-     * Scheduled voucher monitoring job - runs every 10 minutes
-     * Monitors voucher status changes and sends real-time notifications
+     * Notify status transitions once they are committed.
+     * The event carries the old and new status, so no per-node state is needed to detect the change.
      */
-    @Scheduled(cron = "0 */10 * * * ?") // Every 10 minutes
-    @Transactional(readOnly = true)
-    public void monitorVoucherChanges() {
-        try {
-            log.debug("Starting voucher monitoring cycle");
-            
-            // Use Vietnam timezone for business logic consistency
-            Instant currentTime = vietnamTimeZoneService.getCurrentVietnamTime().toInstant();
-            
-            // Step 1: Find and notify expired vouchers
-            List<PhieuGiamGia> recentlyExpiredVouchers = findRecentlyExpiredVouchers(currentTime);
-            recentlyExpiredVouchers.forEach(this::notifyVoucherExpiration);
-            
-            // Step 2: Find and notify newly activated vouchers
-            List<PhieuGiamGia> newlyActivatedVouchers = findNewlyActivatedVouchers(currentTime);
-            newlyActivatedVouchers.forEach(this::notifyNewVoucher);
-            
-            // Step 3: Update tracking state for next cycle
-            updateVoucherStateTracking();
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVoucherChange(VoucherChangeEvent event) {
+        if (!"PHIEU_GIAM_GIA".equals(event.getLoaiVoucher()) || event.getVoucherId() == null
+                || Objects.equals(event.getTrangThaiCu(), event.getTrangThaiMoi())) {
+            return;
+        }
 
-            // Step 4: Check for better voucher alternatives (new feature)
-            checkForBetterVoucherAlternatives();
+        boolean expired = TrangThaiCampaign.KET_THUC.name().equals(event.getTrangThaiMoi())
+                && TrangThaiCampaign.DA_DIEN_RA.name().equals(event.getTrangThaiCu());
+        boolean activated = TrangThaiCampaign.DA_DIEN_RA.name().equals(event.getTrangThaiMoi());
+        if (!expired && !activated) {
+            return;
+        }
 
-            log.info("Voucher monitoring completed - Expired: {}, New: {}",
-                    recentlyExpiredVouchers.size(), newlyActivatedVouchers.size());
-                    
+        try {
+            phieuGiamGiaRepository.findById(event.getVoucherId()).ifPresent(voucher -> {
+                if (expired) {
+                    notifyVoucherExpiration(voucher);
+                } else {
+                    notifyNewVoucher(voucher);
+                }
+            });
         } catch (Exception e) {
-            log.error("Error during voucher monitoring cycle", e);
-        }
-    }
-    
-    /**
-     * Find vouchers that have recently expired (changed from DA_DIEN_RA to KET_THUC)
-     */
-    private List<PhieuGiamGia> findRecentlyExpiredVouchers(Instant currentTime) {
-        // Find vouchers that should be expired but still marked as active
-        List<PhieuGiamGia> expiredVouchers = phieuGiamGiaRepository.findExpiredCampaigns(
-            currentTime, TrangThaiCampaign.KET_THUC);
-        
-        // Filter to only include vouchers that were previously active
-        return expiredVouchers.stream()
-            .filter(voucher -> {
-                TrangThaiCampaign lastState = lastKnownVoucherStates.get(voucher.getId());
-                return lastState == TrangThaiCampaign.DA_DIEN_RA;
-            })
-            .toList();
-    }
-    
-    /**
-     * Find vouchers that have recently been activated (changed from CHUA_DIEN_RA to DA_DIEN_RA)
-     */
-    private List<PhieuGiamGia> findNewlyActivatedVouchers(Instant currentTime) {
-        // Find vouchers that should be active now
-        List<PhieuGiamGia> activeVouchers = phieuGiamGiaRepository.findByTrangThai(TrangThaiCampaign.DA_DIEN_RA);
-        
-        // Filter to only include vouchers that were previously not started
-        return activeVouchers.stream()
-            .filter(voucher -> {
-                TrangThaiCampaign lastState = lastKnownVoucherStates.get(voucher.getId());
-                return lastState == TrangThaiCampaign.CHUA_DIEN_RA || lastState == null;
-            })
-            .toList();
-    }
-    
-    /**
-     * Update internal tracking state for all vouchers
-     */
-    private void updateVoucherStateTracking() {
-        List<PhieuGiamGia> allVouchers = phieuGiamGiaRepository.findAll();
-        lastKnownVoucherStates.clear();
-        
-        for (PhieuGiamGia voucher : allVouchers) {
-            lastKnownVoucherStates.put(voucher.getId(), voucher.getTrangThai());
+            log.error("Error handling status change for voucher {}", event.getVoucherId(), e);
         }
-        
-        log.debug("Updated voucher state tracking for {} vouchers", allVouchers.size());
     }
     
     /**
@@ -238,28 +188,6 @@ public class VoucherMonitoringService {
         }
     }
 
-    /**
-     * Check for better voucher alternatives for active orders
-     * This method runs as part of the scheduled monitoring cycle
-     */
-    private void checkForBetterVoucherAlternatives() {
-        try {
-            log.debug("Checking for better voucher alternatives");
-
-            // In a real implementation, this would check active orders/carts
-            // For now, we'll implement a general better voucher detection
-            // that can be called by the order management system
-
-            // This is a placeholder for the scheduled check
-            // The actual detection will be triggered by order events
-
-            log.debug("Better voucher alternatives check completed");
-
-        } catch (Exception e) {
-            log.error("Error during better voucher alternatives check", e);
-        }
-    }
-
     /**
      * Detect better vouchers for a specific order context
      * Called by order management system when vouchers are applied
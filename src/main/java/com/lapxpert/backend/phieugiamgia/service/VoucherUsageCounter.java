@@ -0,0 +1,166 @@
+package com.lapxpert.backend.phieugiamgia.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Optional Redis pre-counter of remaining voucher usages.
+ *
+ * During a hot voucher drop most checkouts are rejected here by an atomic Lua decrement instead of all
+ * queueing on the same phieu_giam_gia row. The database stays authoritative: a caller admitted here still
+ * has to win the conditional UPDATE, and every admission that does not end in a committed redemption is
+ * handed back. The counter is seeded from the database on first use and expires after COUNTER_TTL, which
+ * bounds any drift (e.g. a node dying between the two steps).
+ *
+ * Disabled by default (voucher.usage.redis-precounter.enabled); when disabled or when Redis is unavailable
+ * every caller is admitted and only the database check applies.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VoucherUsageCounter {
+
+    static final String KEY_PREFIX = "lapxpert:voucher:remaining:";
+    static final Duration COUNTER_TTL = Duration.ofMinutes(10);
+
+    /**
+     * Returns 1 when a usage was taken, 0 when none is left, -1 when the counter is not seeded (ARGV[1] empty)
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local remaining = redis.call('GET', KEYS[1])
+            if not remaining then
+                if ARGV[1] == '' then
+                    return -1
+                end
+                redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+                remaining = ARGV[1]
+            end
+            if tonumber(remaining) <= 0 then
+                return 0
+            end
+            redis.call('DECR', KEYS[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * Gives a usage back only while the counter exists, so an expired counter is re-seeded from the database
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return redis.call('INCR', KEYS[1])
+            end
+            return -1
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${voucher.usage.redis-precounter.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Take one usage from the pre-counter
+     * @param remainingLoader remaining usages in the database, called only to seed a missing counter
+     * @return false only when the counter says the voucher is exhausted
+     */
+    public boolean tryAcquire(Long voucherId, Supplier<Integer> remainingLoader) {
+        if (!enabled) {
+            return true;
+        }
+        try {
+            List<String> keys = List.of(key(voucherId));
+            String ttlMillis = String.valueOf(COUNTER_TTL.toMillis());
+            Long result = redisTemplate.execute(ACQUIRE_SCRIPT, keys, "", ttlMillis);
+            if (result != null && result == -1L) {
+                Integer remaining = remainingLoader.get();
+                result = redisTemplate.execute(ACQUIRE_SCRIPT, keys,
+                        String.valueOf(remaining != null ? remaining : 0), ttlMillis);
+            }
+            return result == null || result != 0L;
+        } catch (Exception e) {
+            log.warn("Voucher usage pre-counter unavailable for voucher {}: {}", voucherId, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Give back a usage taken by tryAcquire (failed redemption) or freed by a refund
+     */
+    public void release(Long voucherId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(key(voucherId)));
+        } catch (Exception e) {
+            log.warn("Failed to release voucher usage for voucher {}: {}", voucherId, e.getMessage());
+        }
+    }
+
+    /**
+     * Give back an acquired usage if the current transaction rolls back
+     */
+    public void releaseOnRollback(Long voucherId) {
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(voucherId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Give back a refunded usage once the current transaction commits (immediately if none is active)
+     */
+    public void releaseAfterCommit(Long voucherId) {
+        afterCommit(() -> release(voucherId));
+    }
+
+    /**
+     * Drop the counter after the voucher quantity was edited; the next redemption re-seeds it
+     */
+    public void invalidateAfterCommit(Long voucherId) {
+        afterCommit(() -> {
+            try {
+                redisTemplate.delete(key(voucherId));
+            } catch (Exception e) {
+                log.warn("Failed to invalidate voucher usage counter for voucher {}: {}", voucherId, e.getMessage());
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private String key(Long voucherId) {
+        return KEY_PREFIX + voucherId;
+    }
+}
@@ -1,6 +1,10 @@
 package com.lapxpert.backend.sanpham.controller;
 
+import com.lapxpert.backend.common.cache.CacheVersioningService.DataDomain;
+import com.lapxpert.backend.common.cache.ConditionalGet;
 import com.lapxpert.backend.sanpham.dto.SanPhamChiTietDto;
+import com.lapxpert.backend.sanpham.dto.VariantFacetFilterDto;
+import com.lapxpert.backend.sanpham.dto.VariantFacetResultDto;
 import com.lapxpert.backend.sanpham.entity.sanpham.SanPhamChiTiet;
 import com.lapxpert.backend.sanpham.service.SanPhamChiTietService;
 import jakarta.validation.Valid;
@@ -21,10 +25,17 @@ public class SanPhamChiTietController {
 
     // Lấy danh sách sản phẩm có trạng thái = true
     @GetMapping("/list")
+    @ConditionalGet(value = {DataDomain.CATALOG, DataDomain.PRICING}, maxStalenessSeconds = 300)
     public List<SanPhamChiTietDto> getActiveProductsDetailed() {
         return sanPhamChiTietService.getActiveProducts();
     }
 
+    // Lọc sản phẩm theo thuộc tính kèm số lượng theo từng giá trị lọc
+    @PostMapping("/facets")
+    public ResponseEntity<VariantFacetResultDto> searchWithFacets(@RequestBody VariantFacetFilterDto filter) {
+        return ResponseEntity.ok(sanPhamChiTietService.searchWithFacets(filter));
+    }
+
     // Thêm sản phẩm mới
     @PostMapping("/add")
     public ResponseEntity<SanPhamChiTiet> addProductDetailed(@Valid @RequestBody SanPhamChiTiet sanPham) {
@@ -1,15 +1,23 @@
 package com.lapxpert.backend.sanpham.controller;
 
+import com.lapxpert.backend.common.cache.CacheVersioningService.DataDomain;
+import com.lapxpert.backend.common.cache.ConditionalGet;
 import com.lapxpert.backend.sanpham.dto.BatchOperationResult;
 import com.lapxpert.backend.sanpham.dto.BatchStatusUpdateRequest;
+import com.lapxpert.backend.sanpham.dto.CursorPageDto;
+import com.lapxpert.backend.sanpham.dto.ProductCardDto;
 import com.lapxpert.backend.sanpham.dto.SanPhamAuditHistoryDto;
 import com.lapxpert.backend.sanpham.dto.SanPhamDto;
 import com.lapxpert.backend.sanpham.mapper.SanPhamAuditHistoryMapper;
 import com.lapxpert.backend.sanpham.entity.SanPhamAuditHistory;
+import com.lapxpert.backend.sanpham.enums.ProductCardSort;
 
+import com.lapxpert.backend.sanpham.service.ProductCatalogService;
 import com.lapxpert.backend.sanpham.service.SanPhamService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -25,14 +33,17 @@ import java.util.Map;
 public class SanPhamController {
     private final SanPhamService sanPhamService;
     private final SanPhamAuditHistoryMapper auditHistoryMapper;
+    private final ProductCatalogService productCatalogService;
 
     @GetMapping
+    @ConditionalGet(value = {DataDomain.CATALOG, DataDomain.PRICING}, maxStalenessSeconds = 300)
     public ResponseEntity<List<SanPhamDto>> findAll() {
         return ResponseEntity.ok(sanPhamService.findAll());
     }
 
     // Lấy sản phẩm theo ID với đầy đủ thông tin variants
     @GetMapping("/{id}")
+    @ConditionalGet(value = {DataDomain.CATALOG, DataDomain.PRICING}, maxStalenessSeconds = 300, cacheResponseSeconds = 600)
     public ResponseEntity<SanPhamDto> getProductById(@PathVariable Long id) {
         try {
             SanPhamDto product = sanPhamService.getSanPhamById(id);
@@ -44,10 +55,25 @@ public class SanPhamController {
 
     // Lấy danh sách sản phẩm có trạng thái = true
     @GetMapping("/list")
+    @ConditionalGet(value = {DataDomain.CATALOG, DataDomain.PRICING}, maxStalenessSeconds = 300, cacheResponseSeconds = 600)
     public List<SanPhamDto> getActiveProducts() {
         return sanPhamService.getActiveProducts();
     }
 
+    // Danh sách thẻ sản phẩm phân trang keyset (truyền lại nextCursor để lấy trang tiếp theo)
+    @GetMapping("/cards")
+    @ConditionalGet(value = {DataDomain.CATALOG, DataDomain.PRICING, DataDomain.INVENTORY}, maxStalenessSeconds = 300)
+    public ResponseEntity<CursorPageDto<ProductCardDto>> getProductCards(
+            @RequestParam(defaultValue = "NEWEST") ProductCardSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(productCatalogService.listCards(sort, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Thêm sản phẩm mới
     @PostMapping("/add")
     public ResponseEntity<SanPhamDto> addProduct(@Valid @RequestBody SanPhamDto sanPhamDto) {
@@ -124,4 +150,23 @@ public class SanPhamController {
         }
     }
 
+    // Tìm kiếm toàn văn không dấu, xếp hạng theo độ liên quan
+    @GetMapping("/search/ranked")
+    @ConditionalGet(value = {DataDomain.CATALOG, DataDomain.PRICING}, maxStalenessSeconds = 300)
+    public ResponseEntity<Page<SanPhamDto>> searchProductsRanked(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(sanPhamService.searchProductsRanked(q, PageRequest.of(page, Math.min(size, 100))));
+    }
+
+    // Gợi ý tên sản phẩm khi gõ (chấp nhận gõ sai chính tả)
+    @GetMapping("/search/suggest")
+    @ConditionalGet(value = DataDomain.CATALOG, maxStalenessSeconds = 300)
+    public ResponseEntity<List<String>> suggestProductNames(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(sanPhamService.suggestProductNames(q, limit));
+    }
+
 }
@@ -0,0 +1,47 @@
+package com.lapxpert.backend.sanpham.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Slim product card for catalog listings: no variants, no attribute objects.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCardDto implements Serializable {
+
+    private Long id;
+    private String maSanPham;
+    private String tenSanPham;
+
+    /**
+     * First product image, used as thumbnail
+     */
+    private String anhDaiDien;
+
+    private String tenThuongHieu;
+
+    /**
+     * Lowest and highest effective price among active variants
+     */
+    private BigDecimal giaThapNhat;
+    private BigDecimal giaCaoNhat;
+
+    /**
+     * Average approved review score (1 decimal), null when there are no reviews
+     */
+    private Double diemDanhGia;
+    private Long soLuongDanhGia;
+
+    /**
+     * True when at least one active variant has an available serial number
+     */
+    private Boolean conHang;
+}
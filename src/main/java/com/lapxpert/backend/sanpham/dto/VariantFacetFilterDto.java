@@ -0,0 +1,43 @@
+package com.lapxpert.backend.sanpham.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Storefront filter for faceted variant listing.
+ * Values within one list are OR-ed, lists are AND-ed; null or empty lists mean "any".
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VariantFacetFilterDto implements Serializable {
+
+    private List<Long> thuongHieuIds;
+    private List<Long> danhMucIds;
+
+    private List<Long> cpuIds;
+    private List<Long> ramIds;
+    private List<Long> gpuIds;
+    private List<Long> manHinhIds;
+    private List<Long> boNhoIds;
+    private List<Long> mauSacIds;
+
+    /**
+     * Effective price range (inclusive), in VND
+     */
+    private BigDecimal giaToiThieu;
+    private BigDecimal giaToiDa;
+
+    @Builder.Default
+    private Integer page = 0;
+
+    @Builder.Default
+    private Integer size = 20;
+}
@@ -0,0 +1,47 @@
+package com.lapxpert.backend.sanpham.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Faceted variant listing: one page of variants plus value counts for every facet.
+ * Facet counts ignore the facet's own selection so alternative values stay visible.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VariantFacetResultDto implements Serializable {
+
+    private List<SanPhamChiTietDto> content;
+
+    private long totalElements;
+    private int page;
+    private int size;
+
+    /**
+     * Facet key (thuongHieu, danhMuc, cpu, ram, gpu, manHinh, boNho, mauSac) -> value ID -> variant count
+     */
+    private Map<String, Map<Long, Integer>> facetCounts;
+
+    private List<PriceBucketDto> khoangGia;
+
+    /**
+     * Effective price bucket [giaTu, giaDen) with its variant count; giaDen is null for the open-ended top bucket
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucketDto implements Serializable {
+        private BigDecimal giaTu;
+        private BigDecimal giaDen;
+        private int soLuong;
+    }
+}
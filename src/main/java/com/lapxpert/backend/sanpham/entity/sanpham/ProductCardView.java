@@ -0,0 +1,24 @@
+package com.lapxpert.backend.sanpham.entity.sanpham;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Product card row produced by the catalog listing queries in SanPhamRepository.
+ * Prices are effective prices of the product's active variants at query time; giaSapXep is the stored
+ * lowest effective price (san_pham.gia_thap_nhat) that the price orders seek on.
+ */
+public interface ProductCardView {
+    Long getId();
+    String getMaSanPham();
+    String getTenSanPham();
+    String getAnhDaiDien();
+    String getTenThuongHieu();
+    LocalDateTime getNgayTao();
+    BigDecimal getGiaSapXep();
+    BigDecimal getGiaThapNhat();
+    BigDecimal getGiaCaoNhat();
+    BigDecimal getDiemDanhGia();
+    Long getSoLuongDanhGia();
+    Boolean getConHang();
+}
@@ -0,0 +1,37 @@
+package com.lapxpert.backend.sanpham.enums;
+
+/**
+ * Sort orders supported by the keyset-paginated product card listing.
+ * Each order is a unique (sort key, id) pair so the cursor always points at exactly one row.
+ */
+public enum ProductCardSort {
+    /**
+     * Newest products first (ngay_tao DESC, id DESC)
+     */
+    NEWEST("Mới nhất"),
+
+    /**
+     * Alphabetical by product name (ten_san_pham, id)
+     */
+    NAME("Tên A-Z"),
+
+    /**
+     * Lowest effective price first (min variant price, id)
+     */
+    PRICE_ASC("Giá tăng dần"),
+
+    /**
+     * Highest effective price first (min variant price DESC, id DESC)
+     */
+    PRICE_DESC("Giá giảm dần");
+
+    private final String description;
+
+    ProductCardSort(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,71 @@
+package com.lapxpert.backend.sanpham.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Event published when discount campaign data that affects effective prices changes.
+ * Consumed after commit by EffectivePriceIndex to rebuild or partially refresh its snapshot.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignPricingChangeEvent {
+
+    /**
+     * Campaigns whose status, dates, percentage or assignments changed
+     */
+    private Set<Long> campaignIds;
+
+    /**
+     * Affected product variant IDs; empty means every variant must be recomputed
+     */
+    private Set<Long> variantIds;
+
+    /**
+     * Reason for the change (for logging)
+     */
+    private String lyDo;
+
+    /**
+     * Timestamp when change occurred
+     */
+    private Instant timestamp;
+
+    /**
+     * Check if the change requires a full index rebuild
+     */
+    public boolean requiresFullRebuild() {
+        return variantIds == null || variantIds.isEmpty();
+    }
+
+    /**
+     * Event affecting every variant (campaign create/update/status change)
+     */
+    public static CampaignPricingChangeEvent fullRebuild(Set<Long> campaignIds, String lyDo) {
+        return CampaignPricingChangeEvent.builder()
+                .campaignIds(campaignIds)
+                .variantIds(Set.of())
+                .lyDo(lyDo)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    /**
+     * Event affecting only the given variants (assignment changes)
+     */
+    public static CampaignPricingChangeEvent forVariants(Set<Long> campaignIds, Set<Long> variantIds, String lyDo) {
+        return CampaignPricingChangeEvent.builder()
+                .campaignIds(campaignIds)
+                .variantIds(variantIds)
+                .lyDo(lyDo)
+                .timestamp(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.lapxpert.backend.sanpham.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Event published when products or variants change in a way that affects catalog filtering
+ * (attributes, brand, categories, status, new or removed variants).
+ * Consumed after commit by VariantFacetIndex to refresh the bitmaps of the affected products.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangeEvent {
+
+    /**
+     * Affected product IDs; empty means the whole catalog must be reindexed
+     */
+    private Set<Long> sanPhamIds;
+
+    /**
+     * Reason for the change (for logging)
+     */
+    private String lyDo;
+
+    /**
+     * Timestamp when change occurred
+     */
+    private Instant timestamp;
+
+    /**
+     * Check if the change requires a full index rebuild
+     */
+    public boolean requiresFullRebuild() {
+        return sanPhamIds == null || sanPhamIds.isEmpty();
+    }
+
+    /**
+     * Event affecting only the variants of the given products
+     */
+    public static CatalogChangeEvent forProducts(Set<Long> sanPhamIds, String lyDo) {
+        return CatalogChangeEvent.builder()
+                .sanPhamIds(sanPhamIds)
+                .lyDo(lyDo)
+                .timestamp(Instant.now())
+                .build();
+    }
+}
@@ -1,11 +1,13 @@
 package com.lapxpert.backend.sanpham.repository;
 
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
 import com.lapxpert.backend.sanpham.entity.sanpham.SanPhamChiTiet;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -88,4 +90,128 @@ public interface SanPhamChiTietRepository extends JpaRepository<SanPhamChiTiet,
     default long countActiveBySanPhamId(Long sanPhamId) {
         return countBySanPhamIdAndTrangThai(sanPhamId, true);
     }
-}
\ No newline at end of file
+
+    /**
+     * Load pricing rows for every variant in a single query.
+     * Each row is [variantId, giaBan, campaignId, phanTramGiam, ngayBatDau, ngayKetThuc, trangThai];
+     * campaign columns are null for variants without a matching campaign.
+     * Used by EffectivePriceIndex to build its snapshot without touching lazy collections.
+     *
+     * @param statuses campaign statuses to include
+     * @return list of pricing rows
+     */
+    @Query("SELECT spct.id, spct.giaBan, d.id, d.phanTramGiam, d.ngayBatDau, d.ngayKetThuc, d.trangThai " +
+           "FROM SanPhamChiTiet spct LEFT JOIN spct.dotGiamGias d ON d.trangThai IN :statuses")
+    List<Object[]> findPricingRows(@Param("statuses") Collection<TrangThaiCampaign> statuses);
+
+    /**
+     * Load pricing rows for specific variants (same shape as findPricingRows).
+     *
+     * @param variantIds variant IDs to load
+     * @param statuses campaign statuses to include
+     * @return list of pricing rows
+     */
+    @Query("SELECT spct.id, spct.giaBan, d.id, d.phanTramGiam, d.ngayBatDau, d.ngayKetThuc, d.trangThai " +
+           "FROM SanPhamChiTiet spct LEFT JOIN spct.dotGiamGias d ON d.trangThai IN :statuses " +
+           "WHERE spct.id IN :variantIds")
+    List<Object[]> findPricingRowsByVariantIds(@Param("variantIds") Collection<Long> variantIds,
+                                               @Param("statuses") Collection<TrangThaiCampaign> statuses);
+
+    /**
+     * Return which of the given IDs exist, without loading the entities.
+     *
+     * @param ids variant IDs to check
+     * @return the subset of IDs that exist
+     */
+    @Query("SELECT spct.id FROM SanPhamChiTiet spct WHERE spct.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Resolve variant IDs matching product, brand, category and attribute criteria.
+     * A criterion whose "all" flag is true is ignored; the matching list then only needs to be non-empty.
+     * Prefer {@link #findIdsBySelector} which fills in the flags.
+     */
+    @Query("SELECT spct.id FROM SanPhamChiTiet spct JOIN spct.sanPham sp " +
+           "WHERE (:allSanPham = true OR sp.id IN :sanPhamIds) " +
+           "AND (:allThuongHieu = true OR sp.thuongHieu.id IN :thuongHieuIds) " +
+           "AND (:allDanhMuc = true OR EXISTS (SELECT dm.id FROM SanPham p JOIN p.danhMucs dm " +
+           "WHERE p = sp AND dm.id IN :danhMucIds)) " +
+           "AND (:allCpu = true OR spct.cpu.id IN :cpuIds) " +
+           "AND (:allRam = true OR spct.ram.id IN :ramIds) " +
+           "AND (:allGpu = true OR spct.gpu.id IN :gpuIds) " +
+           "AND (:allMauSac = true OR spct.mauSac.id IN :mauSacIds) " +
+           "AND (:allBoNho = true OR spct.boNho.id IN :boNhoIds) " +
+           "AND (:allManHinh = true OR spct.manHinh.id IN :manHinhIds)")
+    List<Long> findIdsByCriteria(@Param("allSanPham") boolean allSanPham, @Param("sanPhamIds") Collection<Long> sanPhamIds,
+                                 @Param("allThuongHieu") boolean allThuongHieu, @Param("thuongHieuIds") Collection<Long> thuongHieuIds,
+                                 @Param("allDanhMuc") boolean allDanhMuc, @Param("danhMucIds") Collection<Long> danhMucIds,
+                                 @Param("allCpu") boolean allCpu, @Param("cpuIds") Collection<Long> cpuIds,
+                                 @Param("allRam") boolean allRam, @Param("ramIds") Collection<Long> ramIds,
+                                 @Param("allGpu") boolean allGpu, @Param("gpuIds") Collection<Long> gpuIds,
+                                 @Param("allMauSac") boolean allMauSac, @Param("mauSacIds") Collection<Long> mauSacIds,
+                                 @Param("allBoNho") boolean allBoNho, @Param("boNhoIds") Collection<Long> boNhoIds,
+                                 @Param("allManHinh") boolean allManHinh, @Param("manHinhIds") Collection<Long> manHinhIds);
+
+    /**
+     * Resolve variant IDs for a selector; null or empty lists mean "any".
+     * Used for bulk campaign assignment by brand, category or attribute.
+     */
+    default List<Long> findIdsBySelector(Collection<Long> sanPhamIds, Collection<Long> thuongHieuIds,
+                                         Collection<Long> danhMucIds, Collection<Long> cpuIds,
+                                         Collection<Long> ramIds, Collection<Long> gpuIds,
+                                         Collection<Long> mauSacIds, Collection<Long> boNhoIds,
+                                         Collection<Long> manHinhIds) {
+        return findIdsByCriteria(
+                isAny(sanPhamIds), orPlaceholder(sanPhamIds),
+                isAny(thuongHieuIds), orPlaceholder(thuongHieuIds),
+                isAny(danhMucIds), orPlaceholder(danhMucIds),
+                isAny(cpuIds), orPlaceholder(cpuIds),
+                isAny(ramIds), orPlaceholder(ramIds),
+                isAny(gpuIds), orPlaceholder(gpuIds),
+                isAny(mauSacIds), orPlaceholder(mauSacIds),
+                isAny(boNhoIds), orPlaceholder(boNhoIds),
+                isAny(manHinhIds), orPlaceholder(manHinhIds));
+    }
+
+    /**
+     * Load facet rows for every active variant of an active product, ordered by variant ID.
+     * Each row is [variantId, sanPhamId, thuongHieuId, cpuId, ramId, gpuId, manHinhId, boNhoId, mauSacId, giaBan];
+     * attribute columns are null when the variant has no value for them.
+     * Used by VariantFacetIndex to build its bitmaps with one query.
+     */
+    @Query("SELECT spct.id, sp.id, sp.thuongHieu.id, spct.cpu.id, spct.ram.id, spct.gpu.id, " +
+           "spct.manHinh.id, spct.boNho.id, spct.mauSac.id, spct.giaBan " +
+           "FROM SanPhamChiTiet spct JOIN spct.sanPham sp " +
+           "WHERE spct.trangThai = true AND sp.trangThai = true ORDER BY spct.id")
+    List<Object[]> findFacetRows();
+
+    /**
+     * Load facet rows for the active variants of specific products (same shape as findFacetRows).
+     */
+    @Query("SELECT spct.id, sp.id, sp.thuongHieu.id, spct.cpu.id, spct.ram.id, spct.gpu.id, " +
+           "spct.manHinh.id, spct.boNho.id, spct.mauSac.id, spct.giaBan " +
+           "FROM SanPhamChiTiet spct JOIN spct.sanPham sp " +
+           "WHERE sp.id IN :sanPhamIds AND spct.trangThai = true AND sp.trangThai = true ORDER BY spct.id")
+    List<Object[]> findFacetRowsBySanPhamIds(@Param("sanPhamIds") Collection<Long> sanPhamIds);
+
+    /**
+     * Load [sanPhamId, danhMucId] pairs for active products.
+     */
+    @Query("SELECT sp.id, dm.id FROM SanPham sp JOIN sp.danhMucs dm WHERE sp.trangThai = true")
+    List<Object[]> findDanhMucRows();
+
+    /**
+     * Load [sanPhamId, danhMucId] pairs for specific active products.
+     */
+    @Query("SELECT sp.id, dm.id FROM SanPham sp JOIN sp.danhMucs dm WHERE sp.id IN :sanPhamIds AND sp.trangThai = true")
+    List<Object[]> findDanhMucRowsBySanPhamIds(@Param("sanPhamIds") Collection<Long> sanPhamIds);
+
+    private static boolean isAny(Collection<Long> ids) {
+        return ids == null || ids.isEmpty();
+    }
+
+    // IN () is not valid SQL, so unused criteria bind a placeholder that the "all" flag short-circuits
+    private static Collection<Long> orPlaceholder(Collection<Long> ids) {
+        return isAny(ids) ? List.of(-1L) : ids;
+    }
+}
@@ -1,10 +1,18 @@
 package com.lapxpert.backend.sanpham.repository;
 
+import com.lapxpert.backend.sanpham.entity.sanpham.ProductCardView;
 import com.lapxpert.backend.sanpham.entity.sanpham.SanPham;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface SanPhamRepository extends JpaRepository<SanPham, Long> {
@@ -14,13 +22,122 @@ public interface SanPhamRepository extends JpaRepository<SanPham, Long> {
     String findLastMaSanPham();
 
     // Search products by name, code, or description
-    @Query("SELECT s FROM SanPham s WHERE " +
-           "(:tenSanPham IS NULL OR LOWER(s.tenSanPham) LIKE LOWER(CONCAT('%', :tenSanPham, '%'))) AND " +
-           "(:maSanPham IS NULL OR LOWER(s.maSanPham) LIKE LOWER(CONCAT('%', :maSanPham, '%'))) AND " +
-           "(:moTa IS NULL OR LOWER(s.moTa) LIKE LOWER(CONCAT('%', :moTa, '%'))) AND " +
-           "s.trangThai = true")
+    // Accent-insensitive substring match ("may tinh" finds "máy tính"), served by the f_unaccent trigram GIN indexes
+    @Query(value = "SELECT s.* FROM san_pham s WHERE " +
+           "(CAST(:tenSanPham AS text) IS NULL OR f_unaccent(s.ten_san_pham) LIKE '%' || f_unaccent(CAST(:tenSanPham AS text)) || '%') AND " +
+           "(CAST(:maSanPham AS text) IS NULL OR f_unaccent(s.ma_san_pham) LIKE '%' || f_unaccent(CAST(:maSanPham AS text)) || '%') AND " +
+           "(CAST(:moTa AS text) IS NULL OR f_unaccent(s.mo_ta) LIKE '%' || f_unaccent(CAST(:moTa AS text)) || '%') AND " +
+           "s.trang_thai = true", nativeQuery = true)
     List<SanPham> searchProducts(@Param("tenSanPham") String tenSanPham,
                                 @Param("maSanPham") String maSanPham,
                                 @Param("moTa") String moTa);
 
-}
\ No newline at end of file
+    // Ranked full-text search over name, code and description with a trigram fallback for typos and partial words.
+    // Full-text hits rank by ts_rank, trigram-only hits by word similarity on the name.
+    @Query(value = "SELECT s.* FROM san_pham s WHERE s.trang_thai = true AND " +
+           "(s.tim_kiem @@ plainto_tsquery('simple', f_unaccent(:tuKhoa)) " +
+           "OR f_unaccent(:tuKhoa) <% f_unaccent(s.ten_san_pham)) " +
+           "ORDER BY ts_rank(s.tim_kiem, plainto_tsquery('simple', f_unaccent(:tuKhoa))) DESC, " +
+           "word_similarity(f_unaccent(:tuKhoa), f_unaccent(s.ten_san_pham)) DESC, s.id",
+           countQuery = "SELECT COUNT(*) FROM san_pham s WHERE s.trang_thai = true AND " +
+           "(s.tim_kiem @@ plainto_tsquery('simple', f_unaccent(:tuKhoa)) " +
+           "OR f_unaccent(:tuKhoa) <% f_unaccent(s.ten_san_pham))",
+           nativeQuery = true)
+    Page<SanPham> searchRanked(@Param("tuKhoa") String tuKhoa, Pageable pageable);
+
+    // Typo-tolerant autocomplete on product names, ordered by trigram word similarity
+    @Query(value = "SELECT s.ten_san_pham FROM san_pham s WHERE s.trang_thai = true " +
+           "AND f_unaccent(:tuKhoa) <% f_unaccent(s.ten_san_pham) " +
+           "ORDER BY word_similarity(f_unaccent(:tuKhoa), f_unaccent(s.ten_san_pham)) DESC, s.ten_san_pham " +
+           "LIMIT :gioiHan", nativeQuery = true)
+    List<String> suggestProductNames(@Param("tuKhoa") String tuKhoa, @Param("gioiHan") int gioiHan);
+
+    // Effective price of a variant v: giaBan minus the best running campaign (same rounding as PricingService.applyDiscount)
+    String EFFECTIVE_VARIANT_PRICE = "v.gia_ban - COALESCE(ROUND(v.gia_ban * km.phan_tram_giam / 100, 2), 0)";
+
+    String RUNNING_CAMPAIGN_JOIN = "LEFT JOIN LATERAL (SELECT MAX(d.phan_tram_giam) AS phan_tram_giam " +
+           "FROM san_pham_chi_tiet_dot_giam_gia x JOIN dot_giam_gia d ON d.id = x.dot_giam_gia_id " +
+           "WHERE x.san_pham_chi_tiet_id = v.id AND d.trang_thai = 'DA_DIEN_RA' " +
+           "AND d.ngay_bat_dau < :now AND d.ngay_ket_thuc > :now) km ON true ";
+
+    // Product card for catalog listings, one row per active product with at least one active variant.
+    // Rating and stock are evaluated per returned row, so keyset queries on (ngay_tao, id) / (ten_san_pham, id) /
+    // (gia_thap_nhat, id) stop after LIMIT rows instead of aggregating the whole catalog.
+    // giaSapXep is the stored san_pham.gia_thap_nhat the price orders seek on; giaThapNhat is computed live.
+    String PRODUCT_CARD_QUERY = "SELECT p.id AS \"id\", p.ma_san_pham AS \"maSanPham\", p.ten_san_pham AS \"tenSanPham\", " +
+           "p.hinh_anh ->> 0 AS \"anhDaiDien\", th.mo_ta_thuong_hieu AS \"tenThuongHieu\", p.ngay_tao AS \"ngayTao\", " +
+           "p.gia_thap_nhat AS \"giaSapXep\", gia.gia_thap_nhat AS \"giaThapNhat\", gia.gia_cao_nhat AS \"giaCaoNhat\", " +
+           "dg.diem_trung_binh AS \"diemDanhGia\", dg.so_luong AS \"soLuongDanhGia\", " +
+           "EXISTS (SELECT 1 FROM serial_number sn JOIN san_pham_chi_tiet sv ON sv.id = sn.san_pham_chi_tiet_id " +
+           "WHERE sv.san_pham_id = p.id AND sv.trang_thai = true AND sn.trang_thai = 'AVAILABLE') AS \"conHang\" " +
+           "FROM san_pham p " +
+           "LEFT JOIN thuong_hieu th ON th.id = p.thuong_hieu_id " +
+           "CROSS JOIN LATERAL (" +
+           "SELECT MIN(" + EFFECTIVE_VARIANT_PRICE + ") AS gia_thap_nhat, " +
+           "MAX(" + EFFECTIVE_VARIANT_PRICE + ") AS gia_cao_nhat, " +
+           "COUNT(*) AS so_bien_the " +
+           "FROM san_pham_chi_tiet v " + RUNNING_CAMPAIGN_JOIN +
+           "WHERE v.san_pham_id = p.id AND v.trang_thai = true) gia " +
+           "LEFT JOIN LATERAL (SELECT ROUND(AVG(r.diem_danh_gia), 1) AS diem_trung_binh, COUNT(*) AS so_luong " +
+           "FROM danh_gia r WHERE r.san_pham_id = p.id AND r.trang_thai = 'DA_DUYET') dg ON true " +
+           "WHERE p.trang_thai = true AND gia.so_bien_the > 0 ";
+
+    // Newest first; cursor is the last row's (ngay_tao, id)
+    @Query(value = PRODUCT_CARD_QUERY +
+           "AND (CAST(:lastId AS bigint) IS NULL OR (p.ngay_tao, p.id) < (CAST(:lastNgayTao AS timestamp), CAST(:lastId AS bigint))) " +
+           "ORDER BY p.ngay_tao DESC, p.id DESC LIMIT :gioiHan", nativeQuery = true)
+    List<ProductCardView> findCardsNewest(@Param("now") Instant now,
+                                          @Param("lastNgayTao") LocalDateTime lastNgayTao,
+                                          @Param("lastId") Long lastId,
+                                          @Param("gioiHan") int gioiHan);
+
+    // Alphabetical; cursor is the last row's (ten_san_pham, id)
+    @Query(value = PRODUCT_CARD_QUERY +
+           "AND (CAST(:lastId AS bigint) IS NULL OR (p.ten_san_pham, p.id) > (CAST(:lastTen AS text), CAST(:lastId AS bigint))) " +
+           "ORDER BY p.ten_san_pham, p.id LIMIT :gioiHan", nativeQuery = true)
+    List<ProductCardView> findCardsByName(@Param("now") Instant now,
+                                          @Param("lastTen") String lastTen,
+                                          @Param("lastId") Long lastId,
+                                          @Param("gioiHan") int gioiHan);
+
+    // Cheapest first; cursor is the last row's (stored lowest effective price, id), seeking on idx_san_pham_keyset_gia
+    @Query(value = PRODUCT_CARD_QUERY + "AND p.gia_thap_nhat IS NOT NULL " +
+           "AND (CAST(:lastId AS bigint) IS NULL OR (p.gia_thap_nhat, p.id) > (CAST(:lastGia AS numeric), CAST(:lastId AS bigint))) " +
+           "ORDER BY p.gia_thap_nhat, p.id LIMIT :gioiHan", nativeQuery = true)
+    List<ProductCardView> findCardsByPriceAsc(@Param("now") Instant now,
+                                              @Param("lastGia") BigDecimal lastGia,
+                                              @Param("lastId") Long lastId,
+                                              @Param("gioiHan") int gioiHan);
+
+    // Most expensive first; cursor is the last row's (stored lowest effective price, id), same index scanned backwards
+    @Query(value = PRODUCT_CARD_QUERY + "AND p.gia_thap_nhat IS NOT NULL " +
+           "AND (CAST(:lastId AS bigint) IS NULL OR (p.gia_thap_nhat, p.id) < (CAST(:lastGia AS numeric), CAST(:lastId AS bigint))) " +
+           "ORDER BY p.gia_thap_nhat DESC, p.id DESC LIMIT :gioiHan", nativeQuery = true)
+    List<ProductCardView> findCardsByPriceDesc(@Param("now") Instant now,
+                                               @Param("lastGia") BigDecimal lastGia,
+                                               @Param("lastId") Long lastId,
+                                               @Param("gioiHan") int gioiHan);
+
+    // Recompute the stored lowest effective price (san_pham.gia_thap_nhat) of the products in scope;
+    // rows whose price did not move are left untouched
+    String REFRESH_STORED_MIN_PRICE = "WITH gia AS (SELECT p.id, (SELECT MIN(" + EFFECTIVE_VARIANT_PRICE + ") " +
+           "FROM san_pham_chi_tiet v " + RUNNING_CAMPAIGN_JOIN +
+           "WHERE v.san_pham_id = p.id AND v.trang_thai = true) AS gia_moi FROM san_pham p ";
+
+    String APPLY_STORED_MIN_PRICE = ") UPDATE san_pham p SET gia_thap_nhat = gia.gia_moi FROM gia " +
+           "WHERE p.id = gia.id AND p.gia_thap_nhat IS DISTINCT FROM gia.gia_moi";
+
+    @Modifying
+    @Query(value = REFRESH_STORED_MIN_PRICE + "WHERE p.id IN (:sanPhamIds)" + APPLY_STORED_MIN_PRICE, nativeQuery = true)
+    int refreshStoredMinPrices(@Param("sanPhamIds") Collection<Long> sanPhamIds, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = REFRESH_STORED_MIN_PRICE +
+           "WHERE p.id IN (SELECT sv.san_pham_id FROM san_pham_chi_tiet sv WHERE sv.id IN (:variantIds))" +
+           APPLY_STORED_MIN_PRICE, nativeQuery = true)
+    int refreshStoredMinPricesByVariants(@Param("variantIds") Collection<Long> variantIds, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = REFRESH_STORED_MIN_PRICE + APPLY_STORED_MIN_PRICE, nativeQuery = true)
+    int refreshAllStoredMinPrices(@Param("now") Instant now);
+}
@@ -0,0 +1,497 @@
+package com.lapxpert.backend.sanpham.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import com.lapxpert.backend.sanpham.event.CampaignPricingChangeEvent;
+import com.lapxpert.backend.sanpham.event.PriceChangeEvent;
+import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-memory, copy-on-write index of effective prices per product variant.
+ *
+ * The snapshot maps variant ID to (base price, best active campaign, effective price, valid-until)
+ * and is built with a single query instead of walking the lazy dotGiamGias collection per variant.
+ * Readers never lock: every write builds a new map and swaps the volatile reference.
+ *
+ * Consistency:
+ * - Local changes arrive as CampaignPricingChangeEvent / PriceChangeEvent after commit
+ * - Each local change bumps a cluster-wide version in Redis and is broadcast on PRICING_INDEX_CHANNEL
+ * - Every node tracks which versions it has applied, local or remote; clusterVersion is the highest version
+ *   below which all are applied. A message whose version was not applied yet is applied whatever its order
+ *   (a refresh reads committed state), so a local INCR never hides a remote change still in flight
+ * - A version still missing at reconciliation was lost and forces a full rebuild
+ * - Entries expire at the next campaign boundary (start or end) so a lookup never returns a stale price
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EffectivePriceIndex {
+
+    public static final String PRICING_INDEX_CHANNEL = "lapxpert:pricing:index";
+    public static final String VERSION_KEY = "lapxpert:pricing:index:version";
+    /**
+     * Post-commit order of the index refresh: right after cache eviction, before listeners that read effective prices
+     */
+    public static final int INDEX_ORDER = Ordered.HIGHEST_PRECEDENCE + 1;
+
+    private static final Set<TrangThaiCampaign> INDEXED_STATUSES =
+            EnumSet.of(TrangThaiCampaign.DA_DIEN_RA, TrangThaiCampaign.CHUA_DIEN_RA);
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private final SanPhamChiTietRepository sanPhamChiTietRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Object writeLock = new Object();
+
+    private volatile Map<Long, PriceEntry> entries = Map.of();
+    private volatile boolean initialized = false;
+    private volatile long clusterVersion = 0L;
+    // Versions above clusterVersion already applied out of order; guarded by versionLock
+    private final NavigableSet<Long> appliedAhead = new TreeSet<>();
+    private final Object versionLock = new Object();
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong rebuilds = new AtomicLong(0);
+
+    private final List<Consumer<Set<Long>>> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Immutable pricing entry for a single variant
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PriceEntry {
+        private final Long variantId;
+        private final BigDecimal basePrice;
+        private final Long campaignId;
+        private final BigDecimal discountPercentage;
+        private final BigDecimal effectivePrice;
+        private final Instant validUntil;
+
+        public boolean hasDiscount() {
+            return campaignId != null;
+        }
+
+        public boolean isValidAt(Instant now) {
+            return validUntil == null || now.isBefore(validUntil);
+        }
+
+        public boolean matchesBasePrice(BigDecimal price) {
+            return basePrice != null && price != null && basePrice.compareTo(price) == 0;
+        }
+    }
+
+    /**
+     * Version message broadcast to other nodes
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndexVersionMessage {
+        private long version;
+        private String nodeId;
+        private Set<Long> variantIds;
+    }
+
+    /**
+     * Campaign window as loaded from a pricing row
+     */
+    private record CampaignWindow(Long id, BigDecimal phanTramGiam, Instant ngayBatDau,
+                                  Instant ngayKetThuc, TrangThaiCampaign trangThai) {
+    }
+
+    // ==================== LOOKUP ====================
+
+    /**
+     * O(1) lookup of the current pricing entry for a variant.
+     * Returns empty when the variant is not indexed yet or the entry passed its next campaign boundary.
+     */
+    public Optional<PriceEntry> lookup(Long variantId) {
+        if (variantId == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        PriceEntry entry = entries.get(variantId);
+        if (entry == null || !entry.isValidAt(Instant.now())) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(entry);
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getClusterVersion() {
+        return clusterVersion;
+    }
+
+    public IndexStatistics getStatistics() {
+        return new IndexStatistics(entries.size(), clusterVersion, hits.get(), misses.get(), rebuilds.get());
+    }
+
+    /**
+     * Register a callback invoked after every local or remote change with the refreshed variant IDs
+     * (empty set after a full rebuild). Used by indexes that derive data from effective prices.
+     * Read-path refreshes of missing entries (refreshVariants) do not notify: they fill in prices that
+     * did not change, and the callbacks must stay off the request path.
+     */
+    public void addChangeListener(Consumer<Set<Long>> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void notifyChangeListeners(Set<Long> variantIds) {
+        for (Consumer<Set<Long>> listener : changeListeners) {
+            try {
+                listener.accept(variantIds);
+            } catch (Exception e) {
+                log.warn("Effective price index change listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // ==================== BUILD / REFRESH ====================
+
+    /**
+     * Rebuild the whole index with one query and swap it in atomically
+     */
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        List<Object[]> rows = sanPhamChiTietRepository.findPricingRows(INDEXED_STATUSES);
+        Map<Long, PriceEntry> rebuilt = buildEntries(rows, Instant.now());
+
+        synchronized (writeLock) {
+            entries = Map.copyOf(rebuilt);
+            initialized = true;
+        }
+
+        rebuilds.incrementAndGet();
+        log.info("Rebuilt effective price index with {} variants ({}ms)",
+                rebuilt.size(), System.currentTimeMillis() - startTime);
+        notifyChangeListeners(Set.of());
+    }
+
+    /**
+     * Recompute entries for specific variants and merge them into a new snapshot
+     */
+    public void refreshVariants(Collection<Long> variantIds) {
+        if (variantIds == null || variantIds.isEmpty()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        Map<Long, PriceEntry> refreshed = new HashMap<>();
+        List<Long> ids = new ArrayList<>(variantIds);
+        for (int i = 0; i < ids.size(); i += REFRESH_BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(i + REFRESH_BATCH_SIZE, ids.size()));
+            refreshed.putAll(buildEntries(
+                    sanPhamChiTietRepository.findPricingRowsByVariantIds(batch, INDEXED_STATUSES), now));
+        }
+
+        synchronized (writeLock) {
+            Map<Long, PriceEntry> copy = new HashMap<>(entries);
+            for (Long id : ids) {
+                PriceEntry entry = refreshed.get(id);
+                if (entry != null) {
+                    copy.put(id, entry);
+                } else {
+                    copy.remove(id);
+                }
+            }
+            entries = Map.copyOf(copy);
+        }
+
+        log.debug("Refreshed {} entries in effective price index", ids.size());
+    }
+
+    /**
+     * Build pricing entries from rows of [variantId, giaBan, campaignId, phanTramGiam, ngayBatDau, ngayKetThuc, trangThai]
+     */
+    static Map<Long, PriceEntry> buildEntries(List<Object[]> rows, Instant now) {
+        Map<Long, BigDecimal> basePrices = new LinkedHashMap<>();
+        Map<Long, List<CampaignWindow>> campaigns = new HashMap<>();
+
+        for (Object[] row : rows) {
+            Long variantId = (Long) row[0];
+            basePrices.put(variantId, (BigDecimal) row[1]);
+            if (row[2] != null) {
+                campaigns.computeIfAbsent(variantId, id -> new ArrayList<>()).add(new CampaignWindow(
+                        (Long) row[2], (BigDecimal) row[3], (Instant) row[4], (Instant) row[5],
+                        (TrangThaiCampaign) row[6]));
+            }
+        }
+
+        Map<Long, PriceEntry> result = new HashMap<>(basePrices.size() * 2);
+        basePrices.forEach((variantId, basePrice) -> {
+            if (basePrice != null) {
+                result.put(variantId, computeEntry(variantId, basePrice,
+                        campaigns.getOrDefault(variantId, List.of()), now));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Apply the same rules as PricingService: best active DA_DIEN_RA campaign by percentage,
+     * ties broken by the campaign that ends sooner. Validity ends at the next campaign boundary.
+     */
+    static PriceEntry computeEntry(Long variantId, BigDecimal basePrice, List<CampaignWindow> windows, Instant now) {
+        CampaignWindow best = null;
+        Instant validUntil = null;
+
+        for (CampaignWindow window : windows) {
+            validUntil = earliest(validUntil, window.ngayBatDau(), now);
+            validUntil = earliest(validUntil, window.ngayKetThuc(), now);
+
+            boolean active = window.trangThai() == TrangThaiCampaign.DA_DIEN_RA &&
+                    window.ngayBatDau() != null && window.ngayKetThuc() != null &&
+                    now.isAfter(window.ngayBatDau()) && now.isBefore(window.ngayKetThuc());
+            if (!active || window.phanTramGiam() == null) {
+                continue;
+            }
+
+            if (best == null ||
+                    window.phanTramGiam().compareTo(best.phanTramGiam()) > 0 ||
+                    (window.phanTramGiam().compareTo(best.phanTramGiam()) == 0 &&
+                            window.ngayKetThuc().isBefore(best.ngayKetThuc()))) {
+                best = window;
+            }
+        }
+
+        if (best == null) {
+            return new PriceEntry(variantId, basePrice, null, BigDecimal.ZERO, basePrice, validUntil);
+        }
+
+        BigDecimal effectivePrice = PricingService.applyDiscount(basePrice, best.phanTramGiam());
+        return new PriceEntry(variantId, basePrice, best.id(), best.phanTramGiam(), effectivePrice, validUntil);
+    }
+
+    private static Instant earliest(Instant current, Instant candidate, Instant now) {
+        if (candidate == null || !candidate.isAfter(now)) {
+            return current;
+        }
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+
+    // ==================== LOCAL CHANGE EVENTS ====================
+
+    /**
+     * Build the index once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            resetVersion(readClusterVersion());
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to build effective price index on startup, falling back to per-entity pricing: {}",
+                    e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Handle campaign changes after the owning transaction commits
+     */
+    @Order(INDEX_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCampaignPricingChange(CampaignPricingChangeEvent event) {
+        try {
+            Set<Long> variantIds = event.requiresFullRebuild() ? Set.of() : Set.copyOf(event.getVariantIds());
+            applyChange(variantIds);
+            broadcastChange(variantIds);
+            log.debug("Applied campaign pricing change for campaigns {}: {}", event.getCampaignIds(), event.getLyDo());
+        } catch (Exception e) {
+            log.error("Failed to apply campaign pricing change to effective price index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Handle base price changes of a single variant after commit
+     */
+    @Order(INDEX_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handlePriceChange(PriceChangeEvent event) {
+        if (event.getVariantId() == null) {
+            return;
+        }
+        try {
+            Set<Long> variantIds = Set.of(event.getVariantId());
+            applyChange(variantIds);
+            broadcastChange(variantIds);
+        } catch (Exception e) {
+            log.error("Failed to refresh effective price index for variant {}: {}",
+                    event.getVariantId(), e.getMessage(), e);
+        }
+    }
+
+    private void applyChange(Set<Long> variantIds) {
+        if (variantIds.isEmpty() || !initialized) {
+            rebuild();
+        } else {
+            refreshVariants(variantIds);
+            notifyChangeListeners(variantIds);
+        }
+    }
+
+    // ==================== CLUSTER CONSISTENCY ====================
+
+    /**
+     * Bump the cluster version and notify other nodes
+     */
+    private void broadcastChange(Set<Long> variantIds) {
+        try {
+            Long version = redisTemplate.opsForValue().increment(VERSION_KEY);
+            if (version == null) {
+                return;
+            }
+            markApplied(version);
+
+            IndexVersionMessage message = new IndexVersionMessage(version, nodeId, variantIds);
+            redisTemplate.convertAndSend(PRICING_INDEX_CHANNEL, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("Failed to broadcast effective price index change: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Handle version messages from other nodes (registered in RedisPubSubConfig)
+     */
+    public void handleIndexVersionMessage(String messageJson, String channel) {
+        try {
+            IndexVersionMessage message = objectMapper.readValue(messageJson, IndexVersionMessage.class);
+            // Own versions were recorded when broadcast; anything else is applied once, in any order
+            if (nodeId.equals(message.getNodeId()) || !markApplied(message.getVersion())) {
+                return;
+            }
+
+            applyChange(message.getVariantIds() != null ? message.getVariantIds() : Set.of());
+
+            log.debug("Applied effective price index version {} from node {}", message.getVersion(), message.getNodeId());
+        } catch (Exception e) {
+            log.error("Error processing effective price index message from channel {}: {}", channel, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Record a version as applied and advance clusterVersion over every contiguous applied version
+     * @return false if the version was already applied
+     */
+    boolean markApplied(long version) {
+        synchronized (versionLock) {
+            if (version <= clusterVersion || !appliedAhead.add(version)) {
+                return false;
+            }
+            long contiguous = clusterVersion;
+            while (appliedAhead.remove(contiguous + 1)) {
+                contiguous++;
+            }
+            clusterVersion = contiguous;
+            return true;
+        }
+    }
+
+    /**
+     * Treat every version up to the given one as applied (after a full rebuild)
+     */
+    private void resetVersion(long version) {
+        synchronized (versionLock) {
+            appliedAhead.headSet(version, true).clear();
+            long contiguous = Math.max(clusterVersion, version);
+            while (appliedAhead.remove(contiguous + 1)) {
+                contiguous++;
+            }
+            clusterVersion = contiguous;
+        }
+    }
+
+    /**
+     * Safety net for lost pub/sub messages: rebuild when a version of the cluster was never applied here.
+     * The remote version is read before the rebuild, so a change committed meanwhile is still applied later.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void reconcileClusterVersion() {
+        try {
+            long remoteVersion = readClusterVersion();
+            if (remoteVersion > clusterVersion) {
+                log.info("Effective price index missing versions (applied up to {}, remote {}), rebuilding",
+                        clusterVersion, remoteVersion);
+                rebuild();
+                resetVersion(remoteVersion);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to reconcile effective price index version: {}", e.getMessage());
+        }
+    }
+
+    private long readClusterVersion() {
+        try {
+            String value = redisTemplate.opsForValue().get(VERSION_KEY);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("Failed to read effective price index version from Redis: {}", e.getMessage());
+            return clusterVersion;
+        }
+    }
+
+    /**
+     * Index statistics for monitoring
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class IndexStatistics {
+        private final int size;
+        private final long clusterVersion;
+        private final long hits;
+        private final long misses;
+        private final long rebuilds;
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total > 0 ? (double) hits / total : 0.0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.lapxpert.backend.sanpham.service;
 
+import com.lapxpert.backend.common.service.ConflatingPublisher;
 import com.lapxpert.backend.common.service.WebSocketIntegrationService;
 import com.lapxpert.backend.sanpham.dto.PriceUpdateMessage;
 import com.lapxpert.backend.sanpham.entity.SanPhamChiTietAuditHistory;
@@ -7,6 +8,7 @@ import com.lapxpert.backend.sanpham.event.PriceChangeEvent;
 import com.lapxpert.backend.sanpham.repository.SanPhamChiTietAuditHistoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.event.TransactionalEventListener;
@@ -27,24 +29,27 @@ public class PriceChangeNotificationService {
 
     private final WebSocketIntegrationService webSocketIntegrationService;
     private final SanPhamChiTietAuditHistoryRepository auditHistoryRepository;
+    private final ConflatingPublisher conflatingPublisher;
 
     /**
      * Handle price change events with audit trail and real-time notifications.
      * Uses @TransactionalEventListener to ensure audit and notifications occur after transaction commit.
      */
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    @CacheEvict(value = {"cartData", "activeSanPhamList"}, allEntries = true)
+    @CacheEvict(value = "activeSanPhamList", allEntries = true)
     public void handlePriceChange(PriceChangeEvent event) {
         long startTime = System.currentTimeMillis();
         try {
             log.info("Processing post-commit price change for variant {}: {} -> {}",
                 event.getVariantId(), event.getEffectiveOldPrice(), event.getEffectiveNewPrice());
 
+            // Carts holding this variant are repriced and evicted by GioHangPriceSyncService
+
             // Create audit trail entry after transaction commit
             createAuditEntry(event);
 
-            // Send real-time WebSocket notification after audit entry
-            sendWebSocketNotification(event);
+            // Send real-time WebSocket notification after audit entry, coalesced per variant
+            conflatingPublisher.submit("gia-san-pham", event.getVariantId(), event, this::sendWebSocketNotification);
 
             long executionTime = System.currentTimeMillis() - startTime;
             log.info("Post-commit price change notification completed for variant {} ({}ms)",
@@ -117,9 +122,15 @@ public class PriceChangeNotificationService {
     }
 
     /**
-     * Send real-time WebSocket notification via dedicated WebSocket service
+     * Send real-time WebSocket notification via dedicated WebSocket service.
+     * Receives every change of a variant within one conflation window and reports it as one change
+     * from the price before the window to the latest price.
      */
-    private void sendWebSocketNotification(PriceChangeEvent event) {
+    private void sendWebSocketNotification(ConflatingPublisher.Conflated<PriceChangeEvent> update) {
+        PriceChangeEvent event = new PriceChangeEvent();
+        BeanUtils.copyProperties(update.latest(), event);
+        event.setOldPrice(update.first().getOldPrice());
+        event.setOldPromotionalPrice(update.first().getOldPromotionalPrice());
         try {
             // Create price update message
             PriceUpdateMessage message = PriceUpdateMessage.fromEvent(event);
@@ -137,7 +148,8 @@ public class PriceChangeNotificationService {
                 vietnameseMessage
             );
 
-            log.debug("Sent WebSocket notification via integration service for variant {}", event.getVariantId());
+            log.debug("Sent WebSocket notification via integration service for variant {} ({} changes)",
+                    event.getVariantId(), update.count());
 
         } catch (Exception e) {
             log.error("Failed to send WebSocket notification for price change: {}", e.getMessage(), e);
@@ -12,19 +12,26 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Service for calculating dynamic product pricing based on active discount campaigns (DotGiamGia).
  * This service replaces the manual giaKhuyenMai field with automatic price calculation.
+ * Lookups are served from EffectivePriceIndex; the lazy campaign collection is only walked on index misses.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PricingService {
 
+    private final EffectivePriceIndex effectivePriceIndex;
+
     /**
      * Calculate the effective selling price for a product item.
      * This considers all active discount campaigns and applies the best discount.
@@ -40,6 +47,12 @@ public class PricingService {
 
         BigDecimal basePrice = sanPhamChiTiet.getGiaBan();
 
+        // Serve from the precomputed index when the entry is current for this base price
+        Optional<EffectivePriceIndex.PriceEntry> indexed = effectivePriceIndex.lookup(sanPhamChiTiet.getId());
+        if (indexed.isPresent() && indexed.get().matchesBasePrice(basePrice)) {
+            return indexed.get().getEffectivePrice();
+        }
+
         // Get active campaigns for this product
         List<DotGiamGia> activeCampaigns = getActiveCampaigns(sanPhamChiTiet);
 
@@ -63,6 +76,42 @@ public class PricingService {
         return discountedPrice;
     }
 
+    /**
+     * Resolve effective prices for many variants at once without loading entities.
+     * Index misses are refreshed with a single batched query before falling back to the base price.
+     *
+     * @param basePrices Map of variant ID to its current base price (giaBan)
+     * @return Map of variant ID to effective selling price
+     */
+    public Map<Long, BigDecimal> resolveEffectivePrices(Map<Long, BigDecimal> basePrices) {
+        Map<Long, BigDecimal> result = new HashMap<>();
+        Set<Long> misses = new HashSet<>();
+
+        basePrices.forEach((variantId, basePrice) -> {
+            Optional<EffectivePriceIndex.PriceEntry> entry = effectivePriceIndex.lookup(variantId);
+            if (entry.isPresent() && entry.get().matchesBasePrice(basePrice)) {
+                result.put(variantId, entry.get().getEffectivePrice());
+            } else {
+                misses.add(variantId);
+            }
+        });
+
+        if (!misses.isEmpty()) {
+            effectivePriceIndex.refreshVariants(misses);
+        }
+
+        for (Long variantId : misses) {
+            BigDecimal basePrice = basePrices.get(variantId);
+            BigDecimal effectivePrice = effectivePriceIndex.lookup(variantId)
+                .filter(entry -> entry.matchesBasePrice(basePrice))
+                .map(EffectivePriceIndex.PriceEntry::getEffectivePrice)
+                .orElse(basePrice);
+            result.put(variantId, effectivePrice);
+        }
+
+        return result;
+    }
+
     /**
      * Calculate effective price with detailed information about applied discounts.
      *
@@ -144,8 +193,9 @@ public class PricingService {
 
     /**
      * Apply discount percentage to base price.
+     * Shared with EffectivePriceIndex so both paths round identically.
      */
-    private BigDecimal applyDiscount(BigDecimal basePrice, BigDecimal discountPercentage) {
+    static BigDecimal applyDiscount(BigDecimal basePrice, BigDecimal discountPercentage) {
         if (discountPercentage == null || discountPercentage.compareTo(BigDecimal.ZERO) <= 0) {
             return basePrice;
         }
@@ -0,0 +1,214 @@
+package com.lapxpert.backend.sanpham.service;
+
+import com.lapxpert.backend.sanpham.dto.CursorPageDto;
+import com.lapxpert.backend.sanpham.dto.ProductCardDto;
+import com.lapxpert.backend.sanpham.entity.sanpham.ProductCardView;
+import com.lapxpert.backend.sanpham.enums.ProductCardSort;
+import com.lapxpert.backend.sanpham.event.CatalogChangeEvent;
+import com.lapxpert.backend.sanpham.event.CampaignPricingChangeEvent;
+import com.lapxpert.backend.sanpham.repository.SanPhamRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Catalog listing with keyset pagination and slim product cards.
+ *
+ * Each page is one SQL query that seeks past the previous page's (sort key, id) and returns at most size + 1
+ * card rows, so neither heap usage nor cold-cache latency grows with the catalog. The price orders seek on
+ * san_pham.gia_thap_nhat, the stored lowest effective price, which is recomputed here for the affected products
+ * after every committed catalog or campaign change. Pages are cached individually in "productCardPages"; the same
+ * changes drop cached pages, which are then rebuilt one page at a time on demand instead of reloading the whole catalog.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalogService {
+
+    public static final String CARD_PAGE_CACHE = "productCardPages";
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final char CURSOR_SEPARATOR = '|';
+
+    private final SanPhamRepository sanPhamRepository;
+    private final CacheManager cacheManager;
+
+    /**
+     * Load one page of product cards.
+     *
+     * @param sort sort order
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param size page size (clamped to 1..100)
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Cacheable(value = CARD_PAGE_CACHE,
+            key = "#sort.name() + ':' + (#cursor != null ? #cursor : 'first') + ':' + #size", sync = true)
+    @Transactional(readOnly = true)
+    public CursorPageDto<ProductCardDto> listCards(ProductCardSort sort, String cursor, int size) {
+        int pageSize = size > 0 ? Math.min(size, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+        CursorPosition position = decodeCursor(sort, cursor);
+        Instant now = Instant.now();
+        int limit = pageSize + 1;
+
+        List<ProductCardView> rows = switch (sort) {
+            case NEWEST -> sanPhamRepository.findCardsNewest(now,
+                    position != null ? (LocalDateTime) position.sortKey() : null, idOf(position), limit);
+            case NAME -> sanPhamRepository.findCardsByName(now,
+                    position != null ? (String) position.sortKey() : null, idOf(position), limit);
+            case PRICE_ASC -> sanPhamRepository.findCardsByPriceAsc(now,
+                    position != null ? (BigDecimal) position.sortKey() : null, idOf(position), limit);
+            case PRICE_DESC -> sanPhamRepository.findCardsByPriceDesc(now,
+                    position != null ? (BigDecimal) position.sortKey() : null, idOf(position), limit);
+        };
+
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductCardView> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? encodeCursor(sort, pageRows.get(pageRows.size() - 1)) : null;
+
+        return new CursorPageDto<>(pageRows.stream().map(this::toCard).toList(), nextCursor, hasNext, pageSize);
+    }
+
+    /**
+     * Cached pages embed effective prices and catalog data; after a committed change recompute the stored
+     * lowest price of the affected products (variants added, removed, repriced or toggled) and drop the pages
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @CacheEvict(value = CARD_PAGE_CACHE, allEntries = true)
+    public void handleCatalogChange(CatalogChangeEvent event) {
+        try {
+            int updated = event.requiresFullRebuild()
+                    ? sanPhamRepository.refreshAllStoredMinPrices(Instant.now())
+                    : sanPhamRepository.refreshStoredMinPrices(event.getSanPhamIds(), Instant.now());
+            log.debug("Refreshed {} stored product prices and evicted card pages after catalog change: {}",
+                    updated, event.getLyDo());
+        } catch (Exception e) {
+            // Pages are still evicted; the scheduled reconcile repairs the stored prices
+            log.error("Failed to refresh stored product prices after catalog change: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Campaign start/end, percentage and assignment changes move the effective price of the listed variants
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @CacheEvict(value = CARD_PAGE_CACHE, allEntries = true)
+    public void handleCampaignPricingChange(CampaignPricingChangeEvent event) {
+        try {
+            int updated = event.requiresFullRebuild()
+                    ? sanPhamRepository.refreshAllStoredMinPrices(Instant.now())
+                    : sanPhamRepository.refreshStoredMinPricesByVariants(event.getVariantIds(), Instant.now());
+            log.debug("Refreshed {} stored product prices and evicted card pages after campaign pricing change: {}",
+                    updated, event.getLyDo());
+        } catch (Exception e) {
+            // Pages are still evicted; the scheduled reconcile repairs the stored prices
+            log.error("Failed to refresh stored product prices after campaign pricing change: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Safety net for changes that bypass the services (manual SQL, restored backups); rows whose
+     * price did not move are not rewritten, so pages are only dropped when something changed
+     */
+    @Scheduled(fixedDelay = 1800000, initialDelay = 1800000) // Every 30 minutes
+    @Transactional
+    public void reconcileStoredPrices() {
+        try {
+            int updated = sanPhamRepository.refreshAllStoredMinPrices(Instant.now());
+            if (updated > 0) {
+                Cache cache = cacheManager.getCache(CARD_PAGE_CACHE);
+                if (cache != null) {
+                    cache.clear();
+                }
+                log.info("Reconciled stored lowest price of {} products", updated);
+            }
+        } catch (Exception e) {
+            log.error("Failed to reconcile stored product prices: {}", e.getMessage(), e);
+        }
+    }
+
+    private ProductCardDto toCard(ProductCardView row) {
+        return ProductCardDto.builder()
+                .id(row.getId())
+                .maSanPham(row.getMaSanPham())
+                .tenSanPham(row.getTenSanPham())
+                .anhDaiDien(row.getAnhDaiDien())
+                .tenThuongHieu(row.getTenThuongHieu())
+                .giaThapNhat(row.getGiaThapNhat())
+                .giaCaoNhat(row.getGiaCaoNhat())
+                .diemDanhGia(row.getDiemDanhGia() != null ? row.getDiemDanhGia().doubleValue() : null)
+                .soLuongDanhGia(row.getSoLuongDanhGia())
+                .conHang(Boolean.TRUE.equals(row.getConHang()))
+                .build();
+    }
+
+    // ==================== CURSOR ====================
+
+    /**
+     * Decoded cursor: the last row's sort key (typed for the sort order) and id
+     */
+    record CursorPosition(Object sortKey, Long id) {
+    }
+
+    private static Long idOf(CursorPosition position) {
+        return position != null ? position.id() : null;
+    }
+
+    /**
+     * Cursor = base64url("SORT|sortKey|id"); the sort key is the last row's value for the chosen order
+     */
+    static String encodeCursor(ProductCardSort sort, ProductCardView last) {
+        String sortKey = switch (sort) {
+            case NEWEST -> last.getNgayTao().toString();
+            case NAME -> last.getTenSanPham();
+            case PRICE_ASC, PRICE_DESC -> last.getGiaSapXep().toPlainString();
+        };
+        String raw = sort.name() + CURSOR_SEPARATOR + sortKey + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode and validate a cursor for the requested sort order.
+     * The product name may itself contain the separator, so the id is taken after the last one.
+     */
+    static CursorPosition decodeCursor(ProductCardSort sort, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf(CURSOR_SEPARATOR);
+            int last = raw.lastIndexOf(CURSOR_SEPARATOR);
+            if (first < 0 || first == last || !sort.name().equals(raw.substring(0, first))) {
+                throw new IllegalArgumentException("Cursor không hợp lệ cho kiểu sắp xếp " + sort);
+            }
+            String sortKey = raw.substring(first + 1, last);
+            Long id = Long.valueOf(raw.substring(last + 1));
+            return switch (sort) {
+                case NEWEST -> new CursorPosition(LocalDateTime.parse(sortKey), id);
+                case NAME -> new CursorPosition(sortKey, id);
+                case PRICE_ASC, PRICE_DESC -> new CursorPosition(new BigDecimal(sortKey), id);
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ", e);
+        }
+    }
+}
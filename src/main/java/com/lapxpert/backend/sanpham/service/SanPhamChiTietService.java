@@ -1,6 +1,9 @@
 package com.lapxpert.backend.sanpham.service;
 
 import com.lapxpert.backend.sanpham.dto.SanPhamChiTietDto;
+import com.lapxpert.backend.sanpham.dto.VariantFacetFilterDto;
+import com.lapxpert.backend.sanpham.dto.VariantFacetResultDto;
+import com.lapxpert.backend.sanpham.event.CatalogChangeEvent;
 import com.lapxpert.backend.sanpham.mapper.SanPhamChiTietMapper;
 import com.lapxpert.backend.sanpham.entity.sanpham.SanPhamChiTiet;
 
@@ -8,12 +11,20 @@ import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -23,6 +34,10 @@ public class SanPhamChiTietService {
     private final SanPhamChiTietMapper sanPhamChiTietMapper;
     private final PricingService pricingService;
     private final SanPhamChiTietAuditService auditService;
+    private final VariantFacetIndex variantFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int MAX_FACET_PAGE_SIZE = 100;
 
     // Lấy danh sách sản phẩm có trạng thái AVAILABLE
     @Transactional(readOnly = true)
@@ -56,6 +71,79 @@ public class SanPhamChiTietService {
         return dtos;
     }
 
+    // Lọc sản phẩm theo thuộc tính và đếm số lượng theo từng giá trị (facet)
+    @Transactional(readOnly = true)
+    public VariantFacetResultDto searchWithFacets(VariantFacetFilterDto filter) {
+        int page = filter.getPage() != null ? Math.max(filter.getPage(), 0) : 0;
+        int size = filter.getSize() != null ? Math.min(Math.max(filter.getSize(), 1), MAX_FACET_PAGE_SIZE) : 20;
+
+        Map<VariantFacetIndex.Facet, List<Long>> selections = new EnumMap<>(VariantFacetIndex.Facet.class);
+        putSelection(selections, VariantFacetIndex.Facet.THUONG_HIEU, filter.getThuongHieuIds());
+        putSelection(selections, VariantFacetIndex.Facet.DANH_MUC, filter.getDanhMucIds());
+        putSelection(selections, VariantFacetIndex.Facet.CPU, filter.getCpuIds());
+        putSelection(selections, VariantFacetIndex.Facet.RAM, filter.getRamIds());
+        putSelection(selections, VariantFacetIndex.Facet.GPU, filter.getGpuIds());
+        putSelection(selections, VariantFacetIndex.Facet.MAN_HINH, filter.getManHinhIds());
+        putSelection(selections, VariantFacetIndex.Facet.BO_NHO, filter.getBoNhoIds());
+        putSelection(selections, VariantFacetIndex.Facet.MAU_SAC, filter.getMauSacIds());
+
+        VariantFacetIndex.FacetResult result = variantFacetIndex.query(selections,
+                filter.getGiaToiThieu(), filter.getGiaToiDa(), page * size, size);
+
+        Map<String, Map<Long, Integer>> facetCounts = new LinkedHashMap<>();
+        result.getFacetCounts().forEach((facet, counts) -> facetCounts.put(facet.getKey(), counts));
+
+        return VariantFacetResultDto.builder()
+                .content(hydrateVariants(result.getVariantIds()))
+                .totalElements(result.getTotalMatches())
+                .page(page)
+                .size(size)
+                .facetCounts(facetCounts)
+                .khoangGia(toPriceBuckets(result.getPriceBucketCounts()))
+                .build();
+    }
+
+    private static void putSelection(Map<VariantFacetIndex.Facet, List<Long>> selections,
+                                     VariantFacetIndex.Facet facet, List<Long> ids) {
+        if (ids != null && !ids.isEmpty()) {
+            selections.put(facet, ids);
+        }
+    }
+
+    // Chỉ tải từ DB các biến thể của trang hiện tại, giữ nguyên thứ tự của chỉ mục
+    private List<SanPhamChiTietDto> hydrateVariants(List<Long> variantIds) {
+        if (variantIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, SanPhamChiTiet> byId = sanPhamChiTietRepository.findAllById(variantIds).stream()
+                .collect(Collectors.toMap(SanPhamChiTiet::getId, Function.identity()));
+
+        List<SanPhamChiTietDto> dtos = new ArrayList<>(variantIds.size());
+        for (Long id : variantIds) {
+            SanPhamChiTiet entity = byId.get(id);
+            if (entity != null) {
+                SanPhamChiTietDto dto = sanPhamChiTietMapper.toDto(entity);
+                // Chỉ đặt giaKhuyenMai khi thực sự có giảm giá
+                BigDecimal effectivePrice = pricingService.calculateEffectivePrice(entity);
+                dto.setGiaKhuyenMai(effectivePrice != null && entity.getGiaBan() != null
+                        && effectivePrice.compareTo(entity.getGiaBan()) < 0 ? effectivePrice : null);
+                dtos.add(dto);
+            }
+        }
+        return dtos;
+    }
+
+    private static List<VariantFacetResultDto.PriceBucketDto> toPriceBuckets(int[] counts) {
+        long[] bounds = VariantFacetIndex.PRICE_BUCKET_BOUNDS;
+        List<VariantFacetResultDto.PriceBucketDto> buckets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            BigDecimal giaTu = i == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(bounds[i - 1]);
+            BigDecimal giaDen = i < bounds.length ? BigDecimal.valueOf(bounds[i]) : null;
+            buckets.add(new VariantFacetResultDto.PriceBucketDto(giaTu, giaDen, counts[i]));
+        }
+        return buckets;
+    }
+
     // Lấy thông tin chi tiết giá cho một sản phẩm
     @Transactional(readOnly = true)
     public Optional<PricingService.PricingResult> getProductPricingDetails(Long productId) {
@@ -74,12 +162,15 @@ public class SanPhamChiTietService {
     // Thêm sản phẩm mới
     @Transactional
     public SanPhamChiTiet addProduct(SanPhamChiTiet sanPham) {
-        return sanPhamChiTietRepository.save(sanPham);
+        SanPhamChiTiet savedProduct = sanPhamChiTietRepository.save(sanPham);
+        publishCatalogChange(savedProduct, "Thêm biến thể sản phẩm");
+        return savedProduct;
     }
 
     // Cập nhật sản phẩm
+    // Carts holding this variant are evicted by tag after commit (CatalogChangeEvent), not the whole cartData cache
     @Transactional
-    @CacheEvict(value = {"activeSanPhamList", "sanPhamList", "cartData"}, allEntries = true)
+    @CacheEvict(value = {"activeSanPhamList", "sanPhamList"}, allEntries = true)
     public SanPhamChiTiet updateProduct(Long id, SanPhamChiTiet sanPham) {
         return sanPhamChiTietRepository.findById(id).map(existing -> {
             // Capture old prices for audit and notification
@@ -115,6 +206,7 @@ public class SanPhamChiTietService {
                 );
             }
 
+            publishCatalogChange(savedProduct, "Cập nhật biến thể sản phẩm");
             return savedProduct;
         }).orElseThrow(() -> new RuntimeException("Sản phẩm chi tiết không tồn tại"));
     }
@@ -125,6 +217,7 @@ public class SanPhamChiTietService {
         sanPhamChiTietRepository.findById(id).ifPresent(sanPham -> {
             sanPham.setTrangThai(false);
             sanPhamChiTietRepository.save(sanPham);
+            publishCatalogChange(sanPham, "Xóa mềm biến thể sản phẩm");
         });
     }
 
@@ -139,7 +232,9 @@ public class SanPhamChiTietService {
 
         // Note: Audit information is handled by SanPhamChiTietAuditHistory, not inline audit fields
 
-        return sanPhamChiTietRepository.save(existingProduct);
+        SanPhamChiTiet savedProduct = sanPhamChiTietRepository.save(existingProduct);
+        publishCatalogChange(savedProduct, "Cập nhật trạng thái biến thể sản phẩm");
+        return savedProduct;
     }
 
     // Cập nhật giá sản phẩm chi tiết với audit trail và thông báo real-time
@@ -174,4 +269,15 @@ public class SanPhamChiTietService {
         return savedProduct;
     }
 
+    // Thông báo thay đổi danh mục sản phẩm cho chỉ mục lọc (xử lý sau khi commit)
+    private void publishCatalogChange(SanPhamChiTiet variant, String lyDo) {
+        if (variant.getSanPham() == null || variant.getSanPham().getId() == null) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(CatalogChangeEvent.forProducts(Set.of(variant.getSanPham().getId()), lyDo));
+        } catch (Exception e) {
+            log.warn("Failed to publish catalog change for variant {}: {}", variant.getId(), e.getMessage());
+        }
+    }
 }
@@ -16,6 +16,7 @@ import com.lapxpert.backend.sanpham.repository.SanPhamRepository;
 // TODO: Import CacheKeyBuilder for consistent cache key management
 // import com.lapxpert.backend.common.cache.CacheKeyBuilder;
 import com.lapxpert.backend.common.event.InventoryUpdateEvent;
+import com.lapxpert.backend.sanpham.event.CatalogChangeEvent;
 import com.lapxpert.backend.common.service.BusinessEntityService;
 import com.lapxpert.backend.common.service.WebSocketIntegrationService;
 import com.lapxpert.backend.common.util.ExceptionHandlingUtils;
@@ -26,11 +27,15 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -110,10 +115,11 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
             savedSanPham.setSanPhamChiTiets(savedChiTiets);
         }
 
+        publishCatalogChange(Set.of(savedSanPham.getId()), "Tạo sản phẩm với biến thể");
         return sanPhamMapper.toDto(savedSanPham);
     }
 
-    @Cacheable(value = "sanPhamList")
+    @Cacheable(value = "sanPhamList", sync = true)
     @Transactional(readOnly = true)
     public List<SanPhamDto> findAll() {
         // Fixed self-invocation: directly implement instead of calling super.findAll()
@@ -145,29 +151,12 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
                 .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại với ID: " + id));
 
         // Apply promotional pricing to variants if available
-        if (dto.getSanPhamChiTiets() != null && !dto.getSanPhamChiTiets().isEmpty()) {
-            for (SanPhamChiTietDto variantDto : dto.getSanPhamChiTiets()) {
-                // Get the actual entity to calculate promotional pricing
-                SanPhamChiTiet variant = sanPhamChiTietRepository.findById(variantDto.getId()).orElse(null);
-                if (variant != null) {
-                    // Calculate effective price using PricingService (includes DotGiamGia campaigns)
-                    BigDecimal effectivePrice = pricingService.calculateEffectivePrice(variant);
-
-                    // Only set giaKhuyenMai if there's actually a discount
-                    if (effectivePrice.compareTo(variant.getGiaBan()) < 0) {
-                        variantDto.setGiaKhuyenMai(effectivePrice);
-                    } else {
-                        // No discount, clear promotional price
-                        variantDto.setGiaKhuyenMai(null);
-                    }
-                }
-            }
-        }
+        applyPromotionalPricingToProducts(List.of(dto));
 
         return dto;
     }
 
-    @Cacheable(value = "activeSanPhamList")
+    @Cacheable(value = "activeSanPhamList", sync = true)
     @Transactional(readOnly = true)
     public List<SanPhamDto> getActiveProducts() {
         List<SanPham> entities = sanPhamRepository.findAllByTrangThai(true);
@@ -203,29 +192,70 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
         return applyPromotionalPricingToProducts(dtos);
     }
 
+    /**
+     * Ranked, accent-insensitive product search with pagination.
+     * Uses the tim_kiem tsvector column (ts_rank) with a trigram fallback for typos and partial words.
+     */
+    @Transactional(readOnly = true)
+    public Page<SanPhamDto> searchProductsRanked(String tuKhoa, Pageable pageable) {
+        if (tuKhoa == null || tuKhoa.isBlank()) {
+            return Page.empty(pageable);
+        }
+
+        Page<SanPham> entities = sanPhamRepository.searchRanked(tuKhoa.trim(), pageable);
+        List<SanPhamDto> dtos = applyPromotionalPricingToProducts(sanPhamMapper.toDtos(entities.getContent()));
+        return new PageImpl<>(dtos, pageable, entities.getTotalElements());
+    }
+
+    /**
+     * Typo-tolerant product name suggestions for the search box
+     */
+    @Transactional(readOnly = true)
+    public List<String> suggestProductNames(String tuKhoa, int gioiHan) {
+        if (tuKhoa == null || tuKhoa.isBlank()) {
+            return List.of();
+        }
+        return sanPhamRepository.suggestProductNames(tuKhoa.trim(), Math.max(1, Math.min(gioiHan, 20)));
+    }
+
     /**
      * Apply promotional pricing from active DotGiamGia campaigns to product variants
-     * This method calculates effective prices using PricingService and updates giaKhuyenMai field
+     * Effective prices are resolved in bulk from the precomputed price index (no per-variant entity load)
      * @param products List of SanPhamDto to apply promotional pricing to
      * @return List of SanPhamDto with updated promotional prices
      */
     private List<SanPhamDto> applyPromotionalPricingToProducts(List<SanPhamDto> products) {
+        Map<Long, BigDecimal> basePrices = new HashMap<>();
         for (SanPhamDto product : products) {
-            if (product.getSanPhamChiTiets() != null && !product.getSanPhamChiTiets().isEmpty()) {
+            if (product.getSanPhamChiTiets() != null) {
                 for (SanPhamChiTietDto variantDto : product.getSanPhamChiTiets()) {
-                    // Get the actual entity to calculate promotional pricing
-                    SanPhamChiTiet variant = sanPhamChiTietRepository.findById(variantDto.getId()).orElse(null);
-                    if (variant != null) {
-                        // Calculate effective price using PricingService (includes DotGiamGia campaigns)
-                        BigDecimal effectivePrice = pricingService.calculateEffectivePrice(variant);
-
-                        // Only set giaKhuyenMai if there's actually a discount
-                        if (effectivePrice.compareTo(variant.getGiaBan()) < 0) {
-                            variantDto.setGiaKhuyenMai(effectivePrice);
-                        } else {
-                            // No discount, clear promotional price
-                            variantDto.setGiaKhuyenMai(null);
-                        }
+                    if (variantDto.getId() != null && variantDto.getGiaBan() != null) {
+                        basePrices.put(variantDto.getId(), variantDto.getGiaBan());
+                    }
+                }
+            }
+        }
+
+        if (basePrices.isEmpty()) {
+            return products;
+        }
+
+        Map<Long, BigDecimal> effectivePrices = pricingService.resolveEffectivePrices(basePrices);
+
+        for (SanPhamDto product : products) {
+            if (product.getSanPhamChiTiets() != null) {
+                for (SanPhamChiTietDto variantDto : product.getSanPhamChiTiets()) {
+                    BigDecimal effectivePrice = effectivePrices.get(variantDto.getId());
+                    if (effectivePrice == null) {
+                        continue;
+                    }
+
+                    // Only set giaKhuyenMai if there's actually a discount
+                    if (effectivePrice.compareTo(variantDto.getGiaBan()) < 0) {
+                        variantDto.setGiaKhuyenMai(effectivePrice);
+                    } else {
+                        // No discount, clear promotional price
+                        variantDto.setGiaKhuyenMai(null);
                     }
                 }
             }
@@ -392,6 +422,8 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
                 }
             }
 
+            publishCatalogChange(Set.of(entity.getId()), "Tạo sản phẩm mới");
+
             // Send WebSocket notification for product creation
             webSocketIntegrationService.sendProductUpdate(
                 entity.getId().toString(),
@@ -410,6 +442,8 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
     @Override
     protected void publishEntityUpdatedEvent(SanPham entity, SanPham oldEntity) {
         try {
+            publishCatalogChange(Set.of(entity.getId()), "Cập nhật sản phẩm");
+
             // Send WebSocket notification for product update
             webSocketIntegrationService.sendProductUpdate(
                 entity.getId().toString(),
@@ -426,6 +460,8 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
     @Override
     protected void publishEntityDeletedEvent(Long entityId) {
         try {
+            publishCatalogChange(Set.of(entityId), "Xóa mềm sản phẩm");
+
             // Send WebSocket notification for product deletion
             webSocketIntegrationService.sendProductUpdate(
                 entityId.toString(),
@@ -439,6 +475,17 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
         }
     }
 
+    /**
+     * Notify the variant facet index that these products changed (applied after commit)
+     */
+    private void publishCatalogChange(Set<Long> sanPhamIds, String lyDo) {
+        try {
+            eventPublisher.publishEvent(CatalogChangeEvent.forProducts(sanPhamIds, lyDo));
+        } catch (Exception e) {
+            log.warn("Failed to publish catalog change for products {}: {}", sanPhamIds, e.getMessage());
+        }
+    }
+
     @Override
     protected void validateBusinessRules(SanPham entity) {
         // Validate product-specific business rules
@@ -660,6 +707,7 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
         );
         auditHistoryRepository.save(auditEntry);
 
+        publishCatalogChange(Set.of(savedProduct.getId()), "Cập nhật sản phẩm với biến thể");
         return sanPhamMapper.toDto(savedProduct);
     }
 
@@ -823,6 +871,7 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
     public BatchOperationResult updateMultipleProductStatus(List<Long> productIds, Boolean trangThai, String lyDoThayDoi) {
         int successCount = 0;
         int failureCount = 0;
+        Set<Long> updatedIds = new HashSet<>();
 
         for (Long productId : productIds) {
             try {
@@ -850,11 +899,16 @@ public class SanPhamService extends BusinessEntityService<SanPham, Long, SanPham
                     }
                 );
                 successCount++;
+                updatedIds.add(productId);
             } catch (Exception e) {
                 failureCount++;
             }
         }
 
+        if (!updatedIds.isEmpty()) {
+            publishCatalogChange(updatedIds, "Cập nhật trạng thái hàng loạt");
+        }
+
         String message = String.format("Đã cập nhật %d sản phẩm thành công", successCount);
         if (failureCount > 0) {
             message += String.format(", %d sản phẩm thất bại", failureCount);
@@ -0,0 +1,749 @@
+package com.lapxpert.backend.sanpham.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lapxpert.backend.sanpham.event.CatalogChangeEvent;
+import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In-memory faceted filter index over active product variants.
+ *
+ * Every active variant of an active product gets a dense ordinal; each attribute value (brand, category,
+ * CPU, RAM, GPU, screen, storage, color) and each price bucket owns a bitmap of the ordinals that carry it.
+ * A filter is an OR within one facet and an AND across facets, so a listing is a handful of bitmap
+ * intersections and every facet count is the cardinality of (value bitmap AND other filters).
+ * Only the requested page of variant IDs leaves the index; the caller hydrates those from the database.
+ *
+ * Consistency:
+ * - Catalog changes arrive as CatalogChangeEvent after commit and refresh only the affected products
+ * - Effective price changes are pushed by EffectivePriceIndex, so price buckets follow campaign boundaries
+ * - Local catalog changes are broadcast on CATALOG_FACET_CHANNEL for other instances
+ * - A periodic full rebuild compacts ordinals freed by removed variants
+ *
+ * Writers build a new snapshot (copying only the bitmaps they touch) and swap the volatile reference,
+ * so readers never lock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VariantFacetIndex {
+
+    public static final String CATALOG_FACET_CHANNEL = "lapxpert:catalog:facets";
+
+    /**
+     * Upper bounds (exclusive, VND) of the price buckets; the last bucket is open-ended
+     */
+    public static final long[] PRICE_BUCKET_BOUNDS = {
+            15_000_000L, 20_000_000L, 25_000_000L, 30_000_000L, 40_000_000L
+    };
+
+    private static final int REFRESH_BATCH_SIZE = 500;
+    private static final long NO_VALUE = 0L;
+    private static final long UNKNOWN_PRICE = -1L;
+
+    private final SanPhamChiTietRepository sanPhamChiTietRepository;
+    private final EffectivePriceIndex effectivePriceIndex;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot snapshot = Snapshot.empty();
+    private volatile boolean initialized = false;
+
+    /**
+     * Filterable variant attributes; rowColumn is the position in the facet rows, -1 for categories
+     */
+    @Getter
+    public enum Facet {
+        THUONG_HIEU("thuongHieu", 2),
+        DANH_MUC("danhMuc", -1),
+        CPU("cpu", 3),
+        RAM("ram", 4),
+        GPU("gpu", 5),
+        MAN_HINH("manHinh", 6),
+        BO_NHO("boNho", 7),
+        MAU_SAC("mauSac", 8);
+
+        private final String key;
+        private final int rowColumn;
+
+        Facet(String key, int rowColumn) {
+            this.key = key;
+            this.rowColumn = rowColumn;
+        }
+
+        boolean isSingleValued() {
+            return rowColumn >= 0;
+        }
+    }
+
+    /**
+     * Result of a facet query: one page of variant IDs plus counts for every facet value
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class FacetResult {
+        private final List<Long> variantIds;
+        private final int totalMatches;
+        private final Map<Facet, Map<Long, Integer>> facetCounts;
+        private final int[] priceBucketCounts;
+    }
+
+    /**
+     * Catalog change message broadcast to other nodes
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CatalogFacetMessage {
+        private String nodeId;
+        private Set<Long> sanPhamIds;
+    }
+
+    // ==================== QUERY ====================
+
+    /**
+     * Filter active variants and count facet values.
+     *
+     * Counts are disjunctive: the counts of a facet ignore that facet's own selection, so a shopper who picked
+     * "RAM 16GB" still sees how many variants "RAM 32GB" would add.
+     *
+     * @param selections selected value IDs per facet; missing or empty means "any"
+     * @param giaToiThieu minimum effective price (inclusive), or null
+     * @param giaToiDa maximum effective price (inclusive), or null
+     * @param offset number of matches to skip
+     * @param limit page size
+     */
+    public FacetResult query(Map<Facet, ? extends Collection<Long>> selections,
+                             BigDecimal giaToiThieu, BigDecimal giaToiDa, int offset, int limit) {
+        Snapshot current = snapshot;
+
+        Map<Facet, BitSet> unions = new EnumMap<>(Facet.class);
+        if (selections != null) {
+            selections.forEach((facet, valueIds) -> {
+                if (valueIds != null && !valueIds.isEmpty()) {
+                    unions.put(facet, current.union(facet, valueIds));
+                }
+            });
+        }
+        BitSet priceMask = (giaToiThieu != null || giaToiDa != null)
+                ? current.priceRange(toVnd(giaToiThieu, 0L), toVnd(giaToiDa, Long.MAX_VALUE))
+                : null;
+
+        BitSet withoutPrice = current.intersect(unions, null);
+        BitSet matches = (BitSet) withoutPrice.clone();
+        if (priceMask != null) {
+            matches.and(priceMask);
+        }
+
+        Map<Facet, Map<Long, Integer>> facetCounts = new EnumMap<>(Facet.class);
+        BitSet scratch = new BitSet(current.size);
+        for (Facet facet : Facet.values()) {
+            BitSet mask = matches;
+            if (unions.containsKey(facet)) {
+                mask = current.intersect(unions, facet);
+                if (priceMask != null) {
+                    mask.and(priceMask);
+                }
+            }
+            facetCounts.put(facet, current.countValues(facet, mask, scratch));
+        }
+
+        int[] priceBucketCounts = new int[current.priceBuckets.length];
+        for (int i = 0; i < priceBucketCounts.length; i++) {
+            priceBucketCounts[i] = intersectionCount(current.priceBuckets[i], withoutPrice, scratch);
+        }
+
+        return new FacetResult(current.page(matches, offset, limit), matches.cardinality(),
+                facetCounts, priceBucketCounts);
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public int size() {
+        return snapshot.active.cardinality();
+    }
+
+    /**
+     * Bucket index of a price in VND (see PRICE_BUCKET_BOUNDS)
+     */
+    public static int priceBucket(long giaVnd) {
+        int bucket = 0;
+        while (bucket < PRICE_BUCKET_BOUNDS.length && giaVnd >= PRICE_BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static int intersectionCount(BitSet a, BitSet b, BitSet scratch) {
+        scratch.clear();
+        scratch.or(a);
+        scratch.and(b);
+        return scratch.cardinality();
+    }
+
+    private static long toVnd(BigDecimal price, long defaultValue) {
+        return price == null ? defaultValue : price.setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    // ==================== BUILD / REFRESH ====================
+
+    /**
+     * Rebuild the whole index with two queries and swap it in atomically
+     */
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        List<Object[]> rows = sanPhamChiTietRepository.findFacetRows();
+        List<Object[]> danhMucRows = sanPhamChiTietRepository.findDanhMucRows();
+
+        Snapshot.Builder builder = Snapshot.empty().toBuilder();
+        builder.setDanhMucs(groupDanhMucs(danhMucRows));
+        for (Object[] row : rows) {
+            builder.put(row, currentPrice((Long) row[0], (BigDecimal) row[9]));
+        }
+        Snapshot rebuilt = builder.build();
+
+        synchronized (writeLock) {
+            snapshot = rebuilt;
+            initialized = true;
+        }
+
+        log.info("Rebuilt variant facet index with {} variants ({}ms)",
+                rows.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Reload the variants of specific products and merge them into a new snapshot
+     */
+    public void refreshProducts(Collection<Long> sanPhamIds) {
+        if (sanPhamIds == null || sanPhamIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>(sanPhamIds);
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> danhMucRows = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += REFRESH_BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(i + REFRESH_BATCH_SIZE, ids.size()));
+            rows.addAll(sanPhamChiTietRepository.findFacetRowsBySanPhamIds(batch));
+            danhMucRows.addAll(sanPhamChiTietRepository.findDanhMucRowsBySanPhamIds(batch));
+        }
+        Map<Long, long[]> danhMucs = groupDanhMucs(danhMucRows);
+
+        synchronized (writeLock) {
+            Snapshot.Builder builder = snapshot.toBuilder();
+            for (Long sanPhamId : ids) {
+                builder.removeProduct(sanPhamId);
+                builder.setDanhMucs(sanPhamId, danhMucs.get(sanPhamId));
+            }
+            for (Object[] row : rows) {
+                builder.put(row, currentPrice((Long) row[0], (BigDecimal) row[9]));
+            }
+            snapshot = builder.build();
+        }
+
+        log.debug("Refreshed {} products ({} variants) in variant facet index", ids.size(), rows.size());
+    }
+
+    /**
+     * Re-read effective prices from EffectivePriceIndex; an empty set means every indexed variant
+     */
+    void refreshPrices(Set<Long> variantIds) {
+        if (!initialized) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            Snapshot.Builder builder = snapshot.toBuilder();
+            if (variantIds.isEmpty()) {
+                for (int ordinal = builder.active.nextSetBit(0); ordinal >= 0;
+                     ordinal = builder.active.nextSetBit(ordinal + 1)) {
+                    builder.setPrice(ordinal, currentPrice(builder.variantIds[ordinal], null));
+                }
+            } else {
+                for (Long variantId : variantIds) {
+                    Integer ordinal = builder.ordinals.get(variantId);
+                    if (ordinal != null && builder.active.get(ordinal)) {
+                        builder.setPrice(ordinal, currentPrice(variantId, null));
+                    }
+                }
+            }
+            snapshot = builder.build();
+        }
+    }
+
+    /**
+     * Effective price in VND, falling back to the base price when the price index has no entry
+     */
+    private long currentPrice(Long variantId, BigDecimal giaBan) {
+        return effectivePriceIndex.lookup(variantId)
+                .map(entry -> toVnd(entry.getEffectivePrice(), UNKNOWN_PRICE))
+                .orElse(giaBan != null ? toVnd(giaBan, UNKNOWN_PRICE) : UNKNOWN_PRICE);
+    }
+
+    private static Map<Long, long[]> groupDanhMucs(List<Object[]> rows) {
+        Map<Long, List<Long>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+        }
+        Map<Long, long[]> result = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((sanPhamId, danhMucIds) ->
+                result.put(sanPhamId, danhMucIds.stream().mapToLong(Long::longValue).toArray()));
+        return result;
+    }
+
+    // ==================== EVENTS ====================
+
+    @PostConstruct
+    void registerPriceListener() {
+        effectivePriceIndex.addChangeListener(this::refreshPrices);
+    }
+
+    /**
+     * Build the index once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to build variant facet index on startup: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Handle catalog changes after the owning transaction commits
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCatalogChange(CatalogChangeEvent event) {
+        try {
+            Set<Long> sanPhamIds = event.requiresFullRebuild() ? Set.of() : Set.copyOf(event.getSanPhamIds());
+            applyChange(sanPhamIds);
+            broadcastChange(sanPhamIds);
+            log.debug("Applied catalog change to variant facet index: {}", event.getLyDo());
+        } catch (Exception e) {
+            log.error("Failed to apply catalog change to variant facet index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Handle catalog change messages from other nodes (registered in RedisPubSubConfig)
+     */
+    public void handleCatalogFacetMessage(String messageJson, String channel) {
+        try {
+            CatalogFacetMessage message = objectMapper.readValue(messageJson, CatalogFacetMessage.class);
+            if (nodeId.equals(message.getNodeId())) {
+                return;
+            }
+            applyChange(message.getSanPhamIds() != null ? message.getSanPhamIds() : Set.of());
+        } catch (Exception e) {
+            log.error("Error processing catalog facet message from channel {}: {}", channel, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compact ordinals left behind by removed variants and pick up changes from lost messages
+     */
+    @Scheduled(fixedDelay = 1800000, initialDelay = 1800000)
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Scheduled variant facet index rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    private void applyChange(Set<Long> sanPhamIds) {
+        if (sanPhamIds.isEmpty() || !initialized) {
+            rebuild();
+        } else {
+            refreshProducts(sanPhamIds);
+        }
+    }
+
+    private void broadcastChange(Set<Long> sanPhamIds) {
+        try {
+            redisTemplate.convertAndSend(CATALOG_FACET_CHANNEL,
+                    objectMapper.writeValueAsString(new CatalogFacetMessage(nodeId, sanPhamIds)));
+        } catch (Exception e) {
+            log.warn("Failed to broadcast variant facet index change: {}", e.getMessage());
+        }
+    }
+
+    // ==================== SNAPSHOT ====================
+
+    /**
+     * Immutable index state. Ordinals are assigned in variant ID order on rebuild and appended afterwards;
+     * ordinals of removed variants stay cleared in every bitmap until the next rebuild.
+     */
+    private static final class Snapshot {
+        private final int size;
+        private final long[] variantIds;
+        private final Map<Long, Integer> ordinals;
+        private final long[] sanPhamIds;
+        private final Map<Facet, long[]> values;
+        private final long[] prices;
+        private final BitSet active;
+        private final Map<Facet, Map<Long, BitSet>> postings;
+        private final BitSet[] priceBuckets;
+        private final Map<Long, long[]> danhMucs;
+        private final Map<Long, int[]> productOrdinals;
+
+        private Snapshot(Builder builder) {
+            this.size = builder.size;
+            this.variantIds = builder.variantIds;
+            this.ordinals = builder.ordinals;
+            this.sanPhamIds = builder.sanPhamIds;
+            this.values = builder.values;
+            this.prices = builder.prices;
+            this.active = builder.active;
+            this.postings = builder.postings;
+            this.priceBuckets = builder.priceBuckets;
+            this.danhMucs = builder.danhMucs;
+            this.productOrdinals = builder.productOrdinals;
+        }
+
+        static Snapshot empty() {
+            return new Builder().build();
+        }
+
+        Builder toBuilder() {
+            return new Builder(this);
+        }
+
+        BitSet union(Facet facet, Collection<Long> valueIds) {
+            BitSet union = new BitSet(size);
+            Map<Long, BitSet> facetPostings = postings.get(facet);
+            for (Long valueId : valueIds) {
+                BitSet posting = facetPostings.get(valueId);
+                if (posting != null) {
+                    union.or(posting);
+                }
+            }
+            return union;
+        }
+
+        /**
+         * AND of the active set and every facet union except the excluded facet
+         */
+        BitSet intersect(Map<Facet, BitSet> unions, Facet excluded) {
+            BitSet result = (BitSet) active.clone();
+            unions.forEach((facet, union) -> {
+                if (facet != excluded) {
+                    result.and(union);
+                }
+            });
+            return result;
+        }
+
+        /**
+         * Active ordinals whose effective price lies in [min, max]; whole buckets are OR-ed, edge buckets scanned
+         */
+        BitSet priceRange(long min, long max) {
+            BitSet result = new BitSet(size);
+            int first = priceBucket(min);
+            int last = priceBucket(max);
+            for (int bucket = first; bucket <= last; bucket++) {
+                boolean whole = (bucket > first || bucketStart(bucket) >= min) &&
+                        (bucket < last || bucketEnd(bucket) <= max);
+                if (whole) {
+                    result.or(priceBuckets[bucket]);
+                    continue;
+                }
+                BitSet candidates = priceBuckets[bucket];
+                for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                    if (prices[i] >= min && prices[i] <= max) {
+                        result.set(i);
+                    }
+                }
+            }
+            return result;
+        }
+
+        Map<Long, Integer> countValues(Facet facet, BitSet mask, BitSet scratch) {
+            Map<Long, Integer> counts = new LinkedHashMap<>();
+            postings.get(facet).forEach((valueId, posting) -> {
+                int count = intersectionCount(posting, mask, scratch);
+                if (count > 0) {
+                    counts.put(valueId, count);
+                }
+            });
+            return counts;
+        }
+
+        List<Long> page(BitSet matches, int offset, int limit) {
+            if (limit <= 0) {
+                return List.of();
+            }
+            List<Long> page = new ArrayList<>(Math.min(limit, 128));
+            int skipped = 0;
+            for (int i = matches.nextSetBit(0); i >= 0 && page.size() < limit; i = matches.nextSetBit(i + 1)) {
+                if (skipped++ >= offset) {
+                    page.add(variantIds[i]);
+                }
+            }
+            return page;
+        }
+
+        private static long bucketStart(int bucket) {
+            return bucket == 0 ? 0L : PRICE_BUCKET_BOUNDS[bucket - 1];
+        }
+
+        private static long bucketEnd(int bucket) {
+            return bucket < PRICE_BUCKET_BOUNDS.length ? PRICE_BUCKET_BOUNDS[bucket] - 1 : Long.MAX_VALUE;
+        }
+
+        /**
+         * Copy-on-write builder: arrays and maps are copied once, bitmaps only when first modified
+         */
+        private static final class Builder {
+            private int size;
+            private long[] variantIds;
+            private final Map<Long, Integer> ordinals;
+            private long[] sanPhamIds;
+            private final Map<Facet, long[]> values;
+            private long[] prices;
+            private final BitSet active;
+            private final Map<Facet, Map<Long, BitSet>> postings;
+            private final BitSet[] priceBuckets;
+            private final Map<Long, long[]> danhMucs;
+            private final Map<Long, int[]> productOrdinals;
+            private final Set<BitSet> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            private Builder() {
+                this.variantIds = new long[16];
+                this.ordinals = new HashMap<>();
+                this.sanPhamIds = new long[16];
+                this.values = new EnumMap<>(Facet.class);
+                this.prices = new long[16];
+                Arrays.fill(prices, UNKNOWN_PRICE);
+                this.active = new BitSet();
+                this.postings = new EnumMap<>(Facet.class);
+                for (Facet facet : Facet.values()) {
+                    postings.put(facet, new HashMap<>());
+                    if (facet.isSingleValued()) {
+                        values.put(facet, new long[16]);
+                    }
+                }
+                this.priceBuckets = new BitSet[PRICE_BUCKET_BOUNDS.length + 1];
+                for (int i = 0; i < priceBuckets.length; i++) {
+                    priceBuckets[i] = own(new BitSet());
+                }
+                this.danhMucs = new HashMap<>();
+                this.productOrdinals = new HashMap<>();
+            }
+
+            private Builder(Snapshot source) {
+                this.size = source.size;
+                this.variantIds = source.variantIds.clone();
+                this.ordinals = new HashMap<>(source.ordinals);
+                this.sanPhamIds = source.sanPhamIds.clone();
+                this.values = new EnumMap<>(Facet.class);
+                source.values.forEach((facet, array) -> values.put(facet, array.clone()));
+                this.prices = source.prices.clone();
+                this.active = own((BitSet) source.active.clone());
+                this.postings = new EnumMap<>(Facet.class);
+                source.postings.forEach((facet, map) -> postings.put(facet, new HashMap<>(map)));
+                this.priceBuckets = source.priceBuckets.clone();
+                this.danhMucs = new HashMap<>(source.danhMucs);
+                this.productOrdinals = new HashMap<>(source.productOrdinals);
+            }
+
+            void setDanhMucs(Map<Long, long[]> all) {
+                danhMucs.putAll(all);
+            }
+
+            void setDanhMucs(Long sanPhamId, long[] danhMucIds) {
+                if (danhMucIds == null) {
+                    danhMucs.remove(sanPhamId);
+                } else {
+                    danhMucs.put(sanPhamId, danhMucIds);
+                }
+            }
+
+            /**
+             * Index one facet row [variantId, sanPhamId, thuongHieuId, cpuId, ramId, gpuId, manHinhId,
+             * boNhoId, mauSacId, giaBan]; categories must be set for the product first
+             */
+            void put(Object[] row, long price) {
+                Long variantId = (Long) row[0];
+                Long sanPhamId = (Long) row[1];
+
+                Integer existing = ordinals.get(variantId);
+                int ordinal;
+                if (existing != null) {
+                    ordinal = existing;
+                    clear(ordinal);
+                } else {
+                    ordinal = size++;
+                    ensureCapacity(size);
+                    variantIds[ordinal] = variantId;
+                    ordinals.put(variantId, ordinal);
+                }
+
+                sanPhamIds[ordinal] = sanPhamId;
+                active.set(ordinal);
+                int[] productOrdinalArray = productOrdinals.getOrDefault(sanPhamId, new int[0]);
+                if (indexOf(productOrdinalArray, ordinal) < 0) {
+                    int[] grown = Arrays.copyOf(productOrdinalArray, productOrdinalArray.length + 1);
+                    grown[productOrdinalArray.length] = ordinal;
+                    productOrdinals.put(sanPhamId, grown);
+                }
+
+                for (Facet facet : Facet.values()) {
+                    if (facet.isSingleValued()) {
+                        Long valueId = (Long) row[facet.getRowColumn()];
+                        values.get(facet)[ordinal] = valueId != null ? valueId : NO_VALUE;
+                        if (valueId != null) {
+                            posting(facet, valueId).set(ordinal);
+                        }
+                    }
+                }
+                for (long danhMucId : danhMucs.getOrDefault(sanPhamId, new long[0])) {
+                    posting(Facet.DANH_MUC, danhMucId).set(ordinal);
+                }
+                setPrice(ordinal, price);
+            }
+
+            /**
+             * Drop every variant of a product from all bitmaps
+             */
+            void removeProduct(Long sanPhamId) {
+                int[] productOrdinalArray = productOrdinals.remove(sanPhamId);
+                if (productOrdinalArray == null) {
+                    return;
+                }
+                for (int ordinal : productOrdinalArray) {
+                    if (sanPhamIds[ordinal] == sanPhamId) {
+                        clear(ordinal);
+                    }
+                }
+            }
+
+            void setPrice(int ordinal, long price) {
+                if (prices[ordinal] != UNKNOWN_PRICE && active.get(ordinal)) {
+                    mutableBucket(priceBucket(prices[ordinal])).clear(ordinal);
+                }
+                prices[ordinal] = price;
+                if (price != UNKNOWN_PRICE) {
+                    mutableBucket(priceBucket(price)).set(ordinal);
+                }
+            }
+
+            private void clear(int ordinal) {
+                if (!active.get(ordinal)) {
+                    return;
+                }
+                for (Facet facet : Facet.values()) {
+                    if (facet.isSingleValued()) {
+                        long valueId = values.get(facet)[ordinal];
+                        if (valueId != NO_VALUE) {
+                            posting(facet, valueId).clear(ordinal);
+                        }
+                    }
+                }
+                for (long danhMucId : danhMucs.getOrDefault(sanPhamIds[ordinal], new long[0])) {
+                    posting(Facet.DANH_MUC, danhMucId).clear(ordinal);
+                }
+                if (prices[ordinal] != UNKNOWN_PRICE) {
+                    mutableBucket(priceBucket(prices[ordinal])).clear(ordinal);
+                    prices[ordinal] = UNKNOWN_PRICE;
+                }
+                active.clear(ordinal);
+
+                int[] productOrdinalArray = productOrdinals.get(sanPhamIds[ordinal]);
+                int position = productOrdinalArray != null ? indexOf(productOrdinalArray, ordinal) : -1;
+                if (position >= 0) {
+                    int[] shrunk = new int[productOrdinalArray.length - 1];
+                    System.arraycopy(productOrdinalArray, 0, shrunk, 0, position);
+                    System.arraycopy(productOrdinalArray, position + 1, shrunk, position, shrunk.length - position);
+                    productOrdinals.put(sanPhamIds[ordinal], shrunk);
+                }
+            }
+
+            private BitSet posting(Facet facet, long valueId) {
+                Map<Long, BitSet> facetPostings = postings.get(facet);
+                BitSet posting = facetPostings.get(valueId);
+                if (posting == null) {
+                    posting = own(new BitSet());
+                } else if (!owned.contains(posting)) {
+                    posting = own((BitSet) posting.clone());
+                }
+                facetPostings.put(valueId, posting);
+                return posting;
+            }
+
+            private BitSet mutableBucket(int bucket) {
+                if (!owned.contains(priceBuckets[bucket])) {
+                    priceBuckets[bucket] = own((BitSet) priceBuckets[bucket].clone());
+                }
+                return priceBuckets[bucket];
+            }
+
+            private BitSet own(BitSet bitSet) {
+                owned.add(bitSet);
+                return bitSet;
+            }
+
+            private void ensureCapacity(int required) {
+                if (required <= variantIds.length) {
+                    return;
+                }
+                int capacity = Math.max(required, variantIds.length * 2);
+                variantIds = Arrays.copyOf(variantIds, capacity);
+                sanPhamIds = Arrays.copyOf(sanPhamIds, capacity);
+                long[] grownPrices = Arrays.copyOf(prices, capacity);
+                Arrays.fill(grownPrices, prices.length, capacity, UNKNOWN_PRICE);
+                prices = grownPrices;
+                values.replaceAll((facet, array) -> Arrays.copyOf(array, capacity));
+            }
+
+            private static int indexOf(int[] array, int value) {
+                for (int i = 0; i < array.length; i++) {
+                    if (array[i] == value) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+
+            Snapshot build() {
+                postings.values().forEach(map -> map.values().removeIf(BitSet::isEmpty));
+                return new Snapshot(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.lapxpert.backend.thongbao.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One notification send (e.g. a new public voucher announcement).
+ * Subject and body are rendered once per batch and locale and shared by every queued recipient.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "email_dot_gui")
+public class EmailDotGui {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_dot_gui_id_gen")
+    @SequenceGenerator(name = "email_dot_gui_id_gen", sequenceName = "email_dot_gui_id_seq", allocationSize = 1)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    /**
+     * Notification type, e.g. PHIEU_GIAM_GIA_MOI
+     */
+    @Column(name = "loai_thong_bao", nullable = false, length = 50)
+    private String loaiThongBao;
+
+    /**
+     * Business reference of the notification (voucher or campaign code)
+     */
+    @Column(name = "ma_tham_chieu", length = 100)
+    private String maThamChieu;
+
+    @Column(name = "ngon_ngu", nullable = false, length = 10)
+    @Builder.Default
+    private String ngonNgu = "vi";
+
+    @Column(name = "tieu_de", nullable = false, length = 255)
+    private String tieuDe;
+
+    @Column(name = "noi_dung", nullable = false, length = Integer.MAX_VALUE)
+    private String noiDung;
+
+    /**
+     * Recipients queued for this batch
+     */
+    @Column(name = "so_nguoi_nhan", nullable = false)
+    @Builder.Default
+    private Integer soNguoiNhan = 0;
+
+    @Column(name = "ngay_tao", nullable = false)
+    private Instant ngayTao;
+
+    @PrePersist
+    public void onPrePersist() {
+        if (ngayTao == null) {
+            ngayTao = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.lapxpert.backend.thongbao.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcType;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.dialect.PostgreSQLEnumJdbcType;
+
+import java.time.Instant;
+
+/**
+ * Durable email queue entry: one recipient of an EmailDotGui with its delivery status.
+ * Rows are inserted in bulk by EmailNguoiNhanRepository and drained by EmailDispatcher.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_nguoi_nhan")
+public class EmailNguoiNhan {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "dot_gui_id", nullable = false)
+    private EmailDotGui dotGui;
+
+    @Column(name = "nguoi_dung_id")
+    private Long nguoiDungId;
+
+    @Column(name = "email", nullable = false, length = 255)
+    private String email;
+
+    @Column(name = "trang_thai", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    private TrangThaiGuiEmail trangThai;
+
+    @Column(name = "so_lan_thu", nullable = false)
+    private Integer soLanThu;
+
+    /**
+     * Earliest time of the next attempt; while DANG_GUI, the end of the claim lease
+     */
+    @Column(name = "thoi_diem_thu_tiep", nullable = false)
+    private Instant thoiDiemThuTiep;
+
+    /**
+     * Claim token of the dispatcher run currently sending this row
+     */
+    @Column(name = "ma_xu_ly", length = 36)
+    private String maXuLy;
+
+    @Column(name = "loi_cuoi", length = 500)
+    private String loiCuoi;
+
+    @Column(name = "ngay_gui")
+    private Instant ngayGui;
+
+    @Column(name = "ngay_tao", nullable = false)
+    private Instant ngayTao;
+}
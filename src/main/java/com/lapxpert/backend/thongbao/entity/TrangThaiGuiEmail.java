@@ -0,0 +1,29 @@
+package com.lapxpert.backend.thongbao.entity;
+
+/**
+ * Delivery status of one queued email recipient
+ */
+public enum TrangThaiGuiEmail {
+    CHO_GUI("Chờ gửi"),
+    DANG_GUI("Đang gửi"),
+    DA_GUI("Đã gửi"),
+    THAT_BAI("Thất bại");
+
+    private final String description;
+
+    TrangThaiGuiEmail(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Check if no further delivery attempt will be made
+     * @return true if sent or permanently failed
+     */
+    public boolean isFinal() {
+        return this == DA_GUI || this == THAT_BAI;
+    }
+}
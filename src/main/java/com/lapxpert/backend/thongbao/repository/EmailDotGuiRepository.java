@@ -0,0 +1,9 @@
+package com.lapxpert.backend.thongbao.repository;
+
+import com.lapxpert.backend.thongbao.entity.EmailDotGui;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailDotGuiRepository extends JpaRepository<EmailDotGui, Long> {
+}
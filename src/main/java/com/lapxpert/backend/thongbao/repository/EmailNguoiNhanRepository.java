@@ -0,0 +1,154 @@
+package com.lapxpert.backend.thongbao.repository;
+
+import com.lapxpert.backend.thongbao.entity.EmailNguoiNhan;
+import com.lapxpert.backend.thongbao.entity.TrangThaiGuiEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailNguoiNhanRepository extends JpaRepository<EmailNguoiNhan, Long> {
+
+    /**
+     * Queue every active customer with an email address, filtered and copied inside the database
+     * @return number of recipients queued
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO email_nguoi_nhan (id, dot_gui_id, nguoi_dung_id, email, trang_thai, so_lan_thu, thoi_diem_thu_tiep, ngay_tao)
+        SELECT nextval('email_nguoi_nhan_id_seq'), :dotGuiId, n.id, n.email, 'CHO_GUI', 0, :now, :now
+        FROM nguoi_dung n
+        WHERE n.vai_tro = 'CUSTOMER' AND n.trang_thai = 'HOAT_DONG'
+        AND n.email IS NOT NULL AND n.email <> ''
+        ON CONFLICT (dot_gui_id, email) DO NOTHING
+        """, nativeQuery = true)
+    int enqueueActiveCustomers(@Param("dotGuiId") Long dotGuiId, @Param("now") Instant now);
+
+    /**
+     * Queue the active customers assigned to a private voucher
+     * @return number of recipients queued
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO email_nguoi_nhan (id, dot_gui_id, nguoi_dung_id, email, trang_thai, so_lan_thu, thoi_diem_thu_tiep, ngay_tao)
+        SELECT nextval('email_nguoi_nhan_id_seq'), :dotGuiId, n.id, n.email, 'CHO_GUI', 0, :now, :now
+        FROM phieu_giam_gia_nguoi_dung a
+        JOIN nguoi_dung n ON n.id = a.nguoi_dung_id
+        WHERE a.phieu_giam_gia_id = :phieuGiamGiaId AND n.trang_thai = 'HOAT_DONG'
+        AND n.email IS NOT NULL AND n.email <> ''
+        ON CONFLICT (dot_gui_id, email) DO NOTHING
+        """, nativeQuery = true)
+    int enqueueVoucherAssignees(@Param("dotGuiId") Long dotGuiId,
+                                @Param("phieuGiamGiaId") Long phieuGiamGiaId,
+                                @Param("now") Instant now);
+
+    /**
+     * Queue the given users
+     * @return number of recipients queued
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO email_nguoi_nhan (id, dot_gui_id, nguoi_dung_id, email, trang_thai, so_lan_thu, thoi_diem_thu_tiep, ngay_tao)
+        SELECT nextval('email_nguoi_nhan_id_seq'), :dotGuiId, n.id, n.email, 'CHO_GUI', 0, :now, :now
+        FROM nguoi_dung n
+        WHERE n.id IN (:nguoiDungIds)
+        AND n.email IS NOT NULL AND n.email <> ''
+        ON CONFLICT (dot_gui_id, email) DO NOTHING
+        """, nativeQuery = true)
+    int enqueueUsers(@Param("dotGuiId") Long dotGuiId,
+                     @Param("nguoiDungIds") Collection<Long> nguoiDungIds,
+                     @Param("now") Instant now);
+
+    /**
+     * Claim due recipients for one dispatcher run.
+     * Picks pending rows whose retry time has come and in-flight rows whose lease expired (crashed sender);
+     * SKIP LOCKED lets several nodes drain the queue without sending a row twice.
+     * Every claim counts as an attempt, so a row that keeps crashing its sender runs out of attempts too.
+     * @return number of rows claimed under the token
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE email_nguoi_nhan SET trang_thai = 'DANG_GUI', ma_xu_ly = :token, thoi_diem_thu_tiep = :leaseUntil,
+            so_lan_thu = so_lan_thu + 1
+        WHERE id IN (
+            SELECT id FROM email_nguoi_nhan
+            WHERE trang_thai IN ('CHO_GUI', 'DANG_GUI') AND thoi_diem_thu_tiep <= :now
+            AND so_lan_thu < :maxAttempts
+            ORDER BY thoi_diem_thu_tiep
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        )
+        """, nativeQuery = true)
+    int claimDue(@Param("token") String token,
+                 @Param("now") Instant now,
+                 @Param("leaseUntil") Instant leaseUntil,
+                 @Param("maxAttempts") int maxAttempts,
+                 @Param("limit") int limit);
+
+    /**
+     * Give up on due rows that used every attempt without recording an outcome (sender crashed each time)
+     * @return number of rows marked THAT_BAI
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        UPDATE email_nguoi_nhan SET trang_thai = 'THAT_BAI', ma_xu_ly = NULL, loi_cuoi = COALESCE(loi_cuoi, :loiCuoi)
+        WHERE trang_thai IN ('CHO_GUI', 'DANG_GUI') AND thoi_diem_thu_tiep <= :now
+        AND so_lan_thu >= :maxAttempts
+        """, nativeQuery = true)
+    int deadLetterExhausted(@Param("now") Instant now,
+                            @Param("maxAttempts") int maxAttempts,
+                            @Param("loiCuoi") String loiCuoi);
+
+    /**
+     * Rows claimed under a token, with their batch (subject and body)
+     */
+    @Query("SELECT r FROM EmailNguoiNhan r JOIN FETCH r.dotGui WHERE r.maXuLy = :token")
+    List<EmailNguoiNhan> findClaimed(@Param("token") String token);
+
+    /**
+     * Mark claimed rows as delivered; rows re-claimed by another run after a lease expiry are left alone
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE EmailNguoiNhan r SET r.trangThai = :sent, r.ngayGui = :ngayGui, r.maXuLy = NULL, r.loiCuoi = NULL
+        WHERE r.id IN :ids AND r.maXuLy = :token
+        """)
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("token") String token,
+                 @Param("ngayGui") Instant ngayGui,
+                 @Param("sent") TrangThaiGuiEmail sent);
+
+    /**
+     * Record a failed attempt: back to CHO_GUI with the next retry time, or THAT_BAI when out of attempts
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE EmailNguoiNhan r SET r.trangThai = :trangThai, r.soLanThu = :soLanThu,
+            r.thoiDiemThuTiep = :thoiDiemThuTiep, r.loiCuoi = :loiCuoi, r.maXuLy = NULL
+        WHERE r.id = :id AND r.maXuLy = :token
+        """)
+    int recordFailure(@Param("id") Long id,
+                      @Param("token") String token,
+                      @Param("trangThai") TrangThaiGuiEmail trangThai,
+                      @Param("soLanThu") Integer soLanThu,
+                      @Param("thoiDiemThuTiep") Instant thoiDiemThuTiep,
+                      @Param("loiCuoi") String loiCuoi);
+
+    /**
+     * Delivery status counts of a batch.
+     * Each row: [trangThai, count]
+     */
+    @Query("SELECT r.trangThai, COUNT(r) FROM EmailNguoiNhan r WHERE r.dotGui.id = :dotGuiId GROUP BY r.trangThai")
+    List<Object[]> countByTrangThai(@Param("dotGuiId") Long dotGuiId);
+}
@@ -0,0 +1,234 @@
+package com.lapxpert.backend.thongbao.service;
+
+import com.lapxpert.backend.common.service.EmailService;
+import com.lapxpert.backend.thongbao.entity.EmailDotGui;
+import com.lapxpert.backend.thongbao.entity.EmailNguoiNhan;
+import com.lapxpert.backend.thongbao.entity.TrangThaiGuiEmail;
+import com.lapxpert.backend.thongbao.repository.EmailNguoiNhanRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the email queue (email_nguoi_nhan).
+ *
+ * Each run claims up to batch-size due rows under a random token (SKIP LOCKED, so nodes never share a row),
+ * splits them into chunks of one batch each and sends every chunk over a single SMTP connection on a
+ * bounded sender pool. A token bucket caps the overall send rate to stay under the mail provider's limits.
+ * Failed recipients are retried with exponential backoff and jitter until max-attempts, then marked THAT_BAI;
+ * rows of a crashed run become due again when their claim lease expires. Attempts are counted when a row is
+ * claimed, so a row that crashes its sender every time is marked THAT_BAI once its attempts run out.
+ */
+@Component
+@Slf4j
+public class EmailDispatcher {
+
+    static final Duration CLAIM_LEASE = Duration.ofMinutes(10);
+    static final int MAX_ERROR_LENGTH = 500;
+    static final String LEASE_EXPIRED_ERROR = "Claim lease expired without a delivery result";
+
+    private final EmailNguoiNhanRepository emailNguoiNhanRepository;
+    private final EmailService emailService;
+    private final TokenBucket rateLimiter;
+    private final ThreadPoolExecutor sendExecutor;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int chunkSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+
+    private final AtomicLong sent = new AtomicLong(0);
+    private final AtomicLong retried = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+
+    public EmailDispatcher(EmailNguoiNhanRepository emailNguoiNhanRepository,
+                           EmailService emailService,
+                           @Value("${email.outbox.enabled:true}") boolean enabled,
+                           @Value("${email.outbox.batch-size:200}") int batchSize,
+                           @Value("${email.outbox.chunk-size:20}") int chunkSize,
+                           @Value("${email.outbox.sender-threads:4}") int senderThreads,
+                           @Value("${email.outbox.rate-per-second:10}") double ratePerSecond,
+                           @Value("${email.outbox.max-attempts:5}") int maxAttempts,
+                           @Value("${email.outbox.base-backoff-seconds:30}") long baseBackoffSeconds,
+                           @Value("${email.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds) {
+        this.emailNguoiNhanRepository = emailNguoiNhanRepository;
+        this.emailService = emailService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofSeconds(baseBackoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.rateLimiter = new TokenBucket(ratePerSecond, Math.max(ratePerSecond, chunkSize));
+
+        // Bounded queue with caller-runs: a full pool slows the dispatcher instead of buffering without limit
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sendExecutor = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(senderThreads * 2), runnable -> {
+                    Thread thread = new Thread(runnable, "email-sender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Delivery counters since startup
+     */
+    public record Stats(long sent, long retried, long failed) {
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:5000}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Keep draining while runs come back full
+            while (dispatchOnce() >= batchSize && !Thread.currentThread().isInterrupted()) {
+                log.debug("[EMAIL] Full batch sent, continuing");
+            }
+        } catch (Exception e) {
+            log.error("[EMAIL] Dispatch run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claim and send one run of due recipients
+     * @return number of rows claimed
+     */
+    int dispatchOnce() throws InterruptedException {
+        String token = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        int exhausted = emailNguoiNhanRepository.deadLetterExhausted(now, maxAttempts, LEASE_EXPIRED_ERROR);
+        if (exhausted > 0) {
+            failed.addAndGet(exhausted);
+            log.warn("[EMAIL] Gave up on {} recipients whose lease expired on the last attempt", exhausted);
+        }
+
+        int claimed = emailNguoiNhanRepository.claimDue(token, now, now.plus(CLAIM_LEASE), maxAttempts, batchSize);
+        if (claimed == 0) {
+            return 0;
+        }
+
+        List<Future<?>> chunks = new ArrayList<>();
+        for (List<EmailNguoiNhan> chunk : chunk(emailNguoiNhanRepository.findClaimed(token))) {
+            chunks.add(sendExecutor.submit(() -> sendChunk(token, chunk)));
+        }
+        for (Future<?> chunk : chunks) {
+            try {
+                chunk.get();
+            } catch (ExecutionException e) {
+                // Rows of a broken chunk stay claimed and are retried when the lease expires
+                log.error("[EMAIL] Sending chunk failed: {}", e.getCause().getMessage());
+            }
+        }
+        return claimed;
+    }
+
+    public Stats getStats() {
+        return new Stats(sent.get(), retried.get(), failed.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+    }
+
+    /**
+     * Group claimed rows by batch (same subject and body) and split into chunks of at most chunkSize
+     */
+    private List<List<EmailNguoiNhan>> chunk(List<EmailNguoiNhan> rows) {
+        Map<Long, List<EmailNguoiNhan>> byBatch = new LinkedHashMap<>();
+        for (EmailNguoiNhan row : rows) {
+            byBatch.computeIfAbsent(row.getDotGui().getId(), id -> new ArrayList<>()).add(row);
+        }
+
+        List<List<EmailNguoiNhan>> chunks = new ArrayList<>();
+        for (List<EmailNguoiNhan> batchRows : byBatch.values()) {
+            for (int from = 0; from < batchRows.size(); from += chunkSize) {
+                chunks.add(batchRows.subList(from, Math.min(from + chunkSize, batchRows.size())));
+            }
+        }
+        return chunks;
+    }
+
+    private void sendChunk(String token, List<EmailNguoiNhan> chunk) {
+        try {
+            rateLimiter.acquire(chunk.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        EmailDotGui dotGui = chunk.get(0).getDotGui();
+        List<String> recipients = chunk.stream().map(EmailNguoiNhan::getEmail).toList();
+        Map<String, Exception> failures = emailService.sendEach(recipients, dotGui.getTieuDe(), dotGui.getNoiDung());
+
+        Instant now = Instant.now();
+        List<Long> delivered = new ArrayList<>();
+        for (EmailNguoiNhan row : chunk) {
+            Exception error = failures.get(row.getEmail());
+            if (error == null) {
+                delivered.add(row.getId());
+            } else {
+                recordFailure(token, row, error, now);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            emailNguoiNhanRepository.markSent(delivered, token, now, TrangThaiGuiEmail.DA_GUI);
+            sent.addAndGet(delivered.size());
+        }
+    }
+
+    private void recordFailure(String token, EmailNguoiNhan row, Exception error, Instant now) {
+        // The claim already counted this attempt
+        int attempts = row.getSoLanThu();
+        String message = truncate(error.getMessage());
+        if (attempts >= maxAttempts) {
+            emailNguoiNhanRepository.recordFailure(row.getId(), token, TrangThaiGuiEmail.THAT_BAI, attempts, now, message);
+            failed.incrementAndGet();
+            log.warn("[EMAIL] Giving up on {} after {} attempts: {}", row.getEmail(), attempts, message);
+        } else {
+            emailNguoiNhanRepository.recordFailure(row.getId(), token, TrangThaiGuiEmail.CHO_GUI, attempts,
+                    now.plus(backoff(attempts)), message);
+            retried.incrementAndGet();
+        }
+    }
+
+    /**
+     * Exponential backoff with up to 20% jitter, capped at maxBackoff
+     */
+    Duration backoff(int attempts) {
+        long baseMillis = baseBackoff.toMillis() << Math.min(attempts - 1, 20);
+        long cappedMillis = Math.min(baseMillis, maxBackoff.toMillis());
+        long jitterMillis = ThreadLocalRandom.current().nextLong(cappedMillis / 5 + 1);
+        return Duration.ofMillis(cappedMillis + jitterMillis);
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
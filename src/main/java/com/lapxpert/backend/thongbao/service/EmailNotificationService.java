@@ -0,0 +1,103 @@
+package com.lapxpert.backend.thongbao.service;
+
+import com.lapxpert.backend.thongbao.entity.EmailDotGui;
+import com.lapxpert.backend.thongbao.entity.TrangThaiGuiEmail;
+import com.lapxpert.backend.thongbao.repository.EmailDotGuiRepository;
+import com.lapxpert.backend.thongbao.repository.EmailNguoiNhanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Entry point for bulk email notifications (voucher and campaign announcements).
+ *
+ * Each call stores the rendered subject and body once as an EmailDotGui and queues its recipients with a
+ * single INSERT ... SELECT filtered in SQL, so the user table is never loaded into memory. Enqueueing joins
+ * the caller's transaction: a rolled-back voucher change sends nothing. EmailDispatcher delivers the queue.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailNotificationService {
+
+    private final EmailDotGuiRepository emailDotGuiRepository;
+    private final EmailNguoiNhanRepository emailNguoiNhanRepository;
+
+    /**
+     * Rendered notification
+     * @param loaiThongBao notification type, e.g. PHIEU_GIAM_GIA_MOI
+     * @param maThamChieu business reference (voucher or campaign code), may be null
+     */
+    public record EmailThongBao(String loaiThongBao, String maThamChieu, String tieuDe, String noiDung) {
+    }
+
+    /**
+     * Queue a notification for every active customer
+     * @return batch ID, for delivery status lookups
+     */
+    @Transactional
+    public Long enqueueForActiveCustomers(EmailThongBao thongBao) {
+        return enqueue(thongBao, dotGuiId -> emailNguoiNhanRepository.enqueueActiveCustomers(dotGuiId, Instant.now()));
+    }
+
+    /**
+     * Queue a notification for the active customers assigned to a private voucher
+     * @return batch ID, for delivery status lookups
+     */
+    @Transactional
+    public Long enqueueForVoucherAssignees(Long phieuGiamGiaId, EmailThongBao thongBao) {
+        return enqueue(thongBao, dotGuiId ->
+                emailNguoiNhanRepository.enqueueVoucherAssignees(dotGuiId, phieuGiamGiaId, Instant.now()));
+    }
+
+    /**
+     * Queue a notification for the given users
+     * @return batch ID, or null if there is nobody to notify
+     */
+    @Transactional
+    public Long enqueueForUsers(Collection<Long> nguoiDungIds, EmailThongBao thongBao) {
+        if (nguoiDungIds == null || nguoiDungIds.isEmpty()) {
+            return null;
+        }
+        return enqueue(thongBao, dotGuiId -> emailNguoiNhanRepository.enqueueUsers(dotGuiId, nguoiDungIds, Instant.now()));
+    }
+
+    /**
+     * Recipients of a batch per delivery status
+     */
+    @Transactional(readOnly = true)
+    public Map<TrangThaiGuiEmail, Long> getDeliveryStatus(Long dotGuiId) {
+        Map<TrangThaiGuiEmail, Long> counts = new EnumMap<>(TrangThaiGuiEmail.class);
+        for (TrangThaiGuiEmail trangThai : TrangThaiGuiEmail.values()) {
+            counts.put(trangThai, 0L);
+        }
+        for (Object[] row : emailNguoiNhanRepository.countByTrangThai(dotGuiId)) {
+            counts.put((TrangThaiGuiEmail) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private Long enqueue(EmailThongBao thongBao, ToIntFunction<Long> recipients) {
+        EmailDotGui dotGui = emailDotGuiRepository.save(EmailDotGui.builder()
+                .loaiThongBao(thongBao.loaiThongBao())
+                .maThamChieu(thongBao.maThamChieu())
+                .tieuDe(thongBao.tieuDe())
+                .noiDung(thongBao.noiDung())
+                .build());
+        emailDotGuiRepository.flush();
+
+        int queued = recipients.applyAsInt(dotGui.getId());
+        dotGui.setSoNguoiNhan(queued);
+
+        log.info("[EMAIL] Queued {} recipients for {} ({}): {}",
+                queued, thongBao.loaiThongBao(), thongBao.maThamChieu(), thongBao.tieuDe());
+        return dotGui.getId();
+    }
+}
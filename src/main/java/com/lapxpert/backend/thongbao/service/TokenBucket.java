@@ -0,0 +1,77 @@
+package com.lapxpert.backend.thongbao.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Blocking token bucket: refills at a fixed rate up to its capacity, so short bursts are allowed
+ * but the long-run throughput never exceeds the rate.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double tokensPerSecond, double capacity) {
+        this(tokensPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double tokensPerSecond, double capacity, LongSupplier nanoClock) {
+        if (tokensPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Token bucket cần tốc độ > 0 và dung lượng >= 1");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Take the given number of tokens, waiting until they are available
+     * @param permits tokens to take; more than the capacity are taken in capacity-sized steps
+     */
+    public void acquire(int permits) throws InterruptedException {
+        int remaining = permits;
+        while (remaining > 0) {
+            int step = (int) Math.min(remaining, capacity);
+            long waitNanos = reserve(step);
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            remaining -= step;
+        }
+    }
+
+    /**
+     * Take tokens only if they are available right now
+     */
+    public synchronized boolean tryAcquire(int permits) {
+        refill();
+        if (tokens >= permits) {
+            tokens -= permits;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Take tokens, going into debt if needed
+     * @return nanoseconds the caller must wait before using them
+     */
+    private synchronized long reserve(int permits) {
+        refill();
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -1,5 +1,7 @@
 package com.lapxpert.backend.thongke.controller;
 
+import com.lapxpert.backend.common.cache.CacheVersioningService.DataDomain;
+import com.lapxpert.backend.common.cache.ConditionalGet;
 import com.lapxpert.backend.thongke.dto.*;
 import com.lapxpert.backend.thongke.service.ThongKeService;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +38,7 @@ public class ThongKeController {
      */
     @GetMapping("/doanh-thu/theo-ngay")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<DoanhThuTheoNgayDto> layDoanhThuTheoNgay(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate tuNgay,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate denNgay) {
@@ -58,6 +61,7 @@ public class ThongKeController {
      */
     @GetMapping("/doanh-thu/theo-thang")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<DoanhThuTheoThangDto> layDoanhThuTheoThang(
             @RequestParam(required = false) Integer nam) {
         
@@ -78,6 +82,7 @@ public class ThongKeController {
      */
     @GetMapping("/doanh-thu/tong-quan")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<DoanhThuTongQuanDto> layDoanhThuTongQuan() {
         log.debug("Getting revenue overview");
         
@@ -98,6 +103,7 @@ public class ThongKeController {
      */
     @GetMapping("/don-hang/tong-quan")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<DonHangTongQuanDto> layDonHangTongQuan() {
         log.debug("Getting order overview");
         
@@ -116,6 +122,7 @@ public class ThongKeController {
      */
     @GetMapping("/don-hang/theo-trang-thai")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<DonHangTheoTrangThaiDto> layDonHangTheoTrangThai() {
         log.debug("Getting order statistics by status");
         
@@ -134,6 +141,7 @@ public class ThongKeController {
      */
     @GetMapping("/don-hang/gia-tri-trung-binh")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<Map<String, Object>> layGiaTriDonHangTrungBinh() {
         log.debug("Getting average order value statistics");
         
@@ -157,6 +165,7 @@ public class ThongKeController {
      */
     @GetMapping("/san-pham/ban-chay-nhat")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<SanPhamBanChayDto> laySanPhamBanChayNhat(
             @RequestParam(defaultValue = "10") Integer soLuong,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate tuNgay,
@@ -180,6 +189,7 @@ public class ThongKeController {
      */
     @GetMapping("/san-pham/sap-het-hang")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<SanPhamSapHetHangDto> laySanPhamSapHetHang(
             @RequestParam(defaultValue = "10") Integer nguongTonKho) {
         
@@ -200,6 +210,7 @@ public class ThongKeController {
      */
     @GetMapping("/san-pham/theo-danh-muc")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<SanPhamTheoDanhMucDto> laySanPhamTheoDanhMuc() {
         log.debug("Getting product performance by category");
         
@@ -222,6 +233,7 @@ public class ThongKeController {
      */
     @GetMapping("/khach-hang/moi")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<KhachHangMoiDto> layKhachHangMoi(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate tuNgay,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate denNgay) {
@@ -243,6 +255,7 @@ public class ThongKeController {
      */
     @GetMapping("/khach-hang/ty-le-giu-chan")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<Map<String, Object>> layTyLeGiuChanKhachHang() {
         log.debug("Getting customer retention rate");
         
@@ -261,6 +274,7 @@ public class ThongKeController {
      */
     @GetMapping("/khach-hang/gia-tri-trung-binh")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<Map<String, Object>> layGiaTriKhachHangTrungBinh() {
         log.debug("Getting average customer value");
         
@@ -281,6 +295,7 @@ public class ThongKeController {
      */
     @GetMapping("/dashboard")
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @ConditionalGet(value = {DataDomain.ORDERS, DataDomain.INVENTORY, DataDomain.CATALOG}, maxStalenessSeconds = 60)
     public ResponseEntity<DashboardSummaryDto> layDashboardSummary() {
         log.debug("Getting dashboard summary");
         
@@ -1,6 +1,9 @@
 package com.lapxpert.backend.websocket.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lapxpert.backend.common.cache.NearCacheInvalidationBus;
+import com.lapxpert.backend.sanpham.service.EffectivePriceIndex;
+import com.lapxpert.backend.sanpham.service.VariantFacetIndex;
 import com.lapxpert.backend.websocket.service.RedisMessageSubscriber;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -33,6 +36,9 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
  * - lapxpert:websocket:voucher - Voucher notifications
  * - lapxpert:websocket:chatbox - Future customer service chat
  * - lapxpert:websocket:ack - Delivery acknowledgments
+ * - lapxpert:pricing:index - Effective price index version sync between instances
+ * - lapxpert:catalog:facets - Variant facet index catalog changes between instances
+ * - lapxpert:cache:near-invalidation - Near cache (L1) invalidations between instances
  *
  * Can be enabled/disabled via: websocket.redis.pubsub.enabled=true/false
  */
@@ -48,6 +54,9 @@ public class RedisPubSubConfig {
     public static final String HEALTH_CHANNEL = "lapxpert:websocket:health";
     public static final String CHATBOX_CHANNEL = "lapxpert:websocket:chatbox";
     public static final String ACK_CHANNEL = "lapxpert:websocket:ack";
+    public static final String PRICING_INDEX_CHANNEL = EffectivePriceIndex.PRICING_INDEX_CHANNEL;
+    public static final String CATALOG_FACET_CHANNEL = VariantFacetIndex.CATALOG_FACET_CHANNEL;
+    public static final String NEAR_CACHE_CHANNEL = NearCacheInvalidationBus.NEAR_CACHE_CHANNEL;
 
     // Redis keys for message ordering and deduplication
     public static final String MESSAGE_SEQUENCE_KEY = "lapxpert:websocket:sequence";
@@ -81,7 +90,10 @@ public class RedisPubSubConfig {
             MessageListenerAdapter voucherMessageAdapter,
             MessageListenerAdapter healthMessageAdapter,
             MessageListenerAdapter chatboxMessageAdapter,
-            MessageListenerAdapter ackMessageAdapter) {
+            MessageListenerAdapter ackMessageAdapter,
+            MessageListenerAdapter pricingIndexMessageAdapter,
+            MessageListenerAdapter catalogFacetMessageAdapter,
+            MessageListenerAdapter nearCacheMessageAdapter) {
 
         if (!pubSubEnabled) {
             log.warn("Redis Pub/Sub is disabled - WebSocket service will not scale horizontally");
@@ -98,6 +110,9 @@ public class RedisPubSubConfig {
         container.addMessageListener(healthMessageAdapter, healthChannelTopic());
         container.addMessageListener(chatboxMessageAdapter, chatboxChannelTopic());
         container.addMessageListener(ackMessageAdapter, ackChannelTopic());
+        container.addMessageListener(pricingIndexMessageAdapter, pricingIndexChannelTopic());
+        container.addMessageListener(catalogFacetMessageAdapter, catalogFacetChannelTopic());
+        container.addMessageListener(nearCacheMessageAdapter, nearCacheChannelTopic());
 
         // Configure container for production stability and enhanced reliability
         container.setTaskExecutor(null); // Use default task executor
@@ -109,9 +124,10 @@ public class RedisPubSubConfig {
             log.error("Redis message listener error - attempting recovery", throwable);
         });
 
-        log.info("Redis message listener container configured for {} channels", 6);
-        log.info("Subscribed channels: {}, {}, {}, {}, {}, {}",
-                GLOBAL_CHANNEL, PRICE_CHANNEL, VOUCHER_CHANNEL, HEALTH_CHANNEL, CHATBOX_CHANNEL, ACK_CHANNEL);
+        log.info("Redis message listener container configured for {} channels", 9);
+        log.info("Subscribed channels: {}, {}, {}, {}, {}, {}, {}, {}, {}",
+                GLOBAL_CHANNEL, PRICE_CHANNEL, VOUCHER_CHANNEL, HEALTH_CHANNEL, CHATBOX_CHANNEL, ACK_CHANNEL,
+                PRICING_INDEX_CHANNEL, CATALOG_FACET_CHANNEL, NEAR_CACHE_CHANNEL);
         log.info("Enhanced features enabled - Ordering: {}, Deduplication: {}, Delivery Confirmation: {}",
                 orderingEnabled, deduplicationEnabled, deliveryConfirmationEnabled);
 
@@ -151,6 +167,21 @@ public class RedisPubSubConfig {
         return new ChannelTopic(ACK_CHANNEL);
     }
 
+    @Bean
+    public ChannelTopic pricingIndexChannelTopic() {
+        return new ChannelTopic(PRICING_INDEX_CHANNEL);
+    }
+
+    @Bean
+    public ChannelTopic catalogFacetChannelTopic() {
+        return new ChannelTopic(CATALOG_FACET_CHANNEL);
+    }
+
+    @Bean
+    public ChannelTopic nearCacheChannelTopic() {
+        return new ChannelTopic(NEAR_CACHE_CHANNEL);
+    }
+
     /**
      * Message listener adapters for different channel types
      */
@@ -184,6 +215,21 @@ public class RedisPubSubConfig {
         return new MessageListenerAdapter(subscriber, "handleAckMessage");
     }
 
+    @Bean
+    public MessageListenerAdapter pricingIndexMessageAdapter(EffectivePriceIndex effectivePriceIndex) {
+        return new MessageListenerAdapter(effectivePriceIndex, "handleIndexVersionMessage");
+    }
+
+    @Bean
+    public MessageListenerAdapter catalogFacetMessageAdapter(VariantFacetIndex variantFacetIndex) {
+        return new MessageListenerAdapter(variantFacetIndex, "handleCatalogFacetMessage");
+    }
+
+    @Bean
+    public MessageListenerAdapter nearCacheMessageAdapter(NearCacheInvalidationBus nearCacheInvalidationBus) {
+        return new MessageListenerAdapter(nearCacheInvalidationBus, "handleInvalidationMessage");
+    }
+
     /**
      * Redis message subscriber service
      * Autowired with SimpMessagingTemplate, ObjectMapper, and RedisTemplate for enhanced message processing
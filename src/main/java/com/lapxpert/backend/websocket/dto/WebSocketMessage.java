@@ -38,6 +38,9 @@ public class WebSocketMessage {
     // Static sequence generator for message ordering
     private static final AtomicLong SEQUENCE_GENERATOR = new AtomicLong(0);
 
+    // Identity of this JVM as a publisher; a restarted node starts a new sequence under a new id
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
     /**
      * Unique message identifier for deduplication and tracking
      * Generated automatically for each message
@@ -45,11 +48,16 @@ public class WebSocketMessage {
     private String messageId;
 
     /**
-     * Sequence number for message ordering within the same channel
+     * Sequence number for message ordering, monotonic per publisher node (sourceNode)
      * Ensures proper ordering of messages in Redis Pub/Sub
      */
     private Long sequenceNumber;
 
+    /**
+     * Publisher node that assigned the sequence number
+     */
+    private String sourceNode;
+
     /**
      * Target STOMP destination for the message
      * Examples:
@@ -133,6 +141,7 @@ public class WebSocketMessage {
         this.timestamp = Instant.now();
         this.messageId = UUID.randomUUID().toString();
         this.sequenceNumber = SEQUENCE_GENERATOR.incrementAndGet();
+        this.sourceNode = NODE_ID;
     }
 
     /**
@@ -145,6 +154,7 @@ public class WebSocketMessage {
         this.timestamp = Instant.now();
         this.messageId = UUID.randomUUID().toString();
         this.sequenceNumber = SEQUENCE_GENERATOR.incrementAndGet();
+        this.sourceNode = NODE_ID;
     }
 
     /**
@@ -158,6 +168,7 @@ public class WebSocketMessage {
         this.timestamp = Instant.now();
         this.messageId = UUID.randomUUID().toString();
         this.sequenceNumber = SEQUENCE_GENERATOR.incrementAndGet();
+        this.sourceNode = NODE_ID;
     }
 
     /**
@@ -249,6 +260,7 @@ public class WebSocketMessage {
             }
             if (message.sequenceNumber == null) {
                 message.sequenceNumber = SEQUENCE_GENERATOR.incrementAndGet();
+                message.sourceNode = NODE_ID;
             }
             return message;
         }
@@ -0,0 +1,167 @@
+package com.lapxpert.backend.websocket.service;
+
+import com.lapxpert.backend.websocket.dto.WebSocketMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded duplicate and replay filter for messages arriving from Redis Pub/Sub.
+ *
+ * Message ids are kept in a ring of bucketCount sets, each covering ttl / bucketCount of time; moving to a new
+ * bucket clears the oldest one, so an id is remembered for between ttl - ttl / bucketCount and ttl. Each bucket
+ * holds at most maxEntriesPerBucket ids: past that, messages are still delivered but not remembered, which caps
+ * the heap no matter the traffic. Nothing is written to Redis; every node filters what it receives itself.
+ *
+ * Sequence numbers are monotonic per publisher node (sourceNode), so each node's highest sequence is tracked
+ * and a message more than sequenceWindow behind it is dropped as a replay. The window tolerates the reordering
+ * of concurrent publishers on one node; at most maxNodes publishers are tracked, least recently seen dropped first.
+ */
+@Component
+@Slf4j
+public class MessageDeduplicator {
+
+    /**
+     * Rough heap cost of one remembered id (UUID string and hash set entry) and one tracked node
+     */
+    static final long BYTES_PER_ID = 160;
+    static final long BYTES_PER_NODE = 200;
+
+    private final boolean deduplicationEnabled;
+    private final boolean orderingEnabled;
+    private final long bucketMillis;
+    private final int maxEntriesPerBucket;
+    private final long sequenceWindow;
+    private final int maxNodes;
+
+    private final Set<String>[] buckets;
+    private int head;
+    private long headEpoch;
+    private long entries;
+    private final Map<String, Long> highestSequences;
+
+    private final Counter duplicatesDropped;
+    private final Counter replaysDropped;
+    private final Counter unrecorded;
+
+    @SuppressWarnings("unchecked")
+    public MessageDeduplicator(MeterRegistry meterRegistry,
+                               @Value("${websocket.redis.pubsub.deduplication.enabled:true}") boolean deduplicationEnabled,
+                               @Value("${websocket.redis.pubsub.ordering.enabled:true}") boolean orderingEnabled,
+                               @Value("${websocket.redis.pubsub.deduplication.ttl:300}") int ttlSeconds,
+                               @Value("${websocket.redis.pubsub.deduplication.buckets:10}") int bucketCount,
+                               @Value("${websocket.redis.pubsub.deduplication.max-entries-per-bucket:20000}") int maxEntriesPerBucket,
+                               @Value("${websocket.redis.pubsub.ordering.sequence-window:10000}") long sequenceWindow,
+                               @Value("${websocket.redis.pubsub.ordering.max-nodes:256}") int maxNodes) {
+        this.deduplicationEnabled = deduplicationEnabled;
+        this.orderingEnabled = orderingEnabled;
+        this.bucketMillis = Math.max(1L, ttlSeconds * 1000L / bucketCount);
+        this.maxEntriesPerBucket = maxEntriesPerBucket;
+        this.sequenceWindow = sequenceWindow;
+        this.maxNodes = maxNodes;
+
+        this.buckets = new Set[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new HashSet<>();
+        }
+        this.headEpoch = System.currentTimeMillis() / bucketMillis;
+        this.highestSequences = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > MessageDeduplicator.this.maxNodes;
+            }
+        };
+
+        this.duplicatesDropped = Counter.builder("websocket.dedup.dropped").tag("reason", "duplicate")
+                .register(meterRegistry);
+        this.replaysDropped = Counter.builder("websocket.dedup.dropped").tag("reason", "replay")
+                .register(meterRegistry);
+        this.unrecorded = Counter.builder("websocket.dedup.unrecorded").register(meterRegistry);
+        Gauge.builder("websocket.dedup.entries", this, MessageDeduplicator::entryCount).register(meterRegistry);
+        Gauge.builder("websocket.dedup.heap.bytes", this, MessageDeduplicator::estimatedHeapBytes)
+                .baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Check a received message and remember it
+     * @return false if it is a duplicate or a replay and must not be forwarded
+     */
+    public boolean accept(WebSocketMessage message) {
+        return accept(message, System.currentTimeMillis());
+    }
+
+    synchronized boolean accept(WebSocketMessage message, long now) {
+        Long sequenceNumber = message.getSequenceNumber();
+        String sourceNode = message.getSourceNode();
+        Long highest = null;
+        if (orderingEnabled && sequenceNumber != null && sourceNode != null) {
+            highest = highestSequences.get(sourceNode);
+            if (highest != null && sequenceNumber <= highest - sequenceWindow) {
+                replaysDropped.increment();
+                log.debug("Dropping replayed message {} (sequence {}, node {} at {})",
+                        message.getMessageId(), sequenceNumber, sourceNode, highest);
+                return false;
+            }
+        }
+
+        String messageId = message.getMessageId();
+        if (deduplicationEnabled && messageId != null) {
+            rotate(now);
+            for (Set<String> bucket : buckets) {
+                if (bucket.contains(messageId)) {
+                    duplicatesDropped.increment();
+                    log.debug("Dropping duplicate message {}", messageId);
+                    return false;
+                }
+            }
+            if (buckets[head].size() < maxEntriesPerBucket) {
+                buckets[head].add(messageId);
+                entries++;
+            } else {
+                unrecorded.increment();
+            }
+        }
+
+        if (orderingEnabled && sequenceNumber != null && sourceNode != null
+                && (highest == null || sequenceNumber > highest)) {
+            highestSequences.put(sourceNode, sequenceNumber);
+        }
+        return true;
+    }
+
+    /**
+     * Advance the ring to the bucket of the current time, clearing every bucket that expired since the last call
+     */
+    private void rotate(long now) {
+        long epoch = now / bucketMillis;
+        long steps = Math.min(epoch - headEpoch, buckets.length);
+        for (long i = 0; i < steps; i++) {
+            head = (head + 1) % buckets.length;
+            entries -= buckets[head].size();
+            buckets[head].clear();
+        }
+        if (epoch > headEpoch) {
+            headEpoch = epoch;
+        }
+    }
+
+    public synchronized long entryCount() {
+        return entries;
+    }
+
+    public synchronized long estimatedHeapBytes() {
+        return entries * BYTES_PER_ID + highestSequences.size() * BYTES_PER_NODE;
+    }
+
+    public double duplicatesDropped() {
+        return duplicatesDropped.count() + replaysDropped.count();
+    }
+}
@@ -10,10 +10,8 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Redis Message Subscriber Service with Enhanced Ordering and Delivery Guarantees
@@ -25,7 +23,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * Enhanced Features:
  * - Message ordering guarantees within channels
  * - Delivery confirmation and acknowledgment handling
- * - Message deduplication to prevent duplicate processing
+ * - Bounded message deduplication and per-node replay checks (MessageDeduplicator)
  * - Retry logic for failed message deliveries
  * - Performance monitoring and metrics
  *
@@ -50,24 +48,12 @@ public class RedisMessageSubscriber {
     private final SimpMessagingTemplate messagingTemplate;
     private final ObjectMapper objectMapper;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final MessageDeduplicator messageDeduplicator;
 
     // Configuration properties for enhanced features
-    @Value("${websocket.redis.pubsub.ordering.enabled:true}")
-    private boolean orderingEnabled;
-
-    @Value("${websocket.redis.pubsub.deduplication.enabled:true}")
-    private boolean deduplicationEnabled;
-
-    @Value("${websocket.redis.pubsub.deduplication.ttl:300}")
-    private int deduplicationTtlSeconds;
-
     @Value("${websocket.redis.pubsub.delivery.confirmation.enabled:true}")
     private boolean deliveryConfirmationEnabled;
 
-    // In-memory cache for message deduplication and ordering
-    private final ConcurrentHashMap<String, Long> processedMessages = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Long> lastSequenceNumbers = new ConcurrentHashMap<>();
-
     /**
      * Handle global WebSocket messages from Redis with enhanced ordering and delivery guarantees
      * Used for general announcements and system-wide notifications
@@ -77,16 +63,13 @@ public class RedisMessageSubscriber {
 
         try {
             WebSocketMessage message = deserializeMessage(messageJson);
-            if (isValidMessage(message) && shouldProcessMessage(message, channel)) {
+            if (isValidMessage(message) && messageDeduplicator.accept(message)) {
                 // Forward message to WebSocket clients via STOMP
                 messagingTemplate.convertAndSend(message.getDestination(), message.getPayload());
                 log.debug("Forwarded global message to STOMP destination: {}", message.getDestination());
 
                 // Send delivery confirmation if required
                 sendDeliveryConfirmation(message, channel, true);
-
-                // Update message tracking
-                updateMessageTracking(message, channel);
             }
         } catch (Exception e) {
             log.error("Error processing global message from Redis: {}", e.getMessage(), e);
@@ -110,16 +93,13 @@ public class RedisMessageSubscriber {
         try {
             WebSocketMessage message = deserializeMessage(messageJson);
             if (isValidMessage(message) && isPriceDestination(message.getDestination()) &&
-                shouldProcessMessage(message, channel)) {
+                messageDeduplicator.accept(message)) {
                 // Forward price update to WebSocket clients via STOMP
                 messagingTemplate.convertAndSend(message.getDestination(), message.getPayload());
                 log.debug("Forwarded price update to STOMP destination: {}", message.getDestination());
 
                 // Send delivery confirmation if required
                 sendDeliveryConfirmation(message, channel, true);
-
-                // Update message tracking
-                updateMessageTracking(message, channel);
             } else {
                 log.warn("Invalid or duplicate price message destination: {}",
                         message != null ? message.getDestination() : "null");
@@ -145,13 +125,12 @@ public class RedisMessageSubscriber {
         try {
             WebSocketMessage message = deserializeMessage(messageJson);
             if (isValidMessage(message) && isVoucherDestination(message.getDestination()) &&
-                shouldProcessMessage(message, channel)) {
+                messageDeduplicator.accept(message)) {
                 // Forward voucher notification to WebSocket clients via STOMP
                 messagingTemplate.convertAndSend(message.getDestination(), message.getPayload());
                 log.debug("Forwarded voucher notification to STOMP destination: {}", message.getDestination());
 
                 sendDeliveryConfirmation(message, channel, true);
-                updateMessageTracking(message, channel);
             } else {
                 log.warn("Invalid or duplicate voucher message destination: {}",
                         message != null ? message.getDestination() : "null");
@@ -175,13 +154,12 @@ public class RedisMessageSubscriber {
         try {
             WebSocketMessage message = deserializeMessage(messageJson);
             if (isValidMessage(message) && isHealthDestination(message.getDestination()) &&
-                shouldProcessMessage(message, channel)) {
+                messageDeduplicator.accept(message)) {
                 // Forward health status to WebSocket clients via STOMP
                 messagingTemplate.convertAndSend(message.getDestination(), message.getPayload());
                 log.debug("Forwarded health status to STOMP destination: {}", message.getDestination());
 
                 sendDeliveryConfirmation(message, channel, true);
-                updateMessageTracking(message, channel);
             } else {
                 log.warn("Invalid or duplicate health message destination: {}",
                         message != null ? message.getDestination() : "null");
@@ -206,7 +184,7 @@ public class RedisMessageSubscriber {
         try {
             WebSocketMessage message = deserializeMessage(messageJson);
             if (isValidMessage(message) && isChatboxDestination(message.getDestination()) &&
-                shouldProcessMessage(message, channel)) {
+                messageDeduplicator.accept(message)) {
                 // Handle both topic-based and user-specific chat messages
                 if (message.getDestination().startsWith("/user/")) {
                     // Extract username from destination for user-specific messages
@@ -225,7 +203,6 @@ public class RedisMessageSubscriber {
                 }
 
                 sendDeliveryConfirmation(message, channel, true);
-                updateMessageTracking(message, channel);
             } else {
                 log.warn("Invalid or duplicate chatbox message destination: {}",
                         message != null ? message.getDestination() : "null");
@@ -304,81 +281,6 @@ public class RedisMessageSubscriber {
         }
     }
 
-    /**
-     * Check if message should be processed based on ordering and deduplication rules
-     * Vietnamese Business Context: Kiểm tra xem tin nhắn có nên được xử lý dựa trên quy tắc sắp xếp và khử trùng lặp
-     */
-    private boolean shouldProcessMessage(WebSocketMessage message, String channel) {
-        if (!orderingEnabled && !deduplicationEnabled) {
-            return true;
-        }
-
-        String messageId = message.getMessageId();
-        Long sequenceNumber = message.getSequenceNumber();
-
-        // Check for message deduplication
-        if (deduplicationEnabled && messageId != null) {
-            String dedupKey = "dedup:" + channel + ":" + messageId;
-            Long processedTime = processedMessages.get(dedupKey);
-
-            if (processedTime != null) {
-                long ageSeconds = (Instant.now().toEpochMilli() - processedTime) / 1000;
-                if (ageSeconds < deduplicationTtlSeconds) {
-                    log.debug("Skipping duplicate message {} in channel {}", messageId, channel);
-                    return false;
-                }
-                // Remove expired entry
-                processedMessages.remove(dedupKey);
-            }
-        }
-
-        // Check for message ordering
-        if (orderingEnabled && sequenceNumber != null) {
-            String orderingGroup = message.getOrderingGroup() != null ?
-                message.getOrderingGroup() : channel;
-
-            Long lastSequence = lastSequenceNumbers.get(orderingGroup);
-            if (lastSequence != null && sequenceNumber <= lastSequence) {
-                log.debug("Skipping out-of-order message {} (sequence: {}, last: {}) in group {}",
-                    messageId, sequenceNumber, lastSequence, orderingGroup);
-                return false;
-            }
-        }
-
-        return true;
-    }
-
-    /**
-     * Update message tracking for deduplication and ordering
-     * Vietnamese Business Context: Cập nhật theo dõi tin nhắn để khử trùng lặp và sắp xếp
-     */
-    private void updateMessageTracking(WebSocketMessage message, String channel) {
-        String messageId = message.getMessageId();
-        Long sequenceNumber = message.getSequenceNumber();
-
-        // Update deduplication tracking
-        if (deduplicationEnabled && messageId != null) {
-            String dedupKey = "dedup:" + channel + ":" + messageId;
-            processedMessages.put(dedupKey, Instant.now().toEpochMilli());
-
-            // Store in Redis for distributed deduplication
-            try {
-                String redisKey = "lapxpert:websocket:dedup:" + channel + ":" + messageId;
-                redisTemplate.opsForValue().set(redisKey, "processed",
-                    Duration.ofSeconds(deduplicationTtlSeconds));
-            } catch (Exception e) {
-                log.warn("Failed to store deduplication key in Redis: {}", e.getMessage());
-            }
-        }
-
-        // Update sequence tracking
-        if (orderingEnabled && sequenceNumber != null) {
-            String orderingGroup = message.getOrderingGroup() != null ?
-                message.getOrderingGroup() : channel;
-            lastSequenceNumbers.put(orderingGroup, sequenceNumber);
-        }
-    }
-
     /**
      * Send delivery confirmation if required
      * Vietnamese Business Context: Gửi xác nhận giao hàng nếu được yêu cầu
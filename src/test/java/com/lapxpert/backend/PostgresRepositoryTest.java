@@ -0,0 +1,29 @@
+package com.lapxpert.backend;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Repository test against a real PostgreSQL database migrated by the Liquibase changelog.
+ *
+ * Native queries (ON CONFLICT, tsrange, keyset seeks) cannot run on an embedded database, so these tests
+ * only run when TEST_DATABASE_URL points at a scratch database; every test rolls back. The database needs the
+ * unaccent and pg_trgm extensions available:
+ *
+ *   TEST_DATABASE_URL="jdbc:postgresql://localhost:5432/lapxpert_test?user=...&password=..." ./gradlew test
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE_URL", matches = ".+")
+@TestPropertySource(properties = "spring.datasource.url=${TEST_DATABASE_URL}")
+public @interface PostgresRepositoryTest {
+}
@@ -0,0 +1,84 @@
+package com.lapxpert.backend.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for cache instrumentation and the hot-key tracker
+ */
+class CacheMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HotKeyTracker hotKeyTracker = new HotKeyTracker(1.0);
+    private final CacheMetrics cacheMetrics = new CacheMetrics(meterRegistry, hotKeyTracker);
+
+    @Test
+    void testInstrumentedCache_RecordsHitsMissesPutsEvictionsAndLoads() {
+        Cache cache = new InstrumentedCache(new ConcurrentMapCache("productRatings"), cacheMetrics);
+
+        assertEquals("4.5", cache.get(1L, () -> "4.5"));
+        assertEquals("4.5", cache.get(1L, () -> "5.0"));
+        assertNull(cache.get(2L));
+        cache.evict(1L);
+
+        CacheMetrics.CacheStats stats = cacheMetrics.getStatistics().get("productRatings");
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.puts());
+        assertEquals(1, stats.evictions());
+        assertEquals(1, stats.loads());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "productRatings").tag("result", "hit")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("cache.load").tag("cache", "productRatings").timer().count());
+    }
+
+    @Test
+    void testStats_FlagsCachesThatRarelyHit() {
+        for (int i = 0; i < 1_000; i++) {
+            cacheMetrics.recordGet("searchResults", "q" + i, i % 10 == 0);
+            cacheMetrics.recordGet("categories", "all", i % 10 != 0);
+        }
+
+        assertTrue(cacheMetrics.getStatistics().get("searchResults").ineffective());
+        assertFalse(cacheMetrics.getStatistics().get("categories").ineffective());
+    }
+
+    @Test
+    void testHotKeyTracker_ReportsDominantKeysFirstAndDecays() {
+        for (int i = 0; i < 500; i++) {
+            hotKeyTracker.record("productRatings", 42L);
+            hotKeyTracker.record("cartData", "user:7");
+            hotKeyTracker.record("productRatings", 1_000L + i);
+            hotKeyTracker.record("productRatings", 42L);
+        }
+
+        List<HotKeyTracker.HotKey> hotKeys = hotKeyTracker.getHotKeys();
+        assertTrue(hotKeys.size() <= HotKeyTracker.TOP_K);
+        assertEquals(new HotKeyTracker.HotKey("productRatings", "42", 1000), hotKeys.get(0));
+        assertEquals("cartData", hotKeys.get(1).cache());
+        assertTrue(hotKeys.get(1).key().matches("user:~[0-9a-f]{12}"));
+        assertEquals(500, hotKeys.get(1).estimatedReads());
+
+        hotKeyTracker.decay();
+        assertEquals(500, hotKeyTracker.getHotKeys().get(0).estimatedReads());
+    }
+
+    @Test
+    void testHotKeyTracker_RedactsUserIdsAndEmails() {
+        String userKey = hotKeyTracker.redact("cartData", "user:7");
+        assertNotEquals("user:7", userKey);
+        assertEquals(userKey, hotKeyTracker.redact("cartData", "user:7"));
+        assertNotEquals(userKey, hotKeyTracker.redact("cartData", "user:8"));
+
+        String emailKey = hotKeyTracker.redact("cartData", "email:khach@example.com");
+        assertFalse(emailKey.contains("khach"));
+        assertFalse(hotKeyTracker.redact("productRatings", "a@b.vn").contains("@"));
+        assertEquals("42", hotKeyTracker.redact("productRatings", "42"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.lapxpert.backend.common.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for CacheTagService: writes evict only the entries tagged with the changed entity
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheTagServiceTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    private final Map<String, Set<String>> tagSets = new HashMap<>();
+    private ConcurrentMapCacheManager cacheManager;
+    private CacheTagService cacheTagService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager("cartData", "productRatings");
+        cacheTagService = new CacheTagService(cacheManager, redisTemplate);
+
+        // Back the Redis tag sets with an in-memory map
+        lenient().when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        lenient().when(setOperations.add(anyString(), any(String[].class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            Object[] members = invocation.getArguments();
+            for (int i = 1; i < members.length; i++) {
+                tagSets.computeIfAbsent(key, k -> new HashSet<>()).add((String) members[i]);
+            }
+            return 1L;
+        });
+        lenient().when(setOperations.members(anyString()))
+                .thenAnswer(invocation -> tagSets.get(invocation.<String>getArgument(0)));
+        lenient().when(redisTemplate.delete(anyString()))
+                .thenAnswer(invocation -> tagSets.remove(invocation.<String>getArgument(0)) != null);
+    }
+
+    private void cacheCart(String key, Long nguoiDungId, Long... variantIds) {
+        Set<String> tags = new HashSet<>();
+        tags.add(CacheTagService.userTag(nguoiDungId));
+        for (Long variantId : variantIds) {
+            tags.add(CacheTagService.variantTag(variantId));
+        }
+        cacheManager.getCache("cartData").put(key, "cart-" + key);
+        cacheTagService.tag("cartData", key, tags);
+    }
+
+    @Test
+    void testEvictTagged_VariantChangeEvictsOnlyCartsContainingIt() {
+        cacheCart("user:1", 1L, 100L, 101L);
+        cacheCart("user:2", 2L, 101L);
+        cacheCart("user:3", 3L, 200L);
+        cacheManager.getCache("productRatings").put("5", "rating");
+
+        int evicted = cacheTagService.evictTagged(CacheTagService.variantTag(100L));
+
+        Cache carts = cacheManager.getCache("cartData");
+        assertEquals(1, evicted);
+        assertNull(carts.get("user:1"));
+        assertNotNull(carts.get("user:2"));
+        assertNotNull(carts.get("user:3"));
+        assertNotNull(cacheManager.getCache("productRatings").get("5"));
+    }
+
+    @Test
+    void testEvictTagged_UserTagEvictsEveryKeyOfThatUser() {
+        cacheCart("user:1", 1L, 100L);
+        cacheCart("email:a@lapxpert.vn", 1L, 100L);
+        cacheCart("priceChanges:1", 1L, 100L);
+        cacheCart("user:2", 2L, 100L);
+
+        int evicted = cacheTagService.evictTagged(CacheTagService.userTag(1L));
+
+        Cache carts = cacheManager.getCache("cartData");
+        assertEquals(3, evicted);
+        assertNull(carts.get("user:1"));
+        assertNull(carts.get("email:a@lapxpert.vn"));
+        assertNull(carts.get("priceChanges:1"));
+        assertNotNull(carts.get("user:2"));
+    }
+
+    @Test
+    void testEvictTagged_MultipleTagsAndConsumedTagSet() {
+        cacheCart("user:1", 1L, 100L);
+        cacheCart("user:2", 2L, 101L);
+        cacheCart("user:3", 3L, 102L);
+
+        int evicted = cacheTagService.evictTagged(List.of(
+                CacheTagService.variantTag(100L), CacheTagService.variantTag(101L)));
+
+        assertEquals(2, evicted);
+        assertNotNull(cacheManager.getCache("cartData").get("user:3"));
+        // Tag sets are consumed by eviction; a rebuilt entry registers its tags again
+        assertEquals(0, cacheTagService.evictTagged(CacheTagService.variantTag(100L)));
+    }
+
+    @Test
+    void testEvictTagged_UnknownTagEvictsNothing() {
+        cacheCart("user:1", 1L, 100L);
+
+        assertEquals(0, cacheTagService.evictTagged(CacheTagService.variantTag(999L)));
+        assertNotNull(cacheManager.getCache("cartData").get("user:1"));
+    }
+}
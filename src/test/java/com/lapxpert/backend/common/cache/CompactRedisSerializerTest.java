@@ -0,0 +1,118 @@
+package com.lapxpert.backend.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lapxpert.backend.common.config.CommonBeansConfig;
+import com.lapxpert.backend.sanpham.dto.SanPhamChiTietDto;
+import com.lapxpert.backend.sanpham.dto.SanPhamDto;
+import com.lapxpert.backend.sanpham.dto.thuoctinh.ThuongHieuDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the compact binary cache value format
+ */
+class CompactRedisSerializerTest {
+
+    private final ObjectMapper objectMapper = new CommonBeansConfig().objectMapper();
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(objectMapper);
+
+    @Test
+    void testRoundTrip_ReturnsTypedDtos() {
+        List<SanPhamDto> products = sanPhamList(3, 4);
+
+        Object restored = serializer.deserialize(serializer.serialize(products));
+
+        assertInstanceOf(List.class, restored);
+        List<?> restoredList = (List<?>) restored;
+        assertEquals(3, restoredList.size());
+        SanPhamDto first = assertInstanceOf(SanPhamDto.class, restoredList.get(0));
+        assertEquals(products.get(0), first);
+        assertInstanceOf(SanPhamChiTietDto.class, first.getSanPhamChiTiets().iterator().next());
+    }
+
+    @Test
+    void testRoundTrip_KeepsEarlyRefreshEnvelope() {
+        EarlyRefreshEntry entry = new EarlyRefreshEntry(sanPhamList(1, 2), 35, 1_760_000_000_000L);
+
+        Object restored = serializer.deserialize(serializer.serialize(entry));
+
+        EarlyRefreshEntry restoredEntry = assertInstanceOf(EarlyRefreshEntry.class, restored);
+        assertEquals(entry, restoredEntry);
+        assertEquals(Long.valueOf(42L), serializer.deserialize(serializer.serialize(42L)));
+    }
+
+    @Test
+    void testOtherFormats_ReadAsMiss() {
+        byte[] legacyJson = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class).serialize(sanPhamList(1, 1));
+        byte[] nextVersion = serializer.serialize("value");
+        nextVersion[0] = CompactRedisSerializer.FORMAT_VERSION + 1;
+        byte[] truncated = serializer.serialize(sanPhamList(5, 5));
+        byte[] truncatedPrefix = Arrays.copyOf(truncated, truncated.length / 2);
+
+        assertNull(serializer.deserialize(legacyJson));
+        assertNull(serializer.deserialize(nextVersion));
+        assertNull(serializer.deserialize(truncatedPrefix));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    void testCompactFormat_MuchSmallerThanJson() {
+        Jackson2JsonRedisSerializer<Object> json = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+        List<SanPhamDto> products = sanPhamList(20, 6);
+
+        int jsonSize = json.serialize(products).length;
+        int compactSize = serializer.serialize(products).length;
+
+        assertTrue(compactSize * 3 < jsonSize,
+                "Compact payload should be under a third of JSON: " + compactSize + " vs " + jsonSize + " bytes");
+    }
+
+    private static List<SanPhamDto> sanPhamList(int products, int variantsPerProduct) {
+        Instant ngayTao = Instant.parse("2025-10-01T08:00:00Z");
+        List<SanPhamDto> list = new ArrayList<>();
+        for (int p = 1; p <= products; p++) {
+            ThuongHieuDto thuongHieu = new ThuongHieuDto();
+            thuongHieu.setId((long) (p % 5));
+            thuongHieu.setMaThuongHieu("TH00" + (p % 5));
+            thuongHieu.setMoTaThuongHieu("Thương hiệu " + (p % 5));
+
+            SanPhamDto sanPham = new SanPhamDto();
+            sanPham.setId((long) p);
+            sanPham.setMaSanPham("SP" + String.format("%05d", p));
+            sanPham.setTenSanPham("Laptop Gaming " + p);
+            sanPham.setThuongHieu(thuongHieu);
+            sanPham.setMoTa("Laptop hiệu năng cao cho học tập, làm việc và chơi game");
+            sanPham.setHinhAnh(new ArrayList<>(List.of("https://cdn.lapxpert.vn/sp/" + p + "/1.jpg",
+                    "https://cdn.lapxpert.vn/sp/" + p + "/2.jpg")));
+            sanPham.setTrangThai(true);
+            sanPham.setNgayTao(ngayTao);
+            sanPham.setNgayCapNhat(ngayTao);
+
+            Set<SanPhamChiTietDto> chiTiets = new HashSet<>();
+            for (int v = 1; v <= variantsPerProduct; v++) {
+                SanPhamChiTietDto chiTiet = new SanPhamChiTietDto();
+                chiTiet.setId((long) (p * 100 + v));
+                chiTiet.setSku("SKU-" + p + "-" + v);
+                chiTiet.setGiaBan(new BigDecimal("25990000.00"));
+                chiTiet.setGiaKhuyenMai(new BigDecimal("23490000.00"));
+                chiTiet.setHinhAnh(new ArrayList<>(List.of("https://cdn.lapxpert.vn/spct/" + p + "-" + v + ".jpg")));
+                chiTiet.setTrangThai(true);
+                chiTiet.setNgayTao(ngayTao);
+                chiTiets.add(chiTiet);
+            }
+            sanPham.setSanPhamChiTiets(chiTiets);
+            list.add(sanPham);
+        }
+        return list;
+    }
+}
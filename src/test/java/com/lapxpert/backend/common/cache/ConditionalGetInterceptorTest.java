@@ -0,0 +1,233 @@
+package com.lapxpert.backend.common.cache;
+
+import com.lapxpert.backend.common.cache.CacheVersioningService.DataDomain;
+import com.lapxpert.backend.common.cache.CacheVersioningService.DataVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Test for ConditionalGetInterceptor: ETag validation, 304 short-circuit, byte savings under polling
+ * and the pre-serialized response body cache
+ */
+@ExtendWith(MockitoExtension.class)
+class ConditionalGetInterceptorTest {
+
+    @Mock
+    private CacheVersioningService cacheVersioningService;
+
+    @Mock
+    private RedisTemplate<String, byte[]> byteArrayRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, byte[]> valueOperations;
+
+    private final Map<String, byte[]> storedBodies = new HashMap<>();
+
+    private CatalogStubController controller;
+    private MockMvc mockMvc;
+    private final AtomicInteger catalogVersion = new AtomicInteger(1);
+
+    @RestController
+    static class CatalogStubController {
+        final AtomicInteger invocations = new AtomicInteger();
+
+        @GetMapping("/api/v1/products/list")
+        @ConditionalGet(DataDomain.CATALOG)
+        public List<String> list(@RequestParam(defaultValue = "0") int page) {
+            invocations.incrementAndGet();
+            List<String> products = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                products.add("Laptop " + page + "-" + i + " Intel Core i7 16GB RAM 512GB SSD");
+            }
+            return products;
+        }
+
+        @GetMapping("/api/v1/products/{id}")
+        @ConditionalGet(value = DataDomain.CATALOG, cacheResponseSeconds = 600)
+        public List<String> detail(@PathVariable Long id) {
+            return list(id.intValue());
+        }
+
+        @GetMapping("/api/v1/products/uncached")
+        public String uncached() {
+            invocations.incrementAndGet();
+            return "ok";
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        controller = new CatalogStubController();
+        ResponseBodyCacheService responseBodyCacheService = new ResponseBodyCacheService(byteArrayRedisTemplate);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addInterceptors(new ConditionalGetInterceptor(cacheVersioningService, responseBodyCacheService))
+                .addFilters(new ResponseBodyCacheFilter(responseBodyCacheService))
+                .build();
+
+        // Back the byte cache with an in-memory map
+        lenient().when(byteArrayRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.get(anyString()))
+                .thenAnswer(invocation -> storedBodies.get(invocation.<String>getArgument(0)));
+        lenient().doAnswer(invocation -> storedBodies.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), any(byte[].class), any(Duration.class));
+        lenient().when(cacheVersioningService.getDataVersion(DataDomain.CATALOG)).thenAnswer(invocation ->
+                new DataVersion("CATALOG=" + catalogVersion.get() + ";", Instant.ofEpochSecond(1_760_000_000L)));
+    }
+
+    private MockHttpServletResponse poll(String url, String etag) throws Exception {
+        var request = get(url);
+        if (etag != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    @Test
+    void testFirstRequest_ReturnsBodyWithValidators() throws Exception {
+        MockHttpServletResponse response = poll("/api/v1/products/list", null);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.ETAG).startsWith("\""));
+        assertNotNull(response.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals(ConditionalGetInterceptor.CACHE_CONTROL_VALUE, response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertTrue(response.getContentAsByteArray().length > 0);
+    }
+
+    @Test
+    void testMatchingEtag_Returns304WithoutInvokingController() throws Exception {
+        String etag = poll("/api/v1/products/list", null).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = poll("/api/v1/products/list", etag);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(1, controller.invocations.get());
+    }
+
+    @Test
+    void testDataChangeOrDifferentQuery_ChangesEtag() throws Exception {
+        String etag = poll("/api/v1/products/list", null).getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(etag, poll("/api/v1/products/list?page=1", null).getHeader(HttpHeaders.ETAG));
+
+        catalogVersion.incrementAndGet();
+        MockHttpServletResponse response = poll("/api/v1/products/list", etag);
+
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testVersionUnavailable_ServesFullResponseWithoutEtag() throws Exception {
+        when(cacheVersioningService.getDataVersion(DataDomain.CATALOG)).thenReturn(null);
+
+        MockHttpServletResponse response = poll("/api/v1/products/list", "\"stale\"");
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testUnannotatedEndpoint_IsNotConditional() throws Exception {
+        MockHttpServletResponse response = poll("/api/v1/products/uncached", null);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+        verifyNoInteractions(cacheVersioningService);
+    }
+
+    @Test
+    void testPolling_TransfersFullBodyOnlyAfterChanges() throws Exception {
+        int polls = 60;
+        long fullBodyBytes = 0;
+        long transferredBytes = 0;
+        String etag = null;
+
+        for (int i = 0; i < polls; i++) {
+            if (i == 30) {
+                catalogVersion.incrementAndGet();
+            }
+            MockHttpServletResponse response = poll("/api/v1/products/list", etag);
+            int bodyBytes = response.getContentAsByteArray().length;
+            if (response.getStatus() == 200) {
+                fullBodyBytes = bodyBytes;
+                etag = response.getHeader(HttpHeaders.ETAG);
+            }
+            transferredBytes += bodyBytes;
+        }
+
+        long withoutConditionalGet = fullBodyBytes * polls;
+        double savedRatio = 1.0 - (double) transferredBytes / withoutConditionalGet;
+
+        // Only the first poll and the poll after the change rebuild and transfer the body
+        assertEquals(2, controller.invocations.get());
+        assertEquals(fullBodyBytes * 2, transferredBytes);
+        assertTrue(savedRatio > 0.95, "Polling should save over 95% of bytes but saved " + savedRatio);
+    }
+
+    @Test
+    void testResponseBodyCache_OtherClientsSkipControllerAndMapping() throws Exception {
+        MockHttpServletResponse first = poll("/api/v1/products/7", null);
+        MockHttpServletResponse second = poll("/api/v1/products/7", null);
+
+        assertEquals(200, second.getStatus());
+        assertEquals(1, controller.invocations.get());
+        assertArrayEquals(first.getContentAsByteArray(), second.getContentAsByteArray());
+        assertTrue(second.getContentType().contains("json"));
+        assertEquals(1, storedBodies.size());
+    }
+
+    @Test
+    void testResponseBodyCache_ServesStoredGzipToGzipClients() throws Exception {
+        byte[] plain = poll("/api/v1/products/7", null).getContentAsByteArray();
+
+        MockHttpServletResponse gzipped = mockMvc.perform(get("/api/v1/products/7")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")).andReturn().getResponse();
+
+        assertEquals("gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzipped.getContentAsByteArray().length < plain.length / 4);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testResponseBodyCache_DataChangeBypassesStoredBody() throws Exception {
+        poll("/api/v1/products/7", null);
+        catalogVersion.incrementAndGet();
+
+        poll("/api/v1/products/7", null);
+
+        assertEquals(2, controller.invocations.get());
+        assertEquals(2, storedBodies.size());
+    }
+}
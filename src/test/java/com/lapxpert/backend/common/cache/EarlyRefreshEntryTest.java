@@ -0,0 +1,100 @@
+package com.lapxpert.backend.common.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for XFetch early refresh and TTL jitter
+ */
+@ExtendWith(MockitoExtension.class)
+class EarlyRefreshEntryTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testXFetchRule_RefreshProbabilityGrowsTowardsExpiry() {
+        long now = 1_000_000L;
+        EarlyRefreshEntry farFromExpiry = new EarlyRefreshEntry("v", 100, now + 60_000);
+        EarlyRefreshEntry nearExpiry = new EarlyRefreshEntry("v", 100, now + 50);
+
+        // -ln(0.5) * 100ms ~ 69ms of look-ahead
+        assertFalse(farFromExpiry.shouldRefreshEarly(now, 1.0, 0.5));
+        assertTrue(nearExpiry.shouldRefreshEarly(now, 1.0, 0.5));
+        // Unlucky draws refresh even far ahead, lucky draws wait until expiry
+        assertTrue(farFromExpiry.shouldRefreshEarly(now, 1.0, 1e-300));
+        assertFalse(nearExpiry.shouldRefreshEarly(now, 1.0, 1.0));
+        assertTrue(nearExpiry.shouldRefreshEarly(now + 50, 1.0, 1.0));
+    }
+
+    @Test
+    void testFrom_RecognizesEntryReadBackFromJsonAsMap() {
+        EarlyRefreshEntry entry = EarlyRefreshEntry.from(Map.of(
+                EarlyRefreshEntry.VALUE, Map.of("diemTrungBinh", 4.5),
+                EarlyRefreshEntry.DELTA, 120,
+                EarlyRefreshEntry.EXPIRES_AT, 1_760_000_000_000L));
+
+        assertNotNull(entry);
+        assertEquals(Map.of("diemTrungBinh", 4.5), entry.value());
+        assertEquals(120, entry.deltaMillis());
+        assertNull(EarlyRefreshEntry.from(Map.of("diemTrungBinh", 4.5)));
+    }
+
+    @Test
+    void testExpiringEntry_ServedWhileRefreshedInBackground() throws Exception {
+        ConcurrentMapCache store = new ConcurrentMapCache("productRatings");
+        CacheRefreshExecutor refreshExecutor = new CacheRefreshExecutor(transactionManager);
+        Cache cache = new CoalescingCache(store, new SingleFlight(redisTemplate), refreshExecutor, Duration.ofMinutes(60));
+        store.put(1L, new EarlyRefreshEntry("4.0", 200, System.currentTimeMillis() - 1));
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        String served = cache.get(1L, () -> {
+            refreshed.countDown();
+            return "4.5";
+        });
+
+        assertEquals("4.0", served);
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && !"4.5".equals(cache.get(1L, String.class)); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("4.5", cache.get(1L, String.class));
+
+        EarlyRefreshEntry stored = EarlyRefreshEntry.from(store.get(1L).get());
+        assertNotNull(stored);
+        assertTrue(stored.expiresAt() > System.currentTimeMillis() + Duration.ofMinutes(50).toMillis());
+        refreshExecutor.shutdown();
+    }
+
+    @Test
+    void testWithJitter_SpreadsTtlWithinTenPercent() {
+        Duration base = Duration.ofMinutes(60);
+        Set<Long> distinct = new HashSet<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            long millis = CacheTtlConstants.withJitter(base).toMillis();
+            assertTrue(millis >= base.toMillis() * 0.9 && millis <= base.toMillis() * 1.1);
+            distinct.add(millis);
+        }
+
+        assertTrue(distinct.size() > 900, "Entries written together should get different expiries");
+    }
+}
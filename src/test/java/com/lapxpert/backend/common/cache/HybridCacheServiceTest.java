@@ -0,0 +1,105 @@
+package com.lapxpert.backend.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for bulk cache reads in HybridCacheService
+ */
+@ExtendWith(MockitoExtension.class)
+class HybridCacheServiceTest {
+
+    @Mock
+    private TwoLevelCacheManager cacheManager;
+
+    @Mock
+    private RedisTemplate<String, byte[]> byteArrayRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, byte[]> valueOperations;
+
+    @Mock
+    private RedisCache redisCache;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private CacheMetrics cacheMetrics;
+
+    @InjectMocks
+    private HybridCacheService hybridCacheService;
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(new ObjectMapper());
+
+    @Test
+    void testGetAll_OneMultiGetAndOneBatchedLoadForMisses() {
+        when(cacheManager.getCache("productRatings")).thenReturn(cache);
+        when(cacheManager.getRedisCache("productRatings")).thenReturn(redisCache);
+        when(redisCache.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer)));
+        when(byteArrayRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of("productRatings::1", "productRatings::2", "productRatings::3")))
+                .thenReturn(Arrays.asList(
+                        serializer.serialize("4.5"),
+                        null,
+                        serializer.serialize(new EarlyRefreshEntry("3.0", 20, System.currentTimeMillis() + 60_000))));
+
+        List<Collection<Long>> loaderCalls = new ArrayList<>();
+        Map<Long, String> ratings = hybridCacheService.getAll("productRatings", List.of(1L, 2L, 3L, 2L), ids -> {
+            loaderCalls.add(ids);
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> "5.0"));
+        });
+
+        assertEquals(List.of(1L, 2L, 3L), new ArrayList<>(ratings.keySet()));
+        assertEquals("4.5", ratings.get(1L));
+        assertEquals("5.0", ratings.get(2L));
+        assertEquals("3.0", ratings.get(3L));
+        assertEquals(List.of(List.of(2L)), loaderCalls);
+        verify(valueOperations, times(1)).multiGet(any());
+        verify(byteArrayRedisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void testGetAll_WithoutRedisLoadsMissesOnceAndCachesThem() {
+        ReflectionTestUtils.setField(hybridCacheService, "cacheManager", new ConcurrentMapCacheManager("productRatings"));
+        List<Collection<Long>> loaderCalls = new ArrayList<>();
+        Function<Collection<Long>, Map<Long, String>> loader = ids -> {
+            loaderCalls.add(ids);
+            return ids.stream().filter(id -> id != 9L)
+                    .collect(Collectors.toMap(Function.identity(), id -> "rating-" + id));
+        };
+
+        Map<Long, String> first = hybridCacheService.getAll("productRatings", List.of(1L, 2L, 9L), loader);
+        Map<Long, String> second = hybridCacheService.getAll("productRatings", List.of(1L, 2L, 3L), loader);
+
+        assertEquals(Map.of(1L, "rating-1", 2L, "rating-2"), first);
+        assertEquals(Map.of(1L, "rating-1", 2L, "rating-2", 3L, "rating-3"), second);
+        assertEquals(List.of(List.of(1L, 2L, 9L), List.of(3L)), loaderCalls);
+    }
+}
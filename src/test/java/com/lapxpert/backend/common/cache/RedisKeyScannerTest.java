@@ -0,0 +1,107 @@
+package com.lapxpert.backend.common.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for RedisKeyScanner: pattern maintenance walks the keyspace with SCAN and deletes with batched UNLINK,
+ * never with KEYS
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisKeyScannerTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final Set<String> keyspace = new TreeSet<>();
+    private final List<Integer> unlinkBatchSizes = new ArrayList<>();
+    private final AtomicInteger keysReturnedByScan = new AtomicInteger();
+    private RedisKeyScanner redisKeyScanner;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisKeyScanner = new RedisKeyScanner(redisTemplate);
+        for (int i = 0; i < 1_200; i++) {
+            keyspace.add("product:rating:" + i);
+        }
+        for (int i = 0; i < 300; i++) {
+            keyspace.add("cartData::user:" + i);
+        }
+
+        // In-memory Redis stand-in: SCAN iterates matching keys lazily, UNLINK removes them
+        lenient().when(redisTemplate.scan(any(ScanOptions.class))).thenAnswer(invocation -> {
+            ScanOptions options = invocation.getArgument(0);
+            Pattern regex = Pattern.compile(options.getPattern().replace("*", ".*"));
+            Iterator<String> matching = new ArrayList<>(keyspace).stream()
+                    .filter(key -> regex.matcher(key).matches())
+                    .iterator();
+            Cursor<String> cursor = mock(Cursor.class);
+            lenient().when(cursor.hasNext()).thenAnswer(i -> matching.hasNext());
+            lenient().when(cursor.next()).thenAnswer(i -> {
+                keysReturnedByScan.incrementAndGet();
+                return matching.next();
+            });
+            return cursor;
+        });
+        lenient().when(redisTemplate.unlink(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            unlinkBatchSizes.add(keys.size());
+            return keys.stream().filter(keyspace::remove).count();
+        });
+    }
+
+    @Test
+    void testUnlinkByPattern_RemovesMatchingKeysInBatches() {
+        long removed = redisKeyScanner.unlinkByPattern("product:rating:*");
+
+        assertEquals(1_200, removed);
+        assertEquals(300, keyspace.size());
+        assertTrue(keyspace.stream().allMatch(key -> key.startsWith("cartData::")));
+        assertEquals(List.of(500, 500, 200), unlinkBatchSizes);
+        verify(redisTemplate, never()).keys(any());
+    }
+
+    @Test
+    void testSample_StopsScanningAtLimit() {
+        Set<String> sample = redisKeyScanner.sample("product:rating:*", 5);
+
+        assertEquals(5, sample.size());
+        assertEquals(5, keysReturnedByScan.get());
+        verify(redisTemplate, never()).keys(any());
+    }
+
+    @Test
+    void testCacheInvalidationService_PatternAndTtlInfoNeverUseKeys() {
+        CacheInvalidationService cacheInvalidationService = new CacheInvalidationService(
+                mock(CacheManager.class), mock(CacheWarmingService.class), mock(CacheTagService.class),
+                redisKeyScanner);
+
+        assertEquals(300, cacheInvalidationService.getCacheTtlInfo("cartData").getKeyCount());
+        cacheInvalidationService.invalidateByPattern("cartData::*");
+
+        assertEquals(0, cacheInvalidationService.getCacheTtlInfo("cartData").getKeyCount());
+        assertEquals(1_200, keyspace.size());
+        verify(redisTemplate, never()).keys(any());
+    }
+}
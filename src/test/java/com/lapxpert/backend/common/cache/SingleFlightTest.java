@@ -0,0 +1,187 @@
+package com.lapxpert.backend.common.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for SingleFlight and CoalescingCache: concurrent misses on one key run the loader once
+ */
+@ExtendWith(MockitoExtension.class)
+class SingleFlightTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        singleFlight = new SingleFlight(redisTemplate);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+    }
+
+    @Test
+    void testConcurrentMisses_LoadOnceAndShareResult() throws Exception {
+        Cache cache = new CoalescingCache(new ConcurrentMapCache("productRatings"), singleFlight, null, null);
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 50;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get(1L, () -> {
+                    loaderCalls.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "4.5";
+                })));
+            }
+            // Let every caller reach the flight before the loader finishes
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("4.5", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loaderCalls.get());
+        assertEquals("4.5", cache.get(1L, String.class));
+        assertEquals(1, singleFlight.getStats().loads());
+    }
+
+    @Test
+    void testLoaderFailure_PropagatesToAllCallersAndNextCallRetries() throws Exception {
+        Cache cache = new CoalescingCache(new ConcurrentMapCache("productRatings"), singleFlight, null, null);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 10;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get(1L, () -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    throw new IllegalStateException("database down");
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(Cache.ValueRetrievalException.class, e.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, singleFlight.getStats().loads());
+        assertEquals(callers - 1, singleFlight.getStats().coalescedCalls());
+
+        assertEquals("4.5", cache.get(1L, () -> "4.5"));
+        assertEquals(2, singleFlight.getStats().loads());
+    }
+
+    @Test
+    void testHungLeader_FollowerLoadsAfterTimeout() throws Exception {
+        SingleFlight shortWait = new SingleFlight(redisTemplate, Duration.ofMillis(100));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = executor.submit(() -> shortWait.load("productRatings::1", () -> {
+                leaderStarted.countDown();
+                awaitQuietly(release);
+                return "leader";
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            assertEquals("follower", shortWait.load("productRatings::1", () -> "follower"));
+            assertEquals(1, shortWait.getStats().followerTimeouts());
+
+            release.countDown();
+            assertEquals("leader", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLoadFresh_DoesNotTakeResultOfFlightStartedBeforeCall() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.load("tonKho::1", () -> {
+                leaderStarted.countDown();
+                awaitQuietly(release);
+                return "before write";
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            Future<String> strongRead = executor.submit(() -> singleFlight.loadFresh("tonKho::1", () -> "after write"));
+            Thread.sleep(100);
+            assertFalse(strongRead.isDone());
+            release.countDown();
+
+            assertEquals("before write", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("after write", strongRead.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, singleFlight.getStats().loads());
+    }
+
+    @Test
+    void testLeaseHeldByOtherNode_UsesSharedResultInsteadOfLoading() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(redisTemplate.hasKey(anyString())).thenReturn(true);
+        AtomicInteger sharedReads = new AtomicInteger();
+
+        String value = singleFlight.load("productRatings::1", () -> fail("Loader must not run"),
+                () -> sharedReads.incrementAndGet() >= 2 ? "4.5" : null);
+
+        assertEquals("4.5", value);
+        assertEquals(0, singleFlight.getStats().loads());
+        assertEquals(1, singleFlight.getStats().remoteResults());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.lapxpert.backend.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for TwoLevelCache: L1 hits skip Redis, and writes on one node drop the L1 copy on the others
+ */
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplateNodeA;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplateNodeB;
+
+    private ConcurrentMapCache sharedRedisCache;
+    private TwoLevelCacheManager nodeA;
+    private TwoLevelCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        NearCacheInvalidationBus busA = new NearCacheInvalidationBus(redisTemplateNodeA, objectMapper);
+        NearCacheInvalidationBus busB = new NearCacheInvalidationBus(redisTemplateNodeB, objectMapper);
+
+        // Both nodes share one "Redis" (L2); messages published by either node reach both buses
+        sharedRedisCache = spy(new ConcurrentMapCache("productRatings"));
+        ConcurrentMapCacheManager redisCacheManager = new ConcurrentMapCacheManager() {
+            @Override
+            public Cache getCache(String name) {
+                return "productRatings".equals(name) ? sharedRedisCache : super.getCache(name);
+            }
+        };
+        for (RedisTemplate<String, String> template : List.of(redisTemplateNodeA, redisTemplateNodeB)) {
+            lenient().when(template.convertAndSend(anyString(), any())).thenAnswer(invocation -> {
+                String message = invocation.getArgument(1);
+                busA.handleInvalidationMessage(message, NearCacheInvalidationBus.NEAR_CACHE_CHANNEL);
+                busB.handleInvalidationMessage(message, NearCacheInvalidationBus.NEAR_CACHE_CHANNEL);
+                return 2L;
+            });
+        }
+
+        nodeA = new TwoLevelCacheManager(redisCacheManager, busA, new SingleFlight(redisTemplateNodeA), null, null,
+                name -> null, true);
+        nodeB = new TwoLevelCacheManager(redisCacheManager, busB, new SingleFlight(redisTemplateNodeB), null, null,
+                name -> null, true);
+    }
+
+    @Test
+    void testRepeatedReads_ServedFromNearCache() {
+        nodeA.getCache("productRatings").put(1L, "4.5");
+        Cache cache = nodeB.getCache("productRatings");
+        clearInvocations(sharedRedisCache);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("4.5", cache.get(1L, String.class));
+        }
+
+        verify(sharedRedisCache, times(1)).get(1L);
+        TwoLevelCache.Stats stats = ((TwoLevelCache) cache).getStats();
+        assertEquals(99, stats.l1Hits());
+        assertEquals(1, stats.l2Hits());
+        assertEquals(0.99, stats.l1HitRate(), 0.0001);
+    }
+
+    @Test
+    void testWriteOnOneNode_DropsNearCacheOnOtherNodes() {
+        Cache cacheA = nodeA.getCache("productRatings");
+        Cache cacheB = nodeB.getCache("productRatings");
+        cacheA.put(1L, "4.5");
+        assertEquals("4.5", cacheB.get(1L, String.class));
+
+        cacheA.put(1L, "3.0");
+        assertEquals("3.0", cacheB.get(1L, String.class));
+
+        cacheA.evict(1L);
+        assertNull(cacheB.get(1L));
+    }
+
+    @Test
+    void testClearOnOneNode_DropsAllNearCacheEntriesOnOtherNodes() {
+        Cache cacheB = nodeB.getCache("productRatings");
+        nodeA.getCache("productRatings").put(1L, "4.5");
+        nodeA.getCache("productRatings").put(2L, "5.0");
+        cacheB.get(1L);
+        cacheB.get(2L);
+
+        nodeA.getCache("productRatings").clear();
+
+        assertNull(cacheB.get(1L));
+        assertNull(cacheB.get(2L));
+        assertEquals(2, ((TwoLevelCache) cacheB).getStats().misses());
+    }
+
+    @Test
+    void testCacheWithoutNearCacheSpec_IsServedFromRedisOnly() {
+        Cache cartData = nodeA.getCache("cartData");
+
+        assertFalse(cartData instanceof TwoLevelCache);
+        assertTrue(nodeA.getStatistics().keySet().stream().noneMatch("cartData"::equals));
+    }
+}
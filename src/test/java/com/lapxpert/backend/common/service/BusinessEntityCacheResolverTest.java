@@ -0,0 +1,252 @@
+package com.lapxpert.backend.common.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test that every BusinessEntityService caches in its own getCacheName() cache through real caching proxies
+ */
+@SpringJUnitConfig(BusinessEntityCacheResolverTest.Config.class)
+class BusinessEntityCacheResolverTest {
+
+    private static final Long ID = 5L;
+
+    @Configuration
+    @EnableCaching
+    @Import(BusinessEntityCacheResolver.class)
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        JpaRepository<String, Long> voucherRepository() {
+            return repositoryMock();
+        }
+
+        @Bean
+        JpaRepository<String, Long> campaignRepository() {
+            return repositoryMock();
+        }
+
+        @Bean
+        EntityService voucherService() {
+            return new EntityService("phieuGiamGiaCache", voucherRepository());
+        }
+
+        @Bean
+        EntityService campaignService() {
+            return new EntityService("dotGiamGiaCache", campaignRepository());
+        }
+    }
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    @Qualifier("voucherService")
+    private EntityService voucherService;
+
+    @Autowired
+    @Qualifier("campaignService")
+    private EntityService campaignService;
+
+    @Autowired
+    @Qualifier("voucherRepository")
+    private JpaRepository<String, Long> voucherRepository;
+
+    @Autowired
+    @Qualifier("campaignRepository")
+    private JpaRepository<String, Long> campaignRepository;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        stub(voucherRepository, "phiếu giảm giá");
+        stub(campaignRepository, "đợt giảm giá");
+    }
+
+    @Test
+    void testFindById_SameIdOfTwoEntitiesDoesNotCrossHit() {
+        assertEquals(Optional.of("phiếu giảm giá 5"), voucherService.findById(ID));
+        assertEquals(Optional.of("đợt giảm giá 5"), campaignService.findById(ID));
+        assertEquals(Optional.of("phiếu giảm giá 5"), voucherService.findById(ID));
+        assertEquals(Optional.of("đợt giảm giá 5"), campaignService.findById(ID));
+
+        verify(voucherRepository, times(1)).findById(ID);
+        verify(campaignRepository, times(1)).findById(ID);
+        assertNotNull(cacheManager.getCache("phieuGiamGiaCache").get(ID));
+        assertNotNull(cacheManager.getCache("dotGiamGiaCache").get(ID));
+    }
+
+    @Test
+    void testSoftDelete_EvictsOnlyItsOwnEntity() {
+        voucherService.findById(ID);
+        campaignService.findById(ID);
+        voucherService.findAll();
+        campaignService.findAll();
+
+        voucherService.softDelete(ID, "admin", null);
+
+        assertNull(cacheManager.getCache("phieuGiamGiaCache").get(ID));
+        assertNotNull(cacheManager.getCache("dotGiamGiaCache").get(ID));
+        voucherService.findAll();
+        campaignService.findAll();
+        verify(voucherRepository, times(2)).findAll();
+        verify(campaignRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testClearByCacheName_ReachesTheEntriesOfThatService() {
+        // What cache invalidation by name (clear-cache endpoint, consistency checks) relies on
+        voucherService.findById(ID);
+        campaignService.findById(ID);
+
+        cacheManager.getCache("phieuGiamGiaCache").clear();
+        voucherService.findById(ID);
+        campaignService.findById(ID);
+
+        verify(voucherRepository, times(2)).findById(ID);
+        verify(campaignRepository, times(1)).findById(ID);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> JpaRepository<E, Long> repositoryMock() {
+        return mock(JpaRepository.class);
+    }
+
+    private static void stub(JpaRepository<String, Long> repository, String entityName) {
+        reset(repository);
+        when(repository.findById(any())).thenAnswer(invocation -> Optional.of(entityName + " " + invocation.getArgument(0)));
+        when(repository.findAll()).thenReturn(List.of(entityName + " " + ID));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    /**
+     * Minimal entity service whose entity and DTO are the display string of the entity
+     */
+    static class EntityService extends BusinessEntityService<String, Long, String, Object> {
+
+        private final String cacheName;
+        private final JpaRepository<String, Long> repository;
+        private final JpaRepository<Object, Long> auditRepository = repositoryMock();
+
+        EntityService(String cacheName, JpaRepository<String, Long> repository) {
+            this.cacheName = cacheName;
+            this.repository = repository;
+        }
+
+        @Override
+        protected String getCacheName() {
+            return cacheName;
+        }
+
+        @Override
+        protected JpaRepository<String, Long> getRepository() {
+            return repository;
+        }
+
+        @Override
+        protected JpaRepository<Object, Long> getAuditRepository() {
+            return auditRepository;
+        }
+
+        @Override
+        protected String getEntityName() {
+            return cacheName;
+        }
+
+        @Override
+        protected ApplicationEventPublisher getEventPublisher() {
+            return event -> { };
+        }
+
+        @Override
+        protected String toDto(String entity) {
+            return entity;
+        }
+
+        @Override
+        protected String toEntity(String dto) {
+            return dto;
+        }
+
+        @Override
+        protected String buildAuditJson(String entity) {
+            return "{}";
+        }
+
+        @Override
+        protected Object createAuditEntry(Long entityId, String action, String oldValues, String newValues,
+                                          String nguoiThucHien, String lyDo) {
+            return action;
+        }
+
+        @Override
+        protected void validateEntity(String entity) {
+        }
+
+        @Override
+        protected Long getEntityId(String entity) {
+            return ID;
+        }
+
+        @Override
+        protected void setEntityId(String entity, Long id) {
+        }
+
+        @Override
+        protected void setSoftDeleteStatus(String entity, boolean status) {
+        }
+
+        @Override
+        protected List<Object> getAuditHistoryByEntityId(Long entityId) {
+            return List.of();
+        }
+
+        @Override
+        protected void publishEntityCreatedEvent(String entity) {
+        }
+
+        @Override
+        protected void publishEntityUpdatedEvent(String entity, String oldEntity) {
+        }
+
+        @Override
+        protected void publishEntityDeletedEvent(Long entityId) {
+        }
+
+        @Override
+        protected void validateBusinessRules(String entity) {
+        }
+
+        @Override
+        protected void validateBusinessRulesForUpdate(String entity, String existingEntity) {
+        }
+
+        @Override
+        protected String cloneEntity(String entity) {
+            return entity;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.lapxpert.backend.common.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for per-key conflation of real-time updates
+ */
+class ConflatingPublisherTest {
+
+    // Long window so only the explicit flush() calls send
+    private final ConflatingPublisher publisher = new ConflatingPublisher(60_000);
+    private final List<ConflatingPublisher.Conflated<Integer>> sent = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void testFlush_SendsLatestStatePerKeyOnce() {
+        for (int soLuong = 10; soLuong > 0; soLuong--) {
+            publisher.submit("ton-kho", 1L, soLuong, sent::add);
+        }
+        publisher.submit("ton-kho", 2L, 7, sent::add);
+
+        publisher.flush();
+
+        assertEquals(2, sent.size());
+        ConflatingPublisher.Conflated<Integer> variant1 = sent.stream()
+                .filter(update -> update.key().equals(1L)).findFirst().orElseThrow();
+        assertEquals(10, variant1.first());
+        assertEquals(1, variant1.latest());
+        assertEquals(10, variant1.count());
+
+        publisher.flush();
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void testSubmit_SameKeyOnDifferentTopicsIsNotMerged() {
+        publisher.submit("ton-kho", 1L, 5, sent::add);
+        publisher.submit("gia-san-pham", 1L, 900, sent::add);
+
+        publisher.flush();
+
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void testSubmit_ZeroWindowSendsImmediately() {
+        ConflatingPublisher immediate = new ConflatingPublisher(0);
+        try {
+            immediate.submit("ton-kho", 1L, 3, sent::add);
+
+            assertEquals(1, sent.size());
+            assertEquals(1, sent.get(0).count());
+        } finally {
+            immediate.shutdown();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.lapxpert.backend.common.service;
+
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import com.lapxpert.backend.common.event.VoucherChangeEvent;
+import com.lapxpert.backend.common.service.PromotionLifecycleScheduler.LifecycleTimer;
+import com.lapxpert.backend.common.service.PromotionLifecycleScheduler.TargetType;
+import com.lapxpert.backend.common.service.PromotionLifecycleScheduler.Transition;
+import com.lapxpert.backend.dotgiamgia.repository.DotGiamGiaRepository;
+import com.lapxpert.backend.dotgiamgia.service.DotGiamGiaService;
+import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaRepository;
+import com.lapxpert.backend.phieugiamgia.service.PhieuGiamGiaService;
+import com.lapxpert.backend.sanpham.event.CampaignPricingChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for precise campaign/voucher lifecycle transitions and their idempotency
+ */
+@ExtendWith(MockitoExtension.class)
+class PromotionLifecycleSchedulerTest {
+
+    private static final List<TrangThaiCampaign> OPEN_STATUSES =
+            List.of(TrangThaiCampaign.CHUA_DIEN_RA, TrangThaiCampaign.DA_DIEN_RA);
+
+    @Mock
+    private DotGiamGiaRepository dotGiamGiaRepository;
+
+    @Mock
+    private PhieuGiamGiaRepository phieuGiamGiaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private PromotionLifecycleScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(cacheManager.getCache(anyString())).thenReturn(cache);
+    }
+
+    private static LifecycleTimer timer(TargetType type, Transition transition) {
+        return new LifecycleTimer(type, 7L, transition, Instant.now());
+    }
+
+    // ==================== CAMPAIGNS ====================
+
+    @Test
+    void testCampaignActivate_FlipsStatusAndRepricesOnlyItsVariants() {
+        when(dotGiamGiaRepository.activateIfDue(eq(7L), any(), eq(TrangThaiCampaign.CHUA_DIEN_RA),
+                eq(TrangThaiCampaign.DA_DIEN_RA))).thenReturn(1);
+        when(dotGiamGiaRepository.findSanPhamChiTietIdsByDotGiamGiaId(7L)).thenReturn(List.of(11L, 12L));
+
+        scheduler.fire(timer(TargetType.DOT_GIAM_GIA, Transition.ACTIVATE));
+
+        ArgumentCaptor<CampaignPricingChangeEvent> event = ArgumentCaptor.forClass(CampaignPricingChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Set.of(7L), event.getValue().getCampaignIds());
+        assertEquals(Set.of(11L, 12L), event.getValue().getVariantIds());
+        assertFalse(event.getValue().requiresFullRebuild());
+        verify(cacheManager).getCache("dotGiamGiaCache");
+        verify(cache).evict(7L);
+        verify(cache).evict(SimpleKey.EMPTY);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testCampaignExpire_FlipsOpenStatusToEnded() {
+        when(dotGiamGiaRepository.expireIfDue(eq(7L), any(), eq(OPEN_STATUSES), eq(TrangThaiCampaign.KET_THUC)))
+                .thenReturn(1);
+        when(dotGiamGiaRepository.findSanPhamChiTietIdsByDotGiamGiaId(7L)).thenReturn(List.of(11L));
+
+        scheduler.fire(timer(TargetType.DOT_GIAM_GIA, Transition.EXPIRE));
+
+        ArgumentCaptor<CampaignPricingChangeEvent> event = ArgumentCaptor.forClass(CampaignPricingChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Set.of(11L), event.getValue().getVariantIds());
+        assertTrue(event.getValue().getLyDo().contains(TrangThaiCampaign.KET_THUC.name()));
+        verify(dotGiamGiaRepository, never()).activateIfDue(any(), any(), any(), any());
+    }
+
+    @Test
+    void testCampaignWithoutVariants_ChangesStatusWithoutRepricing() {
+        when(dotGiamGiaRepository.activateIfDue(eq(7L), any(), any(), any())).thenReturn(1);
+        when(dotGiamGiaRepository.findSanPhamChiTietIdsByDotGiamGiaId(7L)).thenReturn(List.of());
+
+        scheduler.fire(timer(TargetType.DOT_GIAM_GIA, Transition.ACTIVATE));
+
+        verifyNoInteractions(eventPublisher);
+        verify(cache).evict(7L);
+    }
+
+    @Test
+    void testCampaignRerun_SecondFiringIsANoOp() {
+        // Same timer fired twice (or by two instances): only the UPDATE that touches the row owns the transition
+        when(dotGiamGiaRepository.activateIfDue(eq(7L), any(), any(), any())).thenReturn(1, 0);
+        when(dotGiamGiaRepository.findSanPhamChiTietIdsByDotGiamGiaId(7L)).thenReturn(List.of(11L));
+
+        scheduler.fire(timer(TargetType.DOT_GIAM_GIA, Transition.ACTIVATE));
+        scheduler.fire(timer(TargetType.DOT_GIAM_GIA, Transition.ACTIVATE));
+
+        verify(eventPublisher, times(1)).publishEvent(any(CampaignPricingChangeEvent.class));
+        verify(dotGiamGiaRepository, times(1)).findSanPhamChiTietIdsByDotGiamGiaId(7L);
+        verify(cache, times(1)).evict(7L);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    // ==================== VOUCHERS ====================
+
+    @Test
+    void testVoucherActivate_PublishesStatusChange() {
+        when(phieuGiamGiaRepository.activateIfDue(eq(7L), any(), eq(TrangThaiCampaign.CHUA_DIEN_RA),
+                eq(TrangThaiCampaign.DA_DIEN_RA))).thenReturn(1);
+
+        scheduler.fire(timer(TargetType.PHIEU_GIAM_GIA, Transition.ACTIVATE));
+
+        ArgumentCaptor<VoucherChangeEvent> event = ArgumentCaptor.forClass(VoucherChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(7L, event.getValue().getVoucherId());
+        assertEquals("CHUA_DIEN_RA", event.getValue().getTrangThaiCu());
+        assertEquals("DA_DIEN_RA", event.getValue().getTrangThaiMoi());
+        verify(cacheManager).getCache("phieuGiamGiaCache");
+        verify(cache).evict(7L);
+    }
+
+    @Test
+    void testVoucherExpire_PublishesStatusChange() {
+        when(phieuGiamGiaRepository.expireIfDue(eq(7L), any(), eq(OPEN_STATUSES), eq(TrangThaiCampaign.KET_THUC)))
+                .thenReturn(1);
+
+        scheduler.fire(timer(TargetType.PHIEU_GIAM_GIA, Transition.EXPIRE));
+
+        ArgumentCaptor<VoucherChangeEvent> event = ArgumentCaptor.forClass(VoucherChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("DA_DIEN_RA", event.getValue().getTrangThaiCu());
+        assertEquals("KET_THUC", event.getValue().getTrangThaiMoi());
+    }
+
+    @Test
+    void testVoucherRerun_AlreadyTransitionedRowIsLeftAlone() {
+        when(phieuGiamGiaRepository.expireIfDue(eq(7L), any(), any(), any())).thenReturn(0);
+
+        scheduler.fire(timer(TargetType.PHIEU_GIAM_GIA, Transition.EXPIRE));
+
+        verifyNoInteractions(eventPublisher, cacheManager);
+    }
+
+    // ==================== CACHED ENTITIES ====================
+
+    @Test
+    void testFire_CachedEntitiesReflectTheNewStatus() {
+        AtomicReference<TrangThaiCampaign> campaignStatus = new AtomicReference<>(TrangThaiCampaign.CHUA_DIEN_RA);
+        AtomicReference<TrangThaiCampaign> voucherStatus = new AtomicReference<>(TrangThaiCampaign.DA_DIEN_RA);
+        when(dotGiamGiaRepository.activateIfDue(eq(7L), any(), any(), any())).thenAnswer(invocation -> {
+            campaignStatus.set(TrangThaiCampaign.DA_DIEN_RA);
+            return 1;
+        });
+        when(dotGiamGiaRepository.findSanPhamChiTietIdsByDotGiamGiaId(7L)).thenReturn(List.of());
+        when(phieuGiamGiaRepository.expireIfDue(eq(7L), any(), any(), any())).thenAnswer(invocation -> {
+            voucherStatus.set(TrangThaiCampaign.KET_THUC);
+            return 1;
+        });
+
+        // findById served through real caching proxies, in the caches the entity services resolve
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(CachingConfig.class)) {
+            BusinessEntityCacheResolverTest.EntityService campaignService =
+                    context.getBean("campaignService", BusinessEntityCacheResolverTest.EntityService.class);
+            BusinessEntityCacheResolverTest.EntityService voucherService =
+                    context.getBean("voucherService", BusinessEntityCacheResolverTest.EntityService.class);
+            when(context.getBean(CachingConfig.class).campaignRepository.findById(7L))
+                    .thenAnswer(invocation -> Optional.of(campaignStatus.get().name()));
+            when(context.getBean(CachingConfig.class).voucherRepository.findById(7L))
+                    .thenAnswer(invocation -> Optional.of(voucherStatus.get().name()));
+            PromotionLifecycleScheduler cachingScheduler = new PromotionLifecycleScheduler(dotGiamGiaRepository,
+                    phieuGiamGiaRepository, eventPublisher, transactionManager, context.getBean(CacheManager.class));
+
+            assertEquals(Optional.of("CHUA_DIEN_RA"), campaignService.findById(7L));
+            assertEquals(Optional.of("DA_DIEN_RA"), voucherService.findById(7L));
+
+            cachingScheduler.fire(timer(TargetType.DOT_GIAM_GIA, Transition.ACTIVATE));
+            cachingScheduler.fire(timer(TargetType.PHIEU_GIAM_GIA, Transition.EXPIRE));
+
+            assertEquals(Optional.of("DA_DIEN_RA"), campaignService.findById(7L));
+            assertEquals(Optional.of("KET_THUC"), voucherService.findById(7L));
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    @Import(BusinessEntityCacheResolver.class)
+    static class CachingConfig {
+
+        @SuppressWarnings("unchecked")
+        final JpaRepository<String, Long> campaignRepository = mock(JpaRepository.class);
+        @SuppressWarnings("unchecked")
+        final JpaRepository<String, Long> voucherRepository = mock(JpaRepository.class);
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        BusinessEntityCacheResolverTest.EntityService campaignService() {
+            return new BusinessEntityCacheResolverTest.EntityService(DotGiamGiaService.CACHE_NAME, campaignRepository);
+        }
+
+        @Bean
+        BusinessEntityCacheResolverTest.EntityService voucherService() {
+            return new BusinessEntityCacheResolverTest.EntityService(PhieuGiamGiaService.CACHE_NAME, voucherRepository);
+        }
+    }
+
+    // ==================== REGISTRATION ====================
+
+    @Test
+    void testResync_RegistersEachBoundaryOnceAcrossRuns() {
+        Instant start = Instant.now().plus(Duration.ofHours(1));
+        Instant end = start.plus(Duration.ofDays(1));
+        List<Object[]> campaigns = new ArrayList<>();
+        campaigns.add(new Object[]{1L, start, end, TrangThaiCampaign.CHUA_DIEN_RA});   // activate + expire
+        campaigns.add(new Object[]{2L, start.minus(Duration.ofDays(2)), end, TrangThaiCampaign.DA_DIEN_RA}); // expire
+        List<Object[]> vouchers = new ArrayList<>();
+        vouchers.add(new Object[]{3L, start, end, TrangThaiCampaign.CHUA_DIEN_RA});    // activate + expire
+        when(dotGiamGiaRepository.findLifecycleBoundaries(OPEN_STATUSES)).thenReturn(campaigns);
+        when(phieuGiamGiaRepository.findLifecycleBoundaries(OPEN_STATUSES)).thenReturn(vouchers);
+
+        scheduler.resync();
+        assertEquals(5, scheduler.getPendingTimerCount());
+
+        scheduler.resync();
+        assertEquals(5, scheduler.getPendingTimerCount());
+    }
+
+    @Test
+    void testCampaignChange_RegistersOnlyNewBoundaries() {
+        Instant end = Instant.now().plus(Duration.ofDays(1));
+        List<Object[]> first = new ArrayList<>();
+        first.add(new Object[]{1L, Instant.now().minus(Duration.ofDays(1)), end, TrangThaiCampaign.DA_DIEN_RA});
+        List<Object[]> rescheduled = new ArrayList<>();
+        rescheduled.add(new Object[]{1L, Instant.now().minus(Duration.ofDays(1)), end.plus(Duration.ofDays(1)),
+                TrangThaiCampaign.DA_DIEN_RA});
+        when(dotGiamGiaRepository.findLifecycleBoundariesByIds(Set.of(1L), OPEN_STATUSES)).thenReturn(first, first, rescheduled);
+
+        CampaignPricingChangeEvent event = CampaignPricingChangeEvent.fullRebuild(Set.of(1L), "Cập nhật đợt giảm giá");
+        scheduler.handleCampaignPricingChange(event);
+        scheduler.handleCampaignPricingChange(event);
+        assertEquals(1, scheduler.getPendingTimerCount());
+
+        // A moved end date adds a timer; the stale one fires harmlessly because the UPDATE re-checks the dates
+        scheduler.handleCampaignPricingChange(event);
+        assertEquals(2, scheduler.getPendingTimerCount());
+    }
+}
@@ -0,0 +1,162 @@
+package com.lapxpert.backend.dotgiamgia.repository;
+
+import com.lapxpert.backend.PostgresRepositoryTest;
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the khoang_hieu_luc range overlap queries that detect conflicting campaign assignments
+ */
+@PostgresRepositoryTest
+class DotGiamGiaOverlapRepositoryTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2090, 1, 1, 0, 0);
+
+    @Autowired
+    private DotGiamGiaRepository dotGiamGiaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long sanPhamId;
+    private Long variant;
+    private Long otherVariant;
+
+    @BeforeEach
+    void setUp() {
+        sanPhamId = jdbcTemplate.queryForObject(
+                "INSERT INTO san_pham (id, ngay_tao, ngay_cap_nhat, ma_san_pham, ten_san_pham) " +
+                "VALUES (nextval('san_pham_id_seq'), now(), now(), ?, 'Laptop thử nghiệm') RETURNING id",
+                Long.class, "TEST-" + UUID.randomUUID().toString().substring(0, 8));
+        variant = variant();
+        otherVariant = variant();
+    }
+
+    // ==================== RANGES ====================
+
+    @Test
+    void testOverlap_PartialOverlapConflicts() {
+        Long target = campaign(T, T.plusDays(10), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+        Long overlapping = campaign(T.plusDays(5), T.plusDays(15), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+        Long startsEarlier = campaign(T.minusDays(5), T.plusDays(1), TrangThaiCampaign.DA_DIEN_RA, variant);
+
+        assertEquals(Set.of(pair(variant, overlapping), pair(variant, startsEarlier)), overlaps(target));
+    }
+
+    @Test
+    void testOverlap_ContainedRangeConflictsBothWays() {
+        Long outer = campaign(T, T.plusDays(30), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+        Long inner = campaign(T.plusDays(10), T.plusDays(11), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+
+        assertEquals(Set.of(pair(variant, inner)), overlaps(outer));
+        assertEquals(Set.of(pair(variant, outer)), overlaps(inner));
+    }
+
+    @Test
+    void testOverlap_AdjacentRangesDoNotConflict() {
+        // Ranges are half-open [ngay_bat_dau, ngay_ket_thuc): one campaign may start the instant the other ends
+        Long target = campaign(T, T.plusDays(10), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+        campaign(T.plusDays(10), T.plusDays(20), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+        campaign(T.minusDays(10), T, TrangThaiCampaign.DA_DIEN_RA, variant);
+
+        assertEquals(Set.of(), overlaps(target));
+
+        // One microsecond of overlap is a conflict
+        Long touching = campaign(T.plusDays(10).minusNanos(1000), T.plusDays(20), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+        assertEquals(Set.of(pair(variant, touching)), overlaps(target));
+    }
+
+    @Test
+    void testOverlap_OpenEndedCampaignConflictsWithEveryLaterRange() {
+        // Both dates are NOT NULL, so a campaign "until further notice" ends at the far end of the calendar
+        Long openEnded = campaign(T.minusYears(1), LocalDateTime.of(9999, 12, 31, 23, 59), TrangThaiCampaign.DA_DIEN_RA,
+                variant);
+        Long nextYear = campaign(T.plusYears(1), T.plusYears(1).plusDays(3), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+        Long farFuture = campaign(LocalDateTime.of(9000, 1, 1, 0, 0), LocalDateTime.of(9000, 2, 1, 0, 0),
+                TrangThaiCampaign.CHUA_DIEN_RA, variant);
+        Long before = campaign(T.minusYears(2), T.minusYears(1), TrangThaiCampaign.DA_DIEN_RA, variant);
+
+        assertEquals(Set.of(pair(variant, nextYear), pair(variant, farFuture)), overlaps(openEnded));
+        assertEquals(Set.of(pair(variant, openEnded)), overlaps(farFuture));
+        assertEquals(Set.of(), overlaps(before));
+    }
+
+    // ==================== SCOPE ====================
+
+    @Test
+    void testOverlap_OnlyOpenCampaignsOnSharedVariants() {
+        Long target = campaign(T, T.plusDays(10), TrangThaiCampaign.CHUA_DIEN_RA, variant, otherVariant);
+        Long running = campaign(T.plusDays(1), T.plusDays(2), TrangThaiCampaign.DA_DIEN_RA, otherVariant);
+        campaign(T.plusDays(1), T.plusDays(2), TrangThaiCampaign.KET_THUC, variant);
+        campaign(T.plusDays(1), T.plusDays(2), TrangThaiCampaign.BI_HUY, variant);
+        campaign(T.plusDays(1), T.plusDays(2), TrangThaiCampaign.CHUA_DIEN_RA, variant());
+
+        assertEquals(Set.of(pair(otherVariant, running)), overlaps(target));
+    }
+
+    @Test
+    void testOverlapForVariants_PreviewsVariantsNotYetAssigned() {
+        Long target = campaign(T, T.plusDays(10), TrangThaiCampaign.CHUA_DIEN_RA);
+        Long overlapping = campaign(T.plusDays(5), T.plusDays(15), TrangThaiCampaign.CHUA_DIEN_RA, variant, otherVariant);
+        campaign(T.plusDays(10), T.plusDays(15), TrangThaiCampaign.CHUA_DIEN_RA, variant);
+
+        assertEquals(Set.of(), overlaps(target));
+        assertEquals(Set.of(pair(variant, overlapping)), toPairs(
+                dotGiamGiaRepository.findOverlappingAssignmentsForVariants(target, List.of(variant))));
+        assertEquals(Set.of(pair(variant, overlapping), pair(otherVariant, overlapping)), toPairs(
+                dotGiamGiaRepository.findOverlappingAssignmentsForVariants(target, List.of(variant, otherVariant))));
+    }
+
+    private Set<List<Long>> overlaps(Long campaignId) {
+        return toPairs(dotGiamGiaRepository.findOverlappingAssignments(campaignId));
+    }
+
+    private static Set<List<Long>> toPairs(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> List.of(((Number) row[0]).longValue(), ((Number) row[1]).longValue()))
+                .collect(Collectors.toSet());
+    }
+
+    private static List<Long> pair(Long variantId, Long campaignId) {
+        return List.of(variantId, campaignId);
+    }
+
+    private Long variant() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO san_pham_chi_tiet (id, ngay_tao, ngay_cap_nhat, san_pham_id, sku, gia_ban) " +
+                "VALUES (nextval('san_pham_chi_tiet_id_seq'), now(), now(), ?, ?, 20000000) RETURNING id",
+                Long.class, sanPhamId, "TEST-" + UUID.randomUUID());
+    }
+
+    /**
+     * Inserted natively: the entity recomputes its status from the wall clock on persist
+     */
+    private Long campaign(LocalDateTime ngayBatDau, LocalDateTime ngayKetThuc, TrangThaiCampaign trangThai,
+                          Long... variantIds) {
+        Long id = jdbcTemplate.queryForObject(
+                "INSERT INTO dot_giam_gia (id, ngay_tao, ngay_cap_nhat, ma_dot_giam_gia, ten_dot_giam_gia, " +
+                "phan_tram_giam, ngay_bat_dau, ngay_ket_thuc, trang_thai) " +
+                "VALUES (nextval('dot_giam_gia_id_seq'), now(), now(), ?, 'Đợt thử nghiệm', 10, ?, ?, '" +
+                trangThai.name() + "') RETURNING id",
+                Long.class, "TEST-" + UUID.randomUUID().toString().substring(0, 8),
+                Timestamp.valueOf(ngayBatDau), Timestamp.valueOf(ngayKetThuc));
+        for (Long variantId : variantIds) {
+            jdbcTemplate.update(
+                    "INSERT INTO san_pham_chi_tiet_dot_giam_gia (dot_giam_gia_id, san_pham_chi_tiet_id) VALUES (?, ?)",
+                    id, variantId);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,254 @@
+package com.lapxpert.backend.dotgiamgia.service;
+
+import com.lapxpert.backend.common.service.VietnamTimeZoneService;
+import com.lapxpert.backend.common.service.WebSocketIntegrationService;
+import com.lapxpert.backend.dotgiamgia.dto.DotGiamGiaDto;
+import com.lapxpert.backend.dotgiamgia.dto.DotGiamGiaMapper;
+import com.lapxpert.backend.dotgiamgia.entity.DotGiamGia;
+import com.lapxpert.backend.dotgiamgia.exception.CampaignNotFoundException;
+import com.lapxpert.backend.dotgiamgia.repository.DotGiamGiaAuditHistoryRepository;
+import com.lapxpert.backend.dotgiamgia.repository.DotGiamGiaRepository;
+import com.lapxpert.backend.sanpham.event.CampaignPricingChangeEvent;
+import com.lapxpert.backend.sanpham.mapper.SanPhamChiTietMapper;
+import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import com.lapxpert.backend.thongbao.service.EmailNotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for chunked set-based attach/detach of campaign variants
+ */
+@ExtendWith(MockitoExtension.class)
+class DotGiamGiaBulkAssignmentTest {
+
+    private static final Long CAMPAIGN_ID = 9L;
+    private static final int CHUNK_SIZE = 1000;
+
+    @Mock
+    private DotGiamGiaRepository dotGiamGiaRepository;
+
+    @Mock
+    private DotGiamGiaAuditHistoryRepository auditHistoryRepository;
+
+    @Mock
+    private DotGiamGiaMapper dotGiamGiaMapper;
+
+    @Mock
+    private SanPhamChiTietRepository sanPhamChiTietRepository;
+
+    @Mock
+    private SanPhamChiTietMapper sanPhamChiTietMapper;
+
+    @Mock
+    private VietnamTimeZoneService vietnamTimeZoneService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WebSocketIntegrationService webSocketIntegrationService;
+
+    @Mock
+    private EmailNotificationService emailNotificationService;
+
+    @Captor
+    private ArgumentCaptor<Collection<Long>> chunks;
+
+    private DotGiamGiaService dotGiamGiaService;
+
+    @BeforeEach
+    void setUp() {
+        dotGiamGiaService = new DotGiamGiaService(dotGiamGiaRepository, auditHistoryRepository, dotGiamGiaMapper,
+                sanPhamChiTietRepository, sanPhamChiTietMapper, vietnamTimeZoneService, eventPublisher,
+                webSocketIntegrationService, emailNotificationService);
+
+        lenient().when(dotGiamGiaRepository.existsById(CAMPAIGN_ID)).thenReturn(true);
+        lenient().when(dotGiamGiaRepository.findById(CAMPAIGN_ID)).thenReturn(Optional.of(new DotGiamGia()));
+        lenient().when(dotGiamGiaMapper.toDto(any(DotGiamGia.class))).thenReturn(new DotGiamGiaDto());
+        // Every requested variant exists
+        lenient().when(sanPhamChiTietRepository.findExistingIds(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<Long>>getArgument(0)));
+        lenient().when(dotGiamGiaRepository.findOverlappingAssignmentsForVariants(eq(CAMPAIGN_ID), anyCollection()))
+                .thenReturn(List.of());
+    }
+
+    private static List<Long> ids(int count) {
+        return LongStream.rangeClosed(1, count).boxed().toList();
+    }
+
+    // ==================== ATTACH ====================
+
+    @Test
+    void testAttach_ExactlyOneChunkIsOneInsert() {
+        when(dotGiamGiaRepository.attachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(1).size());
+
+        dotGiamGiaService.addSanPhamChiTiets(CAMPAIGN_ID, ids(CHUNK_SIZE));
+
+        verify(dotGiamGiaRepository, times(1)).attachSanPhamChiTiets(eq(CAMPAIGN_ID), chunks.capture());
+        assertEquals(List.of(CHUNK_SIZE), chunkSizes());
+        verify(sanPhamChiTietRepository, times(1)).findExistingIds(anyCollection());
+        assertEquals(CHUNK_SIZE, publishedVariantIds().size());
+    }
+
+    @Test
+    void testAttach_OneOverChunkSplitsIntoTwoInserts() {
+        when(dotGiamGiaRepository.attachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(1).size());
+
+        dotGiamGiaService.addSanPhamChiTiets(CAMPAIGN_ID, ids(CHUNK_SIZE + 1));
+
+        verify(dotGiamGiaRepository, times(2)).attachSanPhamChiTiets(eq(CAMPAIGN_ID), chunks.capture());
+        assertEquals(List.of(CHUNK_SIZE, 1), chunkSizes());
+        assertEquals(List.of(CHUNK_SIZE + 1L), chunks.getAllValues().get(1).stream().toList());
+        verify(sanPhamChiTietRepository, times(2)).findExistingIds(anyCollection());
+        verify(dotGiamGiaRepository, times(2)).findOverlappingAssignmentsForVariants(eq(CAMPAIGN_ID), anyCollection());
+        // One event for the whole operation, not one per chunk
+        assertEquals(Set.copyOf(ids(CHUNK_SIZE + 1)), publishedVariantIds());
+    }
+
+    @Test
+    void testAttach_DuplicateIdsAreSentOnce() {
+        List<Long> requested = new ArrayList<>(ids(CHUNK_SIZE));
+        requested.addAll(ids(10));
+        when(dotGiamGiaRepository.attachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection())).thenReturn(CHUNK_SIZE);
+
+        dotGiamGiaService.addSanPhamChiTiets(CAMPAIGN_ID, requested);
+
+        verify(dotGiamGiaRepository, times(1)).attachSanPhamChiTiets(eq(CAMPAIGN_ID), chunks.capture());
+        assertEquals(List.of(CHUNK_SIZE), chunkSizes());
+    }
+
+    @Test
+    void testAttach_EmptyInputWritesNothing() {
+        DotGiamGiaDto result = dotGiamGiaService.addSanPhamChiTiets(CAMPAIGN_ID, List.of());
+
+        assertNotNull(result);
+        verify(dotGiamGiaRepository, never()).attachSanPhamChiTiets(any(), anyCollection());
+        verify(dotGiamGiaRepository, never()).findOverlappingAssignmentsForVariants(any(), anyCollection());
+        verify(sanPhamChiTietRepository, never()).findExistingIds(anyCollection());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testAttach_AlreadyAttachedPublishesNothing() {
+        when(dotGiamGiaRepository.attachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection())).thenReturn(0);
+
+        dotGiamGiaService.addSanPhamChiTiets(CAMPAIGN_ID, ids(5));
+
+        verifyNoInteractions(eventPublisher);
+    }
+
+    // ==================== PARTIAL FAILURE ====================
+
+    @Test
+    void testAttach_MissingVariantRejectsBeforeAnyWrite() {
+        // Second chunk is missing ID 1001
+        doReturn(new ArrayList<>(ids(CHUNK_SIZE)), List.of())
+                .when(sanPhamChiTietRepository).findExistingIds(anyCollection());
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> dotGiamGiaService.addSanPhamChiTiets(CAMPAIGN_ID, ids(CHUNK_SIZE + 1)));
+
+        assertTrue(error.getMessage().contains(String.valueOf(CHUNK_SIZE + 1)));
+        verify(dotGiamGiaRepository, never()).attachSanPhamChiTiets(any(), anyCollection());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testAttach_FailingChunkPropagatesWithoutEvent() {
+        // The first chunk is written, the second fails: the exception rolls the transaction back and no
+        // pricing change may be announced for the rows that were never committed
+        when(dotGiamGiaRepository.attachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection()))
+                .thenReturn(CHUNK_SIZE)
+                .thenThrow(new DataIntegrityViolationException("violates foreign key constraint"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> dotGiamGiaService.addSanPhamChiTiets(CAMPAIGN_ID, ids(CHUNK_SIZE + 1)));
+
+        verify(dotGiamGiaRepository, times(2)).attachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection());
+        verify(dotGiamGiaRepository, never()).findOverlappingAssignmentsForVariants(any(), anyCollection());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testAttach_UnknownCampaignRejectsBeforeAnyQuery() {
+        when(dotGiamGiaRepository.existsById(CAMPAIGN_ID)).thenReturn(false);
+
+        assertThrows(CampaignNotFoundException.class,
+                () -> dotGiamGiaService.addSanPhamChiTiets(CAMPAIGN_ID, ids(3)));
+
+        verifyNoInteractions(sanPhamChiTietRepository, eventPublisher);
+    }
+
+    // ==================== DETACH ====================
+
+    @Test
+    void testDetach_ExactlyOneChunkIsOneDelete() {
+        when(dotGiamGiaRepository.detachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection())).thenReturn(CHUNK_SIZE);
+
+        dotGiamGiaService.removeSanPhamChiTiets(CAMPAIGN_ID, ids(CHUNK_SIZE));
+
+        verify(dotGiamGiaRepository, times(1)).detachSanPhamChiTiets(eq(CAMPAIGN_ID), chunks.capture());
+        assertEquals(List.of(CHUNK_SIZE), chunkSizes());
+        assertEquals(CHUNK_SIZE, publishedVariantIds().size());
+    }
+
+    @Test
+    void testDetach_OneOverChunkSplitsIntoTwoDeletes() {
+        when(dotGiamGiaRepository.detachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection())).thenReturn(CHUNK_SIZE, 1);
+
+        dotGiamGiaService.removeSanPhamChiTiets(CAMPAIGN_ID, ids(CHUNK_SIZE + 1));
+
+        verify(dotGiamGiaRepository, times(2)).detachSanPhamChiTiets(eq(CAMPAIGN_ID), chunks.capture());
+        assertEquals(List.of(CHUNK_SIZE, 1), chunkSizes());
+        assertEquals(Set.copyOf(ids(CHUNK_SIZE + 1)), publishedVariantIds());
+    }
+
+    @Test
+    void testDetach_EmptyInputWritesNothing() {
+        dotGiamGiaService.removeSanPhamChiTiets(CAMPAIGN_ID, List.of());
+
+        verify(dotGiamGiaRepository, never()).detachSanPhamChiTiets(any(), anyCollection());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testDetach_NothingAssignedPublishesNothing() {
+        when(dotGiamGiaRepository.detachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection())).thenReturn(0);
+
+        dotGiamGiaService.removeSanPhamChiTiets(CAMPAIGN_ID, ids(CHUNK_SIZE + 1));
+
+        verify(dotGiamGiaRepository, times(2)).detachSanPhamChiTiets(eq(CAMPAIGN_ID), anyCollection());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private List<Integer> chunkSizes() {
+        return chunks.getAllValues().stream().map(Collection::size).toList();
+    }
+
+    private Set<Long> publishedVariantIds() {
+        ArgumentCaptor<CampaignPricingChangeEvent> event = ArgumentCaptor.forClass(CampaignPricingChangeEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(Set.of(CAMPAIGN_ID), event.getValue().getCampaignIds());
+        return event.getValue().getVariantIds();
+    }
+}
@@ -0,0 +1,147 @@
+package com.lapxpert.backend.giohang.service;
+
+import com.lapxpert.backend.common.cache.CacheTagService;
+import com.lapxpert.backend.common.service.WebSocketIntegrationService;
+import com.lapxpert.backend.giohang.repository.GioHangChiTietRepository;
+import com.lapxpert.backend.sanpham.event.PriceChangeEvent;
+import com.lapxpert.backend.sanpham.service.EffectivePriceIndex;
+import com.lapxpert.backend.sanpham.service.PricingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for price change propagation through the variant -> cart index
+ */
+@ExtendWith(MockitoExtension.class)
+class GioHangPriceSyncServiceTest {
+
+    private static final BigDecimal GIA_CU = new BigDecimal("1000");
+    private static final BigDecimal GIA_MOI = new BigDecimal("900");
+
+    @Mock
+    private GioHangSessionStore gioHangSessionStore;
+
+    @Mock
+    private GioHangChiTietRepository gioHangChiTietRepository;
+
+    @Mock
+    private CacheTagService cacheTagService;
+
+    @Mock
+    private WebSocketIntegrationService webSocketIntegrationService;
+
+    @Mock
+    private EffectivePriceIndex effectivePriceIndex;
+
+    private GioHangPriceSyncService gioHangPriceSyncService;
+
+    @BeforeEach
+    void setUp() {
+        // Real pricing rules over a mocked index, as addProductToCart prices cart lines
+        gioHangPriceSyncService = new GioHangPriceSyncService(gioHangSessionStore, gioHangChiTietRepository,
+                cacheTagService, webSocketIntegrationService, new PricingService(effectivePriceIndex));
+    }
+
+    @Test
+    void testHandlePriceChange_RepricesAndNotifiesOnlyCartsHoldingVariant() {
+        when(effectivePriceIndex.lookup(5L)).thenReturn(Optional.of(entry(GIA_MOI, null, GIA_MOI)));
+        when(gioHangSessionStore.findCartUsers(5L)).thenReturn(Set.of(1L, 2L, 3L));
+        when(gioHangSessionStore.setPrices(1L, Map.of(5L, GIA_MOI))).thenReturn(1L);
+        when(gioHangSessionStore.setPrices(2L, Map.of(5L, GIA_MOI))).thenReturn(0L);
+        when(gioHangSessionStore.setPrices(3L, Map.of(5L, GIA_MOI))).thenReturn(null);
+        when(gioHangChiTietRepository.findNguoiDungIdsWithOtherPrice(5L, GIA_MOI)).thenReturn(List.of(2L, 3L, 4L));
+
+        gioHangPriceSyncService.handlePriceChange(event(5L));
+
+        // 2 holds a live session that no longer has the variant; 3 expired, so its persisted cart counts
+        verify(gioHangSessionStore).unindex(5L, List.of(3L));
+        verify(gioHangChiTietRepository).updatePriceSnapshot(5L, GIA_MOI);
+        verify(cacheTagService).evictTagged(CacheTagService.variantTag(5L));
+        verify(webSocketIntegrationService).sendCartPriceUpdate(eq("1"), eq("5"), eq(900.0), anyString());
+        verify(webSocketIntegrationService).sendCartPriceUpdate(eq("3"), eq("5"), eq(900.0), anyString());
+        verify(webSocketIntegrationService).sendCartPriceUpdate(eq("4"), eq("5"), eq(900.0), anyString());
+        verifyNoMoreInteractions(webSocketIntegrationService);
+    }
+
+    @Test
+    void testHandlePriceChange_NoCartsHoldingVariant() {
+        when(effectivePriceIndex.lookup(5L)).thenReturn(Optional.of(entry(GIA_MOI, null, GIA_MOI)));
+        when(gioHangSessionStore.findCartUsers(5L)).thenReturn(Set.of());
+        when(gioHangChiTietRepository.findNguoiDungIdsWithOtherPrice(5L, GIA_MOI)).thenReturn(List.of());
+
+        gioHangPriceSyncService.handlePriceChange(event(5L));
+
+        verify(gioHangSessionStore, never()).setPrices(anyLong(), anyMap());
+        verifyNoInteractions(webSocketIntegrationService);
+    }
+
+    @Test
+    void testHandlePriceChange_KeepsRunningCampaignDiscount() {
+        // 20% campaign on the new base price of 900
+        BigDecimal discounted = new BigDecimal("720.00");
+        when(effectivePriceIndex.lookup(5L)).thenReturn(Optional.of(entry(GIA_MOI, 7L, discounted)));
+        when(gioHangSessionStore.findCartUsers(5L)).thenReturn(Set.of(1L));
+        when(gioHangSessionStore.setPrices(1L, Map.of(5L, discounted))).thenReturn(1L);
+        when(gioHangChiTietRepository.findNguoiDungIdsWithOtherPrice(5L, discounted)).thenReturn(List.of(4L));
+
+        gioHangPriceSyncService.handlePriceChange(eventWithManualSalePrice(5L, new BigDecimal("850")));
+
+        // Neither the manual sale price nor the undiscounted base price reaches the carts
+        verify(gioHangSessionStore).setPrices(1L, Map.of(5L, discounted));
+        verify(gioHangChiTietRepository).updatePriceSnapshot(5L, discounted);
+        verify(webSocketIntegrationService).sendCartPriceUpdate(eq("1"), eq("5"), eq(720.0), anyString());
+        verify(webSocketIntegrationService).sendCartPriceUpdate(eq("4"), eq("5"), eq(720.0), anyString());
+        verify(gioHangChiTietRepository, never()).updatePriceSnapshot(5L, GIA_MOI);
+    }
+
+    @Test
+    void testHandlePriceChange_RefreshesIndexEntryOfOldBasePrice() {
+        // Entry still priced from the old base price: refreshed before it is used
+        when(effectivePriceIndex.lookup(5L)).thenReturn(
+                Optional.of(entry(GIA_CU, 7L, new BigDecimal("800.00"))),
+                Optional.of(entry(GIA_MOI, 7L, new BigDecimal("720.00"))));
+        when(gioHangSessionStore.findCartUsers(5L)).thenReturn(Set.of());
+        when(gioHangChiTietRepository.findNguoiDungIdsWithOtherPrice(eq(5L), any())).thenReturn(List.of());
+
+        gioHangPriceSyncService.handlePriceChange(event(5L));
+
+        verify(effectivePriceIndex).refreshVariants(Set.of(5L));
+        verify(gioHangChiTietRepository).updatePriceSnapshot(5L, new BigDecimal("720.00"));
+    }
+
+    private PriceChangeEvent event(Long variantId) {
+        return PriceChangeEvent.builder()
+                .variantId(variantId)
+                .oldPrice(GIA_CU)
+                .newPrice(GIA_MOI)
+                .build();
+    }
+
+    private PriceChangeEvent eventWithManualSalePrice(Long variantId, BigDecimal giaKhuyenMai) {
+        return PriceChangeEvent.builder()
+                .variantId(variantId)
+                .oldPrice(GIA_CU)
+                .newPrice(GIA_MOI)
+                .newPromotionalPrice(giaKhuyenMai)
+                .build();
+    }
+
+    private static EffectivePriceIndex.PriceEntry entry(BigDecimal basePrice, Long campaignId, BigDecimal effectivePrice) {
+        return new EffectivePriceIndex.PriceEntry(5L, basePrice, campaignId,
+                campaignId != null ? new BigDecimal("20") : BigDecimal.ZERO, effectivePrice,
+                Instant.now().plusSeconds(3600));
+    }
+}
@@ -0,0 +1,133 @@
+package com.lapxpert.backend.giohang.service;
+
+import com.lapxpert.backend.common.cache.CacheTagService;
+import com.lapxpert.backend.giohang.dto.GioHangDto;
+import com.lapxpert.backend.giohang.mapper.GioHangChiTietMapper;
+import com.lapxpert.backend.giohang.mapper.GioHangMapper;
+import com.lapxpert.backend.giohang.repository.GioHangRepository;
+import com.lapxpert.backend.giohang.service.GioHangSessionStore.CartSnapshot;
+import com.lapxpert.backend.hoadon.service.HoaDonService;
+import com.lapxpert.backend.nguoidung.repository.DiaChiRepository;
+import com.lapxpert.backend.nguoidung.repository.NguoiDungRepository;
+import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import com.lapxpert.backend.sanpham.service.PricingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test that cart mutations leave no stale cartData entry of the user behind, through the real caching proxy
+ */
+@SpringJUnitConfig(GioHangServiceCacheTest.Config.class)
+class GioHangServiceCacheTest {
+
+    private static final Long NGUOI_DUNG_ID = 7L;
+    private static final String EMAIL = "khach@lapxpert.vn";
+
+    @Configuration
+    @EnableCaching
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("cartData");
+        }
+
+        @Bean
+        GioHangSessionStore gioHangSessionStore() {
+            return mock(GioHangSessionStore.class);
+        }
+
+        @Bean
+        NguoiDungRepository nguoiDungRepository() {
+            return mock(NguoiDungRepository.class);
+        }
+
+        @Bean
+        GioHangMapper gioHangMapper() {
+            return mock(GioHangMapper.class);
+        }
+
+        @Bean
+        GioHangService gioHangService() {
+            return new GioHangService(mock(GioHangRepository.class), nguoiDungRepository(),
+                    mock(SanPhamChiTietRepository.class), gioHangMapper(), mock(GioHangChiTietMapper.class),
+                    mock(PricingService.class), mock(HoaDonService.class), mock(DiaChiRepository.class),
+                    mock(CacheTagService.class), gioHangSessionStore(), mock(GioHangWriteBehindService.class));
+        }
+    }
+
+    @Autowired
+    private GioHangService gioHangService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private GioHangSessionStore gioHangSessionStore;
+
+    @Autowired
+    private NguoiDungRepository nguoiDungRepository;
+
+    @Autowired
+    private GioHangMapper gioHangMapper;
+
+    private Cache cartData;
+
+    @BeforeEach
+    void setUp() {
+        reset(gioHangSessionStore, nguoiDungRepository, gioHangMapper);
+        cartData = cacheManager.getCache("cartData");
+        cartData.clear();
+
+        when(nguoiDungRepository.findEmailById(NGUOI_DUNG_ID)).thenReturn(Optional.of(EMAIL));
+        when(gioHangSessionStore.read(NGUOI_DUNG_ID)).thenReturn(CartSnapshot.empty(3L));
+        when(gioHangSessionStore.clear(NGUOI_DUNG_ID)).thenReturn(true);
+        when(gioHangMapper.toDto(any())).thenAnswer(invocation -> GioHangDto.builder().id(3L).tongSoLuong(0).build());
+    }
+
+    @Test
+    void testClearCart_EvictsTheEmailAndPriceChangeEntries() {
+        GioHangDto staleCart = GioHangDto.builder().id(3L).tongSoLuong(2).build();
+        cartData.put("user:" + NGUOI_DUNG_ID, staleCart);
+        cartData.put("email:" + EMAIL, staleCart);
+        cartData.put("priceChanges:" + NGUOI_DUNG_ID, List.of());
+        cartData.put("email:khac@lapxpert.vn", staleCart);
+        cartData.put("priceChanges:8", List.of());
+
+        gioHangService.clearCart(NGUOI_DUNG_ID);
+
+        GioHangDto cached = (GioHangDto) cartData.get("user:" + NGUOI_DUNG_ID).get();
+        assertEquals(0, cached.getTongSoLuong());
+        assertNull(cartData.get("email:" + EMAIL));
+        assertNull(cartData.get("priceChanges:" + NGUOI_DUNG_ID));
+
+        // Other users' carts stay cached
+        assertNotNull(cartData.get("email:khac@lapxpert.vn"));
+        assertNotNull(cartData.get("priceChanges:8"));
+    }
+
+    @Test
+    void testRemoveItemFromCart_ReadByEmailSeesTheMutation() {
+        cartData.put("email:" + EMAIL, GioHangDto.builder().id(3L).tongSoLuong(2).build());
+        when(gioHangSessionStore.setQuantity(NGUOI_DUNG_ID, 11L, 0)).thenReturn(0L);
+
+        gioHangService.removeItemFromCart(NGUOI_DUNG_ID, 11L);
+
+        assertNull(cartData.get("email:" + EMAIL));
+    }
+}
@@ -0,0 +1,125 @@
+package com.lapxpert.backend.giohang.service;
+
+import com.lapxpert.backend.giohang.entity.GioHang;
+import com.lapxpert.backend.giohang.entity.GioHangChiTiet;
+import com.lapxpert.backend.giohang.repository.GioHangRepository;
+import com.lapxpert.backend.giohang.service.GioHangSessionStore.CartItem;
+import com.lapxpert.backend.giohang.service.GioHangSessionStore.CartSnapshot;
+import com.lapxpert.backend.nguoidung.repository.NguoiDungRepository;
+import com.lapxpert.backend.sanpham.entity.sanpham.SanPhamChiTiet;
+import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for the cart write-behind: a Redis session snapshot is applied to the cart rows as a diff
+ */
+@ExtendWith(MockitoExtension.class)
+class GioHangWriteBehindServiceTest {
+
+    @Mock
+    private GioHangSessionStore gioHangSessionStore;
+
+    @Mock
+    private GioHangRepository gioHangRepository;
+
+    @Mock
+    private NguoiDungRepository nguoiDungRepository;
+
+    @Mock
+    private SanPhamChiTietRepository sanPhamChiTietRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GioHangWriteBehindService writeBehindService;
+
+    @BeforeEach
+    void setUp() {
+        writeBehindService = new GioHangWriteBehindService(gioHangSessionStore, gioHangRepository,
+                nguoiDungRepository, sanPhamChiTietRepository, transactionManager, true, 200);
+    }
+
+    @Test
+    void testFlushDirty_AppliesSessionAsDiff() {
+        GioHang gioHang = GioHang.builder().id(3L).build();
+        gioHang.getChiTiets().add(line(gioHang, variant(1L), 2, "100"));
+        gioHang.getChiTiets().add(line(gioHang, variant(3L), 1, "70"));
+
+        Map<Long, CartItem> items = new LinkedHashMap<>();
+        items.put(1L, new CartItem(1L, 5, new BigDecimal("100"), Instant.now()));
+        items.put(2L, new CartItem(2L, 1, new BigDecimal("50"), Instant.now()));
+
+        when(gioHangSessionStore.findDirty(200)).thenReturn(Set.of("7"));
+        when(gioHangSessionStore.claimDirty("7")).thenReturn(true);
+        when(gioHangSessionStore.read(7L)).thenReturn(new CartSnapshot(3L, items));
+        when(gioHangRepository.findByNguoiDung_Id(7L)).thenReturn(Optional.of(gioHang));
+        when(sanPhamChiTietRepository.getReferenceById(2L)).thenReturn(variant(2L));
+        when(gioHangRepository.save(any(GioHang.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        writeBehindService.flushDirty();
+
+        List<GioHangChiTiet> chiTiets = gioHang.getChiTiets();
+        assertEquals(2, chiTiets.size());
+        assertEquals(1L, chiTiets.get(0).getSanPhamChiTiet().getId());
+        assertEquals(5, chiTiets.get(0).getSoLuong());
+        assertEquals(2L, chiTiets.get(1).getSanPhamChiTiet().getId());
+        assertEquals(0, new BigDecimal("50").compareTo(chiTiets.get(1).getGiaTaiThoiDiemThem()));
+        assertSame(gioHang, chiTiets.get(1).getGioHang());
+        verify(gioHangSessionStore, never()).markDirty(anyLong());
+        verify(gioHangSessionStore, never()).setCartId(anyLong(), anyLong());
+    }
+
+    @Test
+    void testFlushDirty_SkipsUsersClaimedByAnotherNode() {
+        when(gioHangSessionStore.findDirty(200)).thenReturn(Set.of("7"));
+        when(gioHangSessionStore.claimDirty("7")).thenReturn(false);
+
+        writeBehindService.flushDirty();
+
+        verify(gioHangSessionStore, never()).read(anyLong());
+        verifyNoInteractions(gioHangRepository);
+    }
+
+    @Test
+    void testFlush_FailedWriteMarksCartDirtyAgain() {
+        when(gioHangSessionStore.read(7L)).thenReturn(new CartSnapshot(null, Map.of()));
+        when(gioHangRepository.findByNguoiDung_Id(7L)).thenReturn(Optional.empty());
+        when(gioHangRepository.save(any(GioHang.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        assertThrows(IllegalStateException.class, () -> writeBehindService.flush(7L));
+        verify(gioHangSessionStore).markDirty(7L);
+    }
+
+    private SanPhamChiTiet variant(Long id) {
+        SanPhamChiTiet sanPhamChiTiet = new SanPhamChiTiet();
+        sanPhamChiTiet.setId(id);
+        return sanPhamChiTiet;
+    }
+
+    private GioHangChiTiet line(GioHang gioHang, SanPhamChiTiet sanPhamChiTiet, int soLuong, String gia) {
+        return GioHangChiTiet.builder()
+                .gioHang(gioHang)
+                .sanPhamChiTiet(sanPhamChiTiet)
+                .soLuong(soLuong)
+                .giaTaiThoiDiemThem(new BigDecimal(gia))
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.lapxpert.backend.phieugiamgia.repository;
+
+import com.lapxpert.backend.PostgresRepositoryTest;
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import com.lapxpert.backend.phieugiamgia.entity.LoaiCanhBaoPhieuGiamGia;
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGia;
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGiaCanhBao;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the single-statement voucher alert queries (threshold check + ON CONFLICT insert)
+ */
+@PostgresRepositoryTest
+class PhieuGiamGiaCanhBaoRepositoryTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    private static final Duration WINDOW = Duration.ofHours(24);
+
+    @Autowired
+    private PhieuGiamGiaRepository phieuGiamGiaRepository;
+
+    @Autowired
+    private PhieuGiamGiaCanhBaoRepository canhBaoRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testRecordUsageThresholds_DetectsEachThresholdOnce() {
+        PhieuGiamGia below = voucher(TrangThaiCampaign.DA_DIEN_RA, 89, 100, NOW.plus(Duration.ofDays(7)));
+        PhieuGiamGia nearlyUsed = voucher(TrangThaiCampaign.DA_DIEN_RA, 90, 100, NOW.plus(Duration.ofDays(7)));
+        PhieuGiamGia usedUp = voucher(TrangThaiCampaign.DA_DIEN_RA, 100, 100, NOW.plus(Duration.ofDays(7)));
+
+        assertEquals(0, canhBaoRepository.recordUsageThresholds(below.getId(), 90, NOW));
+        assertEquals(1, canhBaoRepository.recordUsageThresholds(nearlyUsed.getId(), 90, NOW));
+        assertEquals(2, canhBaoRepository.recordUsageThresholds(usedUp.getId(), 90, NOW));
+
+        assertEquals(Set.of(LoaiCanhBaoPhieuGiamGia.SAP_HET_LUOT), types(nearlyUsed));
+        assertEquals(Set.of(LoaiCanhBaoPhieuGiamGia.SAP_HET_LUOT, LoaiCanhBaoPhieuGiamGia.HET_LUOT), types(usedUp));
+    }
+
+    @Test
+    void testRecordUsageThresholds_ConflictKeepsFirstAlert() {
+        PhieuGiamGia usedUp = voucher(TrangThaiCampaign.DA_DIEN_RA, 100, 100, NOW.plus(Duration.ofDays(7)));
+
+        assertEquals(2, canhBaoRepository.recordUsageThresholds(usedUp.getId(), 90, NOW));
+        assertEquals(0, canhBaoRepository.recordUsageThresholds(usedUp.getId(), 90, NOW.plusSeconds(60)));
+
+        List<PhieuGiamGiaCanhBao> alerts = canhBaoRepository.findByPhieuGiamGiaIdOrderByNgayTaoDesc(usedUp.getId());
+        assertEquals(2, alerts.size());
+        assertTrue(alerts.stream().allMatch(alert -> alert.getNgayTao().equals(NOW)));
+    }
+
+    @Test
+    void testRecordExpiringBetween_OnlyRunningVouchersWithUsageLeftInWindow() {
+        PhieuGiamGia endingSoon = voucher(TrangThaiCampaign.DA_DIEN_RA, 10, 100, NOW.plus(Duration.ofHours(5)));
+        PhieuGiamGia endingAtBound = voucher(TrangThaiCampaign.DA_DIEN_RA, 10, 100, NOW.plus(WINDOW));
+        PhieuGiamGia endingLater = voucher(TrangThaiCampaign.DA_DIEN_RA, 10, 100, NOW.plus(WINDOW).plusSeconds(1));
+        PhieuGiamGia usedUp = voucher(TrangThaiCampaign.DA_DIEN_RA, 100, 100, NOW.plus(Duration.ofHours(5)));
+        PhieuGiamGia notStarted = voucher(TrangThaiCampaign.CHUA_DIEN_RA, 0, 100, NOW.plus(Duration.ofHours(5)));
+
+        canhBaoRepository.recordExpiringBetween(NOW, NOW.plus(WINDOW));
+        // A second tick over the same window records nothing new
+        assertEquals(0, canhBaoRepository.recordExpiringBetween(NOW, NOW.plus(WINDOW)));
+
+        assertEquals(Set.of(LoaiCanhBaoPhieuGiamGia.SAP_HET_HAN), types(endingSoon));
+        assertEquals(Set.of(LoaiCanhBaoPhieuGiamGia.SAP_HET_HAN), types(endingAtBound));
+        assertEquals(Set.of(), types(endingLater));
+        assertEquals(Set.of(), types(usedUp));
+        assertEquals(Set.of(), types(notStarted));
+    }
+
+    @Test
+    void testDeleteResolved_ReopensThresholdAfterRefund() {
+        PhieuGiamGia usedUp = voucher(TrangThaiCampaign.DA_DIEN_RA, 100, 100, NOW.plus(Duration.ofDays(7)));
+        canhBaoRepository.recordUsageThresholds(usedUp.getId(), 90, NOW);
+
+        phieuGiamGiaRepository.decrementUsageCount(usedUp.getId());
+        assertEquals(1, canhBaoRepository.deleteResolved(usedUp.getId(), 90, NOW.plus(WINDOW)));
+
+        assertEquals(Set.of(LoaiCanhBaoPhieuGiamGia.SAP_HET_LUOT), types(usedUp));
+    }
+
+    private PhieuGiamGia voucher(TrangThaiCampaign trangThai, int soLuongDaDung, int soLuongBanDau, Instant ngayKetThuc) {
+        PhieuGiamGia voucher = PhieuGiamGia.builder()
+                .maPhieuGiamGia("TEST-" + UUID.randomUUID().toString().substring(0, 8))
+                .trangThai(trangThai)
+                .giaTriGiam(new BigDecimal("50000"))
+                .ngayBatDau(NOW.minus(Duration.ofDays(1)))
+                .ngayKetThuc(ngayKetThuc)
+                .soLuongBanDau(soLuongBanDau)
+                .soLuongDaDung(soLuongDaDung)
+                .build();
+        voucher.setNgayTao(NOW);
+        voucher.setNgayCapNhat(NOW);
+        Long id = phieuGiamGiaRepository.saveAndFlush(voucher).getId();
+
+        // The entity derives its status from the wall clock on persist; write the intended one past the callbacks
+        entityManager.getEntityManager()
+                .createQuery("UPDATE PhieuGiamGia p SET p.trangThai = :trangThai WHERE p.id = :id")
+                .setParameter("trangThai", trangThai)
+                .setParameter("id", id)
+                .executeUpdate();
+        entityManager.clear();
+        return phieuGiamGiaRepository.findById(id).orElseThrow();
+    }
+
+    private Set<LoaiCanhBaoPhieuGiamGia> types(PhieuGiamGia voucher) {
+        return canhBaoRepository.findByPhieuGiamGiaIdOrderByNgayTaoDesc(voucher.getId()).stream()
+                .map(PhieuGiamGiaCanhBao::getLoaiCanhBao)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,203 @@
+package com.lapxpert.backend.phieugiamgia.repository;
+
+import com.lapxpert.backend.PostgresRepositoryTest;
+import com.lapxpert.backend.common.enums.LoaiGiamGia;
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import com.lapxpert.backend.nguoidung.entity.NguoiDung;
+import com.lapxpert.backend.nguoidung.repository.NguoiDungRepository;
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGia;
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGiaNguoiDung;
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGiaNguoiDungId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the single-query eligible voucher lookup: discount ranking and exclusions
+ */
+@PostgresRepositoryTest
+class PhieuGiamGiaEligibilityRepositoryTest {
+
+    // Far enough ahead that vouchers already in the database are not running
+    private static final Instant NOW = Instant.parse("2090-06-01T00:00:00Z");
+    private static final BigDecimal ORDER_TOTAL = new BigDecimal("1000000");
+
+    @Autowired
+    private PhieuGiamGiaRepository phieuGiamGiaRepository;
+
+    @Autowired
+    private PhieuGiamGiaNguoiDungRepository phieuGiamGiaNguoiDungRepository;
+
+    @Autowired
+    private NguoiDungRepository nguoiDungRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final Set<Long> createdIds = new HashSet<>();
+
+    private NguoiDung customer;
+    private NguoiDung otherCustomer;
+
+    @BeforeEach
+    void setUp() {
+        customer = customer("Nguyễn Văn A");
+        otherCustomer = customer("Trần Thị B");
+    }
+
+    // ==================== RANKING ====================
+
+    @Test
+    void testRanking_ComparesPercentageOfTotalWithFixedAmount() {
+        PhieuGiamGia percent15 = voucher(LoaiGiamGia.PHAN_TRAM, "15", NOW.plus(Duration.ofDays(5)));      // 150,000
+        PhieuGiamGia fixed100k = voucher(LoaiGiamGia.SO_TIEN_CO_DINH, "100000", NOW.plus(Duration.ofDays(1)));
+        PhieuGiamGia percent5 = voucher(LoaiGiamGia.PHAN_TRAM, "5", NOW.plus(Duration.ofDays(1)));         // 50,000
+        PhieuGiamGia fixed200k = voucher(LoaiGiamGia.SO_TIEN_CO_DINH, "200000", NOW.plus(Duration.ofDays(9)));
+
+        assertEquals(List.of(fixed200k.getId(), percent15.getId(), fixed100k.getId(), percent5.getId()),
+                eligibleIds(customer.getId(), ORDER_TOTAL));
+    }
+
+    @Test
+    void testRanking_FixedAmountIsCappedAtOrderTotal() {
+        // Both fixed vouchers exceed the order total, so both are worth the whole order and the one ending first wins;
+        // the 2,000,000 face value must not outrank a 100% voucher either
+        PhieuGiamGia fixed2m = voucher(LoaiGiamGia.SO_TIEN_CO_DINH, "2000000", NOW.plus(Duration.ofDays(7)));
+        PhieuGiamGia fixed1m5 = voucher(LoaiGiamGia.SO_TIEN_CO_DINH, "1500000", NOW.plus(Duration.ofDays(3)));
+        PhieuGiamGia percent100 = voucher(LoaiGiamGia.PHAN_TRAM, "100", NOW.plus(Duration.ofDays(5)));
+        PhieuGiamGia percent90 = voucher(LoaiGiamGia.PHAN_TRAM, "90", NOW.plus(Duration.ofDays(1)));
+
+        assertEquals(List.of(fixed1m5.getId(), percent100.getId(), fixed2m.getId(), percent90.getId()),
+                eligibleIds(customer.getId(), ORDER_TOTAL));
+    }
+
+    @Test
+    void testRanking_PageSizeLimitsResults() {
+        voucher(LoaiGiamGia.PHAN_TRAM, "10", NOW.plus(Duration.ofDays(1)));
+        PhieuGiamGia best = voucher(LoaiGiamGia.PHAN_TRAM, "30", NOW.plus(Duration.ofDays(1)));
+        voucher(LoaiGiamGia.PHAN_TRAM, "20", NOW.plus(Duration.ofDays(1)));
+
+        List<PhieuGiamGia> top = phieuGiamGiaRepository.findEligibleVouchersRankedByDiscount(customer.getId(),
+                ORDER_TOTAL, NOW, TrangThaiCampaign.DA_DIEN_RA, LoaiGiamGia.PHAN_TRAM, PageRequest.of(0, 1));
+
+        assertEquals(List.of(best.getId()), top.stream().map(PhieuGiamGia::getId).toList());
+    }
+
+    // ==================== EXCLUSIONS ====================
+
+    @Test
+    void testExclusions_OnlyRunningVouchersWithUsageLeftAndReachedMinimum() {
+        PhieuGiamGia eligible = voucher(LoaiGiamGia.PHAN_TRAM, "10", NOW.plus(Duration.ofDays(1)));
+        PhieuGiamGia minimumReached = voucher(LoaiGiamGia.PHAN_TRAM, "20", NOW.plus(Duration.ofDays(1)),
+                v -> v.setGiaTriDonHangToiThieu(ORDER_TOTAL));
+
+        voucher(LoaiGiamGia.PHAN_TRAM, "50", NOW.plus(Duration.ofDays(3)), v -> v.setNgayBatDau(NOW.plusSeconds(1)));
+        voucher(LoaiGiamGia.PHAN_TRAM, "50", NOW);
+        voucher(LoaiGiamGia.PHAN_TRAM, "50", NOW.plus(Duration.ofDays(1)), v -> v.setSoLuongDaDung(v.getSoLuongBanDau()));
+        voucher(LoaiGiamGia.PHAN_TRAM, "50", NOW.plus(Duration.ofDays(1)), v -> v.setTrangThai(TrangThaiCampaign.KET_THUC));
+        voucher(LoaiGiamGia.PHAN_TRAM, "50", NOW.plus(Duration.ofDays(1)), v -> v.setTrangThai(TrangThaiCampaign.BI_HUY));
+        voucher(LoaiGiamGia.PHAN_TRAM, "50", NOW.plus(Duration.ofDays(1)),
+                v -> v.setGiaTriDonHangToiThieu(ORDER_TOTAL.add(BigDecimal.ONE)));
+
+        assertEquals(List.of(minimumReached.getId(), eligible.getId()), eligibleIds(customer.getId(), ORDER_TOTAL));
+    }
+
+    @Test
+    void testExclusions_PrivateVouchersOnlyForAssignedCustomers() {
+        PhieuGiamGia publicVoucher = voucher(LoaiGiamGia.PHAN_TRAM, "10", NOW.plus(Duration.ofDays(1)));
+        PhieuGiamGia mine = voucher(LoaiGiamGia.PHAN_TRAM, "30", NOW.plus(Duration.ofDays(1)));
+        assign(mine, customer);
+        PhieuGiamGia someoneElses = voucher(LoaiGiamGia.PHAN_TRAM, "40", NOW.plus(Duration.ofDays(1)));
+        assign(someoneElses, otherCustomer);
+        PhieuGiamGia shared = voucher(LoaiGiamGia.PHAN_TRAM, "20", NOW.plus(Duration.ofDays(1)));
+        assign(shared, customer);
+        assign(shared, otherCustomer);
+
+        assertEquals(List.of(mine.getId(), shared.getId(), publicVoucher.getId()),
+                eligibleIds(customer.getId(), ORDER_TOTAL));
+        assertEquals(List.of(someoneElses.getId(), shared.getId(), publicVoucher.getId()),
+                eligibleIds(otherCustomer.getId(), ORDER_TOTAL));
+        // Walk-in orders without a customer only see public vouchers
+        assertEquals(List.of(publicVoucher.getId()), eligibleIds(null, ORDER_TOTAL));
+    }
+
+    private List<Long> eligibleIds(Long customerId, BigDecimal orderTotal) {
+        return phieuGiamGiaRepository.findEligibleVouchersRankedByDiscount(customerId, orderTotal, NOW,
+                        TrangThaiCampaign.DA_DIEN_RA, LoaiGiamGia.PHAN_TRAM, PageRequest.of(0, 50)).stream()
+                .map(PhieuGiamGia::getId)
+                .filter(createdIds::contains)
+                .toList();
+    }
+
+    private PhieuGiamGia voucher(LoaiGiamGia loaiGiamGia, String giaTriGiam, Instant ngayKetThuc) {
+        return voucher(loaiGiamGia, giaTriGiam, ngayKetThuc, v -> { });
+    }
+
+    /**
+     * Running voucher adjusted by the given tweak. The entity derives its status from the wall clock on persist,
+     * so the intended status is written afterwards with a bulk update that bypasses the lifecycle callbacks.
+     */
+    private PhieuGiamGia voucher(LoaiGiamGia loaiGiamGia, String giaTriGiam, Instant ngayKetThuc,
+                                 Consumer<PhieuGiamGia> tweak) {
+        PhieuGiamGia voucher = PhieuGiamGia.builder()
+                .maPhieuGiamGia("TEST-" + UUID.randomUUID().toString().substring(0, 8))
+                .loaiGiamGia(loaiGiamGia)
+                .trangThai(TrangThaiCampaign.DA_DIEN_RA)
+                .giaTriGiam(new BigDecimal(giaTriGiam))
+                .ngayBatDau(NOW.minus(Duration.ofDays(1)))
+                .ngayKetThuc(ngayKetThuc)
+                .soLuongBanDau(100)
+                .soLuongDaDung(0)
+                .build();
+        voucher.setNgayTao(NOW);
+        voucher.setNgayCapNhat(NOW);
+        tweak.accept(voucher);
+        TrangThaiCampaign trangThai = voucher.getTrangThai();
+
+        Long id = phieuGiamGiaRepository.saveAndFlush(voucher).getId();
+        entityManager.getEntityManager()
+                .createQuery("UPDATE PhieuGiamGia p SET p.trangThai = :trangThai WHERE p.id = :id")
+                .setParameter("trangThai", trangThai)
+                .setParameter("id", id)
+                .executeUpdate();
+        entityManager.clear();
+
+        createdIds.add(id);
+        return phieuGiamGiaRepository.findById(id).orElseThrow();
+    }
+
+    private void assign(PhieuGiamGia voucher, NguoiDung nguoiDung) {
+        PhieuGiamGiaNguoiDung assignment = PhieuGiamGiaNguoiDung.builder()
+                .id(new PhieuGiamGiaNguoiDungId(voucher.getId(), nguoiDung.getId()))
+                .phieuGiamGia(voucher)
+                .nguoiDung(nguoiDung)
+                .ngayTao(NOW)
+                .ngayCapNhat(NOW)
+                .build();
+        phieuGiamGiaNguoiDungRepository.saveAndFlush(assignment);
+    }
+
+    private NguoiDung customer(String hoTen) {
+        NguoiDung nguoiDung = NguoiDung.builder()
+                .maNguoiDung("TEST-" + UUID.randomUUID().toString().substring(0, 8))
+                .hoTen(hoTen)
+                .matKhau("not-a-real-hash")
+                .build();
+        nguoiDung.setNgayTao(NOW);
+        nguoiDung.setNgayCapNhat(NOW);
+        return nguoiDungRepository.saveAndFlush(nguoiDung);
+    }
+}
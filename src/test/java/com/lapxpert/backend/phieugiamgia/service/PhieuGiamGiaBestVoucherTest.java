@@ -0,0 +1,96 @@
+package com.lapxpert.backend.phieugiamgia.service;
+
+import com.lapxpert.backend.common.enums.LoaiGiamGia;
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import com.lapxpert.backend.phieugiamgia.dto.PhieuGiamGiaDto;
+import com.lapxpert.backend.phieugiamgia.entity.PhieuGiamGia;
+import com.lapxpert.backend.phieugiamgia.mapper.PhieuGiamGiaMapper;
+import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for picking the best voucher from the eligible vouchers ranked by discount
+ */
+@ExtendWith(MockitoExtension.class)
+class PhieuGiamGiaBestVoucherTest {
+
+    private static final Long CUSTOMER_ID = 9L;
+    private static final BigDecimal ORDER_TOTAL = new BigDecimal("1000000");
+
+    @Mock
+    private PhieuGiamGiaRepository phieuGiamGiaRepository;
+
+    @Mock
+    private PhieuGiamGiaMapper phieuGiamGiaMapper;
+
+    @InjectMocks
+    private PhieuGiamGiaService phieuGiamGiaService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(phieuGiamGiaMapper.toDto(any(PhieuGiamGia.class))).thenAnswer(invocation ->
+                PhieuGiamGiaDto.builder().id(invocation.<PhieuGiamGia>getArgument(0).getId()).build());
+    }
+
+    @Test
+    void testFindBestVoucher_ReturnsTheTopRankedVoucher() {
+        ranked(voucher(1L, LoaiGiamGia.PHAN_TRAM, "10"), voucher(2L, LoaiGiamGia.SO_TIEN_CO_DINH, "50000"));
+
+        PhieuGiamGiaService.BestVoucherResult result = phieuGiamGiaService.findBestVoucher(CUSTOMER_ID, ORDER_TOTAL);
+
+        assertTrue(result.isFound());
+        assertEquals(1L, result.getVoucher().getId());
+        assertEquals(0, new BigDecimal("100000").compareTo(result.getDiscountAmount()));
+    }
+
+    @Test
+    void testFindBestVoucher_SkipsZeroDiscountOnTop() {
+        ranked(voucher(1L, LoaiGiamGia.SO_TIEN_CO_DINH, "0"), voucher(2L, LoaiGiamGia.SO_TIEN_CO_DINH, "50000"));
+
+        PhieuGiamGiaService.BestVoucherResult result = phieuGiamGiaService.findBestVoucher(CUSTOMER_ID, ORDER_TOTAL);
+
+        assertTrue(result.isFound());
+        assertEquals(2L, result.getVoucher().getId());
+        assertEquals(0, new BigDecimal("50000").compareTo(result.getDiscountAmount()));
+        verify(phieuGiamGiaRepository).findEligibleVouchersRankedByDiscount(eq(CUSTOMER_ID), eq(ORDER_TOTAL), any(),
+                eq(TrangThaiCampaign.DA_DIEN_RA), eq(LoaiGiamGia.PHAN_TRAM),
+                eq(PageRequest.of(0, PhieuGiamGiaService.BEST_VOUCHER_SCAN_SIZE)));
+    }
+
+    @Test
+    void testFindBestVoucher_NotFoundWhenNoVoucherDiscounts() {
+        ranked(voucher(1L, LoaiGiamGia.PHAN_TRAM, "0"), voucher(2L, LoaiGiamGia.SO_TIEN_CO_DINH, "0"));
+
+        PhieuGiamGiaService.BestVoucherResult result = phieuGiamGiaService.findBestVoucher(CUSTOMER_ID, ORDER_TOTAL);
+
+        assertFalse(result.isFound());
+        assertNull(result.getVoucher());
+        verifyNoInteractions(phieuGiamGiaMapper);
+    }
+
+    private void ranked(PhieuGiamGia... vouchers) {
+        when(phieuGiamGiaRepository.findEligibleVouchersRankedByDiscount(eq(CUSTOMER_ID), eq(ORDER_TOTAL), any(),
+                any(), any(), any())).thenReturn(List.of(vouchers));
+    }
+
+    private PhieuGiamGia voucher(Long id, LoaiGiamGia loaiGiamGia, String giaTriGiam) {
+        return PhieuGiamGia.builder()
+                .id(id)
+                .loaiGiamGia(loaiGiamGia)
+                .giaTriGiam(new BigDecimal(giaTriGiam))
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.lapxpert.backend.phieugiamgia.service;
+
+import com.lapxpert.backend.hoadon.repository.HoaDonPhieuGiamGiaRepository;
+import com.lapxpert.backend.phieugiamgia.repository.PhieuGiamGiaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for voucher redemption: the conditional UPDATE is the authoritative usage check
+ */
+@ExtendWith(MockitoExtension.class)
+class PhieuGiamGiaRedemptionTest {
+
+    private static final BigDecimal GIA_TRI_GIAM = new BigDecimal("50000");
+
+    @Mock
+    private PhieuGiamGiaRepository phieuGiamGiaRepository;
+
+    @Mock
+    private HoaDonPhieuGiamGiaRepository hoaDonPhieuGiamGiaRepository;
+
+    @Mock
+    private VoucherUsageCounter voucherUsageCounter;
+
+    @Mock
+    private PhieuGiamGiaCanhBaoService phieuGiamGiaCanhBaoService;
+
+    @InjectMocks
+    private PhieuGiamGiaService phieuGiamGiaService;
+
+    @Test
+    void testApplyVoucherToOrderById_RedeemsAndLinksOrder() {
+        when(voucherUsageCounter.tryAcquire(eq(7L), any())).thenReturn(true);
+        when(phieuGiamGiaRepository.incrementUsageIfAvailable(7L)).thenReturn(1);
+
+        phieuGiamGiaService.applyVoucherToOrderById(7L, 100L, GIA_TRI_GIAM);
+
+        verify(voucherUsageCounter).releaseOnRollback(7L);
+        verify(hoaDonPhieuGiamGiaRepository).insertVoucherOrderRelationship(100L, 7L, GIA_TRI_GIAM);
+        verify(phieuGiamGiaCanhBaoService).onUsageRedeemed(7L);
+    }
+
+    @Test
+    void testApplyVoucherToOrderById_ExhaustedUpdateRejectsOrder() {
+        when(voucherUsageCounter.tryAcquire(eq(7L), any())).thenReturn(true);
+        when(phieuGiamGiaRepository.incrementUsageIfAvailable(7L)).thenReturn(0);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> phieuGiamGiaService.applyVoucherToOrderById(7L, 100L, GIA_TRI_GIAM));
+
+        assertTrue(e.getMessage().contains("hết lượt sử dụng"));
+        // The admission is handed back by the rollback registered before the UPDATE
+        verify(voucherUsageCounter).releaseOnRollback(7L);
+        verifyNoInteractions(hoaDonPhieuGiamGiaRepository, phieuGiamGiaCanhBaoService);
+    }
+
+    @Test
+    void testApplyVoucherToOrderById_PreCounterRejectsWithoutUpdate() {
+        when(voucherUsageCounter.tryAcquire(eq(7L), any())).thenReturn(false);
+
+        assertThrows(IllegalStateException.class,
+                () -> phieuGiamGiaService.applyVoucherToOrderById(7L, 100L, GIA_TRI_GIAM));
+
+        verify(phieuGiamGiaRepository, never()).incrementUsageIfAvailable(anyLong());
+        verify(voucherUsageCounter, never()).releaseOnRollback(anyLong());
+        verifyNoInteractions(hoaDonPhieuGiamGiaRepository);
+    }
+}
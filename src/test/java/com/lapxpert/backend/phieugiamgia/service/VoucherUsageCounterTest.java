@@ -0,0 +1,111 @@
+package com.lapxpert.backend.phieugiamgia.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for the Redis pre-counter of voucher usages and its rollback compensation
+ */
+@ExtendWith(MockitoExtension.class)
+class VoucherUsageCounterTest {
+
+    private static final List<String> KEY = List.of(VoucherUsageCounter.KEY_PREFIX + 7);
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @InjectMocks
+    private VoucherUsageCounter voucherUsageCounter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(voucherUsageCounter, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testTryAcquire_SeedsMissingCounterFromDatabase() {
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(KEY), any(), any()))
+                .thenReturn(-1L, 1L);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(voucherUsageCounter.tryAcquire(7L, () -> {
+            loads.incrementAndGet();
+            return 3;
+        }));
+
+        assertEquals(1, loads.get());
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(KEY), eq("3"), any());
+    }
+
+    @Test
+    void testTryAcquire_ExhaustedCounterRejects() {
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(KEY), any(), any()))
+                .thenReturn(0L);
+
+        assertFalse(voucherUsageCounter.tryAcquire(7L, () -> fail("seeded counter must not reload")));
+    }
+
+    @Test
+    void testTryAcquire_RedisFailureAdmitsCaller() {
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(KEY), any(), any()))
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        assertTrue(voucherUsageCounter.tryAcquire(7L, () -> 0));
+    }
+
+    @Test
+    void testTryAcquire_DisabledNeverTouchesRedis() {
+        ReflectionTestUtils.setField(voucherUsageCounter, "enabled", false);
+
+        assertTrue(voucherUsageCounter.tryAcquire(7L, () -> 0));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void testReleaseOnRollback_GivesUsageBackOnlyWhenNotCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        voucherUsageCounter.releaseOnRollback(7L);
+        voucherUsageCounter.releaseOnRollback(7L);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(2, synchronizations.size());
+
+        synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        verifyNoInteractions(redisTemplate);
+
+        synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisScript<Long>>any(), eq(KEY));
+    }
+
+    @Test
+    void testReleaseOnRollback_NoTransactionRegistersNothing() {
+        voucherUsageCounter.releaseOnRollback(7L);
+
+        assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+        verifyNoInteractions(redisTemplate);
+    }
+}
@@ -0,0 +1,122 @@
+package com.lapxpert.backend.sanpham;
+
+import com.lapxpert.backend.PostgresRepositoryTest;
+import com.lapxpert.backend.sanpham.repository.SanPhamRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark for accent-insensitive product search on a 100k variant catalog.
+ *
+ * The schema, the tim_kiem column and the search indexes come from the Liquibase changelog; the catalog is seeded
+ * with generated Vietnamese product names (PRODUCTS products of VARIANTS_PER_PRODUCT variants) and the ranked search
+ * and autocomplete queries of SanPhamRepository must answer under P95_LIMIT_MS at the 95th percentile. Seeded rows
+ * are removed afterwards. Runs on the TEST_DATABASE_URL database only when asked for:
+ *
+ *   TEST_DATABASE_URL="jdbc:postgresql://localhost:5432/lapxpert_test?user=...&password=..." SEARCH_BENCHMARK=true \
+ *       ./gradlew test --tests "*ProductSearchBenchmarkTest"
+ */
+@PostgresRepositoryTest
+@EnabledIfEnvironmentVariable(named = "SEARCH_BENCHMARK", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductSearchBenchmarkTest {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int VARIANTS_PER_PRODUCT = 5;
+    private static final String CODE_PREFIX = "BENCH-";
+    private static final int WARMUP_RUNS = 50;
+    private static final int MEASURED_RUNS = 200;
+    private static final double P95_LIMIT_MS = 10.0;
+
+    private static final String[] KEYWORDS = {
+            "may tinh", "máy tính", "laptop gaming", "macbok", "thinkpad", "asus rog",
+            "đồ họa", "van phong", "dell xps", "mong nhe"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SanPhamRepository sanPhamRepository;
+
+    @BeforeAll
+    void seedCatalog() {
+        jdbcTemplate.update("""
+                INSERT INTO san_pham (id, ngay_tao, ngay_cap_nhat, ma_san_pham, ten_san_pham, mo_ta, trang_thai)
+                SELECT nextval('san_pham_id_seq'), now(), now(), ? || g,
+                       (ARRAY['Máy tính xách tay','Laptop gaming','MacBook','ThinkPad','ASUS ROG','Dell XPS','HP Envy','Acer Swift'])[1 + g % 8]
+                           || ' ' || (ARRAY['mỏng nhẹ','văn phòng','đồ họa','sinh viên','cao cấp'])[1 + (g / 8) % 5]
+                           || ' ' || g,
+                       'Cấu hình ' || (ARRAY['Core i5','Core i7','Ryzen 5','Ryzen 7','M3'])[1 + g % 5]
+                           || ', RAM ' || (8 * (1 + g % 4)) || 'GB, màn hình ' || (13 + g % 4) || ' inch',
+                       true
+                FROM generate_series(1, ?) g
+                """, CODE_PREFIX, PRODUCTS);
+        jdbcTemplate.update("""
+                INSERT INTO san_pham_chi_tiet (id, ngay_tao, ngay_cap_nhat, san_pham_id, sku, gia_ban, trang_thai)
+                SELECT nextval('san_pham_chi_tiet_id_seq'), now(), now(), p.id, p.ma_san_pham || '-' || v,
+                       15000000 + (p.id % 40) * 1000000 + v * 500000, true
+                FROM san_pham p CROSS JOIN generate_series(1, ?) v
+                WHERE p.ma_san_pham LIKE ?
+                """, VARIANTS_PER_PRODUCT, CODE_PREFIX + "%");
+        jdbcTemplate.execute("ANALYZE san_pham");
+        jdbcTemplate.execute("ANALYZE san_pham_chi_tiet");
+
+        Integer variants = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM san_pham_chi_tiet WHERE sku LIKE ?", Integer.class, CODE_PREFIX + "%");
+        assertEquals(PRODUCTS * VARIANTS_PER_PRODUCT, variants);
+    }
+
+    @AfterAll
+    void removeCatalog() {
+        jdbcTemplate.update("DELETE FROM san_pham_chi_tiet WHERE sku LIKE ?", CODE_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM san_pham WHERE ma_san_pham LIKE ?", CODE_PREFIX + "%");
+    }
+
+    @Test
+    void rankedSearchP95UnderTenMilliseconds() {
+        double p95 = measureP95(keyword -> sanPhamRepository.searchRanked(keyword, PageRequest.of(0, 20)));
+
+        assertTrue(p95 < P95_LIMIT_MS, "Ranked search p95 should be under " + P95_LIMIT_MS + " ms but was " + p95);
+    }
+
+    @Test
+    void autocompleteP95UnderTenMilliseconds() {
+        double p95 = measureP95(keyword -> sanPhamRepository.suggestProductNames(keyword, 10));
+
+        assertTrue(p95 < P95_LIMIT_MS, "Autocomplete p95 should be under " + P95_LIMIT_MS + " ms but was " + p95);
+    }
+
+    private double measureP95(Consumer<String> search) {
+        List<Double> timings = new ArrayList<>();
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            String keyword = KEYWORDS[run % KEYWORDS.length];
+
+            long start = System.nanoTime();
+            search.accept(keyword);
+            double elapsedMs = (System.nanoTime() - start) / 1_000_000.0;
+
+            if (run >= WARMUP_RUNS) {
+                timings.add(elapsedMs);
+            }
+        }
+        Collections.sort(timings);
+        return timings.get((int) Math.ceil(timings.size() * 0.95) - 1);
+    }
+}
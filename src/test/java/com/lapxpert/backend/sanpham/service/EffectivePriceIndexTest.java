@@ -0,0 +1,194 @@
+package com.lapxpert.backend.sanpham.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lapxpert.backend.common.enums.TrangThaiCampaign;
+import com.lapxpert.backend.sanpham.event.PriceChangeEvent;
+import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for the effective price index: campaign selection and cluster version tracking
+ */
+@ExtendWith(MockitoExtension.class)
+class EffectivePriceIndexTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-19T03:00:00Z");
+    private static final String REMOTE_NODE = "node-remote";
+
+    @Mock
+    private SanPhamChiTietRepository sanPhamChiTietRepository;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private EffectivePriceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EffectivePriceIndex(sanPhamChiTietRepository, redisTemplate, objectMapper);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    // [variantId, giaBan, campaignId, phanTramGiam, ngayBatDau, ngayKetThuc, trangThai]
+    private static Object[] row(long variantId, long giaBan, Long campaignId, Integer phanTramGiam,
+                                Instant ngayBatDau, Instant ngayKetThuc, TrangThaiCampaign trangThai) {
+        return new Object[]{variantId, BigDecimal.valueOf(giaBan), campaignId,
+                phanTramGiam != null ? BigDecimal.valueOf(phanTramGiam) : null, ngayBatDau, ngayKetThuc, trangThai};
+    }
+
+    private String message(long version, String nodeId, Set<Long> variantIds) throws Exception {
+        return objectMapper.writeValueAsString(new EffectivePriceIndex.IndexVersionMessage(version, nodeId, variantIds));
+    }
+
+    private void startAt(long version) {
+        when(valueOperations.get(EffectivePriceIndex.VERSION_KEY)).thenReturn(String.valueOf(version));
+        when(sanPhamChiTietRepository.findPricingRows(any())).thenReturn(new ArrayList<>());
+        index.initialize();
+    }
+
+    // ==================== INDEX ====================
+
+    @Test
+    void testBuildEntries_PicksBestActiveCampaignAndNextBoundary() {
+        Instant endsSoon = NOW.plus(Duration.ofHours(1));
+        Instant endsLater = NOW.plus(Duration.ofDays(2));
+        Instant startsTomorrow = NOW.plus(Duration.ofDays(1));
+
+        var entries = EffectivePriceIndex.buildEntries(List.of(
+                row(1L, 1000, 10L, 10, NOW.minusSeconds(60), endsLater, TrangThaiCampaign.DA_DIEN_RA),
+                row(1L, 1000, 11L, 20, NOW.minusSeconds(60), endsSoon, TrangThaiCampaign.DA_DIEN_RA),
+                row(1L, 1000, 12L, 50, startsTomorrow, endsLater, TrangThaiCampaign.CHUA_DIEN_RA),
+                row(2L, 500, null, null, null, null, null)), NOW);
+
+        EffectivePriceIndex.PriceEntry discounted = entries.get(1L);
+        assertEquals(11L, discounted.getCampaignId());
+        assertEquals(0, new BigDecimal("800").compareTo(discounted.getEffectivePrice()));
+        assertEquals(endsSoon, discounted.getValidUntil());
+
+        EffectivePriceIndex.PriceEntry basePrice = entries.get(2L);
+        assertFalse(basePrice.hasDiscount());
+        assertEquals(0, new BigDecimal("500").compareTo(basePrice.getEffectivePrice()));
+        assertNull(basePrice.getValidUntil());
+    }
+
+    @Test
+    void testLookup_ExpiredEntryIsAMiss() {
+        when(sanPhamChiTietRepository.findPricingRows(any())).thenReturn(List.of(
+                row(1L, 1000, 10L, 10, Instant.now().minusSeconds(60), Instant.now().plusMillis(200),
+                        TrangThaiCampaign.DA_DIEN_RA)));
+        index.rebuild();
+        assertTrue(index.lookup(1L).isPresent());
+
+        await(Instant.now().plusMillis(250));
+        assertTrue(index.lookup(1L).isEmpty());
+    }
+
+    @Test
+    void testChangeListeners_NotifiedByChangesNotByReadPathRefresh() {
+        startAt(4);
+        List<Set<Long>> notified = new ArrayList<>();
+        index.addChangeListener(notified::add);
+
+        index.refreshVariants(List.of(1L));
+        assertTrue(notified.isEmpty());
+
+        when(valueOperations.increment(EffectivePriceIndex.VERSION_KEY)).thenReturn(5L);
+        index.handlePriceChange(PriceChangeEvent.builder().variantId(1L).build());
+        assertEquals(List.of(Set.of(1L)), notified);
+    }
+
+    // ==================== PUB/SUB SYNC ====================
+
+    @Test
+    void testRemoteMessage_RefreshesOnlyItsVariants() throws Exception {
+        startAt(4);
+
+        index.handleIndexVersionMessage(message(5, REMOTE_NODE, Set.of(1L)), EffectivePriceIndex.PRICING_INDEX_CHANNEL);
+
+        verify(sanPhamChiTietRepository).findPricingRowsByVariantIds(eq(List.of(1L)), any());
+        verify(sanPhamChiTietRepository, times(1)).findPricingRows(any());
+        assertEquals(5, index.getClusterVersion());
+    }
+
+    @Test
+    void testRemoteMessage_DuplicateAndOwnMessagesIgnored() throws Exception {
+        startAt(4);
+        when(valueOperations.increment(EffectivePriceIndex.VERSION_KEY)).thenReturn(5L);
+        index.handlePriceChange(PriceChangeEvent.builder().variantId(1L).build());
+        verify(redisTemplate).convertAndSend(eq(EffectivePriceIndex.PRICING_INDEX_CHANNEL), anyString());
+        String ownNode = (String) ReflectionTestUtils.getField(index, "nodeId");
+        index.handleIndexVersionMessage(message(5, ownNode, Set.of(1L)), EffectivePriceIndex.PRICING_INDEX_CHANNEL);
+
+        index.handleIndexVersionMessage(message(6, REMOTE_NODE, Set.of(2L)), EffectivePriceIndex.PRICING_INDEX_CHANNEL);
+        index.handleIndexVersionMessage(message(6, REMOTE_NODE, Set.of(2L)), EffectivePriceIndex.PRICING_INDEX_CHANNEL);
+
+        verify(sanPhamChiTietRepository, times(1)).findPricingRowsByVariantIds(eq(List.of(1L)), any());
+        verify(sanPhamChiTietRepository, times(1)).findPricingRowsByVariantIds(eq(List.of(2L)), any());
+        assertEquals(6, index.getClusterVersion());
+    }
+
+    // ==================== GAP HANDLING ====================
+
+    @Test
+    void testLocalIncrement_DoesNotHideRemoteChangeStillInFlight() throws Exception {
+        startAt(4);
+        // Remote node took version 5, its message is still in flight when the local change takes 6
+        when(valueOperations.increment(EffectivePriceIndex.VERSION_KEY)).thenReturn(6L);
+        index.handlePriceChange(PriceChangeEvent.builder().variantId(1L).build());
+        assertEquals(4, index.getClusterVersion());
+
+        index.handleIndexVersionMessage(message(5, REMOTE_NODE, Set.of(2L)), EffectivePriceIndex.PRICING_INDEX_CHANNEL);
+
+        verify(sanPhamChiTietRepository).findPricingRowsByVariantIds(eq(List.of(2L)), any());
+        assertEquals(6, index.getClusterVersion());
+    }
+
+    @Test
+    void testReconcile_RebuildsWhenAVersionWasLost() throws Exception {
+        startAt(4);
+        // Version 5 is lost, 6 arrives
+        index.handleIndexVersionMessage(message(6, REMOTE_NODE, Set.of(2L)), EffectivePriceIndex.PRICING_INDEX_CHANNEL);
+        assertEquals(4, index.getClusterVersion());
+
+        when(valueOperations.get(EffectivePriceIndex.VERSION_KEY)).thenReturn("6");
+        index.reconcileClusterVersion();
+
+        verify(sanPhamChiTietRepository, times(2)).findPricingRows(any());
+        assertEquals(6, index.getClusterVersion());
+
+        // Nothing missing any more: no further rebuild, late duplicates ignored
+        index.reconcileClusterVersion();
+        index.handleIndexVersionMessage(message(5, REMOTE_NODE, Set.of(3L)), EffectivePriceIndex.PRICING_INDEX_CHANNEL);
+        verify(sanPhamChiTietRepository, times(2)).findPricingRows(any());
+        verify(sanPhamChiTietRepository, never()).findPricingRowsByVariantIds(eq(List.of(3L)), any());
+    }
+
+    private static void await(Instant until) {
+        while (Instant.now().isBefore(until)) {
+            Thread.onSpinWait();
+        }
+    }
+}
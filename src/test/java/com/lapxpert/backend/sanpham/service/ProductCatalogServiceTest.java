@@ -0,0 +1,149 @@
+package com.lapxpert.backend.sanpham.service;
+
+import com.lapxpert.backend.sanpham.dto.CursorPageDto;
+import com.lapxpert.backend.sanpham.dto.ProductCardDto;
+import com.lapxpert.backend.sanpham.entity.sanpham.ProductCardView;
+import com.lapxpert.backend.sanpham.enums.ProductCardSort;
+import com.lapxpert.backend.sanpham.repository.SanPhamRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for the keyset product card listing: page probing and the opaque cursor
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogServiceTest {
+
+    private static final LocalDateTime NGAY_TAO = LocalDateTime.of(2026, 10, 19, 9, 30, 15, 123456000);
+
+    @Mock
+    private SanPhamRepository sanPhamRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @InjectMocks
+    private ProductCatalogService productCatalogService;
+
+    // ==================== PAGING ====================
+
+    @Test
+    void testListCards_ProbesOneExtraRowAndSeeksOnStoredPrice() {
+        // Live price of the last row differs from the stored sort key: the cursor must carry the stored one
+        List<ProductCardView> firstRows = List.of(
+                card(1L, "A", "100.00", "90.00"),
+                card(2L, "B", "200.00", "150.00"),
+                card(3L, "C", "300.00", "300.00"));
+        when(sanPhamRepository.findCardsByPriceAsc(any(), isNull(), isNull(), eq(3))).thenReturn(firstRows);
+
+        CursorPageDto<ProductCardDto> first = productCatalogService.listCards(ProductCardSort.PRICE_ASC, null, 2);
+
+        assertEquals(List.of(1L, 2L), first.getContent().stream().map(ProductCardDto::getId).toList());
+        assertTrue(first.isHasNext());
+        assertNotNull(first.getNextCursor());
+
+        List<ProductCardView> secondRows = List.of(firstRows.get(2));
+        when(sanPhamRepository.findCardsByPriceAsc(any(), eq(new BigDecimal("200.00")), eq(2L), eq(3)))
+                .thenReturn(secondRows);
+
+        CursorPageDto<ProductCardDto> second =
+                productCatalogService.listCards(ProductCardSort.PRICE_ASC, first.getNextCursor(), 2);
+
+        assertEquals(List.of(3L), second.getContent().stream().map(ProductCardDto::getId).toList());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testListCards_TamperedCursorNeverReachesTheDatabase() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productCatalogService.listCards(ProductCardSort.NEWEST, "not a cursor!", 20));
+
+        verifyNoInteractions(sanPhamRepository);
+    }
+
+    // ==================== CURSOR ====================
+
+    @Test
+    void testCursor_RoundTripsEverySortOrder() {
+        ProductCardView last = card(42L, "Laptop | Gaming | 15\"", "25990000.50", "23990000.00");
+
+        for (ProductCardSort sort : ProductCardSort.values()) {
+            ProductCatalogService.CursorPosition position =
+                    ProductCatalogService.decodeCursor(sort, ProductCatalogService.encodeCursor(sort, last));
+
+            assertEquals(42L, position.id(), sort.name());
+            Object expectedKey = switch (sort) {
+                case NEWEST -> NGAY_TAO;
+                case NAME -> "Laptop | Gaming | 15\"";
+                case PRICE_ASC, PRICE_DESC -> new BigDecimal("25990000.50");
+            };
+            assertEquals(expectedKey, position.sortKey(), sort.name());
+        }
+    }
+
+    @Test
+    void testCursor_IsOpaqueUrlSafeText() {
+        String cursor = ProductCatalogService.encodeCursor(ProductCardSort.NAME, card(7L, "Máy tính/ớ?", "1", "1"));
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @Test
+    void testDecodeCursor_RejectsTamperedCursors() {
+        List<String> tampered = List.of(
+                "%%%",                                  // not base64url
+                encode("PRICE_ASC"),                    // no separator
+                encode("PRICE_ASC|100"),                // no id
+                encode("PRICE_ASC|100|abc"),            // id not a number
+                encode("PRICE_ASC|cheap|5"),            // price not a number
+                encode("PRICE_ASC||5"),                 // empty sort key
+                encode("NEWEST|100|5"));                // cursor of another sort order
+
+        for (String cursor : tampered) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> ProductCatalogService.decodeCursor(ProductCardSort.PRICE_ASC, cursor), cursor);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductCatalogService.decodeCursor(ProductCardSort.NEWEST, encode("NEWEST|yesterday|5")));
+
+        // A valid cursor replayed against another sort order is rejected too
+        String priceCursor = ProductCatalogService.encodeCursor(ProductCardSort.PRICE_ASC, card(5L, "A", "100", "100"));
+        assertThrows(IllegalArgumentException.class,
+                () -> ProductCatalogService.decodeCursor(ProductCardSort.PRICE_DESC, priceCursor));
+    }
+
+    @Test
+    void testDecodeCursor_BlankMeansFirstPage() {
+        assertNull(ProductCatalogService.decodeCursor(ProductCardSort.NAME, null));
+        assertNull(ProductCatalogService.decodeCursor(ProductCardSort.NAME, " "));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ProductCardView card(Long id, String tenSanPham, String giaSapXep, String giaThapNhat) {
+        ProductCardView card = mock(ProductCardView.class);
+        lenient().when(card.getId()).thenReturn(id);
+        lenient().when(card.getTenSanPham()).thenReturn(tenSanPham);
+        lenient().when(card.getNgayTao()).thenReturn(NGAY_TAO);
+        lenient().when(card.getGiaSapXep()).thenReturn(new BigDecimal(giaSapXep));
+        lenient().when(card.getGiaThapNhat()).thenReturn(new BigDecimal(giaThapNhat));
+        return card;
+    }
+}
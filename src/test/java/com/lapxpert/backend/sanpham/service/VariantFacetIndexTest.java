@@ -0,0 +1,154 @@
+package com.lapxpert.backend.sanpham.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lapxpert.backend.sanpham.repository.SanPhamChiTietRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for VariantFacetIndex: bitmap filtering, disjunctive facet counts and incremental refresh
+ */
+@ExtendWith(MockitoExtension.class)
+class VariantFacetIndexTest {
+
+    @Mock
+    private SanPhamChiTietRepository sanPhamChiTietRepository;
+
+    @Mock
+    private EffectivePriceIndex effectivePriceIndex;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    private VariantFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new VariantFacetIndex(sanPhamChiTietRepository, effectivePriceIndex, redisTemplate, new ObjectMapper());
+        lenient().when(effectivePriceIndex.lookup(anyLong())).thenReturn(Optional.empty());
+    }
+
+    // [variantId, sanPhamId, thuongHieuId, cpuId, ramId, gpuId, manHinhId, boNhoId, mauSacId, giaBan]
+    private static Object[] row(long variantId, long sanPhamId, long thuongHieuId, long cpuId, long ramId, long giaBan) {
+        return new Object[]{variantId, sanPhamId, thuongHieuId, cpuId, ramId, null, null, null, null,
+                BigDecimal.valueOf(giaBan)};
+    }
+
+    private void buildCatalog() {
+        when(sanPhamChiTietRepository.findFacetRows()).thenReturn(List.of(
+                row(100L, 1L, 5L, 7L, 16L, 16_000_000L),
+                row(101L, 1L, 5L, 8L, 32L, 26_000_000L),
+                row(102L, 2L, 6L, 7L, 16L, 45_000_000L)));
+        when(sanPhamChiTietRepository.findDanhMucRows()).thenReturn(List.of(
+                new Object[]{1L, 10L}, new Object[]{2L, 10L}, new Object[]{2L, 11L}));
+        index.rebuild();
+    }
+
+    @Test
+    void testQuery_FiltersAndCountsDisjunctively() {
+        buildCatalog();
+
+        VariantFacetIndex.FacetResult result = index.query(
+                Map.of(VariantFacetIndex.Facet.RAM, List.of(16L)), null, null, 0, 10);
+
+        assertEquals(List.of(100L, 102L), result.getVariantIds());
+        assertEquals(2, result.getTotalMatches());
+        // RAM counts ignore the RAM selection, other facets respect it
+        assertEquals(Map.of(16L, 2, 32L, 1), result.getFacetCounts().get(VariantFacetIndex.Facet.RAM));
+        assertEquals(Map.of(7L, 2), result.getFacetCounts().get(VariantFacetIndex.Facet.CPU));
+        assertEquals(Map.of(10L, 2, 11L, 1), result.getFacetCounts().get(VariantFacetIndex.Facet.DANH_MUC));
+        assertArrayEquals(new int[]{0, 1, 0, 0, 0, 1}, result.getPriceBucketCounts());
+    }
+
+    @Test
+    void testQuery_PriceRangeAndCategory() {
+        buildCatalog();
+
+        VariantFacetIndex.FacetResult result = index.query(
+                Map.of(VariantFacetIndex.Facet.DANH_MUC, List.of(11L)),
+                BigDecimal.valueOf(20_000_000L), BigDecimal.valueOf(50_000_000L), 0, 10);
+
+        assertEquals(List.of(102L), result.getVariantIds());
+        assertEquals(1, result.getTotalMatches());
+    }
+
+    @Test
+    void testQuery_Pagination() {
+        buildCatalog();
+
+        VariantFacetIndex.FacetResult result = index.query(Map.of(), null, null, 1, 1);
+
+        assertEquals(List.of(101L), result.getVariantIds());
+        assertEquals(3, result.getTotalMatches());
+    }
+
+    @Test
+    void testRefreshProducts_ReplacesVariantsOfChangedProduct() {
+        buildCatalog();
+        when(sanPhamChiTietRepository.findFacetRowsBySanPhamIds(anyList())).thenReturn(List.of(
+                row(100L, 1L, 5L, 9L, 16L, 16_000_000L),
+                row(103L, 1L, 5L, 9L, 8L, 10_000_000L)));
+        when(sanPhamChiTietRepository.findDanhMucRowsBySanPhamIds(anyList())).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 10L}));
+
+        index.refreshProducts(List.of(1L));
+        VariantFacetIndex.FacetResult result = index.query(Map.of(), null, null, 0, 10);
+
+        assertEquals(List.of(100L, 102L, 103L), result.getVariantIds());
+        assertEquals(Map.of(9L, 2, 7L, 1), result.getFacetCounts().get(VariantFacetIndex.Facet.CPU));
+        assertEquals(Map.of(16L, 2, 8L, 1), result.getFacetCounts().get(VariantFacetIndex.Facet.RAM));
+        assertArrayEquals(new int[]{2, 0, 0, 0, 0, 1}, result.getPriceBucketCounts());
+    }
+
+    @Test
+    void testQuery_FilteredListingWithCountsUnderFiveMilliseconds() {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> danhMucRows = new ArrayList<>();
+        for (long sanPhamId = 0; sanPhamId < 10_000; sanPhamId++) {
+            danhMucRows.add(new Object[]{sanPhamId, 1L + random.nextInt(20)});
+        }
+        for (long id = 1; id <= 100_000; id++) {
+            rows.add(new Object[]{id, id / 10, 1L + random.nextInt(30), 1L + random.nextInt(60),
+                    1L + random.nextInt(8), 1L + random.nextInt(40), 1L + random.nextInt(25),
+                    1L + random.nextInt(10), 1L + random.nextInt(15),
+                    BigDecimal.valueOf(10_000_000L + random.nextInt(50_000_000))});
+        }
+        when(sanPhamChiTietRepository.findFacetRows()).thenReturn(rows);
+        when(sanPhamChiTietRepository.findDanhMucRows()).thenReturn(danhMucRows);
+        index.rebuild();
+
+        Map<VariantFacetIndex.Facet, List<Long>> selections = Map.of(
+                VariantFacetIndex.Facet.RAM, List.of(2L, 3L),
+                VariantFacetIndex.Facet.CPU, List.of(5L, 6L, 7L));
+        BigDecimal min = BigDecimal.valueOf(18_000_000L);
+        BigDecimal max = BigDecimal.valueOf(33_000_000L);
+        for (int i = 0; i < 200; i++) {
+            index.query(selections, min, max, 40, 20);
+        }
+
+        int runs = 200;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            index.query(selections, min, max, 40, 20);
+        }
+        double averageMs = (System.nanoTime() - start) / 1_000_000.0 / runs;
+
+        assertTrue(averageMs < 5.0, "Faceted query should average under 5 ms but was " + averageMs);
+    }
+}
@@ -0,0 +1,137 @@
+package com.lapxpert.backend.thongbao.repository;
+
+import com.lapxpert.backend.PostgresRepositoryTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the email queue claim: attempt counting, lease expiry and giving up on rows that crash every sender
+ */
+@PostgresRepositoryTest
+class EmailNguoiNhanRepositoryTest {
+
+    // Far enough back that real queue rows are never due; steps are days so time zone handling cannot blur them
+    private static final Instant NOW = Instant.parse("2000-01-01T00:00:00Z");
+    private static final Duration LEASE = Duration.ofDays(10);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int LIMIT = 50;
+
+    @Autowired
+    private EmailNguoiNhanRepository emailNguoiNhanRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long dotGuiId;
+
+    @BeforeEach
+    void setUp() {
+        dotGuiId = jdbcTemplate.queryForObject(
+                "INSERT INTO email_dot_gui (id, loai_thong_bao, ngon_ngu, tieu_de, noi_dung, so_nguoi_nhan, ngay_tao) " +
+                "VALUES (nextval('email_dot_gui_id_seq'), 'TEST', 'vi', 'Tiêu đề', 'Nội dung', 0, now()) RETURNING id",
+                Long.class);
+    }
+
+    // ==================== CLAIM ====================
+
+    @Test
+    void testClaimDue_CountsTheAttempt() {
+        Long id = recipient("CHO_GUI", 0, NOW.minus(Duration.ofDays(1)));
+
+        assertEquals(1, emailNguoiNhanRepository.claimDue("run-1", NOW, NOW.plus(LEASE), MAX_ATTEMPTS, LIMIT));
+
+        Map<String, Object> row = row(id);
+        assertEquals("DANG_GUI", row.get("trang_thai"));
+        assertEquals("run-1", row.get("ma_xu_ly"));
+        assertEquals(1, row.get("so_lan_thu"));
+    }
+
+    @Test
+    void testClaimDue_ReclaimAfterLeaseExpiryCountsAnotherAttempt() {
+        Long id = recipient("CHO_GUI", 0, NOW.minus(Duration.ofDays(1)));
+        emailNguoiNhanRepository.claimDue("run-1", NOW, NOW.plus(LEASE), MAX_ATTEMPTS, LIMIT);
+
+        // Lease still held by run-1
+        assertEquals(0, emailNguoiNhanRepository.claimDue("run-2", NOW.plus(Duration.ofDays(5)),
+                NOW.plus(Duration.ofDays(5)).plus(LEASE), MAX_ATTEMPTS, LIMIT));
+
+        // run-1 crashed: the row is taken over once the lease ends
+        Instant later = NOW.plus(Duration.ofDays(11));
+        assertEquals(1, emailNguoiNhanRepository.claimDue("run-3", later, later.plus(LEASE), MAX_ATTEMPTS, LIMIT));
+
+        Map<String, Object> row = row(id);
+        assertEquals("run-3", row.get("ma_xu_ly"));
+        assertEquals(2, row.get("so_lan_thu"));
+    }
+
+    @Test
+    void testClaimDue_SkipsRowsOutOfAttemptsAndFinishedRows() {
+        recipient("CHO_GUI", MAX_ATTEMPTS, NOW.minus(Duration.ofDays(1)));
+        recipient("DA_GUI", 1, NOW.minus(Duration.ofDays(1)));
+        recipient("THAT_BAI", MAX_ATTEMPTS, NOW.minus(Duration.ofDays(1)));
+        recipient("CHO_GUI", 0, NOW.plus(Duration.ofDays(1)));
+
+        assertEquals(0, emailNguoiNhanRepository.claimDue("run-1", NOW, NOW.plus(LEASE), MAX_ATTEMPTS, LIMIT));
+    }
+
+    // ==================== DEAD LETTER ====================
+
+    @Test
+    void testDeadLetterExhausted_PoisonRowGivesUpAfterMaxAttempts() {
+        Long id = recipient("CHO_GUI", 0, NOW.minus(Duration.ofDays(1)));
+
+        // Every run crashes while sending, leaving the row claimed until its lease expires
+        Instant runAt = NOW;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            assertEquals(0, emailNguoiNhanRepository.deadLetterExhausted(runAt, MAX_ATTEMPTS, "lease expired"));
+            assertEquals(1, emailNguoiNhanRepository.claimDue("run-" + attempt, runAt, runAt.plus(LEASE),
+                    MAX_ATTEMPTS, LIMIT));
+            runAt = runAt.plus(LEASE).plus(Duration.ofDays(1));
+        }
+
+        // Not while the last lease is still running
+        assertEquals(0, emailNguoiNhanRepository.deadLetterExhausted(runAt.minus(Duration.ofDays(5)), MAX_ATTEMPTS,
+                "lease expired"));
+        assertEquals(1, emailNguoiNhanRepository.deadLetterExhausted(runAt, MAX_ATTEMPTS, "lease expired"));
+        assertEquals(0, emailNguoiNhanRepository.claimDue("run-next", runAt, runAt.plus(LEASE), MAX_ATTEMPTS, LIMIT));
+
+        Map<String, Object> row = row(id);
+        assertEquals("THAT_BAI", row.get("trang_thai"));
+        assertEquals(MAX_ATTEMPTS, row.get("so_lan_thu"));
+        assertNull(row.get("ma_xu_ly"));
+        assertEquals("lease expired", row.get("loi_cuoi"));
+    }
+
+    @Test
+    void testDeadLetterExhausted_KeepsTheLastSendError() {
+        Long id = recipient("DANG_GUI", MAX_ATTEMPTS, NOW.minus(Duration.ofDays(1)));
+        jdbcTemplate.update("UPDATE email_nguoi_nhan SET loi_cuoi = '550 mailbox unavailable' WHERE id = ?", id);
+
+        assertEquals(1, emailNguoiNhanRepository.deadLetterExhausted(NOW, MAX_ATTEMPTS, "lease expired"));
+
+        assertEquals("550 mailbox unavailable", row(id).get("loi_cuoi"));
+    }
+
+    private Map<String, Object> row(Long id) {
+        return jdbcTemplate.queryForMap(
+                "SELECT trang_thai, so_lan_thu, ma_xu_ly, loi_cuoi FROM email_nguoi_nhan WHERE id = ?", id);
+    }
+
+    private Long recipient(String trangThai, int soLanThu, Instant thoiDiemThuTiep) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO email_nguoi_nhan (id, dot_gui_id, email, trang_thai, so_lan_thu, thoi_diem_thu_tiep, ngay_tao) " +
+                "VALUES (nextval('email_nguoi_nhan_id_seq'), ?, ?, ?, ?, ?, now()) RETURNING id",
+                Long.class, dotGuiId, UUID.randomUUID() + "@test.vn", trangThai, soLanThu,
+                Timestamp.from(thoiDiemThuTiep));
+    }
+}
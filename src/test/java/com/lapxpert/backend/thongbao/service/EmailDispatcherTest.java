@@ -0,0 +1,187 @@
+package com.lapxpert.backend.thongbao.service;
+
+import com.lapxpert.backend.common.service.EmailService;
+import com.lapxpert.backend.thongbao.entity.EmailDotGui;
+import com.lapxpert.backend.thongbao.entity.EmailNguoiNhan;
+import com.lapxpert.backend.thongbao.entity.TrangThaiGuiEmail;
+import com.lapxpert.backend.thongbao.repository.EmailNguoiNhanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for the email queue dispatcher, with a mocked JavaMailSender standing in for the SMTP server
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailDispatcherTest {
+
+    @Mock
+    private EmailNguoiNhanRepository repository;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    private final List<SimpleMailMessage> delivered = Collections.synchronizedList(new ArrayList<>());
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "emailSender", mailSender);
+        ReflectionTestUtils.setField(emailService, "configuredSenderEmail", "shop@lapxpert.test");
+
+        // enabled, batch 200, chunks of 2, 2 threads, 1000/s, 3 attempts, 30s base backoff, 1h max
+        dispatcher = new EmailDispatcher(repository, emailService, true, 200, 2, 2, 1000, 3, 30, 3600);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void testDispatchOnce_SendsPerBatchChunksAndRetriesFailedRecipients() throws Exception {
+        EmailDotGui voucher = batch(1L, "Phiếu mới");
+        EmailDotGui campaign = batch(2L, "Đợt giảm giá");
+        // Attempt counts as read back after the claim, which already counted this run
+        List<EmailNguoiNhan> claimed = List.of(
+                row(10L, voucher, "a@test.vn", 1),
+                row(11L, voucher, "b@test.vn", 1),
+                row(12L, voucher, "bad@test.vn", 1),
+                row(13L, campaign, "c@test.vn", 3));
+        when(repository.claimDue(anyString(), any(), any(), eq(3), eq(200))).thenReturn(claimed.size());
+        when(repository.findClaimed(anyString())).thenReturn(claimed);
+        doAnswer(invocation -> {
+            List<SimpleMailMessage> accepted = new ArrayList<>();
+            Map<Object, Exception> failures = new LinkedHashMap<>();
+            List<SimpleMailMessage> messages = new ArrayList<>();
+            for (Object argument : invocation.getArguments()) {
+                if (argument instanceof SimpleMailMessage[] array) {
+                    messages.addAll(List.of(array));
+                } else {
+                    messages.add((SimpleMailMessage) argument);
+                }
+            }
+            for (SimpleMailMessage message : messages) {
+                String to = message.getTo()[0];
+                if (to.startsWith("bad") || to.equals("c@test.vn")) {
+                    failures.put(message, new RuntimeException("550 mailbox unavailable"));
+                } else {
+                    accepted.add(message);
+                }
+            }
+            delivered.addAll(accepted);
+            if (!failures.isEmpty()) {
+                throw new MailSendException(failures);
+            }
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        int claimedCount = dispatcher.dispatchOnce();
+
+        assertEquals(4, claimedCount);
+        // Three chunks: [a, b], [bad] for the voucher batch and [c] for the campaign batch
+        verify(mailSender, times(3)).send(any(SimpleMailMessage[].class));
+        assertEquals(List.of("a@test.vn", "b@test.vn"),
+                delivered.stream().map(message -> message.getTo()[0]).sorted().toList());
+        assertTrue(delivered.stream().allMatch(message -> message.getTo().length == 1));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> sentIds = ArgumentCaptor.forClass(Collection.class);
+        verify(repository).markSent(sentIds.capture(), anyString(), any(), eq(TrangThaiGuiEmail.DA_GUI));
+        assertEquals(List.of(10L, 11L), new ArrayList<>(sentIds.getValue()));
+
+        // First failure goes back to the queue with a backoff, the third one gives up
+        ArgumentCaptor<Instant> nextAttempt = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).recordFailure(eq(12L), anyString(), eq(TrangThaiGuiEmail.CHO_GUI), eq(1),
+                nextAttempt.capture(), contains("550"));
+        assertTrue(nextAttempt.getValue().isAfter(Instant.now().plusSeconds(25)));
+        verify(repository).recordFailure(eq(13L), anyString(), eq(TrangThaiGuiEmail.THAT_BAI), eq(3),
+                any(), contains("550"));
+        assertEquals(new EmailDispatcher.Stats(2, 1, 1), dispatcher.getStats());
+    }
+
+    @Test
+    void testDispatchOnce_NothingDue() throws Exception {
+        when(repository.claimDue(anyString(), any(), any(), anyInt(), anyInt())).thenReturn(0);
+
+        assertEquals(0, dispatcher.dispatchOnce());
+        verify(repository, never()).findClaimed(anyString());
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void testDispatchOnce_GivesUpOnRowsThatCrashedEveryAttempt() throws Exception {
+        when(repository.deadLetterExhausted(any(), eq(3), eq(EmailDispatcher.LEASE_EXPIRED_ERROR))).thenReturn(2);
+        when(repository.claimDue(anyString(), any(), any(), eq(3), anyInt())).thenReturn(0);
+
+        dispatcher.dispatchOnce();
+
+        // Dead-lettered before claiming, so exhausted rows are never handed to a sender again
+        InOrder order = inOrder(repository);
+        order.verify(repository).deadLetterExhausted(any(), eq(3), anyString());
+        order.verify(repository).claimDue(anyString(), any(), any(), eq(3), anyInt());
+        assertEquals(new EmailDispatcher.Stats(0, 0, 2), dispatcher.getStats());
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void testBackoff_GrowsExponentiallyUpToCap() {
+        Duration first = dispatcher.backoff(1);
+        Duration third = dispatcher.backoff(3);
+        Duration capped = dispatcher.backoff(20);
+
+        assertTrue(first.getSeconds() >= 30 && first.getSeconds() <= 36);
+        assertTrue(third.getSeconds() >= 120 && third.getSeconds() <= 144);
+        assertTrue(capped.getSeconds() >= 3600 && capped.getSeconds() <= 4320);
+    }
+
+    @Test
+    void testTokenBucket_RefillsAtConfiguredRate() throws Exception {
+        long[] now = {0L};
+        TokenBucket bucket = new TokenBucket(10, 5, () -> now[0]);
+
+        assertTrue(bucket.tryAcquire(5));
+        assertFalse(bucket.tryAcquire(1));
+        now[0] += Duration.ofMillis(100).toNanos();
+        assertTrue(bucket.tryAcquire(1));
+        assertFalse(bucket.tryAcquire(1));
+    }
+
+    private EmailDotGui batch(Long id, String tieuDe) {
+        return EmailDotGui.builder().id(id).loaiThongBao("TEST").tieuDe(tieuDe).noiDung("Nội dung " + id).build();
+    }
+
+    private EmailNguoiNhan row(Long id, EmailDotGui dotGui, String email, int attempts) {
+        EmailNguoiNhan row = new EmailNguoiNhan();
+        row.setId(id);
+        row.setDotGui(dotGui);
+        row.setEmail(email);
+        row.setTrangThai(TrangThaiGuiEmail.DANG_GUI);
+        row.setSoLanThu(attempts);
+        row.setThoiDiemThuTiep(Instant.now());
+        return row;
+    }
+}
@@ -0,0 +1,68 @@
+package com.lapxpert.backend.websocket.service;
+
+import com.lapxpert.backend.websocket.dto.WebSocketMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the bucketed duplicate filter and the per-node replay check
+ */
+class MessageDeduplicatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // 10s TTL in 10 buckets of 1s, 3 ids per bucket, sequence window of 100
+    private final MessageDeduplicator deduplicator = new MessageDeduplicator(meterRegistry,
+            true, true, 10, 10, 3, 100, 2);
+
+    @Test
+    void testAccept_DropsDuplicateUntilItsBucketExpires() {
+        long now = System.currentTimeMillis();
+
+        assertTrue(deduplicator.accept(message("a", null, null), now));
+        assertFalse(deduplicator.accept(message("a", null, null), now + 5_000));
+        assertTrue(deduplicator.accept(message("a", null, null), now + 11_000));
+
+        assertEquals(1.0, meterRegistry.get("websocket.dedup.dropped").tag("reason", "duplicate")
+                .counter().count());
+    }
+
+    @Test
+    void testAccept_FullBucketStopsRememberingButDelivers() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(deduplicator.accept(message("id-" + i, null, null), now));
+        }
+
+        assertEquals(3, deduplicator.entryCount());
+        assertEquals(3 * MessageDeduplicator.BYTES_PER_ID, deduplicator.estimatedHeapBytes());
+        assertEquals(7.0, meterRegistry.get("websocket.dedup.unrecorded").counter().count());
+        assertEquals(3.0, meterRegistry.get("websocket.dedup.entries").gauge().value());
+    }
+
+    @Test
+    void testAccept_ReplayCheckedPerPublisherNode() {
+        long now = System.currentTimeMillis();
+
+        assertTrue(deduplicator.accept(message("a", 500L, "node-1"), now));
+        // Reordered within the window is still delivered
+        assertTrue(deduplicator.accept(message("b", 450L, "node-1"), now));
+        // Too far behind node-1 is a replay
+        assertFalse(deduplicator.accept(message("c", 400L, "node-1"), now));
+        // Another publisher has its own sequence
+        assertTrue(deduplicator.accept(message("d", 1L, "node-2"), now));
+
+        assertEquals(1.0, meterRegistry.get("websocket.dedup.dropped").tag("reason", "replay")
+                .counter().count());
+    }
+
+    private WebSocketMessage message(String messageId, Long sequenceNumber, String sourceNode) {
+        WebSocketMessage message = new WebSocketMessage();
+        message.setMessageId(messageId);
+        message.setSequenceNumber(sequenceNumber);
+        message.setSourceNode(sourceNode);
+        return message;
+    }
+}